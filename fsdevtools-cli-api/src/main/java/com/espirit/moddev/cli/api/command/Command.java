@@ -44,4 +44,16 @@ import java.util.concurrent.Callable;
  * @author e-Spirit AG
  */
 public interface Command<RESULT_TYPE extends Result> extends Callable<RESULT_TYPE> {
+
+    /**
+     * Checks the command before the execution environment initializes it, e.g. before a FirstSpirit connection is
+     * established. This allows commands to fail fast on invalid input that can be detected offline.
+     * <p>
+     * If a result is returned, the execution environment uses it instead of calling the command.
+     *
+     * @return {@code null} if the command should be executed, otherwise the result of the command
+     */
+    default RESULT_TYPE preflight() {
+        return null;
+    }
 }
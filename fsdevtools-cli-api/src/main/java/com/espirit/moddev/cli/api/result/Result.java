@@ -22,6 +22,10 @@
 
 package com.espirit.moddev.cli.api.result;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
 /**
  * A generic Result interface for arbitrary types. Can be used to
  * distinguish between a successful and non-successful result
@@ -59,4 +63,27 @@ public interface Result<CUSTOM_RESULT_TYPE> {
      * @return an instance of the custom result type or null
      */
     CUSTOM_RESULT_TYPE get();
+
+    /**
+     * Returns the cases of this result for test reports, e.g. one case per element that could not be imported.
+     * By default, a result is a single case named after its class, which failed if this result is an error.
+     *
+     * @return the cases of this result
+     * @see ResultExporter
+     */
+    default List<ResultCase> getCases() {
+        final String name = getClass().getSimpleName();
+        return Collections.singletonList(isError() ? ResultCase.failed(name, getError()) : ResultCase.passed(name));
+    }
+
+    /**
+     * Returns the counts of this result for metrics, e.g. the number of created elements. The names are lower case
+     * words separated by underscores, e.g. {@code created_elements}.
+     *
+     * @return the counts of this result, empty by default
+     * @see ResultExporter
+     */
+    default Map<String, Long> getCounts() {
+        return Collections.emptyMap();
+    }
 }
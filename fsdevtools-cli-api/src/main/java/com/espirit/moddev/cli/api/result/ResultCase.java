@@ -0,0 +1,106 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.result;
+
+/**
+ * A single case of a {@link Result} as it is written to test reports, e.g. an installed module or an element that
+ * could not be imported. A case either passed or failed with a message.
+ *
+ * @author e-Spirit AG
+ */
+public final class ResultCase {
+
+    private final String _name;
+    private final boolean _failed;
+    private final String _message;
+    private final String _type;
+
+    private ResultCase(final String name, final boolean failed, final String message, final String type) {
+        _name = name;
+        _failed = failed;
+        _message = message;
+        _type = type;
+    }
+
+    /**
+     * Creates a case that passed.
+     *
+     * @param name the name of the case
+     * @return the case
+     */
+    public static ResultCase passed(final String name) {
+        return new ResultCase(name, false, null, null);
+    }
+
+    /**
+     * Creates a case that failed.
+     *
+     * @param name    the name of the case
+     * @param message the reason of the failure
+     * @param type    the type of the failure, e.g. the class of an exception
+     * @return the case
+     */
+    public static ResultCase failed(final String name, final String message, final String type) {
+        return new ResultCase(name, true, message, type);
+    }
+
+    /**
+     * Creates a case that failed with the given exception.
+     *
+     * @param name  the name of the case
+     * @param cause the exception the case failed with, may be {@code null}
+     * @return the case
+     */
+    public static ResultCase failed(final String name, final Throwable cause) {
+        if (cause == null) {
+            return failed(name, null, null);
+        }
+        return failed(name, cause.getMessage(), cause.getClass().getName());
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    public boolean isFailed() {
+        return _failed;
+    }
+
+    /**
+     * Returns the reason of the failure.
+     *
+     * @return the message or {@code null}, if the case passed or the failure has no message
+     */
+    public String getMessage() {
+        return _message;
+    }
+
+    /**
+     * Returns the type of the failure.
+     *
+     * @return the type or {@code null}, if the case passed or the failure has no type
+     */
+    public String getType() {
+        return _type;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.result;
+
+import java.io.IOException;
+
+/**
+ * Writes the results of commands to external systems, e.g. test reports of a CI server or the metrics of a
+ * monitoring system. Exporters only use the generic {@link Result} interface, so they work for the results of every
+ * command: the {@link Result#getCases() cases} and the {@link Result#getCounts() counts} of a result.
+ * <p>
+ * Exporters are called by the execution environment after the result has been logged, possibly on another thread
+ * than the command.
+ *
+ * @author e-Spirit AG
+ */
+public interface ResultExporter {
+
+    /**
+     * Exports the given result of a command.
+     *
+     * @param command        the name of the command, e.g. {@code export} or {@code module install}
+     * @param result         the result of the command
+     * @param durationMillis the duration of the command in milliseconds
+     * @throws IOException if the result can not be written
+     */
+    void export(String command, Result<?> result, long durationMillis) throws IOException;
+}
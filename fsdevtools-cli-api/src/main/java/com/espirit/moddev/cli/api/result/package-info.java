@@ -21,7 +21,7 @@
  */
 
 /**
- * This package contains an interface for a generic command result.
+ * This package contains an interface for a generic command result and for exporters of results.
  *
  * @author e-Spirit AG
  */
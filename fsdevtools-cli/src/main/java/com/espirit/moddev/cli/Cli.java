@@ -30,8 +30,16 @@ import com.espirit.moddev.cli.commands.help.DefaultCommand;
 import com.espirit.moddev.cli.commands.help.HelpCommand;
 import com.espirit.moddev.cli.exception.FsLoggingBridge;
 import com.espirit.moddev.cli.exception.SystemExitHandler;
+import com.espirit.moddev.cli.history.RunRecord;
+import com.espirit.moddev.cli.history.RunRecorder;
+import com.espirit.moddev.cli.logging.AsyncOutputAppender;
 import com.espirit.moddev.cli.reflection.CommandUtils;
 import com.espirit.moddev.cli.reflection.GroupUtils;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.espirit.moddev.cli.results.exporters.ResultExporters;
+import com.espirit.moddev.shared.metrics.Counter;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import com.github.rvesse.airline.builder.CliBuilder;
 import de.espirit.common.VersionManager;
 import de.espirit.common.base.Logging;
@@ -61,6 +69,8 @@ import java.util.concurrent.TimeUnit;
 public final class Cli {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Cli.class);
+    private static final Timer COMMAND_TIMER = MetricsRegistry.getDefault().timer("cli_command");
+    private static final Counter COMMAND_FAILURES = MetricsRegistry.getDefault().counter("cli_command_failures");
     private static final Set<Class<? extends Command>> commandClasses = CommandUtils.scanForCommandClasses();
     private static final Set<Class<?>> groupClasses = GroupUtils.scanForGroupClasses();
 
@@ -91,12 +101,15 @@ public final class Cli {
 
     /**
      * The entry point of the cli application. Uses a {@link SystemExitHandler}
-     * in order to exit correctly when called from the command line.
+     * in order to exit correctly when called from the command line. The log output
+     * is written asynchronously, see {@link AsyncOutputAppender}.
      * If you don't want this behaviour, instantiate a cli application programmatically on your own.
      *
      * @param args the input arguments
      */
     public static void main(final String[] args) {
+        // the console must not slow down the command, the handler writes the buffered output before the exit
+        AsyncOutputAppender.install();
         final SystemExitHandler cliEventHandler = new SystemExitHandler();
         try {
             new Cli().execute(args);
@@ -188,9 +201,13 @@ public final class Cli {
     }
 
     /**
-     * Executes an already instantiated command. First, the command
+     * Executes an already instantiated command. First, the command is checked
+     * by its {@link Command#preflight() preflight} - if it returns a result, the
+     * command is not executed. Otherwise the command
      * is used as a configuration object for obtaining a FirstSpirit connection.
-     * Second, the command is executed. Afterwards, the context is closed.
+     * Second, the command is executed. Afterwards, the context is closed and the
+     * run is recorded in the {@link com.espirit.moddev.cli.history.RunHistory history} and the result is exported by
+     * the configured {@link ResultExporters exporters}.
      *
      * Exceptions occurring during context creation or command execution
      * are propagated to registered handlers.
@@ -200,18 +217,61 @@ public final class Cli {
     @SuppressWarnings("squid:S1162")
     public void executeCommand(Command<Result> command) throws Exception {
         LOGGER.info("Executing " + command.getClass().getSimpleName());
+        final RunRecorder recorder = RunRecorder.start(command);
+        final long start = System.nanoTime();
         CliContext context = null;
+        Result result = null;
+        Exception failure = null;
         try {
+            final Result preflightResult = command.preflight();
+            if (preflightResult != null) {
+                result = preflightResult;
+                finished(recorder, RunRecord.Phase.PREFLIGHT);
+                logResult(preflightResult);
+                finished(recorder, RunRecord.Phase.LOG);
+                return;
+            }
+            finished(recorder, RunRecord.Phase.PREFLIGHT);
             context = getCliContextOrNull(command);
-            Result result = command.call();
+            if (recorder != null) {
+                recorder.connected(command, context);
+            }
+            finished(recorder, RunRecord.Phase.CONNECT);
+            result = command.call();
+            finished(recorder, RunRecord.Phase.EXECUTE);
             logResult(result);
+            finished(recorder, RunRecord.Phase.LOG);
         } catch (ClassCastException e) {
             LOGGER.trace("Cannot perform a cast - most likely because the command's call method returns Object as a result, instead of Result.", e);
         } catch (Exception e) {
             LOGGER.error("Exception occurred during context initialization or command execution", e);
+            failure = e;
             throw e;
         } finally {
             closeContext(context);
+            if (recorder != null) {
+                recorder.finish(result);
+            }
+            exportResult(command, result, failure, start);
+            COMMAND_TIMER.record(System.nanoTime() - start);
+            if (failure != null || (result != null && result.isError())) {
+                COMMAND_FAILURES.increment();
+            }
+        }
+    }
+
+    private static void exportResult(final Command<?> command, final Result<?> result, final Exception failure, final long start) {
+        final String name = CommandUtils.getCommandName(command.getClass());
+        if (name == null || (result == null && failure == null)) {
+            return;
+        }
+        final Result<?> exported = result != null ? result : new SimpleResult<>(failure);
+        ResultExporters.getInstance().submit(name, exported, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void finished(final RunRecorder recorder, final RunRecord.Phase phase) {
+        if (recorder != null) {
+            recorder.finished(phase);
         }
     }
 
@@ -24,6 +24,9 @@ package com.espirit.moddev.cli;
 
 import com.espirit.moddev.util.FsUtil;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * Constants that are used in the context of FirstSpirit and the cli classes.
  *
@@ -182,6 +185,16 @@ public enum CliConstants {
         return configValue.equals(value);
     }
 
+    /**
+     * Returns the directory in the home directory of the current user that holds machine-local data of the cli
+     * (e.g. log files).
+     *
+     * @return the fs-cli directory of the current user
+     */
+    public static Path getFsCliHomeDirectory() {
+        return Paths.get(System.getProperty(USER_HOME.value()), FS_CLI_DIR.value());
+    }
+
     /**
      * Access value as String.
      *
@@ -27,6 +27,8 @@ import com.espirit.moddev.cli.api.configuration.Config;
 import com.espirit.moddev.cli.exception.CliError;
 import com.espirit.moddev.cli.exception.CliException;
 import com.espirit.moddev.shared.StringUtils;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 
 import de.espirit.firstspirit.access.AdminService;
 import de.espirit.firstspirit.access.Connection;
@@ -56,6 +58,9 @@ import java.util.Map;
 public class CliContextImpl implements CliContext {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CliContextImpl.class);
+    private static final Timer CONNECT_TIMER = MetricsRegistry.getDefault().timer("cli_connect");
+    private static final Timer PROJECT_LOAD_TIMER = MetricsRegistry.getDefault().timer("cli_project_load");
+    private static final Timer BROKER_LOOKUP_TIMER = MetricsRegistry.getDefault().timer("cli_broker_lookup");
 
     private final Map<String, Object> properties;
     private final Config clientConfig;
@@ -88,7 +93,7 @@ public class CliContextImpl implements CliContext {
         } catch (RuntimeException e) {
             throw new CliException(CliError.UNEXPECTED, clientConfig, e);
         }
-        try {
+        try (Timer.Context ignored = CONNECT_TIMER.time()) {
             connection.connect();
         } catch (MaximumNumberOfSessionsExceededException e) {
             throw new CliException(CliError.SESSIONS, clientConfig, e);
@@ -114,7 +119,7 @@ public class CliContextImpl implements CliContext {
         } else {
             LOGGER.debug("Require project specific specialist broker for project '{}'...", projectName);
 
-            try {
+            try (Timer.Context ignored = PROJECT_LOAD_TIMER.time()) {
                 loadProject(projectName);
             } catch (Exception e) { //NOSONAR
                 LOGGER.info("Can't load project {}. Not going to require a broker.", projectName);
@@ -122,9 +127,11 @@ public class CliContextImpl implements CliContext {
             }
 
             if(project != null) {
-                final SpecialistsBroker broker = connection.getBroker();
-                final BrokerAgent brokerAgent = broker.requireSpecialist(BrokerAgent.TYPE);
-                projectBroker = brokerAgent.getBrokerByProjectName(project.getName());
+                try (Timer.Context ignored = BROKER_LOOKUP_TIMER.time()) {
+                    final SpecialistsBroker broker = connection.getBroker();
+                    final BrokerAgent brokerAgent = broker.requireSpecialist(BrokerAgent.TYPE);
+                    projectBroker = brokerAgent.getBrokerByProjectName(project.getName());
+                }
             } else {
                 LOGGER.info("Project not available, so no project specific broker is required");
             }
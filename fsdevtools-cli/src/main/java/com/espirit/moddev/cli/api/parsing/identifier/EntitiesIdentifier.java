@@ -54,6 +54,15 @@ public class EntitiesIdentifier implements Identifier {
         this.uid = uid;
     }
 
+    /**
+     * Returns the uid of the Content2 object.
+     *
+     * @return the uid of the Content2 object
+     */
+    public String getUid() {
+        return uid;
+    }
+
     @Override
     public void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation) {
         ContentStoreRoot store = (ContentStoreRoot) storeAgent.getStore(Store.Type.CONTENTSTORE, useReleaseState);
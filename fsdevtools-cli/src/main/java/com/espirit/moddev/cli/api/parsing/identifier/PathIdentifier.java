@@ -3,6 +3,7 @@ package com.espirit.moddev.cli.api.parsing.identifier;
 import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
 import de.espirit.common.tools.Objects;
 import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
 import de.espirit.firstspirit.agency.StoreAgent;
 import de.espirit.firstspirit.store.access.nexport.ExportUtil;
 import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
@@ -16,6 +17,8 @@ public class PathIdentifier implements Identifier {
 
     protected static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(PathIdentifier.class);
     private String _path;
+    private Store.Type _preResolvedStoreType;
+    private long _preResolvedId;
 
     /**
      * Instantiates a new path identifier
@@ -30,9 +33,51 @@ public class PathIdentifier implements Identifier {
     }
 
 
+    /**
+     * Sets the element this path has been resolved to offline, e.g. by an index of the synchronization directory.
+     * The export fetches the element by its id instead of walking the path, as long as the element still matches
+     * the last segment of the path.
+     *
+     * @param storeType the store of the element
+     * @param id        the node id of the element
+     */
+    public void preResolve(final Store.Type storeType, final long id) {
+        _preResolvedStoreType = storeType;
+        _preResolvedId = id;
+    }
+
+    /**
+     * Returns whether this path has been {@link #preResolve(Store.Type, long) resolved offline}.
+     *
+     * @return whether this path has been resolved offline
+     */
+    public boolean isPreResolved() {
+        return _preResolvedStoreType != null && _preResolvedId >= 0;
+    }
+
     @Override
     public void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation) {
-        final IDProvider element = ExportUtil.getElementByPath(storeAgent, useReleaseState, _path);
+        addToExportOperation(storeAgent, useReleaseState, exportOperation, null);
+    }
+
+    /**
+     * Adds the element of this path to the given export operation. The path is resolved by the given resolver, which
+     * should be shared by all paths of an operation, so their common folders are listed only once.
+     *
+     * @param storeAgent      the store agent
+     * @param useReleaseState whether to use the release state
+     * @param exportOperation the export operation to add the element to
+     * @param pathResolver    the resolver of the paths of the operation or {@code null}, to resolve this path on its own
+     * @throws IDProviderNotFoundException if the path can not be resolved
+     */
+    public void addToExportOperation(StoreAgent storeAgent, boolean useReleaseState, ExportOperation exportOperation, StoreElementPathResolver pathResolver) {
+        IDProvider element = getPreResolvedElement(storeAgent, useReleaseState);
+        if (element == null && pathResolver != null) {
+            element = pathResolver.resolve(_path);
+        }
+        if (element == null) {
+            element = ExportUtil.getElementByPath(storeAgent, useReleaseState, _path);
+        }
         if(element != null) {
             LOGGER.debug("Adding store element: {}", element);
             exportOperation.addElement(element);
@@ -41,6 +86,24 @@ public class PathIdentifier implements Identifier {
         }
     }
 
+    private IDProvider getPreResolvedElement(final StoreAgent storeAgent, final boolean useReleaseState) {
+        if (!isPreResolved()) {
+            return null;
+        }
+        final IDProvider element = storeAgent.getStore(_preResolvedStoreType, useReleaseState).getStoreElement(_preResolvedId);
+        if (element == null) {
+            return null;
+        }
+        // the offline resolution may be outdated, so the element has to match the last segment of the path
+        final String trimmedPath = _path.endsWith("/") ? _path.substring(0, _path.length() - 1) : _path;
+        final String lastSegment = trimmedPath.substring(trimmedPath.lastIndexOf('/') + 1);
+        if (lastSegment.equalsIgnoreCase(element.getUid()) || lastSegment.equalsIgnoreCase(element.getName())) {
+            LOGGER.debug("Using pre-resolved element {} for path '{}'", _preResolvedId, _path);
+            return element;
+        }
+        return null;
+    }
+
     public String getPath() {
         return _path;
     }
@@ -0,0 +1,270 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Resolves element paths like {@code /PageStore/products/product_1} to store elements and caches the resolved
+ * elements in a trie, so paths with a common prefix share the lookups of their common folders.
+ * <p>
+ * The children of a folder are listed once with a single remote call, so all sibling paths are resolved by that
+ * listing. A path segment matches the uid of a child, or its name if no child has that uid. {@link #resolveAll(Collection)}
+ * walks independent subtrees in parallel.
+ * <p>
+ * The resolver reflects the state of the stores at the time of the first lookup of a folder, so an instance should
+ * not be kept longer than a single operation.
+ *
+ * @author e-Spirit AG
+ */
+public final class StoreElementPathResolver {
+
+    /**
+     * Default number of parallel remote calls while resolving a batch of paths.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private final StoreAgent _storeAgent;
+    private final boolean _useReleaseState;
+    private final int _parallelism;
+    private final ConcurrentMap<Store.Type, Node> _stores = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new resolver with the {@link #DEFAULT_PARALLELISM default parallelism}.
+     *
+     * @param storeAgent      the store agent to get the stores from
+     * @param useReleaseState whether to resolve the paths in the release state
+     */
+    public StoreElementPathResolver(@NotNull final StoreAgent storeAgent, final boolean useReleaseState) {
+        this(storeAgent, useReleaseState, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param storeAgent      the store agent to get the stores from
+     * @param useReleaseState whether to resolve the paths in the release state
+     * @param parallelism     the number of parallel remote calls while resolving a batch of paths
+     */
+    public StoreElementPathResolver(@NotNull final StoreAgent storeAgent, final boolean useReleaseState, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        _storeAgent = storeAgent;
+        _useReleaseState = useReleaseState;
+        _parallelism = parallelism;
+    }
+
+    /**
+     * Resolves a single path. Folders resolved before are taken from the cache.
+     *
+     * @param path the path, starting with the name of the store
+     * @return the element or {@code null}, if the path does not denote an element beneath a store
+     */
+    @Nullable
+    public IDProvider resolve(@NotNull final String path) {
+        final String[] segments = split(path);
+        if (segments.length < 2) {
+            return null;
+        }
+        Node node = getStoreNode(segments[0]);
+        for (int index = 1; index < segments.length && node != null; index++) {
+            node = node.getChild(segments[index]);
+        }
+        return node == null ? null : (IDProvider) node._element;
+    }
+
+    /**
+     * Resolves a batch of paths. The folders of the paths are walked once in parallel, the elements are then taken
+     * from the cache.
+     *
+     * @param paths the paths to resolve
+     * @return the resolved elements by path; paths that could not be resolved are missing
+     */
+    @NotNull
+    public Map<String, IDProvider> resolveAll(@NotNull final Collection<String> paths) {
+        final RequestedSegment requested = new RequestedSegment();
+        for (final String path : paths) {
+            RequestedSegment segment = requested;
+            for (final String name : split(path)) {
+                segment = segment._children.computeIfAbsent(name, key -> new RequestedSegment());
+            }
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(_parallelism);
+        try {
+            final List<ResolveTask> tasks = new ArrayList<>();
+            for (final Map.Entry<String, RequestedSegment> entry : requested._children.entrySet()) {
+                final Node storeNode = getStoreNode(entry.getKey());
+                if (storeNode != null) {
+                    tasks.add(new ResolveTask(storeNode, entry.getValue()));
+                }
+            }
+            for (final ResolveTask task : tasks) {
+                pool.execute(task);
+            }
+            for (final ResolveTask task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        final Map<String, IDProvider> elements = new LinkedHashMap<>();
+        for (final String path : paths) {
+            final IDProvider element = resolve(path);
+            if (element != null) {
+                elements.put(path, element);
+            }
+        }
+        return elements;
+    }
+
+    @Nullable
+    private Node getStoreNode(@NotNull final String storeName) {
+        final Store.Type storeType = SyncDirectoryLayout.getStoreType(storeName);
+        if (storeType == null) {
+            return null;
+        }
+        return _stores.computeIfAbsent(storeType, type -> new Node(_storeAgent.getStore(type, _useReleaseState)));
+    }
+
+    @NotNull
+    private static String[] split(@NotNull final String path) {
+        final String normalized = SyncDirectoryLayout.normalizePath(path);
+        return normalized.isEmpty() ? new String[0] : normalized.split(String.valueOf(SyncDirectoryLayout.SEPARATOR));
+    }
+
+    /**
+     * A resolved element in the trie. The children are listed on first access.
+     */
+    private static final class Node {
+
+        private final StoreElement _element;
+        private volatile Map<String, Node> _children;
+
+        private Node(@NotNull final StoreElement element) {
+            _element = element;
+        }
+
+        @Nullable
+        private Node getChild(@NotNull final String segment) {
+            return getChildren().get(segment);
+        }
+
+        @NotNull
+        private Map<String, Node> getChildren() {
+            Map<String, Node> children = _children;
+            if (children == null) {
+                synchronized (this) {
+                    children = _children;
+                    if (children == null) {
+                        children = listChildren();
+                        _children = children;
+                    }
+                }
+            }
+            return children;
+        }
+
+        @NotNull
+        private Map<String, Node> listChildren() {
+            final List<Node> nodes = new ArrayList<>();
+            for (final IDProvider child : _element.getChildren(IDProvider.class)) {
+                nodes.add(new Node(child));
+            }
+            final Map<String, Node> children = new HashMap<>();
+            for (final Node node : nodes) {
+                final String name = node._element.getName();
+                if (name != null) {
+                    children.putIfAbsent(name, node);
+                }
+            }
+            // uids take precedence over names
+            for (final Node node : nodes) {
+                final String uid = ((IDProvider) node._element).getUid();
+                if (uid != null) {
+                    children.put(uid, node);
+                }
+            }
+            return children;
+        }
+    }
+
+    /**
+     * A segment of the requested paths with the requested segments beneath it.
+     */
+    private static final class RequestedSegment {
+        private final Map<String, RequestedSegment> _children = new LinkedHashMap<>();
+    }
+
+    /**
+     * Lists the children of a resolved element and forks a task for each requested child with requested descendants.
+     */
+    private static final class ResolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Node _node;
+        private final transient RequestedSegment _requested;
+
+        private ResolveTask(@NotNull final Node node, @NotNull final RequestedSegment requested) {
+            _node = node;
+            _requested = requested;
+        }
+
+        @Override
+        protected void compute() {
+            if (_requested._children.isEmpty()) {
+                return;
+            }
+            final List<ResolveTask> subtasks = new ArrayList<>();
+            for (final Map.Entry<String, RequestedSegment> entry : _requested._children.entrySet()) {
+                final Node child = _node.getChild(entry.getKey());
+                if (child != null && !entry.getValue()._children.isEmpty()) {
+                    subtasks.add(new ResolveTask(child, entry.getValue()));
+                }
+            }
+            invokeAll(subtasks);
+        }
+    }
+}
@@ -23,7 +23,13 @@
 package com.espirit.moddev.cli.api.parsing.parser;
 
 import com.espirit.moddev.cli.api.parsing.exceptions.NoSuitableParserRegisteredException;
+import com.espirit.moddev.cli.api.parsing.identifier.EntitiesIdentifier;
 import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.cli.syncdir.IndexEntry;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndex;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -88,6 +94,39 @@ public class RegistryBasedParser implements Parser<Identifier> {
         return result;
     }
 
+    /**
+     * Checks the given identifiers against the offline index of a synchronization directory, so invalid identifiers
+     * can be detected before connecting to FirstSpirit. Path identifiers found in the index are pre-resolved, so
+     * their export does not need to walk the path on the server. Identifiers that can not be checked offline
+     * (e.g. store roots or project properties) are considered valid.
+     * @param identifiers the parsed identifiers to check
+     * @param index the index of the synchronization directory
+     * @return the identifiers that are not contained in the index
+     */
+    public static List<Identifier> validate(List<Identifier> identifiers, SyncDirectoryIndex index) {
+        final List<Identifier> unknownIdentifiers = new ArrayList<>();
+        for (Identifier identifier : identifiers) {
+            boolean known = true;
+            if (identifier instanceof UidIdentifier) {
+                final UidIdentifier uidIdentifier = (UidIdentifier) identifier;
+                known = index.getByUid(uidIdentifier.getUidMapping(), uidIdentifier.getUid()) != null;
+            } else if (identifier instanceof EntitiesIdentifier) {
+                known = index.getByUid(UidMapping.CONTENT2, ((EntitiesIdentifier) identifier).getUid()) != null;
+            } else if (identifier instanceof PathIdentifier) {
+                final PathIdentifier pathIdentifier = (PathIdentifier) identifier;
+                final IndexEntry entry = index.getByPath(pathIdentifier.getPath());
+                known = entry != null;
+                if (known) {
+                    pathIdentifier.preResolve(entry.getStoreType(), entry.getId());
+                }
+            }
+            if (!known) {
+                unknownIdentifiers.add(identifier);
+            }
+        }
+        return unknownIdentifiers;
+    }
+
     /**
      * Indicates if the given input string can be parsed by one of the registered parsers.
      * @param input the string to test applicability for
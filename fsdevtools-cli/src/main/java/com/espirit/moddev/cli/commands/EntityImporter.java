@@ -0,0 +1,299 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.CliContextImpl;
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.cli.syncdir.SchemaDirectory;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryView;
+import com.espirit.moddev.core.SchemaUidToNameBasedLayerMapper;
+
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports the entities of the schemas of a synchronization directory concurrently, after the elements of the sync dir
+ * have been imported without entities.
+ * <p>
+ * The schemas are {@link #plan(List, Function, int) planned} into lanes: schemas that may be imported into the same
+ * database layer share a lane and are imported one after another, the lanes are imported concurrently, each with a
+ * session of its own. Within a lane, the schemas are imported in batches of a limited number of files, each batch by
+ * an import operation of its own, which is a transaction of its own on the server. A batch is imported as a
+ * {@link SyncDirectoryView view} of the sync dir that contains only the directories of its schemas. The details of every
+ * batch are logged as soon as its import has finished.
+ *
+ * @author e-Spirit AG
+ */
+public class EntityImporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntityImporter.class);
+
+    private final ImportCommand _command;
+    private final int _parallelism;
+    private final Object _logLock = new Object();
+
+    /**
+     * Creates a new importer.
+     *
+     * @param command     the command that provides the connection settings and the import options
+     * @param parallelism the number of lanes that are imported concurrently
+     */
+    public EntityImporter(@NotNull final ImportCommand command, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        _command = command;
+        _parallelism = parallelism;
+    }
+
+    /**
+     * Returns the uids of the schemas that have been created by the given import. Only the layers of these schemas have
+     * been assigned by the layer mapping of the import, existing schemas keep the layer they have in the project.
+     *
+     * @param result the result of the import
+     * @return the uids of the created schemas
+     */
+    @NotNull
+    public static Set<String> getCreatedSchemas(@Nullable final ImportOperation.Result result) {
+        final Set<String> uids = new HashSet<>();
+        if (result != null) {
+            for (final BasicElementInfo element : result.getCreatedElements()) {
+                if (SyncDirectoryLayout.getUidMapping(element.getNodeTag()) == UidMapping.SCHEMA && element.getUid() != null) {
+                    uids.add(element.getUid());
+                }
+            }
+        }
+        return uids;
+    }
+
+    /**
+     * Plans the import of the entities of the given schemas.
+     * <p>
+     * Every schema whose layer is {@link SchemaUidToNameBasedLayerMapper#CREATE_NEW created} for it gets a lane of its
+     * own, schemas mapped to the same layer share a lane. Schemas without a known layer may share a layer with any other
+     * schema of that kind, so they share a lane, too. The lanes with the most files come first, so they are started first.
+     *
+     * @param schemas      the schemas to import
+     * @param targetLayers the target layer of each schema uid as given by the layer mapping, {@code null} if unknown
+     * @param batchSize    the maximum number of files of a batch, a schema with more files is a batch of its own; 0 for
+     *                     a batch per schema
+     * @return the lanes
+     */
+    @NotNull
+    public static List<Lane> plan(@NotNull final List<SchemaDirectory> schemas, @NotNull final Function<String, String> targetLayers, final int batchSize) {
+        if (batchSize < 0) {
+            throw new IllegalArgumentException("The batch size must not be negative!");
+        }
+        final Map<String, Lane> lanes = new LinkedHashMap<>();
+        for (final SchemaDirectory schema : schemas) {
+            final String layer = targetLayers.apply(schema.getUid());
+            final String key;
+            if (layer == null) {
+                key = "";
+            } else if (SchemaUidToNameBasedLayerMapper.CREATE_NEW.equals(layer)) {
+                key = "new:" + schema.getUid();
+            } else {
+                key = "layer:" + layer;
+            }
+            lanes.computeIfAbsent(key, ignore -> new Lane(layer)).add(schema, batchSize);
+        }
+        final List<Lane> result = new ArrayList<>(lanes.values());
+        result.sort(Comparator.comparingInt(Lane::getFileCount).reversed());
+        return result;
+    }
+
+    /**
+     * Imports the given lanes of the given sync dir and waits for all imports to finish.
+     *
+     * @param syncDirectory the sync dir
+     * @param lanes         the lanes to import
+     * @throws IllegalStateException if the import of any batch failed
+     */
+    public void importEntities(@NotNull final Path syncDirectory, @NotNull final List<Lane> lanes) {
+        if (lanes.isEmpty()) {
+            return;
+        }
+        LOGGER.info("importing the entities of {} schemas in {} lanes with a parallelism of {}", lanes.stream().mapToInt(lane -> lane.getSchemas().size()).sum(), lanes.size(), _parallelism);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(_parallelism, lanes.size()));
+        final List<String> failedSchemas = new ArrayList<>();
+        try {
+            final List<Future<List<String>>> futures = new ArrayList<>(lanes.size());
+            for (final Lane lane : lanes) {
+                futures.add(executor.submit(() -> importLane(syncDirectory, lane)));
+            }
+            for (int index = 0; index < lanes.size(); index++) {
+                failedSchemas.addAll(getFailedSchemas(lanes.get(index), futures.get(index)));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (!failedSchemas.isEmpty()) {
+            Collections.sort(failedSchemas);
+            throw new IllegalStateException("Import of the entities of " + failedSchemas.size() + " schemas failed: " + String.join(", ", failedSchemas));
+        }
+    }
+
+    @NotNull
+    private static List<String> getFailedSchemas(@NotNull final Lane lane, @NotNull final Future<List<String>> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return lane.getSchemaUids();
+        } catch (final ExecutionException e) {
+            LOGGER.error("Import of the entities of {} failed", lane, e.getCause());
+            return lane.getSchemaUids();
+        }
+    }
+
+    /**
+     * Imports the batches of the given lane one after another with a session of its own.
+     *
+     * @return the uids of the schemas whose import failed
+     */
+    @NotNull
+    @SuppressWarnings("squid:S2221")
+    private List<String> importLane(@NotNull final Path syncDirectory, @NotNull final Lane lane) throws Exception {
+        final List<String> failedSchemas = new ArrayList<>();
+        try (CliContextImpl session = new CliContextImpl(_command)) {
+            final StoreAgent storeAgent = session.requireSpecialist(StoreAgent.TYPE);
+            for (final List<SchemaDirectory> batch : lane.getBatches()) {
+                final List<String> uids = batch.stream().map(SchemaDirectory::getUid).collect(Collectors.toList());
+                final List<String> files = batch.stream().map(SchemaDirectory::getStoreElementFile).collect(Collectors.toList());
+                try (SyncDirectoryView view = SyncDirectoryView.create(syncDirectory, files)) {
+                    LOGGER.info("importing the entities of the schemas {}", uids);
+                    final ImportOperation importOperation = _command.createImportOperation(session);
+                    importOperation.setRevisionComment(_command.getImportComment() + " (entities of " + String.join(", ", uids) + ')');
+                    final ImportOperation.Result result = _command.perform(session, importOperation, view.getDirectory());
+                    // the details are logged while the session is still open, because logging looks up the imported elements
+                    synchronized (_logLock) {
+                        LOGGER.info("Result of the entities of the schemas {}:", uids);
+                        _command.report(storeAgent, result).log();
+                    }
+                } catch (final Exception e) {
+                    LOGGER.error("Import of the entities of the schemas {} failed: {}", uids, e.getMessage(), e);
+                    failedSchemas.addAll(uids);
+                }
+            }
+        }
+        return failedSchemas;
+    }
+
+    /**
+     * Schemas whose entities are imported one after another, because they may be imported into the same layer.
+     */
+    public static final class Lane {
+
+        private final String _layer;
+        private final List<List<SchemaDirectory>> _batches = new ArrayList<>();
+        private int _fileCount;
+        private int _lastBatchFileCount;
+
+        private Lane(@Nullable final String layer) {
+            _layer = layer;
+        }
+
+        private void add(@NotNull final SchemaDirectory schema, final int batchSize) {
+            if (_batches.isEmpty() || batchSize == 0 || _lastBatchFileCount + schema.getFileCount() > batchSize) {
+                _batches.add(new ArrayList<>());
+                _lastBatchFileCount = 0;
+            }
+            _batches.get(_batches.size() - 1).add(schema);
+            _lastBatchFileCount += schema.getFileCount();
+            _fileCount += schema.getFileCount();
+        }
+
+        /**
+         * Returns the target layer of the schemas of this lane.
+         *
+         * @return the layer, {@link SchemaUidToNameBasedLayerMapper#CREATE_NEW} or {@code null}, if the layers of the
+         * schemas are unknown
+         */
+        @Nullable
+        public String getLayer() {
+            return _layer;
+        }
+
+        /**
+         * Returns the batches of this lane in import order, each batch is imported by an import operation of its own.
+         *
+         * @return the batches
+         */
+        @NotNull
+        public List<List<SchemaDirectory>> getBatches() {
+            return Collections.unmodifiableList(_batches);
+        }
+
+        /**
+         * Returns the schemas of all batches of this lane.
+         *
+         * @return the schemas
+         */
+        @NotNull
+        public List<SchemaDirectory> getSchemas() {
+            return _batches.stream().flatMap(List::stream).collect(Collectors.toList());
+        }
+
+        @NotNull
+        private List<String> getSchemaUids() {
+            return getSchemas().stream().map(SchemaDirectory::getUid).collect(Collectors.toList());
+        }
+
+        /**
+         * Returns the number of files of all schemas of this lane.
+         *
+         * @return the number of files
+         */
+        public int getFileCount() {
+            return _fileCount;
+        }
+
+        @Override
+        public String toString() {
+            return (_layer == null ? "unknown layers" : "layer " + _layer) + ' ' + getSchemas();
+        }
+    }
+}
@@ -24,15 +24,33 @@ package com.espirit.moddev.cli.commands;
 
 import com.espirit.moddev.cli.CliConstants;
 import com.espirit.moddev.cli.api.configuration.ImportConfig;
+import com.espirit.moddev.cli.configuration.Workspace;
+import com.espirit.moddev.cli.history.Transfers;
 import com.espirit.moddev.cli.results.ImportResult;
+import com.espirit.moddev.cli.results.WorkspaceImportResult;
+import com.espirit.moddev.cli.results.logging.ResultDetail;
+import com.espirit.moddev.cli.results.logging.ResultReport;
+import com.espirit.moddev.cli.syncdir.ImportBatch;
+import com.espirit.moddev.cli.syncdir.ImportCheckpoint;
+import com.espirit.moddev.cli.syncdir.SchemaDirectory;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryChanges;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndexes;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryManifest;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryValidator;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryView;
+import com.espirit.moddev.cli.syncdir.ValidationReport;
 import com.espirit.moddev.core.SchemaUidToNameBasedLayerMapper;
 import com.espirit.moddev.core.StringPropertiesMap;
+import com.espirit.moddev.shared.metrics.Counter;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import com.github.rvesse.airline.annotations.Command;
 import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.OptionType;
 import com.github.rvesse.airline.annotations.help.Examples;
 
 import de.espirit.firstspirit.agency.OperationAgent;
+import de.espirit.firstspirit.agency.SpecialistsBroker;
 import de.espirit.firstspirit.agency.StoreAgent;
 import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
 import de.espirit.firstspirit.transport.LayerMapper;
@@ -40,6 +58,15 @@ import de.espirit.firstspirit.transport.LayerMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 
 /**
  * Command that executes a FirstSpirit ImportOperation. Uses a FirstSpirit context.
@@ -49,16 +76,33 @@ import org.slf4j.LoggerFactory;
 @Command(name = "import", description = "Imports a FirstSpirit project into a FirstSpirit Server.")
 @Examples(
         examples = {"fs-cli import -lm *:CREATE_NEW", "fs-cli import -lm my_schema:CREATE_NEW", "fs-cli import -lm *:derby_project14747_0",
-        "fs-cli import -lm schema_a:derby_project14747_0,schema_b:derby_project14747_1"},
+        "fs-cli import -lm schema_a:derby_project14747_0,schema_b:derby_project14747_1",
+        "fs-cli import --changed-since origin/master", "fs-cli import --changed-since manifest", "fs-cli import --watch",
+        "fs-cli import --workspace workspace.json --workspaceParallelism 8",
+        "fs-cli import -lm *:CREATE_NEW --entity-parallelism 4 --entity-batch-size 500",
+        "fs-cli import --skip-if-unchanged", "fs-cli import --report-format json --report-file import.json",
+        "fs-cli import --result-detail store"},
         descriptions = 
                 {"Import project and create for every unknown source schema a new target layer (use if uncertain)",
                 "Import project and create for source schema 'my_schema' a new layer",
                 "Import project and redirect every unknown source schema into given target layer. The target layer must be attached to the project! (use with caution)",
-                "Import project and use specified mapping for source schemas and existing target layers. The target layers must be attached to the project! (use with caution)"})
+                "Import project and use specified mapping for source schemas and existing target layers. The target layers must be attached to the project! (use with caution)",
+                "Import only the elements whose files differ from the git revision 'origin/master'",
+                "Import only the elements whose files changed since the last import or export of the sync dir",
+                "Import the elements of every changed file of the sync dir until stopped with Ctrl+C",
+                "Import all projects of the workspace descriptor, 8 projects at a time",
+                "Import project with a new layer per schema and afterwards the entities of 4 schemas at a time, small schemas together up to 500 files per transaction",
+                "Import project unless the same content has already been imported successfully from this machine with the same layer mapping",
+                "Import project and write a json report with a record per imported element and problem to import.json",
+                "Import project and only log the number of imported elements per store and schema and the number of problems"})
 public class ImportCommand extends SimpleCommand<ImportResult> implements ImportConfig {
 
     /** The Constant LOGGER. */
     protected static final Logger LOGGER = LoggerFactory.getLogger(ImportCommand.class);
+    private static final Timer IMPORT_TIMER = MetricsRegistry.getDefault().timer("import_operation");
+    private static final Counter IMPORTED_ELEMENTS = MetricsRegistry.getDefault().counter("import_elements");
+
+    private static final int DEFAULT_WATCH_DEBOUNCE_MILLIS = 1000;
 
     /** The import comment. */
     @Option(name = {"-i", "--import-comment"}, description = "Import comment for FirstSpirit revision")
@@ -78,10 +122,89 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
             type = OptionType.COMMAND)
     private String layerMapping;
 
+    /** The reference for an incremental import. */
+    @Option(name = {"--changed-since"},
+            description = "Imports only the elements whose files changed since the given reference: a git revision of the sync dir, the path of a manifest file or 'manifest' for the manifest of the sync dir, which every import with this option writes and later imports and exports keep up to date. Deleted elements are not removed by an incremental import.",
+            title = "git-ref|manifest")
+    private String changedSince;
+
+    @Option(name = {"--watch"}, description = "Keeps the connection open and continuously imports the elements of changed files of the sync dir. Stop with Ctrl+C.")
+    private boolean watch;
+
+    @Option(name = {"--watchDebounce"}, description = "Period in milliseconds without further file changes before the changes are imported in watch mode (default is " + DEFAULT_WATCH_DEBOUNCE_MILLIS + ").", title = "milliseconds")
+    private int watchDebounce = DEFAULT_WATCH_DEBOUNCE_MILLIS;
+
+    @Option(name = {"--skip-validation"}, description = "Do not validate the files of the sync dir locally before importing them. Malformed xml files and duplicate uids fail the import, missing referenced files and a missing .FirstSpirit directory are only warned about. Incremental imports validate their changed files only.")
+    private boolean skipValidation;
+
+    @Option(name = {"--check-conflicts"}, description = "Aborts the import before anything is uploaded, if elements of the sync dir have been changed on the server since the export. The elements are compared with the current state, which the import writes to, so a sync dir exported with --useReleaseState conflicts with all elements changed since their release.")
+    private boolean checkConflicts;
+
+    @Option(name = {"--conflicts-as-warnings"}, description = "Only reports the conflicts found by --check-conflicts instead of aborting the import")
+    private boolean conflictsAsWarnings;
+
+    @Option(name = {"--progressInterval"}, description = "Interval in seconds of the progress reports on the console during the import, 0 disables the reports (default is " + ImportProgressReporter.DEFAULT_INTERVAL_SECONDS + "). FirstSpirit reports no progress, so the progress is projected from previous reported imports of the project. The sync dir is walked before the import to count its elements.", title = "seconds")
+    private int progressInterval = ImportProgressReporter.DEFAULT_INTERVAL_SECONDS;
+
+    @Option(name = {"--progressFile"}, description = "Continuously writes the projected progress of the import as json to the given file. The sync dir is walked before the import to count its elements.", title = "file")
+    private String progressFile;
+
+    @Option(name = {"--batch-size"}, description = "Imports the sync dir in batches of at most the given number of elements, the template store first and the site store last. Completed batches are recorded in a local checkpoint.", title = "elements")
+    private int batchSize;
+
+    @Option(name = {"--resume"}, description = "Continues a failed import with --batch-size after the batches it has completed without problems")
+    private boolean resume;
+
+    @Option(name = {"--entity-parallelism"}, description = "Imports the entities of the schemas after the other elements, concurrently on the given number of sessions. Schemas are only imported concurrently if the layer mapping assigns them different layers.", title = "sessions")
+    private int entityParallelism;
+
+    @Option(name = {"--entity-batch-size"}, description = "Imports the entities of several schemas with --entity-parallelism in one transaction, up to the given number of files per transaction (default is one transaction per schema)", title = "files")
+    private int entityBatchSize;
+
+    @Option(name = {"--skip-if-unchanged"}, description = "Does not import anything, if the content of the sync dir has already been imported without problems and lost and found elements into the project from this machine with the same layer mapping")
+    private boolean skipIfUnchanged;
+
+    @Option(name = {"--report-format"}, description = "Writes a report with a record per imported element and problem in the given format: 'jsonl' (one json object per line), 'json' or 'text'. Requires --report-file. Only the summary is logged then. Default is 'jsonl'.", title = "jsonl|json|text")
+    private String reportFormat;
+
+    @Option(name = {"--report-file"}, description = "Writes the report of --report-format to the given file", title = "file")
+    private String reportFile;
+
+    @Option(name = {"--result-detail"}, description = "Detail of the logged result: 'summary' (counts only), 'store' (counts per store and schema), 'element' (a line per element and problem) or 'file' (the elements and, with --debug, their files). Default is 'element', or 'file' with --debug.", title = "summary|store|element|file")
+    private String resultDetail;
+
+    @Option(name = {"--workspace"}, description = "Imports every project of the given workspace descriptor from its own sync dir: a json file with an optional 'parallelism' and a list of 'projects', each with a 'project' name, a 'syncDir' relative to the file and an optional 'layerMapping' and 'importComment'", title = "file")
+    private String workspace;
+
+    @Option(name = {"--workspaceParallelism"}, description = "Number of workspace projects that are imported concurrently (default is the parallelism of the workspace descriptor or " + Workspace.DEFAULT_PARALLELISM + ").", title = "projects")
+    private int workspaceParallelism;
+
+    private Workspace workspaceDescriptor;
+
+    private LayerMapper layerMapper;
+
+    private ImportReplayCache replayCache;
+
+    // the fingerprint of the sync dir computed by the preflight with --skip-if-unchanged
+    private String replayFingerprint;
+
+    // the report of the running import, see --report-format
+    private ResultReport resultReport;
+
     public ImportCommand() {
         super();
     }
 
+    /**
+     * A workspace import opens a session per project, so the command itself needs no context.
+     *
+     * @return {@code false} for a workspace import
+     */
+    @Override
+    public boolean needsContext() {
+        return workspace == null;
+    }
+
     @Override
     public boolean isCreatingProjectIfMissing() {
         return !dontCreateProjectIfMissing;
@@ -99,24 +222,569 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
         return importComment;
     }
 
+    /**
+     * Checks the combination of options and validates the files of the sync dir before connecting to FirstSpirit. The
+     * validation is skipped if {@code --skip-validation} is set, incremental imports validate their changed files
+     * later. All problems and warnings are logged, so they can be fixed at once.
+     * With {@code --skip-if-unchanged}, the import is skipped before connecting if the sync dir has already been imported.
+     *
+     * @return {@code null} if the sync dir is valid, a result without details if the import is skipped, otherwise an
+     * error result
+     * @see SyncDirectoryValidator
+     */
+    @Override
+    public ImportResult preflight() {
+        if (batchSize < 0) {
+            return new ImportResult(new IllegalArgumentException("The batch size must not be negative!"));
+        }
+        if (resume && batchSize == 0) {
+            return new ImportResult(new IllegalArgumentException("--resume requires --batch-size."));
+        }
+        if (batchSize > 0 && (changedSince != null || watch)) {
+            return new ImportResult(new IllegalArgumentException("--batch-size can not be combined with --changed-since or --watch."));
+        }
+        if (entityParallelism < 0 || entityBatchSize < 0) {
+            return new ImportResult(new IllegalArgumentException("The entity parallelism and batch size must not be negative!"));
+        }
+        if (entityBatchSize > 0 && entityParallelism == 0) {
+            return new ImportResult(new IllegalArgumentException("--entity-batch-size requires --entity-parallelism."));
+        }
+        if (entityParallelism > 0 && (dontCreateEntities || changedSince != null || watch || batchSize > 0)) {
+            return new ImportResult(new IllegalArgumentException("--entity-parallelism can not be combined with --dont-create-entities, --changed-since, --watch or --batch-size."));
+        }
+        try {
+            getResultDetail();
+            if (ResultReport.isRequested(reportFormat, getReportFile()) && (workspace != null || watch)) {
+                return new ImportResult(new IllegalArgumentException("--report-format and --report-file can not be combined with --workspace or --watch."));
+            }
+        } catch (final IllegalArgumentException e) {
+            return new ImportResult(e);
+        }
+        if (skipIfUnchanged && (changedSince != null || watch)) {
+            return new ImportResult(new IllegalArgumentException("--skip-if-unchanged can not be combined with --changed-since or --watch."));
+        }
+        if (workspace != null) {
+            return readWorkspace();
+        }
+        final Path syncDirectory = Paths.get(getSynchronizationDirectoryString());
+        if (!Files.isDirectory(syncDirectory)) {
+            // a missing sync dir is reported by the import itself
+            return null;
+        }
+        if (skipIfUnchanged && isUnchanged(syncDirectory)) {
+            LOGGER.info("directory '{}' has already been imported into project '{}' - nothing to import", syncDirectory, getProject());
+            return new ImportResult(null, null);
+        }
+        if (skipValidation || changedSince != null || watch) {
+            // incremental imports only validate the changed files, see validateFiles
+            return null;
+        }
+        final ValidationReport report = new SyncDirectoryValidator(SyncDirectoryValidator.DEFAULT_PARALLELISM).validate(syncDirectory);
+        LOGGER.info("validated {} files of directory '{}' in {} ms", report.getFileCount(), syncDirectory, report.getDurationMillis());
+        final IllegalStateException error = logValidation(report, syncDirectory);
+        return error == null ? null : new ImportResult(error);
+    }
+
+    /**
+     * Validates the given changed files of the sync dir before an incremental import, unless {@code --skip-validation}
+     * is set.
+     *
+     * @param syncDirectory the sync dir
+     * @param files         the sync dir relative paths of the changed files
+     * @throws IllegalStateException if problems have been found
+     */
+    void validateFiles(final Path syncDirectory, final Collection<String> files) {
+        if (skipValidation) {
+            return;
+        }
+        final ValidationReport report = new SyncDirectoryValidator(SyncDirectoryValidator.DEFAULT_PARALLELISM).validate(syncDirectory, files);
+        LOGGER.debug("Validated {} changed files of directory '{}' in {} ms.", report.getFileCount(), syncDirectory, report.getDurationMillis());
+        final IllegalStateException error = logValidation(report, syncDirectory);
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Logs the warnings and problems of the given validation.
+     *
+     * @param report        the report of the validation
+     * @param syncDirectory the validated sync dir
+     * @return the error to fail the import with or {@code null}, if no problems have been found
+     */
+    private static IllegalStateException logValidation(final ValidationReport report, final Path syncDirectory) {
+        for (final ValidationReport.Problem warning : report.getWarnings()) {
+            LOGGER.warn("{}", warning);
+        }
+        if (report.isValid()) {
+            return null;
+        }
+        for (final ValidationReport.Problem problem : report.getProblems()) {
+            LOGGER.error("{}", problem);
+        }
+        return new IllegalStateException(report.getProblems().size() + " problems found in the sync dir '" + syncDirectory + "' - fix them or import with --skip-validation.");
+    }
+
+    /**
+     * Computes the {@link ImportReplayCache#fingerprint(String, String, boolean) fingerprint} of the sync dir and
+     * compares it to the fingerprint of the last successful import of the project. The content hashes of the files are
+     * computed in parallel, files unchanged since the last manifest of the sync dir are not read again.
+     *
+     * @param syncDirectory the sync dir
+     * @return whether the sync dir has already been imported
+     */
+    private boolean isUnchanged(final Path syncDirectory) {
+        if (getProject() == null) {
+            // reported by the import itself
+            return false;
+        }
+        try {
+            final long start = System.currentTimeMillis();
+            final SyncDirectoryManifest manifest = SyncDirectoryManifest.scan(syncDirectory, SyncDirectoryIndexes.readManifest(syncDirectory));
+            replayFingerprint = ImportReplayCache.fingerprint(manifest.getContentHash(), layerMapping, dontCreateEntities);
+            LOGGER.debug("Hashed {} files of directory '{}' in {} ms.", manifest.size(), syncDirectory, System.currentTimeMillis() - start);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Failed to hash directory '{}', importing anyway: {}", syncDirectory, e.getMessage());
+            LOGGER.debug("Failed to hash the sync dir.", e);
+            return false;
+        }
+        return getReplayCache().matches(getReplayKey(), replayFingerprint);
+    }
+
+    /**
+     * Reads the workspace descriptor. The sync dirs of the projects are validated by the preflights of the single
+     * projects.
+     *
+     * @return {@code null} if the workspace can be imported, otherwise an error result
+     */
+    private ImportResult readWorkspace() {
+        if (watch || progressFile != null) {
+            return new WorkspaceImportResult(new IllegalArgumentException("--workspace can not be combined with --watch or --progressFile."));
+        }
+        if (workspaceParallelism < 0) {
+            return new WorkspaceImportResult(new IllegalArgumentException("The workspace parallelism must not be negative!"));
+        }
+        try {
+            workspaceDescriptor = Workspace.read(Paths.get(workspace));
+        } catch (final IOException | IllegalArgumentException e) {
+            return new WorkspaceImportResult(e);
+        }
+        return null;
+    }
+
     @Override
     public ImportResult call() {
+        if (workspaceDescriptor != null) {
+            final int parallelism = workspaceParallelism > 0 ? workspaceParallelism : workspaceDescriptor.getParallelism();
+            // created before the projects are imported concurrently, so all projects share one cache
+            getReplayCache();
+            return new WorkspaceImporter(this, workspaceDescriptor, parallelism).importProjects();
+        }
+        // the state of the project is unknown from now on, until a full import succeeds
+        getReplayCache().forget(getReplayKey());
+        if (watch) {
+            try {
+                return new ImportWatcher(this, watchDebounce).watch();
+            } catch (final IllegalArgumentException e) {
+                return new ImportResult(e);
+            }
+        }
+        try (ResultReport report = ResultReport.open(reportFormat, getReportFile())) {
+            resultReport = report;
+            return importSyncDirectory();
+        } catch (final IOException e) {
+            return new ImportResult(new IOException("Failed to write the import report: " + e.getMessage(), e));
+        } finally {
+            resultReport = null;
+        }
+    }
+
+    /**
+     * Imports the sync dir completely, in batches or incrementally according to the options of this command.
+     *
+     * @return the result of the import
+     */
+    private ImportResult importSyncDirectory() {
         LOGGER.info("Importing...");
         try {
-            final OperationAgent operationAgent = getContext().requireSpecialist(OperationAgent.TYPE);
-            final ImportOperation importOperation = operationAgent.getOperation(ImportOperation.TYPE);
-            importOperation.setIgnoreEntities(dontCreateEntities);
-            importOperation.setRevisionComment(getImportComment());
-            importOperation.setLayerMapper(configureLayerMapper());
             final String syncDirStr = getSynchronizationDirectoryString();
-            LOGGER.info("importing from directory '{}'", syncDirStr);
-            final ImportOperation.Result result = importOperation.perform(getSynchronizationDirectory(syncDirStr));
-            return new ImportResult(getContext().requireSpecialist(StoreAgent.TYPE), result);
+            if (batchSize > 0) {
+                return importBatches(Paths.get(syncDirStr));
+            }
+            final ImportOperation importOperation = createImportOperation();
+            final ImportOperation.Result result;
+            if (changedSince == null) {
+                LOGGER.info("importing from directory '{}'", syncDirStr);
+                checkConflicts(Paths.get(syncDirStr), null);
+                if (entityParallelism > 0) {
+                    // the entities are imported per schema afterwards
+                    importOperation.setIgnoreEntities(true);
+                }
+                result = perform(importOperation, Paths.get(syncDirStr));
+                SyncDirectoryIndexes.updateAfterImport(Paths.get(syncDirStr), result);
+                updateManifest(Paths.get(syncDirStr));
+                if (entityParallelism > 0) {
+                    importEntities(Paths.get(syncDirStr), result);
+                }
+                recordReplayFingerprint(isComplete(result));
+            } else {
+                result = importChanges(importOperation, syncDirStr);
+            }
+            return report(getContext().requireSpecialist(StoreAgent.TYPE), result);
         } catch (@SuppressWarnings("squid:S2221") final Exception e) {
             return new ImportResult(e);
         }
     }
 
+    /**
+     * Records the fingerprint of the sync dir after a full import, if it has been computed by the preflight with
+     * {@code --skip-if-unchanged}. A partly failed import is not recorded, so a retry imports the sync dir again.
+     *
+     * @param complete whether all elements have been imported, see {@link #isComplete(ImportOperation.Result)}
+     */
+    private void recordReplayFingerprint(final boolean complete) {
+        if (replayFingerprint != null && complete) {
+            getReplayCache().record(getReplayKey(), replayFingerprint);
+        }
+    }
+
+    /**
+     * Returns whether the given import has imported all elements: it had no problems and moved no elements to the lost
+     * and found folder.
+     *
+     * @param result the result of the import or {@code null}, if nothing has been imported
+     * @return whether the import is complete
+     */
+    static boolean isComplete(final ImportOperation.Result result) {
+        return result == null || (result.getProblems().isEmpty() && result.getLostAndFoundElements().isEmpty());
+    }
+
+    /**
+     * Creates the result of an import operation, logged with the detail of {@code --result-detail}, and writes its
+     * details to the report of {@code --report-format} and {@code --report-file}, if requested.
+     *
+     * @param storeAgent the store agent of the session of the import
+     * @param result     the result of the import operation or {@code null}, if nothing has been imported
+     * @return the result, which only logs its summary if it has been reported
+     * @throws IOException if the report can not be written
+     * @see ResultReport
+     */
+    ImportResult report(final StoreAgent storeAgent, final ImportOperation.Result result) throws IOException {
+        final ImportResult importResult = new ImportResult(storeAgent, result);
+        importResult.setResultDetail(getResultDetail());
+        if (resultReport != null && result != null) {
+            resultReport.writeImportResult(result);
+            importResult.setDetailsReported(true);
+        }
+        return importResult;
+    }
+
+    /**
+     * Returns the detail of {@code --result-detail} the import results are logged with.
+     *
+     * @return the detail or {@code null} for the default detail
+     * @throws IllegalArgumentException if the detail is unknown
+     */
+    ResultDetail getResultDetail() {
+        return resultDetail == null ? null : ResultDetail.parse(resultDetail);
+    }
+
+    private Path getReportFile() {
+        return reportFile == null ? null : Paths.get(reportFile);
+    }
+
+    private String getReplayKey() {
+        return ImportReplayCache.key(getHost(), getPort(), String.valueOf(getProject()));
+    }
+
+    ImportReplayCache getReplayCache() {
+        if (replayCache == null) {
+            replayCache = ImportReplayCache.forImports();
+        }
+        return replayCache;
+    }
+
+    /**
+     * Sets the cache of the last imports, e.g. a cache in a temporary directory for tests.
+     *
+     * @param replayCache the cache
+     */
+    void setReplayCache(final ImportReplayCache replayCache) {
+        this.replayCache = replayCache;
+    }
+
+    /**
+     * Creates a copy of this command that imports the given project of the workspace. The copy has the connection
+     * settings and import options of this command, the layer mapping and import comment of the project take precedence.
+     *
+     * @param project the project of the workspace
+     * @return the command for the project
+     */
+    ImportCommand createProjectCommand(final Workspace.Project project) {
+        final ImportCommand projectCommand = new ImportCommand();
+        copyConnectionSettingsTo(projectCommand);
+        projectCommand.setProject(project.getName());
+        projectCommand.setSynchronizationDirectory(project.getSynchronizationDirectory().toString());
+        projectCommand.importComment = project.getImportComment() == null ? importComment : project.getImportComment();
+        projectCommand.layerMapping = project.getLayerMapping() == null ? layerMapping : project.getLayerMapping();
+        projectCommand.dontCreateProjectIfMissing = dontCreateProjectIfMissing;
+        projectCommand.dontCreateEntities = dontCreateEntities;
+        projectCommand.changedSince = changedSince;
+        projectCommand.skipValidation = skipValidation;
+        projectCommand.checkConflicts = checkConflicts;
+        projectCommand.conflictsAsWarnings = conflictsAsWarnings;
+        projectCommand.progressInterval = progressInterval;
+        projectCommand.batchSize = batchSize;
+        projectCommand.resume = resume;
+        projectCommand.entityParallelism = entityParallelism;
+        projectCommand.entityBatchSize = entityBatchSize;
+        projectCommand.skipIfUnchanged = skipIfUnchanged;
+        projectCommand.replayCache = getReplayCache();
+        projectCommand.resultDetail = resultDetail;
+        return projectCommand;
+    }
+
+    /**
+     * Creates a new {@link ImportOperation} which is configured according to the options of this command. The
+     * {@link LayerMapper} is configured once and shared by all operations of this command.
+     *
+     * @return the configured import operation
+     */
+    ImportOperation createImportOperation() {
+        return createImportOperation(getContext());
+    }
+
+    /**
+     * Creates a new {@link ImportOperation} of the given broker, e.g. of another session than the context of this
+     * command, which is configured according to the options of this command.
+     *
+     * @param broker the broker to request the operation from
+     * @return the configured import operation
+     */
+    ImportOperation createImportOperation(final SpecialistsBroker broker) {
+        final OperationAgent operationAgent = broker.requireSpecialist(OperationAgent.TYPE);
+        final ImportOperation importOperation = operationAgent.getOperation(ImportOperation.TYPE);
+        importOperation.setIgnoreEntities(dontCreateEntities);
+        importOperation.setRevisionComment(getImportComment());
+        if (layerMapper == null) {
+            layerMapper = configureLayerMapper();
+        }
+        importOperation.setLayerMapper(layerMapper);
+        return importOperation;
+    }
+
+    /**
+     * Imports the sync dir in {@link ImportBatch batches} of {@code --batch-size} elements. Every batch is imported
+     * by its own import operation with the number of the batch appended to the revision comment. Completed batches are
+     * recorded in the {@link ImportCheckpoint checkpoint} of the sync dir, so {@code --resume} skips them unless any of
+     * their files changed since. A batch with import problems is not completed, the import stops after it.
+     *
+     * @param syncDirectory the sync dir
+     * @return a result without details, because the results of all batches have already been logged
+     * @throws IOException           if the sync dir or the checkpoint can not be read or written
+     * @throws IllegalStateException if the import of a batch failed or had problems
+     */
+    private ImportResult importBatches(final Path syncDirectory) throws IOException {
+        final SyncDirectoryManifest manifest = SyncDirectoryManifest.scan(syncDirectory, SyncDirectoryIndexes.readManifest(syncDirectory));
+        final List<ImportBatch> batches = ImportBatch.plan(syncDirectory, batchSize, manifest);
+        final ImportCheckpoint checkpoint = ImportCheckpoint.open(SyncDirectoryIndexes.getCheckpointFile(syncDirectory), resume);
+        final StoreAgent storeAgent = getContext().requireSpecialist(StoreAgent.TYPE);
+        LOGGER.info("importing directory '{}' in {} batches", syncDirectory, batches.size());
+        boolean complete = true;
+        for (int index = 0; index < batches.size(); index++) {
+            final ImportBatch batch = batches.get(index);
+            final String description = "batch " + (index + 1) + '/' + batches.size();
+            if (checkpoint.isCompleted(batch)) {
+                LOGGER.info("skipping {}: {} - completed by a previous import", description, batch);
+                // the result of the previous import is unknown
+                complete = false;
+                continue;
+            }
+            LOGGER.info("importing {}: {}", description, batch);
+            final ImportOperation.Result result;
+            try {
+                final ImportOperation importOperation = createImportOperation();
+                importOperation.setRevisionComment(getImportComment() + " (" + description + ')');
+                result = importFiles(importOperation, syncDirectory, batch.getFiles());
+                report(storeAgent, result).log();
+            } catch (@SuppressWarnings("squid:S2221") final Exception e) {
+                throw new IllegalStateException("Import of " + description + " failed - continue with --resume: " + e.getMessage(), e);
+            }
+            if (result != null && !result.getProblems().isEmpty()) {
+                // the batch stays pending, so --resume imports it again
+                throw new IllegalStateException("Import of " + description + " had " + result.getProblems().size() + " problems - fix them and continue with --resume.");
+            }
+            complete &= isComplete(result);
+            checkpoint.markCompleted(batch);
+        }
+        checkpoint.delete();
+        updateManifest(syncDirectory);
+        recordReplayFingerprint(complete);
+        return new ImportResult(storeAgent, null);
+    }
+
+    /**
+     * Imports the entities of the schemas of the sync dir with {@code --entity-parallelism} sessions after the other
+     * elements have been imported without entities. Only the schemas created by that import have got their layer from
+     * the layer mapping, so only these are imported concurrently if the mapping assigns them different layers.
+     *
+     * @param syncDirectory the sync dir
+     * @param result        the result of the import of the other elements
+     * @throws IOException           if the sync dir can not be read
+     * @throws IllegalStateException if the import of the entities of any schema failed
+     * @see EntityImporter
+     */
+    private void importEntities(final Path syncDirectory, final ImportOperation.Result result) throws IOException {
+        final List<SchemaDirectory> schemas = SchemaDirectory.find(syncDirectory);
+        if (schemas.isEmpty()) {
+            LOGGER.info("no schemas found in directory '{}' - no entities to import", syncDirectory);
+            return;
+        }
+        final Set<String> createdSchemas = EntityImporter.getCreatedSchemas(result);
+        final LayerMapper mapper = layerMapper;
+        final List<EntityImporter.Lane> lanes = EntityImporter.plan(schemas, uid -> createdSchemas.contains(uid) && mapper instanceof SchemaUidToNameBasedLayerMapper
+                ? ((SchemaUidToNameBasedLayerMapper) mapper).getTargetLayer(uid) : null, entityBatchSize);
+        new EntityImporter(this, entityParallelism).importEntities(syncDirectory, lanes);
+    }
+
+    /**
+     * Imports only the elements of the files that changed since {@code --changed-since}.
+     *
+     * @return the result of the import or {@code null}, if no file has changed
+     */
+    private ImportOperation.Result importChanges(final ImportOperation importOperation, final String syncDirStr) throws IOException {
+        final Path syncDirectory = Paths.get(syncDirStr);
+        final SyncDirectoryChanges changes = SyncDirectoryChanges.since(syncDirectory, changedSince);
+        if (!changes.getDeletedFiles().isEmpty()) {
+            LOGGER.warn("{} files have been deleted since '{}' - deleted elements are not removed by an incremental import", changes.getDeletedFiles().size(), changedSince);
+            LOGGER.debug("Deleted files: {}", changes.getDeletedFiles());
+        }
+        if (changes.getChangedFiles().isEmpty()) {
+            LOGGER.info("no files of directory '{}' changed since '{}' - nothing to import", syncDirStr, changedSince);
+            return null;
+        }
+        LOGGER.info("{} files changed since '{}'", changes.getChangedFiles().size(), changedSince);
+        validateFiles(syncDirectory, changes.getChangedFiles());
+        final ImportOperation.Result result = importFiles(importOperation, syncDirectory, changes.getChangedFiles());
+        updateManifest(syncDirectory);
+        return result;
+    }
+
+    /**
+     * Updates the manifest of the sync dir after an import. The manifest is written if {@code --changed-since} or
+     * {@code --skip-if-unchanged} use it, otherwise only an existing manifest is kept up to date.
+     *
+     * @param syncDirectory the imported sync dir
+     */
+    private void updateManifest(final Path syncDirectory) {
+        if (changedSince != null || skipIfUnchanged) {
+            SyncDirectoryIndexes.updateManifest(syncDirectory);
+        } else {
+            SyncDirectoryIndexes.updateManifestIfExists(syncDirectory);
+        }
+    }
+
+    /**
+     * Imports the elements of the given files of the sync dir by importing a {@link SyncDirectoryView view} of the
+     * sync dir with these elements and their parents. The index of the sync dir is updated afterwards, the manifest is
+     * left to the caller, so watch cycles do not walk the whole sync dir.
+     *
+     * @param importOperation the import operation to perform
+     * @param syncDirectory   the sync dir
+     * @param files           the sync dir relative paths of the files
+     * @return the result of the import
+     * @throws IOException if the view of the sync dir can not be created
+     */
+    ImportOperation.Result importFiles(final ImportOperation importOperation, final Path syncDirectory, final Collection<String> files) throws IOException {
+        final ImportOperation.Result result;
+        try (SyncDirectoryView view = SyncDirectoryView.create(syncDirectory, files)) {
+            LOGGER.info("importing {} elements from directory '{}'", view.getElementDirectories().size(), syncDirectory);
+            LOGGER.debug("Changed elements: {}", view.getElementDirectories());
+            checkConflicts(syncDirectory, view.getElementDirectories());
+            result = perform(importOperation, view.getDirectory());
+        }
+        SyncDirectoryIndexes.updateAfterImport(syncDirectory, result);
+        return result;
+    }
+
+    /**
+     * Imports the given directory while its progress is reported. The throughput of a reported import is recorded for
+     * the progress estimates of later imports.
+     *
+     * @param importOperation the import operation to perform
+     * @param directory       the directory to import
+     * @return the result of the import
+     * @throws IOException if the directory can not be read
+     * @see ImportProgressReporter
+     */
+    private ImportOperation.Result perform(final ImportOperation importOperation, final Path directory) throws IOException {
+        final String projectName = getContext().getProject().getName();
+        final Throughput throughput = Throughput.forImports();
+        final Path progressFilePath = progressFile == null ? null : Paths.get(progressFile);
+        try (ImportProgressReporter reporter = new ImportProgressReporter(directory, throughput.getMillisPerElement(projectName), TimeUnit.SECONDS.toMillis(progressInterval), progressFilePath)) {
+            reporter.start();
+            final ImportOperation.Result result;
+            try (Timer.Context ignored = IMPORT_TIMER.time()) {
+                result = importOperation.perform(getSynchronizationDirectory(directory.toString()));
+            }
+            countImportedElements(result);
+            reporter.finished();
+            throughput.record(projectName, reporter.getElementCount(), reporter.getElapsedMillis());
+            Transfers.add(reporter.getFileCount(), reporter.getByteCount());
+            return result;
+        }
+    }
+
+    /**
+     * Imports the given directory with the given broker, e.g. of another session than the context of this command.
+     * Unlike the import of the sync dir, the progress of the import is not reported.
+     *
+     * @param broker          the broker the import operation has been created by
+     * @param importOperation the import operation to perform
+     * @param directory       the directory to import
+     * @return the result of the import
+     */
+    ImportOperation.Result perform(final SpecialistsBroker broker, final ImportOperation importOperation, final Path directory) {
+        final ImportOperation.Result result;
+        try (Timer.Context ignored = IMPORT_TIMER.time()) {
+            result = importOperation.perform(getSynchronizationDirectory(broker, directory.toString()));
+        }
+        countImportedElements(result);
+        return result;
+    }
+
+    private static void countImportedElements(final ImportOperation.Result result) {
+        if (result != null) {
+            IMPORTED_ELEMENTS.add((long) result.getCreatedElements().size() + result.getUpdatedElements().size()
+                    + result.getDeletedElements().size() + result.getMovedElements().size());
+        }
+    }
+
+    /**
+     * Checks the elements for changes on the server since the export, if {@code --check-conflicts} is set.
+     *
+     * @param syncDirectory      the sync dir
+     * @param elementDirectories the sync dir relative paths of the directories of the imported elements or {@code null}
+     *                           for all elements of the sync dir
+     * @throws IOException           if the sync dir can not be read
+     * @throws IllegalStateException if conflicts have been found and they are not reported as warnings only
+     * @see ImportConflictChecker
+     */
+    private void checkConflicts(final Path syncDirectory, final Collection<String> elementDirectories) throws IOException {
+        if (!checkConflicts) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final ImportConflictChecker checker = new ImportConflictChecker(getContext().requireSpecialist(StoreAgent.TYPE), ImportConflictChecker.DEFAULT_PARALLELISM);
+        final List<ImportConflictChecker.Conflict> conflicts = elementDirectories == null ? checker.check(syncDirectory) : checker.check(syncDirectory, elementDirectories);
+        LOGGER.info("checked directory '{}' for conflicts in {} ms", syncDirectory, System.currentTimeMillis() - start);
+        for (final ImportConflictChecker.Conflict conflict : conflicts) {
+            LOGGER.warn("Conflict: {}", conflict);
+        }
+        if (!conflicts.isEmpty() && !conflictsAsWarnings) {
+            throw new IllegalStateException(conflicts.size() + " elements have been changed on the server since the export - import aborted, use --conflicts-as-warnings to import anyway.");
+        }
+    }
 
     private LayerMapper configureLayerMapper() {
         final LayerMapper layerMapper;
@@ -131,6 +799,32 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
         return layerMapper;
     }
 
+    /**
+     * Returns the reference for an incremental import.
+     *
+     * @return the reference or {@code null}, if the whole sync dir is imported
+     */
+    public String getChangedSince() {
+        return changedSince;
+    }
+
+    /**
+     * Sets the reference for an incremental import.
+     *
+     * @param changedSince a git revision, the path of a manifest file or {@link SyncDirectoryChanges#LAST_MANIFEST}
+     */
+    public void setChangedSince(final String changedSince) {
+        this.changedSince = changedSince;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(final boolean watch) {
+        this.watch = watch;
+    }
+
     /**
      * Sets the layer mapping.
      *
@@ -138,6 +832,7 @@ public class ImportCommand extends SimpleCommand<ImportResult> implements Import
      */
     public void setLayerMapping(final String layerMapping) {
         this.layerMapping = layerMapping;
+        this.layerMapper = null;
     }
 
     /**
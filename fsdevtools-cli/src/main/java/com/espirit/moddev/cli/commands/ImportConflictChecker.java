@@ -0,0 +1,248 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.cli.syncdir.StoreElementFile;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Detects elements of a sync dir that have been changed on the server since the sync dir has been exported, so an
+ * import would overwrite these changes.
+ * <p>
+ * The revision of an element at the time of the export is recorded in its
+ * {@link SyncDirectoryLayout#STORE_ELEMENT_FILE store element file}. It is compared with the current revision of the
+ * element with the same uid on the server. Elements without uid or recorded revision and elements that do not exist on
+ * the server can not conflict. The elements are resolved in parallel by a bounded pool of threads.
+ * <p>
+ * Revisions are specific to a project, so the check is only meaningful if the sync dir is imported into the project
+ * it has been exported from. The elements are always resolved in the current state, which is the state an import
+ * writes to. A sync dir exported from the release state therefore conflicts with every element that has been changed
+ * since its release.
+ *
+ * @author e-Spirit AG
+ */
+public class ImportConflictChecker {
+
+    /**
+     * Default number of elements that are resolved in parallel.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportConflictChecker.class);
+
+    private final StoreAgent _storeAgent;
+    private final int _parallelism;
+
+    /**
+     * Creates a new checker.
+     *
+     * @param storeAgent  the store agent used to resolve the elements on the server
+     * @param parallelism the number of elements that are resolved in parallel
+     */
+    public ImportConflictChecker(@NotNull final StoreAgent storeAgent, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        _storeAgent = storeAgent;
+        _parallelism = parallelism;
+    }
+
+    /**
+     * Checks all elements of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the conflicts, sorted by path
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    public List<Conflict> check(@NotNull final Path syncDirectory) throws IOException {
+        final List<String> elementDirectories = new ArrayList<>();
+        Files.walkFileTree(syncDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                final Path fileName = dir.getFileName();
+                if (SyncDirectoryLayout.isIgnoredPath(syncDirectory, dir) || fileName != null && SyncDirectoryLayout.FIRSTSPIRIT_DIRECTORY.equals(fileName.toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (Files.isRegularFile(dir.resolve(SyncDirectoryLayout.STORE_ELEMENT_FILE))) {
+                    elementDirectories.add(SyncDirectoryLayout.toRelativePath(syncDirectory, dir));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return check(syncDirectory, elementDirectories);
+    }
+
+    /**
+     * Checks the given elements of the sync dir.
+     *
+     * @param syncDirectory      the sync dir
+     * @param elementDirectories the sync dir relative paths of the directories of the elements
+     * @return the conflicts, sorted by path
+     * @throws IllegalStateException if an element can not be resolved on the server
+     */
+    @NotNull
+    public List<Conflict> check(@NotNull final Path syncDirectory, @NotNull final Collection<String> elementDirectories) {
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(_parallelism, elementDirectories.size())));
+        try {
+            final List<Future<Conflict>> futures = new ArrayList<>(elementDirectories.size());
+            for (final String elementDirectory : elementDirectories) {
+                futures.add(executor.submit(() -> checkElement(syncDirectory, elementDirectory)));
+            }
+            final List<Conflict> conflicts = new ArrayList<>();
+            for (final Future<Conflict> future : futures) {
+                final Conflict conflict = getConflict(future);
+                if (conflict != null) {
+                    conflicts.add(conflict);
+                }
+            }
+            conflicts.sort(Comparator.comparing(Conflict::getPath));
+            LOGGER.debug("Checked {} elements for conflicts in {}ms", elementDirectories.size(), System.currentTimeMillis() - start);
+            return conflicts;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nullable
+    private static Conflict getConflict(@NotNull final Future<Conflict> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking for conflicts!", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Checking for conflicts failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Nullable
+    private Conflict checkElement(@NotNull final Path syncDirectory, @NotNull final String elementDirectory) throws IOException {
+        final Path file = syncDirectory.resolve(elementDirectory).resolve(SyncDirectoryLayout.STORE_ELEMENT_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        final StoreElementFile storeElementFile = StoreElementFile.read(file);
+        final UidMapping uidMapping = SyncDirectoryLayout.getUidMapping(storeElementFile.getTag());
+        final String uid = storeElementFile.getUid();
+        final long exportedRevision = storeElementFile.getRevision();
+        if (uidMapping == null || uid == null || exportedRevision < 0) {
+            return null;
+        }
+        // imports always write to the current state, never to the release state
+        final IDProvider element = _storeAgent.getStore(uidMapping.getStoreType(), false).getStoreElement(uid, uidMapping.getUidType());
+        if (element == null) {
+            return null;
+        }
+        final long serverRevision = element.getRevision().getId();
+        return serverRevision > exportedRevision ? new Conflict(elementDirectory, uidMapping, uid, exportedRevision, serverRevision) : null;
+    }
+
+    /**
+     * An element that has been changed on the server since the export.
+     */
+    public static final class Conflict {
+
+        private final String _path;
+        private final UidMapping _uidMapping;
+        private final String _uid;
+        private final long _exportedRevision;
+        private final long _serverRevision;
+
+        Conflict(@NotNull final String path, @NotNull final UidMapping uidMapping, @NotNull final String uid, final long exportedRevision, final long serverRevision) {
+            _path = path;
+            _uidMapping = uidMapping;
+            _uid = uid;
+            _exportedRevision = exportedRevision;
+            _serverRevision = serverRevision;
+        }
+
+        /**
+         * Returns the sync dir relative path of the directory of the element.
+         *
+         * @return the path
+         */
+        @NotNull
+        public String getPath() {
+            return _path;
+        }
+
+        @NotNull
+        public UidMapping getUidMapping() {
+            return _uidMapping;
+        }
+
+        @NotNull
+        public String getUid() {
+            return _uid;
+        }
+
+        /**
+         * Returns the revision of the element recorded in the sync dir.
+         *
+         * @return the revision at the time of the export
+         */
+        public long getExportedRevision() {
+            return _exportedRevision;
+        }
+
+        /**
+         * Returns the current revision of the element on the server.
+         *
+         * @return the server revision
+         */
+        public long getServerRevision() {
+            return _serverRevision;
+        }
+
+        @Override
+        public String toString() {
+            return _path + " (" + _uidMapping.getPrefix() + ':' + _uid + "): exported at revision " + _exportedRevision + ", changed on the server at revision " + _serverRevision;
+        }
+    }
+}
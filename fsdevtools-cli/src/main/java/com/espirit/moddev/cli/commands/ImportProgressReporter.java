@@ -0,0 +1,335 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
+import com.espirit.moddev.util.FileUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the progress of an import periodically on the console and optionally as json to a progress file, so long
+ * imports are not silent.
+ * <p>
+ * The import operation of FirstSpirit reports no progress until it has finished. The number of elements, files and
+ * bytes to import are therefore counted in advance, and the processed part is projected from the
+ * {@link Throughput throughput of previous imports} of the project. All projected values are marked as estimated.
+ * The directory is only walked if reports are requested, i.e. with an interval or a progress file, so imports without
+ * reports do not pay for it.
+ *
+ * @author e-Spirit AG
+ */
+public class ImportProgressReporter implements AutoCloseable {
+
+    /**
+     * Default interval of the progress reports in seconds, which disables them.
+     */
+    public static final int DEFAULT_INTERVAL_SECONDS = 0;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportProgressReporter.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path _directory;
+    private final OptionalDouble _millisPerElement;
+    private final long _intervalMillis;
+    private final Path _progressFile;
+    private final Map<Store.Type, Totals> _totalsByStoreType = new EnumMap<>(Store.Type.class);
+    private final Totals _totals = new Totals();
+    private ScheduledExecutorService _scheduler;
+    private long _start;
+    private volatile String _state = "pending";
+
+    /**
+     * Creates a new reporter.
+     *
+     * @param directory        the directory that is imported
+     * @param millisPerElement the average milliseconds per element of previous imports or an empty optional, if unknown
+     * @param intervalMillis   the interval of the console reports in milliseconds, {@code 0} disables the reports
+     * @param progressFile     the file to write the progress to or {@code null}
+     */
+    public ImportProgressReporter(@NotNull final Path directory, @NotNull final OptionalDouble millisPerElement, final long intervalMillis, @Nullable final Path progressFile) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("The progress interval must not be negative!");
+        }
+        _directory = directory;
+        _millisPerElement = millisPerElement;
+        _intervalMillis = intervalMillis;
+        _progressFile = progressFile;
+    }
+
+    /**
+     * Counts the elements, files and bytes of the directory and starts the periodic reports. Without an interval and a
+     * progress file, nothing is counted.
+     *
+     * @throws IOException if the directory can not be read
+     */
+    public synchronized void start() throws IOException {
+        if (isEnabled()) {
+            count();
+            LOGGER.info("importing {} elements ({} files, {} bytes)", _totals._elements, _totals._files, _totals._bytes);
+        }
+        _start = System.currentTimeMillis();
+        _state = "running";
+        writeProgressFile();
+        if (_intervalMillis > 0) {
+            _scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "fs-cli-import-progress");
+                thread.setDaemon(true);
+                return thread;
+            });
+            _scheduler.scheduleAtFixedRate(this::report, _intervalMillis, _intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Marks the import as finished successfully and writes the final progress.
+     */
+    public synchronized void finished() {
+        stop("finished");
+        if (isEnabled()) {
+            LOGGER.info("imported {} elements in {} ms", _totals._elements, getElapsedMillis());
+        }
+    }
+
+    /**
+     * Stops the reports. If the import has not {@link #finished() finished}, it is marked as failed.
+     */
+    @Override
+    public synchronized void close() {
+        if ("running".equals(_state)) {
+            stop("failed");
+        }
+    }
+
+    /**
+     * Returns whether the progress is reported on the console or to a progress file.
+     *
+     * @return whether the progress is reported
+     */
+    public boolean isEnabled() {
+        return _intervalMillis > 0 || _progressFile != null;
+    }
+
+    /**
+     * Returns the number of elements of the imported directory.
+     *
+     * @return the number of elements or {@code 0}, if the progress is not {@link #isEnabled() reported}
+     */
+    public long getElementCount() {
+        return _totals._elements;
+    }
+
+    /**
+     * Returns the number of files of the imported directory.
+     *
+     * @return the number of files or {@code 0}, if the progress is not {@link #isEnabled() reported}
+     */
+    public long getFileCount() {
+        return _totals._files;
+    }
+
+    /**
+     * Returns the size of the files of the imported directory.
+     *
+     * @return the size in bytes or {@code 0}, if the progress is not {@link #isEnabled() reported}
+     */
+    public long getByteCount() {
+        return _totals._bytes;
+    }
+
+    /**
+     * Returns the milliseconds since the start of the import.
+     *
+     * @return the elapsed time
+     */
+    public long getElapsedMillis() {
+        return _start == 0 ? 0 : System.currentTimeMillis() - _start;
+    }
+
+    private void stop(@NotNull final String state) {
+        if (_scheduler != null) {
+            _scheduler.shutdownNow();
+            _scheduler = null;
+        }
+        _state = state;
+        writeProgressFile();
+    }
+
+    private void report() {
+        final long elapsedMillis = getElapsedMillis();
+        if (_millisPerElement.isPresent()) {
+            final double fraction = getEstimatedFraction(elapsedMillis);
+            final long etaMillis = getEtaMillis(elapsedMillis);
+            LOGGER.info("Import running for {}s, projected from previous imports: ~{}/{} elements, ~{}/{} files, ~{}/{} bytes, ETA {}",
+                    TimeUnit.MILLISECONDS.toSeconds(elapsedMillis),
+                    Math.round(fraction * _totals._elements), _totals._elements,
+                    Math.round(fraction * _totals._files), _totals._files,
+                    Math.round(fraction * _totals._bytes), _totals._bytes,
+                    etaMillis < 0 ? "unknown (slower than previous imports)" : TimeUnit.MILLISECONDS.toSeconds(etaMillis) + "s");
+        } else {
+            LOGGER.info("Import running for {}s, importing {} elements ({} files, {} bytes) - no projection before the first reported import of the project has finished",
+                    TimeUnit.MILLISECONDS.toSeconds(elapsedMillis), _totals._elements, _totals._files, _totals._bytes);
+        }
+        writeProgressFile();
+    }
+
+    /**
+     * Returns the projected fraction of the import that has been processed after the given time.
+     *
+     * @param elapsedMillis the milliseconds since the start of the import
+     * @return the fraction between 0 and 1, or 0 if no throughput is known
+     */
+    double getEstimatedFraction(final long elapsedMillis) {
+        if (!_millisPerElement.isPresent() || _totals._elements == 0) {
+            return 0;
+        }
+        final double expectedMillis = _millisPerElement.getAsDouble() * _totals._elements;
+        return expectedMillis <= 0 ? 1 : Math.min(1, elapsedMillis / expectedMillis);
+    }
+
+    /**
+     * Returns the projected remaining time of the import after the given time.
+     *
+     * @param elapsedMillis the milliseconds since the start of the import
+     * @return the remaining milliseconds or {@code -1}, if no throughput is known or the projected time is exceeded
+     */
+    long getEtaMillis(final long elapsedMillis) {
+        if (!_millisPerElement.isPresent()) {
+            return -1;
+        }
+        final long remainingMillis = Math.round(_millisPerElement.getAsDouble() * _totals._elements) - elapsedMillis;
+        return remainingMillis < 0 ? -1 : remainingMillis;
+    }
+
+    /**
+     * Returns the progress after the given time as written to the progress file.
+     *
+     * @param elapsedMillis the milliseconds since the start of the import
+     * @return the progress
+     */
+    @NotNull
+    Map<String, Object> getProgress(final long elapsedMillis) {
+        final boolean done = "finished".equals(_state);
+        final double fraction = done ? 1 : getEstimatedFraction(elapsedMillis);
+        final Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", _state);
+        progress.put("directory", _directory.toString());
+        progress.put("elapsedMillis", elapsedMillis);
+        progress.put("estimated", !done);
+        progress.put("etaMillis", done ? 0 : getEtaMillis(elapsedMillis));
+        progress.put("total", _totals.toMap(fraction));
+        final Map<String, Object> stores = new LinkedHashMap<>();
+        for (final Map.Entry<Store.Type, Totals> entry : _totalsByStoreType.entrySet()) {
+            stores.put(entry.getKey().name(), entry.getValue().toMap(fraction));
+        }
+        progress.put("stores", stores);
+        return progress;
+    }
+
+    private void writeProgressFile() {
+        if (_progressFile == null) {
+            return;
+        }
+        try {
+            // replaced atomically, so readers never see a partially written file
+            final Map<String, Object> progress = getProgress(getElapsedMillis());
+            FileUtil.writeAtomically(_progressFile, writer -> OBJECT_MAPPER.writeValue(writer, progress));
+        } catch (final IOException e) {
+            LOGGER.debug("Failed to write the import progress to '" + _progressFile + "'.", e);
+        }
+    }
+
+    private void count() throws IOException {
+        Files.walkFileTree(_directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                return SyncDirectoryLayout.isIgnoredPath(_directory, dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                final boolean element = SyncDirectoryLayout.STORE_ELEMENT_FILE.equals(file.getFileName().toString());
+                _totals.add(element, attrs.size());
+                final Path relativePath = _directory.relativize(file);
+                if (relativePath.getNameCount() > 1) {
+                    final Store.Type storeType = SyncDirectoryLayout.getStoreType(relativePath.getName(0).toString());
+                    if (storeType != null) {
+                        _totalsByStoreType.computeIfAbsent(storeType, type -> new Totals()).add(element, attrs.size());
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * The number of elements, files and bytes of the imported directory or of one of its stores.
+     */
+    private static final class Totals {
+
+        private long _elements;
+        private long _files;
+        private long _bytes;
+
+        private void add(final boolean element, final long size) {
+            if (element) {
+                _elements++;
+            }
+            _files++;
+            _bytes += size;
+        }
+
+        @NotNull
+        private Map<String, Object> toMap(final double fraction) {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("totalElements", _elements);
+            map.put("processedElements", Math.round(fraction * _elements));
+            map.put("totalFiles", _files);
+            map.put("readFiles", Math.round(fraction * _files));
+            map.put("totalBytes", _bytes);
+            map.put("uploadedBytes", Math.round(fraction * _bytes));
+            return map;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.util.FileUtil;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+/**
+ * Remembers on the local machine what has been imported last into a project, so an import of unchanged content can be
+ * skipped with {@code --skip-if-unchanged}.
+ * <p>
+ * The cache maps the server and project to the {@link #fingerprint(String, String, boolean) fingerprint} of the last
+ * successful full import. The entry is removed before every other import, because the state of the project is unknown
+ * afterwards. Imports from other machines are not known to the cache.
+ * <p>
+ * Updates of the cache are serialized by a lock file next to the cache, so concurrent imports, e.g. of the projects of
+ * a workspace or of separate cli runs, never lose an update.
+ *
+ * @author e-Spirit AG
+ */
+public final class ImportReplayCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportReplayCache.class);
+
+    /**
+     * Name of the import replay file in the fs-cli directory of the user.
+     */
+    public static final String FILE_NAME = "import-replay.properties";
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
+    // a file lock is held per process, so the threads of this process need a lock of their own
+    private static final Object UPDATE_LOCK = new Object();
+
+    private final Path _file;
+
+    /**
+     * Creates a new instance that stores the fingerprints in the given file.
+     *
+     * @param file the replay file, created on first {@link #record(String, String) record}
+     */
+    public ImportReplayCache(@NotNull final Path file) {
+        _file = file;
+    }
+
+    /**
+     * Creates a new instance that stores the fingerprints in the fs-cli directory of the current user.
+     *
+     * @return the import replay cache of the current user
+     * @see CliConstants#getFsCliHomeDirectory()
+     */
+    @NotNull
+    public static ImportReplayCache forImports() {
+        return new ImportReplayCache(CliConstants.getFsCliHomeDirectory().resolve(FILE_NAME));
+    }
+
+    /**
+     * Returns the key of the given project on the given server.
+     *
+     * @param host        the host of the server
+     * @param port        the port of the server
+     * @param projectName the name of the project
+     * @return the key
+     */
+    @NotNull
+    public static String key(@NotNull final String host, final int port, @NotNull final String projectName) {
+        return host + ':' + port + '/' + projectName;
+    }
+
+    /**
+     * Returns the fingerprint of an import: the content of the sync dir and the options that change the imported
+     * elements.
+     *
+     * @param contentHash        the content hash of the sync dir
+     * @param layerMapping       the layer mapping or {@code null}
+     * @param dontCreateEntities whether entities are ignored by the import
+     * @return the fingerprint
+     * @see com.espirit.moddev.cli.syncdir.SyncDirectoryManifest#getContentHash()
+     */
+    @NotNull
+    public static String fingerprint(@NotNull final String contentHash, @Nullable final String layerMapping, final boolean dontCreateEntities) {
+        final String mapping = layerMapping == null ? "" : layerMapping.trim();
+        return contentHash + (dontCreateEntities ? " without entities" : "") + (mapping.isEmpty() ? "" : " mapped by " + mapping);
+    }
+
+    /**
+     * Returns whether the given fingerprint is the fingerprint of the last successful import of the project.
+     *
+     * @param key         the key of the project
+     * @param fingerprint the fingerprint of the next import
+     * @return whether the import would not change the project
+     */
+    public boolean matches(@NotNull final String key, @NotNull final String fingerprint) {
+        try {
+            return fingerprint.equals(load().getProperty(key));
+        } catch (final IOException e) {
+            LOGGER.debug("Failed to read import replay cache '" + _file + "'.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Records the fingerprint of a successful full import of the project.
+     *
+     * @param key         the key of the project
+     * @param fingerprint the fingerprint of the import
+     */
+    public void record(@NotNull final String key, @NotNull final String fingerprint) {
+        try {
+            update(properties -> !fingerprint.equals(properties.setProperty(key, fingerprint)));
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to record the import in '{}': {}", _file, e.getMessage());
+            LOGGER.debug("Failed to record the import.", e);
+        }
+    }
+
+    /**
+     * Removes the fingerprint of the project before an import, because the state of the project is unknown until the
+     * import has succeeded. The cache is only locked and rewritten if it has an entry for the project.
+     *
+     * @param key the key of the project
+     */
+    public void forget(@NotNull final String key) {
+        try {
+            if (!load().containsKey(key)) {
+                return;
+            }
+            update(properties -> properties.remove(key) != null);
+        } catch (final IOException e) {
+            // a stale entry would skip a later import wrongly, so this is more than a debug message
+            LOGGER.warn("Failed to update the import replay cache '{}': {}", _file, e.getMessage());
+            LOGGER.debug("Failed to update the import replay cache.", e);
+        }
+    }
+
+    /**
+     * Loads, modifies and stores the cache while holding the lock of the cache.
+     *
+     * @param modification modifies the loaded properties and returns whether they have changed
+     */
+    private void update(@NotNull final Predicate<Properties> modification) throws IOException {
+        final Path lockFile = _file.resolveSibling(_file.getFileName() + LOCK_FILE_SUFFIX);
+        synchronized (UPDATE_LOCK) {
+            Files.createDirectories(lockFile.toAbsolutePath().getParent());
+            try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                final Properties properties = load();
+                if (modification.test(properties)) {
+                    store(properties);
+                }
+            }
+        }
+    }
+
+    @NotNull
+    private Properties load() throws IOException {
+        final Properties properties = new Properties();
+        if (Files.isRegularFile(_file)) {
+            try (InputStream inputStream = Files.newInputStream(_file)) {
+                properties.load(inputStream);
+            }
+        }
+        return properties;
+    }
+
+    private void store(@NotNull final Properties properties) throws IOException {
+        FileUtil.writeBytesAtomically(_file, outputStream -> properties.store(outputStream, "last imports of fs-cli"));
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.results.ImportResult;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryChanges;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndexes;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
+
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the connection of an import command open and continuously imports the elements of the files that change in
+ * the sync dir.
+ * <p>
+ * The sync dir is watched recursively with a {@link WatchService}. File events are collected until no further event
+ * arrives within the debounce period, so a burst like a git checkout results in a single import of all affected
+ * elements. If the watch service drops events, the changes are determined by comparing the sync dir with its manifest.
+ * Deleted files are reported only, because deleted elements can not be removed by an import of single elements.
+ *
+ * @author e-Spirit AG
+ */
+public class ImportWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportWatcher.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 500;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ImportCommand _command;
+    private final long _debounceMillis;
+    private final Path _syncDirectory;
+    private final Map<WatchKey, Path> _directories = new HashMap<>();
+    private final CountDownLatch _terminated = new CountDownLatch(1);
+    private volatile boolean _running = true;
+
+    /**
+     * Creates a new watcher for the given command.
+     *
+     * @param command        the command that provides the sync dir, the import options and the context
+     * @param debounceMillis the period in milliseconds without file events before changes are imported
+     */
+    public ImportWatcher(@NotNull final ImportCommand command, final long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("The debounce period must not be negative!");
+        }
+        _command = command;
+        _debounceMillis = debounceMillis;
+        _syncDirectory = Paths.get(command.getSynchronizationDirectoryString()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Imports the elements of changed files until the watcher is stopped, either by {@link #stop()} or by terminating
+     * the jvm (e.g. Ctrl+C).
+     *
+     * @return an error result if watching failed, otherwise a result without further details, because the results of
+     * all import cycles have already been logged
+     */
+    @NotNull
+    public ImportResult watch() {
+        final Thread watchThread = Thread.currentThread();
+        final Thread shutdownHook = new Thread(() -> {
+            stop();
+            watchThread.interrupt();
+            awaitTermination();
+        }, "fs-cli-import-watch-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try (WatchService watchService = _syncDirectory.getFileSystem().newWatchService()) {
+            if (!Files.isDirectory(_syncDirectory)) {
+                return new ImportResult(new IllegalArgumentException("The sync dir '" + _syncDirectory + "' does not exist."));
+            }
+            // baseline for the detection of changes after dropped events
+            SyncDirectoryIndexes.updateManifest(_syncDirectory);
+            register(watchService, _syncDirectory, null);
+            LOGGER.info("Watching {} directories of '{}' for changes. Press Ctrl+C to stop.", _directories.size(), _syncDirectory);
+            watchForChanges(watchService);
+            return new ImportResult(_command.getContext().requireSpecialist(StoreAgent.TYPE), null);
+        } catch (final IOException e) {
+            return new ImportResult(e);
+        } finally {
+            _terminated.countDown();
+            removeShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Stops watching after the currently running import cycle.
+     */
+    public void stop() {
+        _running = false;
+    }
+
+    private void watchForChanges(@NotNull final WatchService watchService) {
+        int cycle = 0;
+        try {
+            while (_running) {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    continue;
+                }
+                final long detectionTime = System.currentTimeMillis();
+                final ChangeBatch batch = new ChangeBatch();
+                // debounce: collect events until no further event arrives within the debounce period
+                while (key != null) {
+                    processEvents(watchService, key, batch);
+                    key = watchService.poll(_debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                if (!_running) {
+                    return;
+                }
+                cycle++;
+                runCycle(cycle, batch, detectionTime);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (@SuppressWarnings("squid:S1166") final ClosedWatchServiceException ignore) {
+            // jvm is shutting down
+        }
+    }
+
+    private void runCycle(final int cycle, @NotNull final ChangeBatch batch, final long detectionTime) {
+        final Set<String> changedFiles = new TreeSet<>(batch._changedFiles);
+        final Set<String> deletedFiles = new TreeSet<>(batch._deletedFiles);
+        if (batch._overflow) {
+            LOGGER.info("Import cycle #{}: file events have been dropped, comparing the sync dir with its manifest...", cycle);
+            try {
+                final SyncDirectoryChanges changes = SyncDirectoryChanges.since(_syncDirectory, SyncDirectoryChanges.LAST_MANIFEST);
+                changedFiles.addAll(changes.getChangedFiles());
+                deletedFiles.addAll(changes.getDeletedFiles());
+            } catch (final IOException | IllegalStateException e) {
+                LOGGER.error("Import cycle #{}: failed to determine the changed files - please import the sync dir manually: {}", cycle, e.getMessage());
+                return;
+            }
+        }
+        deletedFiles.removeAll(changedFiles);
+        if (!deletedFiles.isEmpty()) {
+            LOGGER.warn("Import cycle #{}: {} deleted file(s) - deleted elements are not removed in watch mode", cycle, deletedFiles.size());
+            LOGGER.debug("Deleted files: {}", deletedFiles);
+        }
+        if (changedFiles.isEmpty()) {
+            LOGGER.debug("Import cycle #{}: no changed files.", cycle);
+            return;
+        }
+        ImportResult result;
+        try {
+            _command.validateFiles(_syncDirectory, changedFiles);
+            final ImportOperation.Result importResult = _command.importFiles(_command.createImportOperation(), _syncDirectory, changedFiles);
+            result = _command.report(_command.getContext().requireSpecialist(StoreAgent.TYPE), importResult);
+            if (batch._overflow) {
+                // the new baseline for the next dropped events; other cycles do not walk the whole sync dir
+                SyncDirectoryIndexes.updateManifest(_syncDirectory);
+            }
+        } catch (@SuppressWarnings("squid:S2221") final Exception e) {
+            result = new ImportResult(e);
+        }
+        result.log();
+        LOGGER.info("Import cycle #{} finished ({} changed file(s)) - latency: {}ms", cycle, changedFiles.size(), System.currentTimeMillis() - detectionTime);
+    }
+
+    private void processEvents(@NotNull final WatchService watchService, @NotNull final WatchKey key, @NotNull final ChangeBatch batch) {
+        final Path directory = _directories.get(key);
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                batch._overflow = true;
+                continue;
+            }
+            final Path path = directory.resolve((Path) event.context());
+            if (SyncDirectoryLayout.isIgnoredPath(_syncDirectory, path)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                batch._deletedFiles.add(SyncDirectoryLayout.toRelativePath(_syncDirectory, path));
+            } else if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    // the files of a new directory may have been created before it was registered
+                    try {
+                        register(watchService, path, batch);
+                    } catch (final IOException e) {
+                        LOGGER.debug("Failed to watch '{}': {}", path, e.getMessage());
+                        batch._overflow = true;
+                    }
+                }
+            } else {
+                batch._changedFiles.add(SyncDirectoryLayout.toRelativePath(_syncDirectory, path));
+            }
+        }
+        if (!key.reset()) {
+            _directories.remove(key);
+        }
+    }
+
+    private void register(@NotNull final WatchService watchService, @NotNull final Path directory, final ChangeBatch batch) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attributes) throws IOException {
+                if (SyncDirectoryLayout.isIgnoredPath(_syncDirectory, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                final WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                _directories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                if (batch != null) {
+                    batch._changedFiles.add(SyncDirectoryLayout.toRelativePath(_syncDirectory, file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void awaitTermination() {
+        try {
+            if (!_terminated.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Import watch did not terminate within {} seconds.", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void removeShutdownHook(@NotNull final Thread shutdownHook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (@SuppressWarnings("squid:S1166") final IllegalStateException ignore) {
+            // jvm is already shutting down
+        }
+    }
+
+    /**
+     * The file changes collected within a debounce period.
+     */
+    private static final class ChangeBatch {
+        private final Set<String> _changedFiles = new TreeSet<>();
+        private final Set<String> _deletedFiles = new TreeSet<>();
+        private boolean _overflow;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.util.FileUtil;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalDouble;
+import java.util.Properties;
+
+/**
+ * Stores the throughput of previous exports or imports on the local machine, so the duration of future runs can be
+ * projected.
+ * <p>
+ * The throughput is kept per project as an exponentially weighted average of milliseconds per element.
+ * Additionally, an average across all projects is kept as fallback for projects without previous runs.
+ *
+ * @author e-Spirit AG
+ */
+public final class Throughput {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Throughput.class);
+
+    /**
+     * Name of the export throughput file in the fs-cli directory of the user.
+     */
+    public static final String EXPORT_FILE_NAME = "export-throughput.properties";
+
+    /**
+     * Name of the import throughput file in the fs-cli directory of the user.
+     */
+    public static final String IMPORT_FILE_NAME = "import-throughput.properties";
+
+    private static final String ALL_PROJECTS_KEY = "*";
+    private static final String MILLIS_PER_ELEMENT_SUFFIX = ".millisPerElement";
+    private static final String RUNS_SUFFIX = ".runs";
+    // weight of the latest run in the average
+    private static final double WEIGHT = 0.3;
+
+    private final Path _file;
+
+    /**
+     * Creates a new instance that stores the throughput in the given file.
+     *
+     * @param file the throughput file, created on first {@link #record(String, long, long) record}
+     */
+    public Throughput(@NotNull final Path file) {
+        _file = file;
+    }
+
+    /**
+     * Creates a new instance that stores the export throughput in the fs-cli directory of the current user.
+     *
+     * @return the export throughput of the current user
+     * @see CliConstants#getFsCliHomeDirectory()
+     */
+    @NotNull
+    public static Throughput forExports() {
+        return new Throughput(CliConstants.getFsCliHomeDirectory().resolve(EXPORT_FILE_NAME));
+    }
+
+    /**
+     * Creates a new instance that stores the import throughput in the fs-cli directory of the current user.
+     *
+     * @return the import throughput of the current user
+     * @see CliConstants#getFsCliHomeDirectory()
+     */
+    @NotNull
+    public static Throughput forImports() {
+        return new Throughput(CliConstants.getFsCliHomeDirectory().resolve(IMPORT_FILE_NAME));
+    }
+
+    /**
+     * Records the throughput of a finished export or import. Runs without elements are ignored. Failures to write the
+     * throughput file are logged only, because the throughput is a mere optimization of later estimates.
+     *
+     * @param projectName    the name of the project
+     * @param elementCount   the number of exported or imported elements
+     * @param durationMillis the duration of the run in milliseconds
+     */
+    public synchronized void record(@NotNull final String projectName, final long elementCount, final long durationMillis) {
+        if (elementCount <= 0 || durationMillis < 0) {
+            return;
+        }
+        final double millisPerElement = (double) durationMillis / elementCount;
+        try {
+            final Properties properties = load();
+            update(properties, projectName, millisPerElement);
+            update(properties, ALL_PROJECTS_KEY, millisPerElement);
+            store(properties);
+        } catch (final IOException e) {
+            LOGGER.debug("Failed to record throughput in '" + _file + "'.", e);
+        }
+    }
+
+    /**
+     * Returns the average milliseconds per element of the given project. If no run of the project has been recorded
+     * yet, the average of all projects is returned.
+     *
+     * @param projectName the name of the project
+     * @return the average milliseconds per element or an empty optional, if no run has been recorded yet
+     */
+    @NotNull
+    public synchronized OptionalDouble getMillisPerElement(@NotNull final String projectName) {
+        try {
+            final Properties properties = load();
+            final OptionalDouble projectValue = getValue(properties, projectName);
+            return projectValue.isPresent() ? projectValue : getValue(properties, ALL_PROJECTS_KEY);
+        } catch (final IOException e) {
+            LOGGER.debug("Failed to read throughput from '" + _file + "'.", e);
+            return OptionalDouble.empty();
+        }
+    }
+
+    private static void update(@NotNull final Properties properties, @NotNull final String key, final double millisPerElement) {
+        final OptionalDouble previous = getValue(properties, key);
+        final double average = previous.isPresent() ? WEIGHT * millisPerElement + (1 - WEIGHT) * previous.getAsDouble() : millisPerElement;
+        properties.setProperty(key + MILLIS_PER_ELEMENT_SUFFIX, Double.toString(average));
+        final long runs = Long.parseLong(properties.getProperty(key + RUNS_SUFFIX, "0"));
+        properties.setProperty(key + RUNS_SUFFIX, Long.toString(runs + 1));
+    }
+
+    @NotNull
+    private static OptionalDouble getValue(@NotNull final Properties properties, @NotNull final String key) {
+        final String value = properties.getProperty(key + MILLIS_PER_ELEMENT_SUFFIX);
+        if (value == null) {
+            return OptionalDouble.empty();
+        }
+        try {
+            return OptionalDouble.of(Double.parseDouble(value));
+        } catch (final NumberFormatException e) {
+            LOGGER.debug("Ignoring invalid throughput '{}' for '{}'.", value, key);
+            return OptionalDouble.empty();
+        }
+    }
+
+    @NotNull
+    private Properties load() throws IOException {
+        final Properties properties = new Properties();
+        if (Files.isRegularFile(_file)) {
+            try (InputStream inputStream = Files.newInputStream(_file)) {
+                properties.load(inputStream);
+            }
+        }
+        return properties;
+    }
+
+    private void store(@NotNull final Properties properties) throws IOException {
+        // replaced atomically, so concurrent cli runs never read a partially written file
+        FileUtil.writeBytesAtomically(_file, outputStream -> properties.store(outputStream, "throughput of fs-cli"));
+    }
+}
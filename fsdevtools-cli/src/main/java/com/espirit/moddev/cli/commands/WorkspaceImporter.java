@@ -0,0 +1,146 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.CliContextImpl;
+import com.espirit.moddev.cli.configuration.Workspace;
+import com.espirit.moddev.cli.results.ImportResult;
+import com.espirit.moddev.cli.results.WorkspaceImportResult;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports the projects of a {@link Workspace} concurrently, each project with a session of its own.
+ * <p>
+ * Every project is imported by a copy of the import command with the connection settings and import options of the
+ * command, the sync dir of the project and, if the workspace defines them, the layer mapping and import comment of the
+ * project. The details of every project are logged as soon as its import has finished, the combined result summarizes
+ * all projects.
+ *
+ * @author e-Spirit AG
+ */
+public class WorkspaceImporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceImporter.class);
+
+    private final ImportCommand _command;
+    private final Workspace _workspace;
+    private final int _parallelism;
+    private final Object _logLock = new Object();
+
+    /**
+     * Creates a new importer.
+     *
+     * @param command     the command that provides the connection settings and the import options
+     * @param workspace   the workspace to import
+     * @param parallelism the number of projects that are imported concurrently
+     */
+    public WorkspaceImporter(@NotNull final ImportCommand command, @NotNull final Workspace workspace, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        _command = command;
+        _workspace = workspace;
+        _parallelism = parallelism;
+    }
+
+    /**
+     * Imports all projects and waits for all imports to finish.
+     *
+     * @return the combined result of all projects
+     */
+    @NotNull
+    public WorkspaceImportResult importProjects() {
+        final List<Workspace.Project> projects = _workspace.getProjects();
+        LOGGER.info("Importing {} projects with a parallelism of {}...", projects.size(), _parallelism);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(_parallelism, projects.size()));
+        try {
+            final List<Future<WorkspaceImportResult.ProjectResult>> futures = new ArrayList<>(projects.size());
+            for (final Workspace.Project project : projects) {
+                futures.add(executor.submit(() -> importProject(project)));
+            }
+            final List<WorkspaceImportResult.ProjectResult> results = new ArrayList<>(projects.size());
+            for (int index = 0; index < projects.size(); index++) {
+                results.add(getResult(projects.get(index), futures.get(index)));
+            }
+            return new WorkspaceImportResult(results);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @NotNull
+    private static WorkspaceImportResult.ProjectResult getResult(@NotNull final Workspace.Project project, @NotNull final Future<WorkspaceImportResult.ProjectResult> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new WorkspaceImportResult.ProjectResult(project, new ImportResult(e), 0);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            final Exception exception = cause instanceof Exception ? (Exception) cause : e;
+            return new WorkspaceImportResult.ProjectResult(project, new ImportResult(exception), 0);
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("squid:S2221")
+    private WorkspaceImportResult.ProjectResult importProject(@NotNull final Workspace.Project project) throws Exception {
+        final long start = System.currentTimeMillis();
+        final ImportCommand projectCommand = _command.createProjectCommand(project);
+        CliContextImpl session = null;
+        ImportResult result;
+        try {
+            result = projectCommand.preflight();
+            if (result == null) {
+                LOGGER.info("Importing project '{}' from '{}'...", project.getName(), project.getSynchronizationDirectory());
+                session = new CliContextImpl(projectCommand);
+                projectCommand.setContext(session);
+                result = projectCommand.call();
+            }
+        } catch (final Exception e) {
+            result = new ImportResult(e);
+        }
+        try {
+            // the details are logged while the session is still open, because logging looks up the imported elements
+            synchronized (_logLock) {
+                LOGGER.info("Result of project '{}':", project.getName());
+                result.log();
+            }
+            return new WorkspaceImportResult.ProjectResult(project, result, System.currentTimeMillis() - start);
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+}
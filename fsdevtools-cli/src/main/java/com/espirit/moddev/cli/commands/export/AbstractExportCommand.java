@@ -24,6 +24,8 @@ package com.espirit.moddev.cli.commands.export;
 
 import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
 import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.api.parsing.identifier.PathIdentifier;
+import com.espirit.moddev.cli.api.parsing.identifier.StoreElementPathResolver;
 import com.espirit.moddev.cli.api.parsing.identifier.UidIdentifier;
 import com.espirit.moddev.cli.api.parsing.parser.EntitiesIdentifierParser;
 import com.espirit.moddev.cli.api.parsing.parser.PathIdentifierParser;
@@ -34,12 +36,21 @@ import com.espirit.moddev.cli.api.parsing.parser.UidIdentifierParser;
 import com.espirit.moddev.cli.commands.SimpleCommand;
 import com.espirit.moddev.cli.commands.help.HelpCommand;
 import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.logging.ElementResultFile;
+import com.espirit.moddev.cli.results.logging.ResultDetail;
+import com.espirit.moddev.cli.results.logging.SubtreeTimings;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndex;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndexes;
+import com.espirit.moddev.shared.metrics.Counter;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import com.github.rvesse.airline.annotations.Arguments;
 import com.github.rvesse.airline.annotations.Option;
 
 import de.espirit.firstspirit.access.store.IDProvider;
 import de.espirit.firstspirit.access.store.Store;
 import de.espirit.firstspirit.agency.OperationAgent;
+import de.espirit.firstspirit.agency.SpecialistsBroker;
 import de.espirit.firstspirit.agency.StoreAgent;
 import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
 import de.espirit.firstspirit.transport.PropertiesTransportOptions;
@@ -48,11 +59,17 @@ import de.espirit.firstspirit.transport.PropertiesTransportOptions.ProjectProper
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * This class gathers shared logic and options for different export commands. It can be extended for custom implementations of uid filtering, or to
@@ -63,6 +80,8 @@ import java.util.List;
 public abstract class AbstractExportCommand extends SimpleCommand<ExportResult> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+    private static final Timer EXPORT_TIMER = MetricsRegistry.getDefault().timer("export_operation");
+    private static final Counter EXPORTED_ELEMENTS = MetricsRegistry.getDefault().counter("export_elements");
 
     @Option(name = "--keepObsoleteFiles", description = "keep obsolete files in sync dir which are deleted in project")
     private boolean keepObsoleteFiles;
@@ -80,10 +99,17 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
     @Option(name = "--includeProjectProperties", description = "DEPRECATED: use '" + ProjectPropertiesParser.CUSTOM_PREFIX_PROJECT_PROPERTIES + ":" + ProjectPropertiesParser.ALL + "' instead. Export with project properties like resolutions or fonts")
     private boolean includeProjectProperties;
 
+    @Option(name = "--validateIdentifiers", description = "fail before connecting to FirstSpirit if an identifier is not contained in the offline index of the sync dir (see 'fs-cli index build')")
+    private boolean validateIdentifiers;
+
+    @Option(name = "--result-detail", description = "Detail of the logged result: 'summary' (counts only), 'store' (counts per store and schema), 'element' (a line per element) or 'file' (the elements and, with --debug, their files). Default is 'element', or 'file' with --debug.", title = "summary|store|element|file")
+    private String resultDetail;
+
     @Arguments(title = "identifiers", description = "A list of various parsable identifiers. Please have a look at the command description for further information.")
     private List<String> identifiers = new LinkedList<>();
 
     private RegistryBasedParser parser;
+    private List<Identifier> parsedIdentifiers;
 
     /**
      * Creates a new AbstractExportCommand and configures a set of default argument parsers.
@@ -106,6 +132,15 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         return !keepObsoleteFiles;
     }
 
+    /**
+     * Defines whether files of elements that have been deleted in the project are deleted from the sync dir (default).
+     *
+     * @param deleteObsoleteFiles use {@code false} to keep obsolete files
+     */
+    public void setDeleteObsoleteFiles(final boolean deleteObsoleteFiles) {
+        keepObsoleteFiles = !deleteObsoleteFiles;
+    }
+
     /**
      * Gets export child elements.
      *
@@ -115,6 +150,15 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         return !excludeChildElements;
     }
 
+    /**
+     * Defines whether child elements are exported (default).
+     *
+     * @param exportChildElements use {@code false} to exclude child elements
+     */
+    public void setExportChildElements(final boolean exportChildElements) {
+        excludeChildElements = !exportChildElements;
+    }
+
     /**
      * Gets export parent elements.
      *
@@ -124,6 +168,15 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
         return !excludeParentElements;
     }
 
+    /**
+     * Defines whether parent elements are exported (default).
+     *
+     * @param exportParentElements use {@code false} to exclude parent elements
+     */
+    public void setExportParentElements(final boolean exportParentElements) {
+        excludeParentElements = !exportParentElements;
+    }
+
     /**
      * Indicates whether the release state should be used for belonging ExportOperation.
      *
@@ -163,6 +216,19 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
      * @throws IDProviderNotFoundException if {@link Identifier#addToExportOperation(StoreAgent, boolean, ExportOperation)} throws it
      */
     public void addExportElements(final StoreAgent storeAgent, final List<Identifier> identifiers, final ExportOperation exportOperation) {
+        addExportElements(storeAgent, isExportReleaseState(), identifiers, exportOperation);
+    }
+
+    /**
+     * Adds the elements of the given identifiers in the given state to the given export operation.
+     *
+     * @param storeAgent      the StoreAgent to retrieve IDProviders with
+     * @param useReleaseState whether to add the elements of the release state
+     * @param identifiers     the identifiers of elements that should be added to the ExportOperation
+     * @param exportOperation the ExportOperation to add the elements to
+     * @see #addExportElements(StoreAgent, List, ExportOperation)
+     */
+    protected void addExportElements(final StoreAgent storeAgent, final boolean useReleaseState, final List<Identifier> identifiers, final ExportOperation exportOperation) {
         if (exportOperation == null) {
             throw new IllegalArgumentException("No null ExportOperation allowed");
         }
@@ -172,9 +238,7 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
             LOGGER.error("no identifiers found - pass at least 1 identifier --> call 'fs-cli help export' for details");
         } else {
             LOGGER.debug("addExportedElements - UIDs {}", identifiers);
-            for (Identifier identifier : identifiers) {
-                identifier.addToExportOperation(storeAgent, isExportReleaseState(), exportOperation);
-            }
+            addToExportOperation(storeAgent, useReleaseState, identifiers, exportOperation);
 
             if (isIncludeProjectProperties()) {
                 LOGGER.warn("usage of flag '--includeProjectProperties' is deprecated - use {}:{}' instead", ProjectPropertiesParser.CUSTOM_PREFIX_PROJECT_PROPERTIES, ProjectPropertiesParser.ALL);
@@ -189,7 +253,89 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
      * @return a {@link java.util.List} of {@link UidIdentifier}s that specify the elements that should be synchronized
      */
     public List<Identifier> getIdentifiers() {
-        return identifiers.isEmpty() ? Collections.emptyList() : parser.parse(identifiers);
+        if (identifiers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // parsed once, so offline resolutions of the preflight are kept
+        if (parsedIdentifiers == null) {
+            parsedIdentifiers = parser.parse(identifiers);
+        }
+        return parsedIdentifiers;
+    }
+
+    /**
+     * Returns the sync dir whose offline index is used to check the identifiers by the {@link #preflight() preflight}.
+     *
+     * @return the sync dir
+     */
+    protected Path getIndexedSynchronizationDirectory() {
+        return Paths.get(getSynchronizationDirectoryString());
+    }
+
+    /**
+     * Checks the identifiers against the offline index of the sync dir before connecting to FirstSpirit, if the sync dir
+     * has been indexed. Unknown identifiers are logged, or fail the command if {@code --validateIdentifiers} is set.
+     *
+     * @return {@code null} if the command should be executed, otherwise an error result
+     * @see RegistryBasedParser#validate(List, SyncDirectoryIndex)
+     */
+    @Override
+    public ExportResult preflight() {
+        final Path syncDirectory = getIndexedSynchronizationDirectory();
+        final SyncDirectoryIndex index = SyncDirectoryIndexes.openIfExists(syncDirectory);
+        if (index == null) {
+            if (validateIdentifiers) {
+                return new ExportResult(new IllegalStateException("The sync dir '" + syncDirectory + "' has not been indexed yet - call 'fs-cli index build' first."));
+            }
+            return null;
+        }
+        final List<Identifier> unknownIdentifiers;
+        try {
+            unknownIdentifiers = RegistryBasedParser.validate(getIdentifiers(), index);
+        } catch (final RuntimeException e) {
+            // invalid identifiers are reported by the execution of the command
+            LOGGER.trace("Skipping offline validation of unparsable identifiers", e);
+            return null;
+        }
+        if (!unknownIdentifiers.isEmpty()) {
+            if (validateIdentifiers) {
+                return new ExportResult(new IllegalArgumentException("identifiers not found in the index of the sync dir: " + unknownIdentifiers));
+            }
+            LOGGER.warn("identifiers not found in the index of the sync dir (ignore this for elements that have never been exported): {}", unknownIdentifiers);
+        }
+        return null;
+    }
+
+    /**
+     * Adds the elements of the given identifiers to the given export operation. All {@link PathIdentifier path identifiers}
+     * share a {@link StoreElementPathResolver}, which resolves them in a single parallel pass, so their common folders
+     * are listed only once.
+     *
+     * @param storeAgent      the StoreAgent to retrieve IDProviders with
+     * @param useReleaseState whether to use the release state
+     * @param identifiers     the identifiers of the elements
+     * @param exportOperation the ExportOperation to add the elements to
+     * @throws IDProviderNotFoundException if {@link Identifier#addToExportOperation(StoreAgent, boolean, ExportOperation)} throws it
+     */
+    public static void addToExportOperation(final StoreAgent storeAgent, final boolean useReleaseState, final Collection<Identifier> identifiers, final ExportOperation exportOperation) {
+        final StoreElementPathResolver pathResolver = new StoreElementPathResolver(storeAgent, useReleaseState);
+        final List<String> paths = new ArrayList<>();
+        for (final Identifier identifier : identifiers) {
+            if (identifier instanceof PathIdentifier && !((PathIdentifier) identifier).isPreResolved()) {
+                paths.add(((PathIdentifier) identifier).getPath());
+            }
+        }
+        if (paths.size() > 1) {
+            LOGGER.debug("Resolving {} paths...", paths.size());
+            pathResolver.resolveAll(paths);
+        }
+        for (final Identifier identifier : identifiers) {
+            if (identifier instanceof PathIdentifier) {
+                ((PathIdentifier) identifier).addToExportOperation(storeAgent, useReleaseState, exportOperation, pathResolver);
+            } else {
+                identifier.addToExportOperation(storeAgent, useReleaseState, exportOperation);
+            }
+        }
     }
 
     /**
@@ -257,22 +403,153 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
             }
 
             // create export operation
-            final ExportOperation exportOperation = this.getContext().requireSpecialist(OperationAgent.TYPE).getOperation(ExportOperation.TYPE);
-            exportOperation.setDeleteObsoleteFiles(isDeleteObsoleteFiles());
-            exportOperation.setExportChildElements(isExportChildElements());
-            exportOperation.setExportParentElements(isExportParentElements());
-            exportOperation.setExportRelease(isExportReleaseState());
+            final ExportOperation exportOperation = createExportOperation();
             addExportElements(this.getContext().requireSpecialist(StoreAgent.TYPE), identifierList, exportOperation);
 
             // export
-            final String syncDirStr = getSynchronizationDirectoryString();
-            LOGGER.info("exporting to directory '{}'", syncDirStr);
-            return new ExportResult(getContext().requireSpecialist(StoreAgent.TYPE), exportOperation.perform(getSynchronizationDirectory(syncDirStr)));
+            return performExport(exportOperation);
         } catch (final Exception e) {
             return new ExportResult(e);
         }
     }
 
+    /**
+     * Creates a new {@link ExportOperation} which is configured according to the options of this command.
+     * No elements are added to the operation.
+     *
+     * @return the configured export operation
+     */
+    protected ExportOperation createExportOperation() {
+        return createExportOperation(getContext(), isExportReleaseState());
+    }
+
+    /**
+     * Creates a new {@link ExportOperation} of the given broker for the given state, which is configured according to
+     * the other options of this command. No elements are added to the operation.
+     *
+     * @param broker          the broker to request the operation from
+     * @param useReleaseState whether to export the release state
+     * @return the configured export operation
+     */
+    protected ExportOperation createExportOperation(final SpecialistsBroker broker, final boolean useReleaseState) {
+        final ExportOperation exportOperation = broker.requireSpecialist(OperationAgent.TYPE).getOperation(ExportOperation.TYPE);
+        exportOperation.setDeleteObsoleteFiles(isDeleteObsoleteFiles());
+        exportOperation.setExportChildElements(isExportChildElements());
+        exportOperation.setExportParentElements(isExportParentElements());
+        exportOperation.setExportRelease(useReleaseState);
+        return exportOperation;
+    }
+
+    /**
+     * Performs the given {@link ExportOperation} into the synchronization directory of this command.
+     *
+     * @param exportOperation the export operation to perform
+     * @return the export result
+     */
+    protected ExportResult performExport(final ExportOperation exportOperation) {
+        return performExport(getContext(), exportOperation, getSynchronizationDirectoryString());
+    }
+
+    /**
+     * Performs the given {@link ExportOperation} of the given broker into the given synchronization directory.
+     *
+     * @param broker          the broker the export operation has been created by
+     * @param exportOperation the export operation to perform
+     * @param syncDirStr      the synchronization directory to export into
+     * @return the export result
+     */
+    protected ExportResult performExport(final SpecialistsBroker broker, final ExportOperation exportOperation, final String syncDirStr) {
+        LOGGER.info("exporting to directory '{}'", syncDirStr);
+        final long start = System.currentTimeMillis();
+        final ExportOperation.Result result;
+        try (Timer.Context ignored = EXPORT_TIMER.time()) {
+            result = exportOperation.perform(getSynchronizationDirectory(broker, syncDirStr));
+        }
+        final long end = System.currentTimeMillis();
+        if (result != null) {
+            EXPORTED_ELEMENTS.add((long) result.getCreatedElements().size() + result.getUpdatedElements().size()
+                    + result.getDeletedElements().size() + result.getMovedElements().size());
+        }
+        SyncDirectoryIndexes.updateAfterExport(Paths.get(syncDirStr), result);
+        if (result != null) {
+            SyncDirectoryIndexes.updateManifestIfExists(Paths.get(syncDirStr));
+        }
+        writeElementResult(Paths.get(syncDirStr), result);
+        final ExportResult exportResult = new ExportResult(broker.requireSpecialist(StoreAgent.TYPE), result);
+        exportResult.setResultDetail(getResultDetail());
+        exportResult.setSubtreeTimings(measureSubtreeTimings(Paths.get(syncDirStr), result, start, end));
+        return exportResult;
+    }
+
+    /**
+     * Attributes the time of the export to the subtrees of the sync dir by the modification times of the written
+     * files. Failures are logged only, because the timings are optional.
+     */
+    private static SubtreeTimings measureSubtreeTimings(final Path syncDirectory, final ExportOperation.Result result, final long start, final long end) {
+        if (result == null) {
+            return null;
+        }
+        try {
+            return SubtreeTimings.measureExport(syncDirectory, result, start, end);
+        } catch (final RuntimeException e) {
+            LOGGER.debug("Failed to attribute the export time to the subtrees of '" + syncDirectory + "'.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Persists the elements of the given result in the sync dir for {@code report diff}. Failures are logged only,
+     * because the element result is optional.
+     */
+    private static void writeElementResult(final Path syncDirectory, final ExportOperation.Result result) {
+        if (result == null) {
+            return;
+        }
+        try {
+            final Path file = ElementResultFile.write(syncDirectory, result, SyncDirectoryIndexes.readManifest(syncDirectory));
+            LOGGER.debug("Wrote the element result '{}'.", file);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Failed to write the element result to '{}': {}", syncDirectory, e.getMessage());
+            LOGGER.debug("Failed to write the element result.", e);
+        }
+    }
+
+    /**
+     * Returns the detail of {@code --result-detail} the export results are logged with.
+     *
+     * @return the detail or {@code null} for the default detail
+     * @throws IllegalArgumentException if the detail is unknown
+     */
+    public ResultDetail getResultDetail() {
+        return resultDetail == null ? null : ResultDetail.parse(resultDetail);
+    }
+
+    /**
+     * Sets the detail the export results are logged with, see {@code --result-detail}.
+     *
+     * @param resultDetail the detail or {@code null} for the default detail
+     */
+    public void setResultDetail(final ResultDetail resultDetail) {
+        this.resultDetail = resultDetail == null ? null : resultDetail.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Copies the export options and the identifiers of this command to the given command.
+     *
+     * @param target the command to copy the options to
+     */
+    protected void copyExportOptionsTo(final AbstractExportCommand target) {
+        target.keepObsoleteFiles = keepObsoleteFiles;
+        target.excludeChildElements = excludeChildElements;
+        target.excludeParentElements = excludeParentElements;
+        target.exportReleaseState = exportReleaseState;
+        target.includeProjectProperties = includeProjectProperties;
+        target.validateIdentifiers = validateIdentifiers;
+        target.resultDetail = resultDetail;
+        target.identifiers = new LinkedList<>(identifiers);
+        target.parsedIdentifiers = null;
+    }
+
     /**
      * Adds the given string based UidIdentifier to this command's argument list. This method doesn't validate the input at all.
      *
@@ -280,6 +557,17 @@ public abstract class AbstractExportCommand extends SimpleCommand<ExportResult>
      */
     public void addIdentifier(final String identifier) {
         identifiers.add(identifier);
+        parsedIdentifiers = null;
+    }
+
+    /**
+     * Replaces this command's argument list by the given string based identifiers. This method doesn't validate the input at all.
+     *
+     * @param identifiers the string based identifiers that should be exported by this command
+     */
+    public void setIdentifiers(final List<String> identifiers) {
+        this.identifiers = new LinkedList<>(identifiers);
+        parsedIdentifiers = null;
     }
 
 }
@@ -23,12 +23,35 @@
 package com.espirit.moddev.cli.commands.export;
 
 import com.espirit.moddev.cli.api.annotations.Description;
+import com.espirit.moddev.cli.commands.Throughput;
 import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
 import com.espirit.moddev.cli.api.parsing.parser.ProjectPropertiesParser;
+import com.espirit.moddev.cli.configuration.Workspace;
+import com.espirit.moddev.cli.history.Transfers;
+import com.espirit.moddev.cli.results.ExportEstimateResult;
 import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.MultiStateExportResult;
+import com.espirit.moddev.cli.results.WorkspaceExportResult;
+import com.espirit.moddev.cli.results.logging.ResultReport;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
 import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.help.Examples;
 
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.io.ExportInfoFileHandle;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static com.espirit.moddev.cli.api.parsing.parser.RootNodeIdentifierParser.getAllStorePostfixes;
@@ -50,7 +73,13 @@ import static com.espirit.moddev.cli.api.parsing.parser.RootNodeIdentifierParser
                 "export -- entities:products",
                 "export -- page:homepage entities:news",
                 "export -- projectproperty:LANGUAGES projectproperty:RESOLUTIONS",
-                "export -- projectproperty:ALL"
+                "export -- projectproperty:ALL",
+                "export --watch --watchInterval 2 -- templatestore",
+                "export --estimate -- mediastore",
+                "export --states current,release --syncDir current=./current,release=./release -- templatestore",
+                "export --workspace workspace.json --workspaceParallelism 2 -- templatestore",
+                "export --report-format jsonl --report-file export.jsonl -- templatestore",
+                "export --result-detail summary -- root:templatestore"
             },
             descriptions = {
                 "Exports a pagetemplate and a page",
@@ -61,16 +90,328 @@ import static com.espirit.moddev.cli.api.parsing.parser.RootNodeIdentifierParser
                 "Exports all entities of the content2 node 'products' according to the configured filter",
                 "Exports a page and news entities according to the configured filter",
                 "Exports the project properties languages and resolutions",
-                "Exports all project properties"
+                "Exports all project properties",
+                "Exports the templatestore and afterwards every change of it, checking for changes every two seconds",
+                "Estimates the size and duration of an export of the mediastore",
+                "Exports the current and the release state of the templatestore concurrently into two sync dirs",
+                "Exports every project of the workspace descriptor into its sync dir, 2 projects at a time, the templatestore of projects without own identifiers",
+                "Exports the templatestore and writes a json record per exported element to export.jsonl",
+                "Exports the templatestore and only logs the number of exported elements per store"
             })
 public class ExportCommand extends AbstractExportCommand {
 
     private static final String TAB_SEQUENCE = "\t\t\t\t";
     private static final int PREFIX_COUNT_PER_LINE = 5;
+    private static final int DEFAULT_WATCH_INTERVAL_SECONDS = 5;
+    private static final int DEFAULT_WATCH_DEBOUNCE_MILLIS = 2000;
+
+    @Option(name = "--watch", description = "Keeps the connection open after the export and continuously exports changed elements of the given identifiers. Stop with Ctrl+C.")
+    private boolean watch;
+
+    @Option(name = "--watchInterval", description = "Interval in seconds in which the project is checked for changes in watch mode (default is " + DEFAULT_WATCH_INTERVAL_SECONDS + ").", title = "seconds")
+    private int watchInterval = DEFAULT_WATCH_INTERVAL_SECONDS;
+
+    @Option(name = "--watchDebounce", description = "Period in milliseconds without further changes before changes are exported in watch mode (default is " + DEFAULT_WATCH_DEBOUNCE_MILLIS + ").", title = "milliseconds")
+    private int watchDebounce = DEFAULT_WATCH_DEBOUNCE_MILLIS;
+
+    @Option(name = "--estimate", description = "Estimates the number of elements, the media size and the duration of the export without exporting anything.")
+    private boolean estimate;
+
+    @Option(name = "--states", description = "Exports the given comma-separated states ('current', 'release') concurrently in a single run. Every state needs its own sync dir, given like '--syncDir current=<dir1>,release=<dir2>'.", title = "states")
+    private String states;
+
+    @Option(name = "--workspace", description = "Exports every project of the given workspace descriptor into its own sync dir: a json file with an optional 'parallelism', optional 'retries' and a list of 'projects', each with a 'project' name, a 'syncDir' relative to the file, optional 'identifiers' (default are the identifiers of the command) and the optional flags 'useReleaseState', 'excludeChildElements', 'excludeParentElements' and 'keepObsoleteFiles'", title = "file")
+    private String workspace;
+
+    @Option(name = "--workspaceParallelism", description = "Number of workspace projects that are exported concurrently (default is the parallelism of the workspace descriptor or " + Workspace.DEFAULT_PARALLELISM + ").", title = "projects")
+    private int workspaceParallelism;
+
+    @Option(name = "--report-format", description = "Writes a report with a record per exported element in the given format: 'jsonl' (one json object per line), 'json' or 'text'. Requires --report-file. Only the summary is logged then. Default is 'jsonl'.", title = "jsonl|json|text")
+    private String reportFormat;
+
+    @Option(name = "--report-file", description = "Writes the report of --report-format to the given file", title = "file")
+    private String reportFile;
+
+    private Workspace workspaceDescriptor;
+
+    /**
+     * A workspace export opens a session per project, so the command itself needs no context.
+     *
+     * @return {@code false} for a workspace export
+     */
+    @Override
+    public boolean needsContext() {
+        return workspace == null;
+    }
+
+    @Override
+    public ExportResult preflight() {
+        try {
+            getResultDetail();
+            if (ResultReport.isRequested(reportFormat, getReportFile()) && (workspace != null || states != null || estimate || watch)) {
+                return new ExportResult(new IllegalArgumentException("--report-format and --report-file can not be combined with --workspace, --states, --estimate or --watch."));
+            }
+        } catch (final IllegalArgumentException e) {
+            return new ExportResult(e);
+        }
+        if (workspace != null) {
+            return readWorkspace();
+        }
+        if (states != null) {
+            try {
+                getStateSynchronizationDirectories();
+            } catch (final IllegalArgumentException e) {
+                return new ExportResult(e);
+            }
+            if (estimate || watch || isExportReleaseState()) {
+                return new ExportResult(new IllegalArgumentException("--states can not be combined with --estimate, --watch or --useReleaseState"));
+            }
+        }
+        return super.preflight();
+    }
+
+    /**
+     * Reads the workspace descriptor. The identifiers of the projects are checked against the indexes of their sync
+     * dirs by the preflights of the single projects.
+     *
+     * @return {@code null} if the workspace can be exported, otherwise an error result
+     */
+    private ExportResult readWorkspace() {
+        if (watch || estimate || states != null) {
+            return new WorkspaceExportResult(new IllegalArgumentException("--workspace can not be combined with --watch, --estimate or --states."));
+        }
+        if (workspaceParallelism < 0) {
+            return new WorkspaceExportResult(new IllegalArgumentException("The workspace parallelism must not be negative!"));
+        }
+        try {
+            workspaceDescriptor = Workspace.read(Paths.get(workspace));
+            if (getIdentifiers().isEmpty()) {
+                for (final Workspace.Project project : workspaceDescriptor.getProjects()) {
+                    if (project.getIdentifiers().isEmpty()) {
+                        throw new IllegalArgumentException("no identifiers for project '" + project.getName() + "' found - pass identifiers to the command or list them in the workspace");
+                    }
+                }
+            }
+        } catch (final IOException | IllegalArgumentException e) {
+            workspaceDescriptor = null;
+            return new WorkspaceExportResult(e);
+        }
+        return null;
+    }
+
+    /**
+     * Creates a copy of this command that exports the given project of the workspace. The copy has the connection
+     * settings, export options and identifiers of this command, the identifiers and export flags of the project take
+     * precedence.
+     *
+     * @param project the project of the workspace
+     * @return the command for the project
+     */
+    ExportCommand createProjectCommand(final Workspace.Project project) {
+        final ExportCommand projectCommand = new ExportCommand();
+        copyConnectionSettingsTo(projectCommand);
+        copyExportOptionsTo(projectCommand);
+        projectCommand.setProject(project.getName());
+        projectCommand.setSynchronizationDirectory(project.getSynchronizationDirectory().toString());
+        if (!project.getIdentifiers().isEmpty()) {
+            projectCommand.setIdentifiers(project.getIdentifiers());
+        }
+        if (project.getUseReleaseState() != null) {
+            projectCommand.setExportReleaseState(project.getUseReleaseState());
+        }
+        if (project.getExcludeChildElements() != null) {
+            projectCommand.setExportChildElements(!project.getExcludeChildElements());
+        }
+        if (project.getExcludeParentElements() != null) {
+            projectCommand.setExportParentElements(!project.getExcludeParentElements());
+        }
+        if (project.getKeepObsoleteFiles() != null) {
+            projectCommand.setDeleteObsoleteFiles(!project.getKeepObsoleteFiles());
+        }
+        return projectCommand;
+    }
+
+    @Override
+    protected Path getIndexedSynchronizationDirectory() {
+        if (states == null) {
+            return super.getIndexedSynchronizationDirectory();
+        }
+        return Paths.get(getStateSynchronizationDirectories().values().iterator().next());
+    }
 
     @Override
     public ExportResult call() {
-        return exportStoreElements();
+        if (workspaceDescriptor != null) {
+            final int parallelism = workspaceParallelism > 0 ? workspaceParallelism : workspaceDescriptor.getParallelism();
+            return new WorkspaceExporter(this, workspaceDescriptor, parallelism, workspaceDescriptor.getRetries()).exportProjects();
+        }
+        if (states != null) {
+            try {
+                return new MultiStateExporter(this, getStateSynchronizationDirectories()).export();
+            } catch (final IllegalArgumentException e) {
+                return new MultiStateExportResult(e);
+            }
+        }
+        if (estimate) {
+            return estimateExport();
+        }
+        if (watch) {
+            try {
+                return new ExportWatcher(this, TimeUnit.SECONDS.toMillis(watchInterval), watchDebounce).watch();
+            } catch (final IllegalArgumentException e) {
+                return new ExportResult(e);
+            }
+        }
+        // only an export into a sync dir without stores lists every element it walks as created
+        final boolean complete = !containsStores(Paths.get(getSynchronizationDirectoryString()));
+        final long start = System.currentTimeMillis();
+        final ExportResult result = exportStoreElements();
+        recordThroughput(result, System.currentTimeMillis() - start, complete);
+        return report(result);
+    }
+
+    /**
+     * Writes the details of the given result to the report of {@code --report-format} and {@code --report-file}.
+     *
+     * @param result the result of the export
+     * @return the given result, which only logs its summary if it has been reported, or an error result if the report
+     * can not be written
+     * @see ResultReport
+     */
+    private ExportResult report(final ExportResult result) {
+        if (result.isError() || result.get() == null) {
+            return result;
+        }
+        try (ResultReport report = ResultReport.open(reportFormat, getReportFile())) {
+            if (report != null) {
+                report.writeExportResult(result.get());
+                if (result.getSubtreeTimings() != null) {
+                    report.writeSubtreeTimings(result.getSubtreeTimings());
+                }
+                result.setDetailsReported(true);
+            }
+            return result;
+        } catch (final IOException e) {
+            return new ExportResult(new IOException("Failed to write the export report: " + e.getMessage(), e));
+        }
+    }
+
+    private Path getReportFile() {
+        return reportFile == null ? null : Paths.get(reportFile);
+    }
+
+    @SuppressWarnings("squid:S2221")
+    private ExportResult estimateExport() {
+        try {
+            if (getIdentifiers().isEmpty()) {
+                return new ExportEstimateResult(new IllegalArgumentException("no identifiers for export command found - pass at least 1 identifier --> see 'fs-cli help export'"));
+            }
+            return new ExportEstimateResult(new ExportEstimator(this, Throughput.forExports(), ExportEstimator.DEFAULT_PARALLELISM).estimate());
+        } catch (final Exception e) {
+            return new ExportEstimateResult(e);
+        }
+    }
+
+    /**
+     * Records the throughput of the given export for the {@link ExportEstimator}, which projects it onto all elements
+     * of an export. The result of an export only lists the changed elements, so only complete exports into a sync dir
+     * without stores are recorded, where every walked element has been created.
+     */
+    private void recordThroughput(final ExportResult result, final long durationMillis, final boolean complete) {
+        final ExportOperation.Result exportResult = result.get();
+        if (result.isError() || exportResult == null) {
+            return;
+        }
+        if (complete) {
+            Throughput.forExports().record(getContext().getProject().getName(), exportResult.getCreatedElements().size(), durationMillis);
+        }
+        recordTransfers(exportResult);
+    }
+
+    /**
+     * Returns whether the given sync dir contains a directory of a store, i.e. whether it has been exported to before.
+     */
+    private static boolean containsStores(final Path syncDirectory) {
+        if (!Files.isDirectory(syncDirectory)) {
+            return false;
+        }
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(syncDirectory, Files::isDirectory)) {
+            for (final Path directory : directories) {
+                if (SyncDirectoryLayout.getStoreType(directory.getFileName().toString()) != null) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (final IOException e) {
+            // the throughput is not recorded then
+            return true;
+        }
+    }
+
+    /**
+     * Adds the written files of the given result and their size in the sync dir to the {@link Transfers} of the run.
+     */
+    private void recordTransfers(final ExportOperation.Result exportResult) {
+        final Path syncDirectory = Paths.get(getSynchronizationDirectoryString());
+        long files = 0;
+        long bytes = 0;
+        for (final Collection<ExportInfo> exportInfos : Arrays.asList(exportResult.getCreatedElements(), exportResult.getUpdatedElements())) {
+            for (final ExportInfo exportInfo : exportInfos) {
+                for (final ExportInfoFileHandle fileHandle : exportInfo.getCreatedFileHandles()) {
+                    files++;
+                    bytes += getSize(syncDirectory, fileHandle);
+                }
+                for (final ExportInfoFileHandle fileHandle : exportInfo.getUpdatedFileHandles()) {
+                    files++;
+                    bytes += getSize(syncDirectory, fileHandle);
+                }
+            }
+        }
+        Transfers.add(files, bytes);
+    }
+
+    private static long getSize(final Path syncDirectory, final ExportInfoFileHandle fileHandle) {
+        try {
+            return Files.size(syncDirectory.resolve(SyncDirectoryLayout.normalizePath(fileHandle.getPath())));
+        } catch (final IOException e) {
+            // e.g. a file of a project property, which has no own file
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the sync dir of every state given by {@code --states}.
+     *
+     * @return the sync dirs by state
+     * @throws IllegalArgumentException if the states or their sync dirs are invalid
+     * @see ExportState#parseSynchronizationDirectories(String, List)
+     */
+    private Map<ExportState, String> getStateSynchronizationDirectories() {
+        return ExportState.parseSynchronizationDirectories(getSynchronizationDirectoryString(), ExportState.parseStates(states));
+    }
+
+    public String getStates() {
+        return states;
+    }
+
+    public void setStates(final String states) {
+        this.states = states;
+    }
+
+    public boolean isEstimate() {
+        return estimate;
+    }
+
+    public void setEstimate(final boolean estimate) {
+        this.estimate = estimate;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(final boolean watch) {
+        this.watch = watch;
     }
 
     @Description
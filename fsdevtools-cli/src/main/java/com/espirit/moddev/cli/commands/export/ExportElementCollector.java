@@ -0,0 +1,182 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.templatestore.Schema;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import de.espirit.or.schema.Entity;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the store elements, schemas and entities that a list of {@link Identifier identifiers} would add to an
+ * {@link ExportOperation}, without exporting anything.
+ * <p>
+ * The identifiers are handed a recording {@link ExportOperation} via {@link Identifier#addToExportOperation(StoreAgent, boolean, ExportOperation)},
+ * so custom identifier implementations are supported as well as the builtin ones.
+ *
+ * @author e-Spirit AG
+ */
+public final class ExportElementCollector {
+
+    private final List<IDProvider> _elements = new ArrayList<>();
+    private final Map<Schema, List<Entity>> _entities = new LinkedHashMap<>();
+    private boolean _projectProperties;
+
+    private ExportElementCollector() {
+    }
+
+    /**
+     * Resolves the given identifiers against the given {@link StoreAgent store agent} and collects the resulting elements.
+     *
+     * @param storeAgent      the store agent to resolve the identifiers with
+     * @param useReleaseState indicates whether to resolve the identifiers in the release or in the current state
+     * @param identifiers     the identifiers to resolve
+     * @return the collected elements
+     */
+    @NotNull
+    public static ExportElementCollector collect(@NotNull final StoreAgent storeAgent, final boolean useReleaseState, @NotNull final Collection<Identifier> identifiers) {
+        final ExportElementCollector collector = new ExportElementCollector();
+        final ExportOperation recordingOperation = collector.createProxy(ExportOperation.class, null);
+        AbstractExportCommand.addToExportOperation(storeAgent, useReleaseState, identifiers, recordingOperation);
+        return collector;
+    }
+
+    /**
+     * Returns the store elements that were added by the identifiers, in the order they were added.
+     *
+     * @return the collected store elements
+     */
+    @NotNull
+    public List<IDProvider> getElements() {
+        return Collections.unmodifiableList(_elements);
+    }
+
+    /**
+     * Returns the schemas that were added by the identifiers, mapped to the entities added for each schema.
+     *
+     * @return the collected schemas and their entities
+     */
+    @NotNull
+    public Map<Schema, List<Entity>> getEntities() {
+        return Collections.unmodifiableMap(_entities);
+    }
+
+    /**
+     * Indicates whether one of the identifiers configured the export of project properties.
+     *
+     * @return {@code true} if project properties would be exported, {@code false} otherwise
+     */
+    public boolean containsProjectProperties() {
+        return _projectProperties;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T createProxy(final Class<T> type, final Schema schema) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new RecordingHandler(schema));
+    }
+
+    private static Object getDefaultValue(final Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        } else if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == char.class) {
+            return '\0';
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == float.class) {
+            return 0f;
+        } else if (type == double.class) {
+            return 0d;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Records the interesting calls on the proxied {@link ExportOperation} and its option objects; all other calls are ignored.
+     */
+    private final class RecordingHandler implements InvocationHandler {
+
+        private final Schema _schema;
+
+        private RecordingHandler(final Schema schema) {
+            _schema = schema;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            final String methodName = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, methodName, args);
+            }
+            final Object argument = args != null && args.length > 0 ? args[0] : null;
+            Schema schema = _schema;
+            if ("addElement".equals(methodName) && argument instanceof IDProvider) {
+                _elements.add((IDProvider) argument);
+            } else if ("addSchema".equals(methodName) && argument instanceof Schema) {
+                // the returned schema options record the entities of this schema
+                schema = (Schema) argument;
+                _entities.computeIfAbsent(schema, key -> new ArrayList<>());
+            } else if ("addEntity".equals(methodName) && _schema != null && argument instanceof Entity) {
+                _entities.get(_schema).add((Entity) argument);
+            } else if ("configurePropertiesExport".equals(methodName)) {
+                _projectProperties = true;
+            }
+            final Class<?> returnType = method.getReturnType();
+            if (returnType.isInterface()) {
+                return createProxy(returnType, schema);
+            }
+            return getDefaultValue(returnType);
+        }
+
+        private Object invokeObjectMethod(final Object proxy, final String methodName, final Object[] args) {
+            switch (methodName) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return ExportElementCollector.class.getSimpleName() + "$RecordingProxy";
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The projected size and duration of an export, as computed by {@link ExportEstimator}.
+ *
+ * @author e-Spirit AG
+ */
+public final class ExportEstimation {
+
+    private final Map<Store.Type, Long> _elementCounts;
+    private final Map<String, Integer> _entityCounts;
+    private final long _mediaCount;
+    private final long _mediaBytes;
+    private final boolean _projectProperties;
+    private final Duration _projectedDuration;
+    private final Duration _estimationDuration;
+
+    ExportEstimation(@NotNull final Map<Store.Type, Long> elementCounts, @NotNull final Map<String, Integer> entityCounts, final long mediaCount, final long mediaBytes,
+                     final boolean projectProperties, @Nullable final Duration projectedDuration, @NotNull final Duration estimationDuration) {
+        _elementCounts = Collections.unmodifiableMap(new EnumMap<>(elementCounts));
+        _entityCounts = Collections.unmodifiableMap(new TreeMap<>(entityCounts));
+        _mediaCount = mediaCount;
+        _mediaBytes = mediaBytes;
+        _projectProperties = projectProperties;
+        _projectedDuration = projectedDuration;
+        _estimationDuration = estimationDuration;
+    }
+
+    /**
+     * Returns the number of store elements per store that would be exported. Stores without elements are omitted.
+     *
+     * @return the element counts per store
+     */
+    @NotNull
+    public Map<Store.Type, Long> getElementCounts() {
+        return _elementCounts;
+    }
+
+    /**
+     * Returns the total number of store elements that would be exported.
+     *
+     * @return the total element count
+     */
+    public long getElementCount() {
+        long count = 0;
+        for (final Long storeCount : _elementCounts.values()) {
+            count += storeCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of entities per schema uid that would be exported.
+     *
+     * @return the entity counts per schema
+     */
+    @NotNull
+    public Map<String, Integer> getEntityCounts() {
+        return _entityCounts;
+    }
+
+    /**
+     * Returns the total number of entities that would be exported.
+     *
+     * @return the total entity count
+     */
+    public long getEntityCount() {
+        long count = 0;
+        for (final Integer schemaCount : _entityCounts.values()) {
+            count += schemaCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of media elements that would be exported.
+     *
+     * @return the media count
+     */
+    public long getMediaCount() {
+        return _mediaCount;
+    }
+
+    /**
+     * Returns the size of all binaries of the media that would be exported, in all languages and resolutions.
+     *
+     * @return the media size in bytes
+     */
+    public long getMediaBytes() {
+        return _mediaBytes;
+    }
+
+    /**
+     * Indicates whether project properties would be exported.
+     *
+     * @return {@code true} if project properties would be exported, {@code false} otherwise
+     */
+    public boolean containsProjectProperties() {
+        return _projectProperties;
+    }
+
+    /**
+     * Returns the projected duration of the export based on the throughput of previous complete exports, i.e. of
+     * exports into empty sync dirs.
+     *
+     * @return the projected duration or {@code null}, if no complete export has been recorded on this machine
+     */
+    @Nullable
+    public Duration getProjectedDuration() {
+        return _projectedDuration;
+    }
+
+    /**
+     * Returns the time it took to compute this estimation.
+     *
+     * @return the duration of the estimation
+     */
+    @NotNull
+    public Duration getEstimationDuration() {
+        return _estimationDuration;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.commands.Throughput;
+
+import de.espirit.firstspirit.access.Language;
+import de.espirit.firstspirit.access.project.Project;
+import de.espirit.firstspirit.access.project.Resolution;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import de.espirit.firstspirit.access.store.mediastore.File;
+import de.espirit.firstspirit.access.store.mediastore.Media;
+import de.espirit.firstspirit.access.store.mediastore.Picture;
+import de.espirit.firstspirit.access.store.templatestore.Schema;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.or.schema.Entity;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estimates the size and duration of an export without exporting anything.
+ * <p>
+ * The identifiers of the command are resolved like in a real export and the affected subtrees are walked with the
+ * semantics of {@link AbstractExportCommand#isExportChildElements()} and {@link AbstractExportCommand#isExportParentElements()}.
+ * Listing the children of an element is a remote call, so the subtrees are walked in parallel by a {@link ForkJoinPool}.
+ *
+ * @author e-Spirit AG
+ */
+public class ExportEstimator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportEstimator.class);
+
+    /**
+     * Default number of parallel remote calls while walking the subtrees.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private final AbstractExportCommand _command;
+    private final Throughput _throughput;
+    private final int _parallelism;
+
+    /**
+     * Creates a new estimator for the given command.
+     *
+     * @param command     the command that provides the identifiers, the export options and the context
+     * @param throughput  the throughput of previous exports used for the projected duration
+     * @param parallelism the number of parallel remote calls while walking the subtrees
+     */
+    public ExportEstimator(@NotNull final AbstractExportCommand command, @NotNull final Throughput throughput, final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        _command = command;
+        _throughput = throughput;
+        _parallelism = parallelism;
+    }
+
+    /**
+     * Resolves the identifiers of the command and estimates the size and duration of their export.
+     *
+     * @return the estimation
+     */
+    @NotNull
+    public ExportEstimation estimate() {
+        final long start = System.currentTimeMillis();
+        final StoreAgent storeAgent = _command.getContext().requireSpecialist(StoreAgent.TYPE);
+        final Project project = _command.getContext().getProject();
+        final ExportElementCollector collector = ExportElementCollector.collect(storeAgent, _command.isExportReleaseState(), _command.getIdentifiers());
+
+        final Traversal traversal = new Traversal(project);
+        final List<IDProvider> roots = collector.getElements();
+        final ForkJoinPool pool = new ForkJoinPool(_parallelism);
+        try {
+            final List<RecursiveAction> tasks = new ArrayList<>(roots.size());
+            for (final IDProvider root : roots) {
+                if (_command.isExportParentElements()) {
+                    traversal.visitParents(root);
+                }
+                tasks.add(traversal.new SubtreeTask(root, _command.isExportChildElements()));
+            }
+            for (final RecursiveAction task : tasks) {
+                pool.execute(task);
+            }
+            for (final RecursiveAction task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        final Map<String, Integer> entityCounts = new HashMap<>();
+        for (final Map.Entry<Schema, List<Entity>> entry : collector.getEntities().entrySet()) {
+            entityCounts.merge(entry.getKey().getUid(), entry.getValue().size(), Integer::sum);
+        }
+        final Map<Store.Type, Long> elementCounts = new EnumMap<>(Store.Type.class);
+        long elementCount = 0;
+        for (final Map.Entry<Store.Type, LongAdder> entry : traversal._elementCounts.entrySet()) {
+            final long storeCount = entry.getValue().sum();
+            elementCounts.put(entry.getKey(), storeCount);
+            elementCount += storeCount;
+        }
+
+        long exportedObjects = elementCount;
+        for (final Integer count : entityCounts.values()) {
+            exportedObjects += count;
+        }
+        if (collector.containsProjectProperties()) {
+            exportedObjects++;
+        }
+        final OptionalDouble millisPerElement = _throughput.getMillisPerElement(project.getName());
+        final Duration projectedDuration = millisPerElement.isPresent() ? Duration.ofMillis(Math.round(exportedObjects * millisPerElement.getAsDouble())) : null;
+        final Duration estimationDuration = Duration.ofMillis(System.currentTimeMillis() - start);
+        LOGGER.debug("Estimated export of {} store element(s) in {}ms.", elementCount, estimationDuration.toMillis());
+        return new ExportEstimation(elementCounts, entityCounts, traversal._mediaCount.sum(), traversal._mediaBytes.sum(),
+                collector.containsProjectProperties(), projectedDuration, estimationDuration);
+    }
+
+    /**
+     * Counts the visited elements. Every element is counted once, even if it is part of several subtrees.
+     */
+    private static final class Traversal {
+
+        private final Set<String> _visitedElements = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private final Map<Store.Type, LongAdder> _elementCounts = new EnumMap<>(Store.Type.class);
+        private final LongAdder _mediaCount = new LongAdder();
+        private final LongAdder _mediaBytes = new LongAdder();
+        private final List<Language> _languages;
+        private final Language _masterLanguage;
+        private final List<Resolution> _resolutions;
+
+        private Traversal(@NotNull final Project project) {
+            // all counters exist upfront, so the map is never modified concurrently
+            for (final Store.Type storeType : Store.Type.values()) {
+                _elementCounts.put(storeType, new LongAdder());
+            }
+            _languages = project.getLanguages();
+            _masterLanguage = project.getMasterLanguage();
+            _resolutions = project.getResolutions();
+        }
+
+        private void visitParents(@NotNull final IDProvider element) {
+            StoreElement parent = element.getParent();
+            // the store root itself is not exported as an element
+            while (parent instanceof IDProvider && !(parent instanceof Store)) {
+                visit((IDProvider) parent);
+                parent = parent.getParent();
+            }
+        }
+
+        /**
+         * Counts the given element.
+         *
+         * @return {@code true} if the element has not been visited before
+         */
+        private boolean visit(@NotNull final IDProvider element) {
+            final Store.Type storeType = element.getStore().getType();
+            if (!_visitedElements.add(storeType.name() + '#' + element.getId())) {
+                return false;
+            }
+            if (element instanceof Store) {
+                // store roots are exported as container of their children only
+                return true;
+            }
+            _elementCounts.get(storeType).increment();
+            if (element instanceof Media) {
+                _mediaCount.increment();
+                _mediaBytes.add(getBinarySize((Media) element));
+            }
+            return true;
+        }
+
+        private long getBinarySize(@NotNull final Media media) {
+            long size = 0;
+            final List<Language> languages = media.isLanguageDependent() ? _languages : Collections.singletonList(_masterLanguage);
+            for (final Language language : languages) {
+                if (media.getType() == Media.FILE) {
+                    size += getLength(media.getFile(language));
+                } else if (media.getType() == Media.PICTURE) {
+                    final Picture picture = media.getPicture(language);
+                    if (picture != null) {
+                        for (final Resolution resolution : _resolutions) {
+                            size += getLength(picture.getPictureFile(resolution));
+                        }
+                    }
+                }
+            }
+            return size;
+        }
+
+        private static long getLength(final File file) {
+            return file == null ? 0 : file.length();
+        }
+
+        /**
+         * Visits an element and, if requested, forks a task for each of its children.
+         */
+        private final class SubtreeTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final transient IDProvider _element;
+            private final boolean _includeChildren;
+
+            private SubtreeTask(@NotNull final IDProvider element, final boolean includeChildren) {
+                _element = element;
+                _includeChildren = includeChildren;
+            }
+
+            @Override
+            protected void compute() {
+                if (!visit(_element) || !_includeChildren) {
+                    return;
+                }
+                final List<SubtreeTask> children = new ArrayList<>();
+                for (final IDProvider child : _element.getChildren(IDProvider.class)) {
+                    children.add(new SubtreeTask(child, true));
+                }
+                invokeAll(children);
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The states of a project that can be exported in a single run with {@code --states}.
+ *
+ * @author e-Spirit AG
+ */
+public enum ExportState {
+
+    CURRENT(false),
+    RELEASE(true);
+
+    private static final String LIST_SEPARATOR = ",";
+    private static final String ASSIGNMENT = "=";
+
+    private final boolean _release;
+
+    ExportState(final boolean release) {
+        _release = release;
+    }
+
+    /**
+     * Returns whether this is the release state.
+     *
+     * @return whether this is the release state
+     */
+    public boolean isRelease() {
+        return _release;
+    }
+
+    /**
+     * Returns the name of this state as used on the command line.
+     *
+     * @return the lower case name
+     */
+    @NotNull
+    public String getName() {
+        return name().toLowerCase(Locale.UK);
+    }
+
+    /**
+     * Returns the state of the given name.
+     *
+     * @param name the name of the state, case-insensitive
+     * @return the state
+     * @throws IllegalArgumentException if no state has the given name
+     */
+    @NotNull
+    public static ExportState fromName(@NotNull final String name) {
+        for (final ExportState state : values()) {
+            if (state.getName().equalsIgnoreCase(name.trim())) {
+                return state;
+            }
+        }
+        throw new IllegalArgumentException("Unknown state '" + name + "' - known states are 'current' and 'release'");
+    }
+
+    /**
+     * Parses a comma-separated list of states like {@code current,release}.
+     *
+     * @param states the list of states
+     * @return the states in the given order
+     * @throws IllegalArgumentException if the list is empty, contains an unknown state or a state twice
+     */
+    @NotNull
+    public static List<ExportState> parseStates(@NotNull final String states) {
+        final List<ExportState> result = new ArrayList<>();
+        for (final String name : states.split(LIST_SEPARATOR)) {
+            if (name.trim().isEmpty()) {
+                continue;
+            }
+            final ExportState state = fromName(name);
+            if (result.contains(state)) {
+                throw new IllegalArgumentException("State '" + state.getName() + "' is given twice");
+            }
+            result.add(state);
+        }
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("No states given - use e.g. 'current,release'");
+        }
+        return result;
+    }
+
+    /**
+     * Parses the sync dirs of the given states. The sync dirs are given as comma-separated assignments like
+     * {@code current=dir1,release=dir2}. A single state may also be given a plain sync dir.
+     *
+     * @param synchronizationDirectories the sync dirs
+     * @param states                     the states to export
+     * @return the sync dir of every state, in the order of the given states
+     * @throws IllegalArgumentException if a state has no sync dir, a sync dir is given for a state that is not
+     *                                  exported or two states share a sync dir
+     */
+    @NotNull
+    public static Map<ExportState, String> parseSynchronizationDirectories(@NotNull final String synchronizationDirectories, @NotNull final List<ExportState> states) {
+        final Map<ExportState, String> directories = new EnumMap<>(ExportState.class);
+        if (!synchronizationDirectories.contains(ASSIGNMENT)) {
+            if (states.size() > 1) {
+                throw new IllegalArgumentException("Every state needs its own sync dir - use e.g. '--syncDir current=<dir1>,release=<dir2>'");
+            }
+            directories.put(states.get(0), synchronizationDirectories);
+            return directories;
+        }
+        for (final String assignment : synchronizationDirectories.split(LIST_SEPARATOR)) {
+            final int index = assignment.indexOf(ASSIGNMENT);
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid sync dir '" + assignment + "' - use '<state>=<dir>'");
+            }
+            final ExportState state = fromName(assignment.substring(0, index));
+            final String directory = assignment.substring(index + 1).trim();
+            if (!states.contains(state)) {
+                throw new IllegalArgumentException("A sync dir is given for state '" + state.getName() + "', but the state is not exported");
+            }
+            if (directory.isEmpty() || directories.containsValue(directory)) {
+                throw new IllegalArgumentException("State '" + state.getName() + "' needs its own sync dir");
+            }
+            directories.put(state, directory);
+        }
+        // the states are exported and reported in the order given by the user
+        final Map<ExportState, String> result = new LinkedHashMap<>();
+        for (final ExportState state : states) {
+            final String directory = directories.get(state);
+            if (directory == null) {
+                throw new IllegalArgumentException("No sync dir is given for state '" + state.getName() + "'");
+            }
+            result.put(state, directory);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.results.ExportResult;
+
+import de.espirit.firstspirit.access.Revision;
+import de.espirit.firstspirit.access.RevisionMetaData;
+import de.espirit.firstspirit.access.project.Project;
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.StoreElement;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the connection of an export command open and continuously exports the elements that changed in the project.
+ * <p>
+ * After an initial export of all identifiers, the project revisions are polled in a fixed interval. New revisions are
+ * collected until no further revision arrives within the debounce period. Afterwards only the changed elements which
+ * belong to the exported identifiers are exported in a single {@link ExportOperation}. Deletions can not be exported
+ * element-wise, so a deletion in one of the watched stores triggers an export of all identifiers.
+ *
+ * @author e-Spirit AG
+ */
+public class ExportWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportWatcher.class);
+
+    private static final int MAX_REVISIONS_PER_POLL = 1000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final AbstractExportCommand _command;
+    private final long _pollIntervalMillis;
+    private final long _debounceMillis;
+    private final CountDownLatch _terminated = new CountDownLatch(1);
+    private volatile boolean _running = true;
+
+    /**
+     * Creates a new watcher for the given command.
+     *
+     * @param command            the command that provides the identifiers, the export options and the context
+     * @param pollIntervalMillis the interval in milliseconds in which the project is checked for new revisions
+     * @param debounceMillis     the period in milliseconds without new revisions before changes are exported
+     */
+    public ExportWatcher(@NotNull final AbstractExportCommand command, final long pollIntervalMillis, final long debounceMillis) {
+        if (pollIntervalMillis <= 0) {
+            throw new IllegalArgumentException("The watch interval must be greater than 0!");
+        }
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("The debounce period must not be negative!");
+        }
+        _command = command;
+        _pollIntervalMillis = pollIntervalMillis;
+        _debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Exports all identifiers once and afterwards exports changed elements until the watcher is stopped, either by
+     * {@link #stop()} or by terminating the jvm (e.g. Ctrl+C).
+     *
+     * @return the result of the initial export if it failed, otherwise a result without further details, because the
+     * results of all export cycles have already been logged
+     */
+    @NotNull
+    public ExportResult watch() {
+        final Thread watchThread = Thread.currentThread();
+        final Thread shutdownHook = new Thread(() -> {
+            stop();
+            watchThread.interrupt();
+            awaitTermination();
+        }, "fs-cli-export-watch-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            // initial export of all identifiers
+            final ExportResult initialResult = _command.exportStoreElements();
+            if (initialResult.isError()) {
+                return initialResult;
+            }
+            initialResult.log();
+
+            final StoreAgent storeAgent = _command.getContext().requireSpecialist(StoreAgent.TYPE);
+            final WatchScope scope = new WatchScope(ExportElementCollector.collect(storeAgent, _command.isExportReleaseState(), _command.getIdentifiers()).getElements(), _command.isExportChildElements());
+            watchForChanges(storeAgent, scope);
+            return new ExportResult(storeAgent, null);
+        } catch (final Exception e) {
+            return new ExportResult(e);
+        } finally {
+            _terminated.countDown();
+            removeShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Stops watching after the currently running export cycle.
+     */
+    public void stop() {
+        _running = false;
+    }
+
+    private void watchForChanges(@NotNull final StoreAgent storeAgent, @NotNull final WatchScope scope) {
+        final Project project = _command.getContext().getProject();
+        Revision lastRevision = project.getRevision(new Date());
+        LOGGER.info("Watching project '{}' for changes since revision {} (polling every {}ms). Press Ctrl+C to stop.", project.getName(), lastRevision.getId(), _pollIntervalMillis);
+        int cycle = 0;
+        while (_running && sleep(_pollIntervalMillis)) {
+            List<Revision> revisions = getRevisionsSince(project, lastRevision);
+            if (revisions.isEmpty()) {
+                continue;
+            }
+            final long detectionTime = System.currentTimeMillis();
+            final ChangeSet changeSet = new ChangeSet();
+            // debounce: collect revisions until no further revision arrives within the debounce period
+            while (!revisions.isEmpty()) {
+                changeSet.addAll(revisions);
+                lastRevision = revisions.get(revisions.size() - 1);
+                if (!sleep(_debounceMillis)) {
+                    return;
+                }
+                revisions = getRevisionsSince(project, lastRevision);
+            }
+            cycle++;
+            runCycle(cycle, storeAgent, scope, changeSet, detectionTime);
+        }
+    }
+
+    private void runCycle(final int cycle, @NotNull final StoreAgent storeAgent, @NotNull final WatchScope scope, @NotNull final ChangeSet changeSet, final long detectionTime) {
+        final ExportResult result;
+        final String description;
+        if (scope.containsAnyStore(changeSet.getDeletedStores())) {
+            description = "full export because of deleted elements";
+            result = _command.exportStoreElements();
+        } else {
+            final List<IDProvider> changedElements = changeSet.resolve(storeAgent, _command.isExportReleaseState(), scope);
+            if (changedElements.isEmpty()) {
+                LOGGER.debug("Export cycle #{}: {} revision(s) without changes of the watched elements.", cycle, changeSet.getRevisionCount());
+                return;
+            }
+            description = changedElements.size() + " changed element(s)";
+            result = exportElements(changedElements);
+        }
+        result.log();
+        final long now = System.currentTimeMillis();
+        LOGGER.info("Export cycle #{} finished ({}, {} revision(s)) - latency: {}ms", cycle, description, changeSet.getRevisionCount(), now - detectionTime);
+    }
+
+    @NotNull
+    private ExportResult exportElements(@NotNull final Collection<IDProvider> elements) {
+        try {
+            final ExportOperation exportOperation = _command.createExportOperation();
+            // every changed element is part of the change set, so its children need no export
+            exportOperation.setExportChildElements(false);
+            for (final IDProvider element : elements) {
+                exportOperation.addElement(element);
+            }
+            return _command.performExport(exportOperation);
+        } catch (@SuppressWarnings("squid:S2221") final Exception e) {
+            return new ExportResult(e);
+        }
+    }
+
+    @NotNull
+    private static List<Revision> getRevisionsSince(@NotNull final Project project, @NotNull final Revision lastRevision) {
+        final Revision currentRevision = project.getRevision(new Date());
+        if (currentRevision == null || currentRevision.getId() <= lastRevision.getId()) {
+            return Collections.emptyList();
+        }
+        final List<Revision> revisions = new ArrayList<>();
+        for (final Revision revision : project.getRevisions(lastRevision, currentRevision, MAX_REVISIONS_PER_POLL, null)) {
+            if (revision.getId() > lastRevision.getId()) {
+                revisions.add(revision);
+            }
+        }
+        revisions.sort((first, second) -> Long.compare(first.getId(), second.getId()));
+        return revisions;
+    }
+
+    private boolean sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+            return _running;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void awaitTermination() {
+        try {
+            if (!_terminated.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Export watch did not terminate within {} seconds.", SHUTDOWN_TIMEOUT_SECONDS);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void removeShutdownHook(@NotNull final Thread shutdownHook) {
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (@SuppressWarnings("squid:S1166") final IllegalStateException ignore) {
+            // jvm is already shutting down
+        }
+    }
+
+    private static String getKey(@NotNull final Store.Type storeType, final long nodeId) {
+        return storeType.name() + '#' + nodeId;
+    }
+
+    /**
+     * The elements (and optionally their children) that are watched for changes.
+     */
+    static final class WatchScope {
+
+        private final Set<String> _rootKeys = new HashSet<>();
+        private final Set<Store.Type> _storeTypes = EnumSet.noneOf(Store.Type.class);
+        private final Set<Store.Type> _completeStores = EnumSet.noneOf(Store.Type.class);
+        private final boolean _includeChildren;
+
+        WatchScope(@NotNull final Collection<IDProvider> roots, final boolean includeChildren) {
+            _includeChildren = includeChildren;
+            for (final IDProvider root : roots) {
+                final Store.Type storeType = root.getStore().getType();
+                _storeTypes.add(storeType);
+                if (root instanceof Store && includeChildren) {
+                    _completeStores.add(storeType);
+                }
+                _rootKeys.add(getKey(storeType, root.getId()));
+            }
+        }
+
+        boolean containsAnyStore(@NotNull final Collection<Store.Type> storeTypes) {
+            for (final Store.Type storeType : storeTypes) {
+                if (_storeTypes.contains(storeType)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean contains(@NotNull final Store.Type storeType, @NotNull final IDProvider element) {
+            if (_completeStores.contains(storeType)) {
+                return true;
+            }
+            if (_rootKeys.contains(getKey(storeType, element.getId()))) {
+                return true;
+            }
+            if (!_includeChildren) {
+                return false;
+            }
+            StoreElement parent = element.getParent();
+            while (parent instanceof IDProvider) {
+                if (_rootKeys.contains(getKey(storeType, ((IDProvider) parent).getId()))) {
+                    return true;
+                }
+                parent = parent.getParent();
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The changes of all revisions of one export cycle.
+     */
+    static final class ChangeSet {
+
+        private final Map<String, BasicElementInfo> _changedElements = new LinkedHashMap<>();
+        private final Set<Store.Type> _deletedStores = EnumSet.noneOf(Store.Type.class);
+        private int _revisionCount;
+
+        void addAll(@NotNull final Collection<Revision> revisions) {
+            for (final Revision revision : revisions) {
+                _revisionCount++;
+                final RevisionMetaData metaData = revision.getMetaData();
+                if (metaData == null) {
+                    continue;
+                }
+                addChanged(metaData.getCreatedElements());
+                addChanged(metaData.getChangedElements());
+                for (final BasicElementInfo deletedElement : metaData.getDeletedElements()) {
+                    _changedElements.remove(getKey(deletedElement.getStoreType(), deletedElement.getNodeId()));
+                    _deletedStores.add(deletedElement.getStoreType());
+                }
+            }
+        }
+
+        private void addChanged(@NotNull final Collection<BasicElementInfo> elements) {
+            for (final BasicElementInfo element : elements) {
+                _changedElements.put(getKey(element.getStoreType(), element.getNodeId()), element);
+            }
+        }
+
+        int getRevisionCount() {
+            return _revisionCount;
+        }
+
+        @NotNull
+        Set<Store.Type> getDeletedStores() {
+            return _deletedStores;
+        }
+
+        @NotNull
+        List<IDProvider> resolve(@NotNull final StoreAgent storeAgent, final boolean useReleaseState, @NotNull final WatchScope scope) {
+            final List<IDProvider> elements = new ArrayList<>();
+            for (final BasicElementInfo elementInfo : _changedElements.values()) {
+                final Store.Type storeType = elementInfo.getStoreType();
+                final IDProvider element = storeAgent.getStore(storeType, useReleaseState).getStoreElement(elementInfo.getNodeId());
+                // the element may not exist in the release state or may have been removed in a later revision
+                if (element != null && scope.contains(storeType, element)) {
+                    elements.add(element);
+                }
+            }
+            return elements;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.CliContextImpl;
+import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.MultiStateExportResult;
+
+import de.espirit.firstspirit.agency.SpecialistsBroker;
+import de.espirit.firstspirit.agency.StoreAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the identifiers of a command in several states of the project (e.g. the current and the release state) into
+ * one sync dir per state in a single run.
+ * <p>
+ * The first state is exported with the context of the command, every further state with a session of its own, so the
+ * export operations run concurrently. The identifiers are parsed once and resolved once per state, all path
+ * identifiers of a state sharing the folders of the store roots of that state. The details of every state are logged
+ * as soon as its export has finished, the combined result summarizes all states.
+ *
+ * @author e-Spirit AG
+ */
+public class MultiStateExporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiStateExporter.class);
+
+    private final AbstractExportCommand _command;
+    private final Map<ExportState, String> _synchronizationDirectories;
+    private final Object _logLock = new Object();
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param command                    the command that provides the identifiers, the export options and the context
+     * @param synchronizationDirectories the states to export with the sync dir of each state
+     */
+    public MultiStateExporter(@NotNull final AbstractExportCommand command, @NotNull final Map<ExportState, String> synchronizationDirectories) {
+        if (synchronizationDirectories.isEmpty()) {
+            throw new IllegalArgumentException("No states to export!");
+        }
+        _command = command;
+        _synchronizationDirectories = new LinkedHashMap<>(synchronizationDirectories);
+    }
+
+    /**
+     * Exports all states concurrently and waits for all exports to finish.
+     *
+     * @return the combined result of all states
+     */
+    @NotNull
+    public MultiStateExportResult export() {
+        final List<Identifier> identifiers = _command.getIdentifiers();
+        if (identifiers.isEmpty()) {
+            return new MultiStateExportResult(new IllegalArgumentException("no identifiers for export command found - pass at least 1 identifier --> see 'fs-cli help export'"));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(_synchronizationDirectories.size());
+        try {
+            final Map<ExportState, Future<MultiStateExportResult.StateResult>> futures = new LinkedHashMap<>();
+            boolean first = true;
+            for (final Map.Entry<ExportState, String> entry : _synchronizationDirectories.entrySet()) {
+                final boolean ownSession = !first;
+                futures.put(entry.getKey(), executor.submit(() -> exportState(entry.getKey(), entry.getValue(), identifiers, ownSession)));
+                first = false;
+            }
+            final List<MultiStateExportResult.StateResult> results = new ArrayList<>();
+            for (final Map.Entry<ExportState, Future<MultiStateExportResult.StateResult>> entry : futures.entrySet()) {
+                results.add(getResult(entry.getKey(), entry.getValue()));
+            }
+            return new MultiStateExportResult(results);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @NotNull
+    private MultiStateExportResult.StateResult getResult(@NotNull final ExportState state, @NotNull final Future<MultiStateExportResult.StateResult> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new MultiStateExportResult.StateResult(state, _synchronizationDirectories.get(state), new ExportResult(e), 0);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            final Exception exception = cause instanceof Exception ? (Exception) cause : e;
+            return new MultiStateExportResult.StateResult(state, _synchronizationDirectories.get(state), new ExportResult(exception), 0);
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("squid:S2221")
+    private MultiStateExportResult.StateResult exportState(@NotNull final ExportState state, @NotNull final String synchronizationDirectory, @NotNull final List<Identifier> identifiers, final boolean ownSession) throws Exception {
+        final long start = System.currentTimeMillis();
+        CliContextImpl session = null;
+        ExportResult result;
+        try {
+            final SpecialistsBroker broker;
+            if (ownSession) {
+                LOGGER.debug("Opening session for the {} state...", state.getName());
+                session = new CliContextImpl(_command);
+                broker = session;
+            } else {
+                broker = _command.getContext();
+            }
+            final ExportOperation exportOperation = _command.createExportOperation(broker, state.isRelease());
+            _command.addExportElements(broker.requireSpecialist(StoreAgent.TYPE), state.isRelease(), identifiers, exportOperation);
+            LOGGER.info("Exporting the {} state...", state.getName());
+            result = _command.performExport(broker, exportOperation, synchronizationDirectory);
+        } catch (final Exception e) {
+            result = new ExportResult(e);
+        }
+        try {
+            // the details are logged while the session is still open, because logging looks up the exported elements
+            synchronized (_logLock) {
+                LOGGER.info("Result of the {} state:", state.getName());
+                result.log();
+            }
+            return new MultiStateExportResult.StateResult(state, synchronizationDirectory, result, System.currentTimeMillis() - start);
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.CliContextImpl;
+import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
+import com.espirit.moddev.cli.configuration.Workspace;
+import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.WorkspaceExportResult;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Exports the projects of a {@link Workspace} concurrently, each project with a session of its own.
+ * <p>
+ * Every project is exported by a copy of the export command with the connection settings, export options and
+ * identifiers of the command, the sync dir of the project and, if the workspace defines them, the identifiers and
+ * export flags of the project. The pool of the exporter caps the number of concurrent sessions. A failed export is
+ * repeated with a fresh session up to the {@link Workspace#getRetries() retries} of the workspace, unless it failed
+ * because of invalid identifiers, which would fail again. The details of every project are logged as soon as its
+ * export has finished, the combined result summarizes all projects.
+ *
+ * @author e-Spirit AG
+ */
+public class WorkspaceExporter {
+
+    /**
+     * Delay before the first retry of a failed export; every further retry waits this delay longer.
+     */
+    public static final long RETRY_DELAY_MILLIS = 5000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceExporter.class);
+
+    private final ExportCommand _command;
+    private final Workspace _workspace;
+    private final int _parallelism;
+    private final int _retries;
+    private final Object _logLock = new Object();
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param command     the command that provides the connection settings, the export options and the identifiers
+     * @param workspace   the workspace to export
+     * @param parallelism the number of projects that are exported concurrently
+     * @param retries     the number of times a failed export of a project is repeated
+     */
+    public WorkspaceExporter(@NotNull final ExportCommand command, @NotNull final Workspace workspace, final int parallelism, final int retries) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        if (retries < 0) {
+            throw new IllegalArgumentException("The retries must not be negative!");
+        }
+        _command = command;
+        _workspace = workspace;
+        _parallelism = parallelism;
+        _retries = retries;
+    }
+
+    /**
+     * Exports all projects and waits for all exports to finish.
+     *
+     * @return the combined result of all projects
+     */
+    @NotNull
+    public WorkspaceExportResult exportProjects() {
+        final List<Workspace.Project> projects = _workspace.getProjects();
+        LOGGER.info("Exporting {} projects with a parallelism of {}...", projects.size(), _parallelism);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(_parallelism, projects.size()));
+        try {
+            final List<Future<WorkspaceExportResult.ProjectResult>> futures = new ArrayList<>(projects.size());
+            for (final Workspace.Project project : projects) {
+                futures.add(executor.submit(() -> exportProject(project)));
+            }
+            final List<WorkspaceExportResult.ProjectResult> results = new ArrayList<>(projects.size());
+            for (int index = 0; index < projects.size(); index++) {
+                results.add(getResult(projects.get(index), futures.get(index)));
+            }
+            return new WorkspaceExportResult(results);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @NotNull
+    private static WorkspaceExportResult.ProjectResult getResult(@NotNull final Workspace.Project project, @NotNull final Future<WorkspaceExportResult.ProjectResult> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new WorkspaceExportResult.ProjectResult(project, new ExportResult(e), 0, 0);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            final Exception exception = cause instanceof Exception ? (Exception) cause : e;
+            return new WorkspaceExportResult.ProjectResult(project, new ExportResult(exception), 0, 0);
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("squid:S2221")
+    private WorkspaceExportResult.ProjectResult exportProject(@NotNull final Workspace.Project project) throws Exception {
+        final long start = System.currentTimeMillis();
+        final ExportCommand projectCommand = _command.createProjectCommand(project);
+        ExportResult result;
+        try {
+            result = projectCommand.preflight();
+        } catch (final Exception e) {
+            result = new ExportResult(e);
+        }
+        if (result != null) {
+            logResult(project, result);
+            return new WorkspaceExportResult.ProjectResult(project, result, System.currentTimeMillis() - start, 0);
+        }
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            final boolean lastAttempt = attempt > _retries;
+            CliContextImpl session = null;
+            try {
+                LOGGER.info("Exporting project '{}' to '{}' (attempt {})...", project.getName(), project.getSynchronizationDirectory(), attempt);
+                session = new CliContextImpl(projectCommand);
+                projectCommand.setContext(session);
+                result = projectCommand.call();
+            } catch (final Exception e) {
+                result = new ExportResult(e);
+            }
+            try {
+                if (!result.isError() || lastAttempt || !isRetryable(result.getError())) {
+                    // the details are logged while the session is still open, because logging looks up the exported elements
+                    logResult(project, result);
+                    return new WorkspaceExportResult.ProjectResult(project, result, System.currentTimeMillis() - start, attempt);
+                }
+                LOGGER.warn("Export of project '{}' failed in attempt {}, retrying: {}", project.getName(), attempt, result.getError().getMessage());
+            } finally {
+                if (session != null) {
+                    session.close();
+                }
+            }
+            Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+        }
+    }
+
+    private void logResult(@NotNull final Workspace.Project project, @NotNull final ExportResult result) {
+        synchronized (_logLock) {
+            LOGGER.info("Result of project '{}':", project.getName());
+            result.log();
+        }
+    }
+
+    /**
+     * Returns whether an export that failed with the given error may succeed if it is repeated. Invalid identifiers
+     * fail every attempt.
+     *
+     * @param error the error of the failed export
+     * @return whether the export should be repeated
+     */
+    static boolean isRetryable(@NotNull final Exception error) {
+        return !(error instanceof IllegalArgumentException) && !(error instanceof IDProviderNotFoundException);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.history;
+
+import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.history.RunHistory;
+import com.espirit.moddev.cli.history.RunRecord;
+import com.espirit.moddev.cli.history.RunStatistics;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command that shows the statistics of the recorded runs per command and project: the percentiles of their durations
+ * and the trend of the latest runs. Needs no FirstSpirit connection.
+ *
+ * @author e-Spirit AG
+ * @see RunHistory
+ */
+@Command(name = "stats", groupNames = "history", description = "Shows percentiles and trends of the durations of the recorded runs per command and project.")
+@Examples(examples = {
+                "history stats",
+                "history stats --command export --for-project myProject --window 5"
+        },
+        descriptions = {
+                "Shows the statistics of all recorded commands and projects",
+                "Compares the latest 5 exports of the project 'myProject' to the 5 exports before"
+        })
+public class HistoryStatsCommand extends SimpleCommand<SimpleResult<List<RunStatistics>>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistoryStatsCommand.class);
+    private static final int DEFAULT_WINDOW = 10;
+
+    @Option(name = "--command", description = "Only shows the runs of the given command, e.g. 'export' or 'module install'.", title = "command")
+    private String command;
+
+    @Option(name = "--for-project", description = "Only shows the runs for the given project.", title = "project")
+    private String forProject;
+
+    @Option(name = "--window", description = "The number of latest runs that are compared to the same number of runs before (default is " + DEFAULT_WINDOW + ").", title = "runs")
+    private int window = DEFAULT_WINDOW;
+
+    @Override
+    public SimpleResult<List<RunStatistics>> call() {
+        if (window <= 0) {
+            return new SimpleResult<>(new IllegalArgumentException("The window must be positive, but is " + window));
+        }
+        final List<RunRecord> records;
+        try {
+            records = RunHistory.forCurrentUser().read();
+        } catch (final IOException e) {
+            return new SimpleResult<>(e);
+        }
+        final List<RunRecord> selected = new ArrayList<>(records.size());
+        for (final RunRecord record : records) {
+            if ((command == null || command.equalsIgnoreCase(record.getCommand())) && (forProject == null || forProject.equals(record.getProject()))) {
+                selected.add(record);
+            }
+        }
+        if (selected.isEmpty()) {
+            LOGGER.info("No runs have been recorded yet.");
+        }
+        final List<RunStatistics> statistics = RunStatistics.of(selected, window);
+        for (final RunStatistics runStatistics : statistics) {
+            log(runStatistics);
+        }
+        return new SimpleResult<>(statistics);
+    }
+
+    private static void log(final RunStatistics statistics) {
+        final String project = statistics.getProject().isEmpty() ? "" : " | project: " + statistics.getProject();
+        LOGGER.info("== {}{} ==", statistics.getCommand(), project);
+        LOGGER.info("runs: {} (failed: {}) | last run: {}{}", statistics.getRuns(), statistics.getFailedRuns(),
+                new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.UK).format(new Date(statistics.getLastTimestamp())),
+                statistics.getServerVersion().isEmpty() ? "" : " | server: " + statistics.getServerVersion());
+        LOGGER.info("duration: p50 {} ms | p90 {} ms | p99 {} ms | max {} ms", statistics.getPercentileMillis(50),
+                statistics.getPercentileMillis(90), statistics.getPercentileMillis(99), statistics.getPercentileMillis(100));
+        final StringBuilder phases = new StringBuilder("median phases:");
+        for (final RunRecord.Phase phase : RunRecord.Phase.values()) {
+            phases.append(' ').append(phase.name().toLowerCase(Locale.UK)).append(' ').append(statistics.getMedianMillis(phase)).append(" ms");
+        }
+        LOGGER.info(phases.toString());
+        if (statistics.getMedianElements() > 0 || statistics.getMedianBytes() > 0) {
+            LOGGER.info("median transfer: {} elements | {} bytes", statistics.getMedianElements(), statistics.getMedianBytes());
+        }
+        final Double trend = statistics.getTrend();
+        if (trend == null) {
+            LOGGER.info("trend: too few successful runs");
+        } else {
+            LOGGER.info("trend: {}% median duration of the latest runs", String.format(Locale.UK, "%+.1f", trend * 100));
+        }
+    }
+
+    @Override
+    public boolean needsContext() {
+        return false;
+    }
+}
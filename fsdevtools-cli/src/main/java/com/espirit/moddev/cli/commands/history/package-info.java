@@ -0,0 +1,5 @@
+/**
+ * Airline commands for the local history of the runs of the cli.
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.commands.history;
@@ -0,0 +1,78 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.index;
+
+import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndex;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndexes;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command that builds the offline index of the synchronization directory from scratch. Exports and imports keep the
+ * index up to date afterwards. Needs no FirstSpirit connection.
+ *
+ * @author e-Spirit AG
+ */
+@Command(name = "build", groupNames = "index", description = "Builds the offline index of the synchronization directory, which is used to validate identifiers before connecting and for shell completion.")
+@Examples(examples = {
+                "index build --syncDir ./src/main/resources/project"
+        },
+        descriptions = {
+                "Indexes all exported elements of the given synchronization directory."
+        })
+public class IndexBuildCommand extends SimpleCommand<SimpleResult<Integer>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexBuildCommand.class);
+
+    @Override
+    public SimpleResult<Integer> call() {
+        final Path syncDirectory = Paths.get(getSynchronizationDirectoryString());
+        if (!Files.isDirectory(syncDirectory)) {
+            return new SimpleResult<>(new IllegalArgumentException("The sync dir '" + syncDirectory + "' does not exist."));
+        }
+        try {
+            final SyncDirectoryIndex index = SyncDirectoryIndexes.rebuild(syncDirectory);
+            LOGGER.info("Indexed {} elements of '{}'.", index.size(), syncDirectory.toAbsolutePath());
+            LOGGER.info("Index file: {}", SyncDirectoryIndexes.getIndexFile(syncDirectory));
+            LOGGER.info("Completion file: {}", SyncDirectoryIndexes.getCompletionFile(syncDirectory));
+            return new SimpleResult<>(index.size());
+        } catch (final IOException e) {
+            return new SimpleResult<>(e);
+        }
+    }
+
+    @Override
+    public boolean needsContext() {
+        return false;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.index;
+
+import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.espirit.moddev.cli.syncdir.IndexEntry;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndex;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryIndexes;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command that lists the identifiers of the offline index of the synchronization directory that start with a given
+ * prefix. Shell completion scripts should rather read the completion file of the index directly, which avoids the
+ * startup of the jvm. Needs no FirstSpirit connection.
+ *
+ * @author e-Spirit AG
+ */
+@Command(name = "complete", groupNames = "index", description = "Lists the identifiers of the offline index of the synchronization directory that start with the given prefix.")
+@Examples(examples = {
+                "index complete pagetemplate:",
+                "index complete path:/PageStore/products"
+        },
+        descriptions = {
+                "Lists all page templates of the synchronization directory",
+                "Lists all paths beneath the page store folder 'products'"
+        })
+public class IndexCompleteCommand extends SimpleCommand<SimpleResult<List<String>>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexCompleteCommand.class);
+    private static final int DEFAULT_LIMIT = 100;
+
+    @Arguments(title = "prefix", description = "The prefix of the identifiers to list, e.g. 'page:home' or 'path:/PageStore/'")
+    private String prefix = "";
+
+    @Option(name = "--limit", description = "The maximum number of identifiers to list (default is " + DEFAULT_LIMIT + ").", title = "limit")
+    private int limit = DEFAULT_LIMIT;
+
+    @Override
+    public SimpleResult<List<String>> call() {
+        final Path syncDirectory = Paths.get(getSynchronizationDirectoryString());
+        final SyncDirectoryIndex index = SyncDirectoryIndexes.openIfExists(syncDirectory);
+        if (index == null) {
+            return new SimpleResult<>(new IllegalStateException("The sync dir '" + syncDirectory + "' has not been indexed yet - call 'fs-cli index build' first."));
+        }
+        final String lowerCasePrefix = prefix.toLowerCase(Locale.UK);
+        final List<String> candidates = new ArrayList<>();
+        index.forEach(entry -> {
+            if (candidates.size() < limit) {
+                addCandidates(candidates, entry, lowerCasePrefix);
+            }
+        });
+        candidates.forEach(LOGGER::info);
+        return new SimpleResult<>(candidates);
+    }
+
+    private void addCandidates(final List<String> candidates, final IndexEntry entry, final String lowerCasePrefix) {
+        if (entry.getUidMapping() != null && entry.getUid() != null) {
+            final String uidIdentifier = entry.getUidMapping().getPrefix() + ':' + entry.getUid();
+            if (uidIdentifier.toLowerCase(Locale.UK).startsWith(lowerCasePrefix)) {
+                candidates.add(uidIdentifier);
+            }
+        }
+        final String pathIdentifier = "path:/" + entry.getPath();
+        if (candidates.size() < limit && pathIdentifier.toLowerCase(Locale.UK).startsWith(lowerCasePrefix)) {
+            candidates.add(pathIdentifier);
+        }
+    }
+
+    @Override
+    public boolean needsContext() {
+        return false;
+    }
+}
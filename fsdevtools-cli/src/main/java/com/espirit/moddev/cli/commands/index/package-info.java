@@ -0,0 +1,5 @@
+/**
+ * Airline commands for the offline index of the synchronization directory.
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.commands.index;
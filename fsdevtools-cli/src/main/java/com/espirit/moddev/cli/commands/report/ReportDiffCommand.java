@@ -0,0 +1,175 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.report;
+
+import com.espirit.moddev.cli.commands.SimpleCommand;
+import com.espirit.moddev.cli.results.SimpleResult;
+import com.espirit.moddev.cli.results.logging.ElementResultDiff;
+import com.espirit.moddev.cli.results.logging.ElementResultFile;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.help.Examples;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command that compares the element results of two exports, which every export persists in its sync dir, and lists
+ * the differences per store. A result only contains the elements its export has created, updated, deleted or moved, so
+ * the command compares change sets, not the contents of the projects: an element that the newer export did not have to
+ * write is listed as written only by the older export. The results are streamed, so large results are compared in
+ * constant memory. Needs no FirstSpirit connection.
+ *
+ * @author e-Spirit AG
+ * @see ElementResultFile
+ */
+@Command(name = "diff", groupNames = "report", description = "Compares the change sets of two exports: lists the elements written only by the newer export (+), only by the older export (-) and differently by both (~). Elements an export did not have to write are not part of its change set.")
+@Examples(examples = {
+                "report diff ./sync/.fs-cli/results/export-20240101-120000-000.fsr ./sync/.fs-cli/results/export-20240102-120000-000.fsr",
+                "report diff --summary ./release ./current"
+        },
+        descriptions = {
+                "Compares two exports into the same sync dir",
+                "Counts the differences between the latest exports into the sync dirs './release' and './current'"
+        })
+public class ReportDiffCommand extends SimpleCommand<SimpleResult<ElementResultDiff>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportDiffCommand.class);
+
+    @Arguments(title = {"older", "newer"}, description = "The older and the newer export result: a result file of a sync dir or a sync dir for its latest result.")
+    private List<String> results = new ArrayList<>();
+
+    @Option(name = "--summary", description = "Only logs the number of differences per store, not the elements.")
+    private boolean summary;
+
+    @Override
+    public SimpleResult<ElementResultDiff> call() {
+        if (results.size() != 2) {
+            return new SimpleResult<>(new IllegalArgumentException("Two export results are required, but " + results.size() + " are given."));
+        }
+        try {
+            final Path olderFile = ElementResultFile.resolve(Paths.get(results.get(0)));
+            final Path newerFile = ElementResultFile.resolve(Paths.get(results.get(1)));
+            LOGGER.info("Comparing '{}' to '{}'.", olderFile, newerFile);
+            final ElementResultDiff diff = ElementResultDiff.compare(olderFile, newerFile, summary ? new SummaryListener() : new LoggingListener());
+            logSummary(diff);
+            return new SimpleResult<>(diff);
+        } catch (final IOException e) {
+            return new SimpleResult<>(e);
+        }
+    }
+
+    private static void logSummary(@NotNull final ElementResultDiff diff) {
+        LOGGER.info("== SUMMARY ==");
+        if (!diff.hasDifferences()) {
+            LOGGER.info("no differences");
+        }
+        for (final Store.Type storeType : Store.Type.values()) {
+            final int added = diff.getAdded(storeType);
+            final int removed = diff.getRemoved(storeType);
+            final int changed = diff.getChanged(storeType);
+            if (added + removed + changed > 0) {
+                LOGGER.info(" - {}: {} only newer | {} only older | {} changed", storeType.getName(), added, removed, changed);
+            }
+        }
+        LOGGER.info("elements written equally by both exports: {}", diff.getUnchanged());
+    }
+
+    @NotNull
+    private static String describe(@NotNull final ElementResultFile.Entry entry) {
+        return entry.getStoreType().getName() + ' ' + entry.getUid() + (entry.getPath().isEmpty() ? "" : " (" + entry.getPath() + ')');
+    }
+
+    @Override
+    public boolean needsContext() {
+        return false;
+    }
+
+    /**
+     * Logs nothing but the summary.
+     */
+    private static final class SummaryListener implements ElementResultDiff.Listener {
+
+        @Override
+        public void added(@NotNull final ElementResultFile.Entry newer) {
+            // counted by the diff
+        }
+
+        @Override
+        public void removed(@NotNull final ElementResultFile.Entry older) {
+            // counted by the diff
+        }
+
+        @Override
+        public void changed(@NotNull final ElementResultFile.Entry older, @NotNull final ElementResultFile.Entry newer) {
+            // counted by the diff
+        }
+    }
+
+    /**
+     * Logs every difference as soon as it is found, with a headline per store.
+     */
+    private static final class LoggingListener implements ElementResultDiff.Listener {
+
+        private Store.Type _storeType;
+
+        @Override
+        public void added(@NotNull final ElementResultFile.Entry newer) {
+            startStore(newer);
+            LOGGER.info(" + {}", describe(newer));
+        }
+
+        @Override
+        public void removed(@NotNull final ElementResultFile.Entry older) {
+            startStore(older);
+            LOGGER.info(" - {}", describe(older));
+        }
+
+        @Override
+        public void changed(@NotNull final ElementResultFile.Entry older, @NotNull final ElementResultFile.Entry newer) {
+            startStore(newer);
+            if (older.getPath().equals(newer.getPath())) {
+                LOGGER.info(" ~ {}", describe(newer));
+            } else {
+                LOGGER.info(" ~ {} -> {}", describe(older), newer.getPath().isEmpty() ? "deleted" : newer.getPath());
+            }
+        }
+
+        private void startStore(@NotNull final ElementResultFile.Entry entry) {
+            if (entry.getStoreType() != _storeType) {
+                _storeType = entry.getStoreType();
+                LOGGER.info("== {} ==", _storeType.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Airline commands that evaluate the persisted results of the cli.
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.commands.report;
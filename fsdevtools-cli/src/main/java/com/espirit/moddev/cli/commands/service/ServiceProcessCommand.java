@@ -3,6 +3,8 @@ package com.espirit.moddev.cli.commands.service;
 import com.espirit.moddev.cli.commands.SimpleCommand;
 import com.espirit.moddev.cli.results.ServiceProcessResult;
 import com.espirit.moddev.services.ServiceUtils;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.OptionType;
 
@@ -24,6 +26,7 @@ import java.util.stream.Collectors;
 public abstract class ServiceProcessCommand extends SimpleCommand<ServiceProcessResult> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ServiceProcessCommand.class);
+    private static final Timer PROCESS_TIMER = MetricsRegistry.getDefault().timer("service_process");
 
     @Option(type = OptionType.COMMAND, name = {"-n", "--serviceNames"}, description = "Comma separated list of Names of the FirstSpirit services to be processed. Optional. If not provided, all services with auto start enabled will be processed.")
     private String serviceNames;
@@ -77,7 +80,7 @@ public abstract class ServiceProcessCommand extends SimpleCommand<ServiceProcess
         List<String> serviceNamesToProcess = splitServiceNames.isEmpty() ? ServiceUtils.getAllServiceNamesFromServer(moduleAdminAgent) : splitServiceNames;
         List<ProcessServiceInfo> results = serviceNamesToProcess
                 .stream()
-                .map(serviceName -> processService(moduleAdminAgent, serviceName))
+                .map(serviceName -> processTimed(moduleAdminAgent, serviceName))
                 .collect(Collectors.toList());
 
         logProcessResults(results);
@@ -85,6 +88,12 @@ public abstract class ServiceProcessCommand extends SimpleCommand<ServiceProcess
         return results;
     }
 
+    private ProcessServiceInfo processTimed(@NotNull final ModuleAdminAgent moduleAdminAgent, @NotNull final String serviceName) {
+        try (Timer.Context ignored = PROCESS_TIMER.time()) {
+            return processService(moduleAdminAgent, serviceName);
+        }
+    }
+
     @NotNull
     protected String getResultLoggingHeaderString(List<ProcessServiceInfo> results) {
         return "Processed " + results.size() + " services:";
@@ -30,6 +30,7 @@ import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.OptionType;
 import com.github.rvesse.airline.annotations.restrictions.AllowedRawValues;
 import de.espirit.firstspirit.access.project.ProjectScriptContext;
+import de.espirit.firstspirit.agency.SpecialistsBroker;
 import de.espirit.firstspirit.io.FileHandle;
 import de.espirit.firstspirit.io.FileSystem;
 import de.espirit.firstspirit.io.FileSystemsAgent;
@@ -242,10 +243,23 @@ public class GlobalConfig implements Config {
 	}
 
 	protected <F extends FileHandle> FileSystem<F> getSynchronizationDirectory(final String syncDirStr) {
+		return getSynchronizationDirectory(_context, syncDirStr);
+	}
+
+	/**
+	 * Returns the given synchronization directory as file system of the given broker, e.g. of another session than
+	 * the context of this config. The directory is created if needed.
+	 *
+	 * @param broker     the broker to request the {@link FileSystemsAgent} from
+	 * @param syncDirStr the synchronization directory
+	 * @param <F>        the type of the file handles
+	 * @return the file system of the synchronization directory
+	 */
+	protected <F extends FileHandle> FileSystem<F> getSynchronizationDirectory(final SpecialistsBroker broker, final String syncDirStr) {
 		SyncDirectoryFactory syncDirectoryFactory = new SyncDirectoryFactory(this);
 		syncDirectoryFactory.checkAndCreateSyncDirIfNeeded(syncDirStr);
 
-		final FileSystemsAgent fileSystemsAgent = _context.requireSpecialist(FileSystemsAgent.TYPE);
+		final FileSystemsAgent fileSystemsAgent = broker.requireSpecialist(FileSystemsAgent.TYPE);
 		return (FileSystem<F>) fileSystemsAgent.getOSFileSystem(syncDirStr);
 	}
 
@@ -363,4 +377,23 @@ public class GlobalConfig implements Config {
 		_synchronizationDirectory = synchronizationDirectory;
 	}
 
+	/**
+	 * Copies the connection settings of this configuration to the given configuration, so the same server can be
+	 * connected with another project or synchronization directory.
+	 *
+	 * @param target the configuration to copy the settings to
+	 */
+	public void copyConnectionSettingsTo(final GlobalConfig target) {
+		target._error = _error;
+		target._host = _host;
+		target._fsMode = _fsMode;
+		target._port = _port;
+		target._httpProxyHost = _httpProxyHost;
+		target._httpProxyPort = _httpProxyPort;
+		target._user = _user;
+		target._password = _password;
+		target._activateProjectIfDeactivated = _activateProjectIfDeactivated;
+		target.dontCreateSynchronizationDirectoryIfMissing = dontCreateSynchronizationDirectoryIfMissing;
+	}
+
 }
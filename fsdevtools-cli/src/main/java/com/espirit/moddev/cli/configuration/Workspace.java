@@ -0,0 +1,318 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A workspace descriptor that maps several FirstSpirit projects to their synchronization directories, so they can be
+ * imported or exported by a single command. The descriptor is a json file like
+ * <pre>
+ * {
+ *   "parallelism": 4,
+ *   "retries": 1,
+ *   "projects": [
+ *     { "project": "Shop", "syncDir": "shop/src", "layerMapping": "CREATE_NEW", "identifiers": ["templatestore", "pagestore"] },
+ *     { "project": "Blog", "syncDir": "blog/src", "useReleaseState": true, "excludeChildElements": true }
+ *   ]
+ * }
+ * </pre>
+ * Relative sync dirs are resolved against the directory of the descriptor. The layer mapping has the syntax of the
+ * {@code --layerMapping} option of the import command. The identifiers and the flags {@code useReleaseState},
+ * {@code excludeChildElements}, {@code excludeParentElements} and {@code keepObsoleteFiles} are used by exports and
+ * have the syntax of the arguments and options of the export command. The retries are the number of times the export
+ * of a project is repeated after it failed.
+ *
+ * @author e-Spirit AG
+ */
+public final class Workspace {
+
+    /**
+     * Number of projects that are processed concurrently if the descriptor does not specify it.
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * Number of times a failed project is exported again if the descriptor does not specify it.
+     */
+    public static final int DEFAULT_RETRIES = 1;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final int _parallelism;
+    private final int _retries;
+    private final List<Project> _projects;
+
+    private Workspace(final int parallelism, final int retries, @NotNull final List<Project> projects) {
+        _parallelism = parallelism;
+        _retries = retries;
+        _projects = Collections.unmodifiableList(projects);
+    }
+
+    /**
+     * Reads the given workspace descriptor.
+     *
+     * @param file the descriptor file
+     * @return the workspace
+     * @throws IOException              if the file can not be read or is no valid json
+     * @throws IllegalArgumentException if the descriptor is invalid
+     */
+    @NotNull
+    public static Workspace read(@NotNull final Path file) throws IOException {
+        final JsonNode root = OBJECT_MAPPER.readTree(file.toFile());
+        if (root == null || !root.isObject()) {
+            throw new IllegalArgumentException("The workspace descriptor '" + file + "' must contain a json object.");
+        }
+        final int parallelism = root.path("parallelism").asInt(DEFAULT_PARALLELISM);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism of the workspace '" + file + "' must be greater than 0!");
+        }
+        final int retries = root.path("retries").asInt(DEFAULT_RETRIES);
+        if (retries < 0) {
+            throw new IllegalArgumentException("The retries of the workspace '" + file + "' must not be negative!");
+        }
+        final JsonNode projectNodes = root.path("projects");
+        if (!projectNodes.isArray() || projectNodes.size() == 0) {
+            throw new IllegalArgumentException("The workspace descriptor '" + file + "' contains no projects.");
+        }
+        final Path baseDirectory = file.toAbsolutePath().normalize().getParent();
+        final List<Project> projects = new ArrayList<>(projectNodes.size());
+        final Set<String> projectNames = new HashSet<>();
+        for (final JsonNode projectNode : projectNodes) {
+            final String name = getText(projectNode, "project");
+            final String syncDir = getText(projectNode, "syncDir");
+            if (name == null || syncDir == null) {
+                throw new IllegalArgumentException("Every project of the workspace '" + file + "' needs a 'project' and a 'syncDir': " + projectNode);
+            }
+            if (!projectNames.add(name)) {
+                throw new IllegalArgumentException("The project '" + name + "' is listed more than once in the workspace '" + file + "'.");
+            }
+            projects.add(new Project(name, baseDirectory.resolve(syncDir).normalize(), getText(projectNode, "layerMapping"), getText(projectNode, "importComment"),
+                                     getTexts(file, projectNode, "identifiers"), getFlag(file, projectNode, "useReleaseState"),
+                                     getFlag(file, projectNode, "excludeChildElements"), getFlag(file, projectNode, "excludeParentElements"),
+                                     getFlag(file, projectNode, "keepObsoleteFiles")));
+        }
+        return new Workspace(parallelism, retries, projects);
+    }
+
+    @NotNull
+    private static List<String> getTexts(@NotNull final Path file, @NotNull final JsonNode node, @NotNull final String field) {
+        final JsonNode values = node.get(field);
+        if (values == null || values.isNull()) {
+            return Collections.emptyList();
+        }
+        if (!values.isArray()) {
+            throw new IllegalArgumentException("The field '" + field + "' of the workspace '" + file + "' must be a list: " + node);
+        }
+        final List<String> texts = new ArrayList<>(values.size());
+        for (final JsonNode value : values) {
+            final String text = value.asText().trim();
+            if (!text.isEmpty()) {
+                texts.add(text);
+            }
+        }
+        return Collections.unmodifiableList(texts);
+    }
+
+    @Nullable
+    private static Boolean getFlag(@NotNull final Path file, @NotNull final JsonNode node, @NotNull final String field) {
+        final JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (!value.isBoolean()) {
+            throw new IllegalArgumentException("The field '" + field + "' of the workspace '" + file + "' must be true or false: " + node);
+        }
+        return value.booleanValue();
+    }
+
+    @Nullable
+    private static String getText(@NotNull final JsonNode node, @NotNull final String field) {
+        final JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        final String text = value.asText().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Returns the number of projects that are processed concurrently.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return _parallelism;
+    }
+
+    /**
+     * Returns the number of times the export of a project is repeated after it failed.
+     *
+     * @return the retries
+     */
+    public int getRetries() {
+        return _retries;
+    }
+
+    /**
+     * Returns the projects of the workspace in the order of the descriptor.
+     *
+     * @return the projects
+     */
+    @NotNull
+    public List<Project> getProjects() {
+        return _projects;
+    }
+
+    /**
+     * A project of the workspace.
+     */
+    public static final class Project {
+
+        private final String _name;
+        private final Path _synchronizationDirectory;
+        private final String _layerMapping;
+        private final String _importComment;
+        private final List<String> _identifiers;
+        private final Boolean _useReleaseState;
+        private final Boolean _excludeChildElements;
+        private final Boolean _excludeParentElements;
+        private final Boolean _keepObsoleteFiles;
+
+        Project(@NotNull final String name, @NotNull final Path synchronizationDirectory, @Nullable final String layerMapping, @Nullable final String importComment,
+                @NotNull final List<String> identifiers, @Nullable final Boolean useReleaseState, @Nullable final Boolean excludeChildElements,
+                @Nullable final Boolean excludeParentElements, @Nullable final Boolean keepObsoleteFiles) {
+            _name = name;
+            _synchronizationDirectory = synchronizationDirectory;
+            _layerMapping = layerMapping;
+            _importComment = importComment;
+            _identifiers = identifiers;
+            _useReleaseState = useReleaseState;
+            _excludeChildElements = excludeChildElements;
+            _excludeParentElements = excludeParentElements;
+            _keepObsoleteFiles = keepObsoleteFiles;
+        }
+
+        /**
+         * Returns the name of the FirstSpirit project.
+         *
+         * @return the project name
+         */
+        @NotNull
+        public String getName() {
+            return _name;
+        }
+
+        @NotNull
+        public Path getSynchronizationDirectory() {
+            return _synchronizationDirectory;
+        }
+
+        /**
+         * Returns the layer mapping of imports of the project.
+         *
+         * @return the layer mapping or {@code null}, if the project uses the layer mapping of the command
+         */
+        @Nullable
+        public String getLayerMapping() {
+            return _layerMapping;
+        }
+
+        /**
+         * Returns the revision comment of imports of the project.
+         *
+         * @return the comment or {@code null}, if the project uses the import comment of the command
+         */
+        @Nullable
+        public String getImportComment() {
+            return _importComment;
+        }
+
+        /**
+         * Returns the identifiers of exports of the project.
+         *
+         * @return the identifiers or an empty list, if the project uses the identifiers of the command
+         */
+        @NotNull
+        public List<String> getIdentifiers() {
+            return _identifiers;
+        }
+
+        /**
+         * Returns whether exports of the project use the release state.
+         *
+         * @return the flag or {@code null}, if the project uses the option of the command
+         */
+        @Nullable
+        public Boolean getUseReleaseState() {
+            return _useReleaseState;
+        }
+
+        /**
+         * Returns whether exports of the project exclude child elements.
+         *
+         * @return the flag or {@code null}, if the project uses the option of the command
+         */
+        @Nullable
+        public Boolean getExcludeChildElements() {
+            return _excludeChildElements;
+        }
+
+        /**
+         * Returns whether exports of the project exclude parent elements.
+         *
+         * @return the flag or {@code null}, if the project uses the option of the command
+         */
+        @Nullable
+        public Boolean getExcludeParentElements() {
+            return _excludeParentElements;
+        }
+
+        /**
+         * Returns whether exports of the project keep obsolete files in the sync dir.
+         *
+         * @return the flag or {@code null}, if the project uses the option of the command
+         */
+        @Nullable
+        public Boolean getKeepObsoleteFiles() {
+            return _keepObsoleteFiles;
+        }
+
+        @Override
+        public String toString() {
+            return _name + " -> '" + _synchronizationDirectory + '\'';
+        }
+    }
+}
@@ -23,10 +23,14 @@
 package com.espirit.moddev.cli.exception;
 
 import com.espirit.moddev.cli.api.event.CliEventHandler;
+import com.espirit.moddev.cli.logging.AsyncOutputAppender;
+import com.espirit.moddev.cli.metrics.MetricsDump;
+import com.espirit.moddev.cli.results.exporters.ResultExporters;
 import org.slf4j.LoggerFactory;
 
 /**
- * Listener that will exit the cli application with {@link System#exit(int)} if an error occurs.
+ * Listener that will exit the cli application with {@link System#exit(int)} if an error occurs. The pending result exports,
+ * the {@link MetricsDump metrics} and the buffered log output are written before.
  *
  * @author e-Spirit AG
  */
@@ -37,6 +41,9 @@ public final class SystemExitHandler implements CliEventHandler {
     @SuppressWarnings("squid:S1147")
     public final void afterExceptionalTermination(Throwable e) {
         LOGGER.error("An unexpected error occurred during command execution", e);
+        ResultExporters.flushInstance();
+        MetricsDump.dump();
+        AsyncOutputAppender.uninstall();
         System.exit(1);
     }
 
@@ -44,6 +51,9 @@ public final class SystemExitHandler implements CliEventHandler {
     @SuppressWarnings("squid:S1147")
     public final void afterTermination() {
         LOGGER.trace("Execution terminated without exception. Calling System.exit(0).");
+        ResultExporters.flushInstance();
+        MetricsDump.dump();
+        AsyncOutputAppender.uninstall();
         System.exit(0);
     }
 
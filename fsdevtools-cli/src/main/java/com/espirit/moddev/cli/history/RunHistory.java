@@ -0,0 +1,300 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.history;
+
+import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.util.FileUtil;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The local history of the runs of the cli, see {@link RunRecord}. The runs are appended to a binary log: every record
+ * is prefixed by its length and followed by its CRC32 checksum, so an append is a single write to the end of the file.
+ * A record that has not been written completely, e.g. because the cli has been killed, is cut off by the next append,
+ * and a record with a wrong checksum is skipped on read.
+ * <p>
+ * When the log exceeds {@link #COMPACTION_THRESHOLD_BYTES}, it is compacted: only the latest
+ * {@link #MAX_RUNS_PER_COMMAND} runs of every command and project, and at most {@link #MAX_RUNS} runs overall, are
+ * kept. Appends and compactions of concurrent cli runs are serialized by a lock file.
+ *
+ * @author e-Spirit AG
+ */
+public final class RunHistory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunHistory.class);
+
+    /**
+     * Name of the history directory in the fs-cli directory of the user.
+     */
+    public static final String DIRECTORY_NAME = "history";
+
+    /**
+     * Size of the log that triggers its compaction.
+     */
+    public static final long COMPACTION_THRESHOLD_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * Number of runs per command and project that are kept by a compaction.
+     */
+    public static final int MAX_RUNS_PER_COMMAND = 1000;
+
+    /**
+     * Number of runs that are kept by a compaction overall, which keeps the compacted log well below the
+     * {@link #COMPACTION_THRESHOLD_BYTES threshold}, so it is not compacted on every append.
+     */
+    public static final int MAX_RUNS = 10000;
+
+    static final String LOG_FILE_NAME = "runs.log";
+    private static final String LOCK_FILE_NAME = "runs.lock";
+    // length and checksum of a record
+    private static final int FRAME_BYTES = 2 * Integer.BYTES;
+    // larger lengths can only be caused by a corrupt log
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final Path _directory;
+    private final long _compactionThresholdBytes;
+    private final int _maxRunsPerCommand;
+    private final int _maxRuns;
+
+    /**
+     * Creates a new instance that stores the runs in the given directory.
+     *
+     * @param directory the history directory, created on the first {@link #append(RunRecord) append}
+     */
+    public RunHistory(@NotNull final Path directory) {
+        this(directory, COMPACTION_THRESHOLD_BYTES, MAX_RUNS_PER_COMMAND, MAX_RUNS);
+    }
+
+    RunHistory(@NotNull final Path directory, final long compactionThresholdBytes, final int maxRunsPerCommand, final int maxRuns) {
+        _directory = directory;
+        _compactionThresholdBytes = compactionThresholdBytes;
+        _maxRunsPerCommand = maxRunsPerCommand;
+        _maxRuns = maxRuns;
+    }
+
+    /**
+     * Creates a new instance that stores the runs in the fs-cli directory of the current user.
+     *
+     * @return the history of the current user
+     * @see CliConstants#getFsCliHomeDirectory()
+     */
+    @NotNull
+    public static RunHistory forCurrentUser() {
+        return new RunHistory(CliConstants.getFsCliHomeDirectory().resolve(DIRECTORY_NAME));
+    }
+
+    /**
+     * Appends the given run to the log and compacts the log, if it exceeds the threshold. An incomplete record at the
+     * end of the log is cut off first, otherwise it would hide the appended run and all later runs.
+     *
+     * @param record the run to append
+     * @throws IOException if the log can not be written
+     */
+    public void append(@NotNull final RunRecord record) throws IOException {
+        final ByteBuffer buffer = frame(record);
+        Files.createDirectories(_directory);
+        try (FileChannel lockChannel = FileChannel.open(_directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = lockChannel.lock()) {
+            final long size;
+            try (FileChannel channel = FileChannel.open(getLogFile(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final long end = findEnd(channel);
+                if (end < channel.size()) {
+                    LOGGER.debug("Cutting off the incomplete end of the run history '{}' at byte {}.", getLogFile(), end);
+                    channel.truncate(end);
+                }
+                channel.position(end);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                size = channel.size();
+            }
+            if (size > _compactionThresholdBytes) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Reads all runs of the log, oldest first. Reading needs no lock: compactions replace the log atomically and an
+     * incomplete record at the end of the log is skipped. Records with a wrong checksum are skipped as well, the
+     * records behind them are still read.
+     *
+     * @return the runs
+     * @throws IOException if the log can not be read
+     */
+    @NotNull
+    public List<RunRecord> read() throws IOException {
+        final Path logFile = getLogFile();
+        if (!Files.isRegularFile(logFile)) {
+            return new ArrayList<>();
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(logFile));
+        final List<RunRecord> records = new ArrayList<>();
+        while (buffer.remaining() >= FRAME_BYTES) {
+            final int start = buffer.position();
+            final int length = buffer.getInt();
+            if (length < 0 || length > MAX_RECORD_BYTES || buffer.remaining() < length + Integer.BYTES) {
+                LOGGER.debug("Ignoring the incomplete end of the run history '{}' at byte {}.", logFile, start);
+                break;
+            }
+            final byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (buffer.getInt() != checksum(payload, 0, length)) {
+                LOGGER.debug("Skipping corrupt run at byte {} of '{}'.", start, logFile);
+                continue;
+            }
+            try {
+                records.add(RunRecord.fromBytes(payload));
+            } catch (final IOException e) {
+                // e.g. the record of a newer version of the cli
+                LOGGER.debug("Skipping unreadable run at byte {} of '{}': {}", start, logFile, e.getMessage());
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Returns the end of the last complete record of the given log. The lengths of the records are followed without
+     * reading the records, only the checksum of the last record is verified, because a killed cli can only have left an
+     * incomplete record at the end.
+     *
+     * @param channel the log
+     * @return the position to append the next record at
+     */
+    private static long findEnd(@NotNull final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        long position = 0;
+        long lastStart = -1;
+        while (size - position >= FRAME_BYTES) {
+            header.clear();
+            readFully(channel, header, position);
+            final int length = header.getInt(0);
+            if (length < 0 || length > MAX_RECORD_BYTES || size - position < (long) length + FRAME_BYTES) {
+                break;
+            }
+            lastStart = position;
+            position += length + FRAME_BYTES;
+        }
+        if (lastStart >= 0) {
+            final ByteBuffer frame = ByteBuffer.allocate((int) (position - lastStart));
+            readFully(channel, frame, lastStart);
+            final int length = frame.getInt(0);
+            if (frame.getInt(Integer.BYTES + length) != checksum(frame.array(), Integer.BYTES, length)) {
+                return lastStart;
+            }
+        }
+        return position;
+    }
+
+    private static void readFully(@NotNull final FileChannel channel, @NotNull final ByteBuffer buffer, final long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the run history at byte " + (position + buffer.position()) + '.');
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log with the latest runs only. Must be called with the lock held.
+     */
+    private void compact() throws IOException {
+        final List<RunRecord> records = read();
+        final List<RunRecord> kept = selectLatest(records, _maxRunsPerCommand, _maxRuns);
+        FileUtil.writeBytesAtomically(getLogFile(), outputStream -> {
+            for (final RunRecord record : kept) {
+                final ByteBuffer buffer = frame(record);
+                outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+        });
+        LOGGER.debug("Compacted the run history from {} to {} runs.", records.size(), kept.size());
+    }
+
+    /**
+     * Returns the latest runs of the given runs, in their original order.
+     *
+     * @param records           the runs, oldest first
+     * @param maxRunsPerCommand the number of runs to keep per command and project
+     * @param maxRuns           the number of runs to keep overall
+     * @return the latest runs, oldest first
+     */
+    @NotNull
+    static List<RunRecord> selectLatest(@NotNull final List<RunRecord> records, final int maxRunsPerCommand, final int maxRuns) {
+        final Map<String, Integer> keptPerCommand = new HashMap<>();
+        final Deque<RunRecord> kept = new ArrayDeque<>();
+        // walk backwards, so the latest runs are kept
+        for (int index = records.size() - 1; index >= 0 && kept.size() < maxRuns; index--) {
+            final RunRecord record = records.get(index);
+            final int count = keptPerCommand.merge(getKey(record), 1, Integer::sum);
+            if (count <= maxRunsPerCommand) {
+                kept.addFirst(record);
+            }
+        }
+        return new ArrayList<>(kept);
+    }
+
+    @NotNull
+    static String getKey(@NotNull final RunRecord record) {
+        return record.getCommand() + '\u0000' + record.getProject();
+    }
+
+    @NotNull
+    Path getLogFile() {
+        return _directory.resolve(LOG_FILE_NAME);
+    }
+
+    /**
+     * Returns the given run with its length and checksum, ready to be written.
+     */
+    @NotNull
+    private static ByteBuffer frame(@NotNull final RunRecord record) {
+        final byte[] payload = record.toBytes();
+        final ByteBuffer buffer = ByteBuffer.allocate(payload.length + FRAME_BYTES);
+        buffer.putInt(payload.length).put(payload).putInt(checksum(payload, 0, payload.length));
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int checksum(@NotNull final byte[] bytes, final int offset, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.history;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A run of a command as it is stored in the {@link RunHistory}: when and for which project it ran, how long each of
+ * its {@link Phase phases} took and how many elements, files and bytes it transferred.
+ *
+ * @author e-Spirit AG
+ */
+public final class RunRecord {
+
+    /**
+     * The phases of a run, in the order they are executed by the cli.
+     */
+    public enum Phase {
+        /**
+         * The checks of the command before the connection is opened.
+         */
+        PREFLIGHT,
+        /**
+         * The connection to the FirstSpirit server.
+         */
+        CONNECT,
+        /**
+         * The execution of the command.
+         */
+        EXECUTE,
+        /**
+         * The logging of the result.
+         */
+        LOG
+    }
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final long _timestamp;
+    private final String _command;
+    private final String _project;
+    private final String _serverVersion;
+    private final boolean _success;
+    private final long[] _phaseMillis;
+    private final long _createdElements;
+    private final long _updatedElements;
+    private final long _deletedElements;
+    private final long _movedElements;
+    private final long _problems;
+    private final long _files;
+    private final long _bytes;
+
+    private RunRecord(@NotNull final Builder builder) {
+        _timestamp = builder._timestamp;
+        _command = builder._command;
+        _project = builder._project;
+        _serverVersion = builder._serverVersion;
+        _success = builder._success;
+        _phaseMillis = builder._phaseMillis.clone();
+        _createdElements = builder._createdElements;
+        _updatedElements = builder._updatedElements;
+        _deletedElements = builder._deletedElements;
+        _movedElements = builder._movedElements;
+        _problems = builder._problems;
+        _files = builder._files;
+        _bytes = builder._bytes;
+    }
+
+    /**
+     * Creates a builder for the run of the given command.
+     *
+     * @param command the name of the command, e.g. {@code export} or {@code module install}
+     * @return the builder
+     */
+    @NotNull
+    public static Builder builder(@NotNull final String command) {
+        return new Builder(command);
+    }
+
+    public long getTimestamp() {
+        return _timestamp;
+    }
+
+    @NotNull
+    public String getCommand() {
+        return _command;
+    }
+
+    /**
+     * Returns the name of the project the command ran for.
+     *
+     * @return the project or an empty string, if the command does not need a project
+     */
+    @NotNull
+    public String getProject() {
+        return _project;
+    }
+
+    /**
+     * Returns the version of the FirstSpirit server the command was connected to.
+     *
+     * @return the version or an empty string, if the command did not connect to a server
+     */
+    @NotNull
+    public String getServerVersion() {
+        return _serverVersion;
+    }
+
+    public boolean isSuccess() {
+        return _success;
+    }
+
+    public long getMillis(@NotNull final Phase phase) {
+        return _phaseMillis[phase.ordinal()];
+    }
+
+    /**
+     * Returns the duration of the whole run, which is the sum of the durations of its phases.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getTotalMillis() {
+        long total = 0;
+        for (final long millis : _phaseMillis) {
+            total += millis;
+        }
+        return total;
+    }
+
+    public long getCreatedElements() {
+        return _createdElements;
+    }
+
+    public long getUpdatedElements() {
+        return _updatedElements;
+    }
+
+    public long getDeletedElements() {
+        return _deletedElements;
+    }
+
+    public long getMovedElements() {
+        return _movedElements;
+    }
+
+    /**
+     * Returns the number of created, updated, deleted and moved elements.
+     *
+     * @return the number of elements
+     */
+    public long getElements() {
+        return _createdElements + _updatedElements + _deletedElements + _movedElements;
+    }
+
+    public long getProblems() {
+        return _problems;
+    }
+
+    public long getFiles() {
+        return _files;
+    }
+
+    public long getBytes() {
+        return _bytes;
+    }
+
+    /**
+     * Serializes this record. The counters are written as variable-length numbers, so small values take a single
+     * byte. The number of phases is written as well, so records stay readable if phases are added.
+     *
+     * @return the serialized record
+     */
+    @NotNull
+    byte[] toBytes() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(FORMAT_VERSION);
+            output.writeLong(_timestamp);
+            output.writeUTF(_command);
+            output.writeUTF(_project);
+            output.writeUTF(_serverVersion);
+            output.writeBoolean(_success);
+            output.writeByte(_phaseMillis.length);
+            for (final long millis : _phaseMillis) {
+                writeVarLong(output, millis);
+            }
+            writeVarLong(output, _createdElements);
+            writeVarLong(output, _updatedElements);
+            writeVarLong(output, _deletedElements);
+            writeVarLong(output, _movedElements);
+            writeVarLong(output, _problems);
+            writeVarLong(output, _files);
+            writeVarLong(output, _bytes);
+        } catch (final IOException e) {
+            // never thrown by a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a record written by {@link #toBytes()}.
+     *
+     * @param bytes the serialized record
+     * @return the record
+     * @throws IOException if the bytes are no record of a known format
+     */
+    @NotNull
+    static RunRecord fromBytes(@NotNull final byte[] bytes) throws IOException {
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        final byte version = input.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown record format " + version);
+        }
+        final long timestamp = input.readLong();
+        final Builder builder = builder(input.readUTF()).timestamp(timestamp);
+        builder.project(input.readUTF());
+        builder.serverVersion(input.readUTF());
+        builder.success(input.readBoolean());
+        final int phaseCount = input.readUnsignedByte();
+        final Phase[] phases = Phase.values();
+        for (int index = 0; index < phaseCount; index++) {
+            final long millis = readVarLong(input);
+            // phases of newer versions are ignored
+            if (index < phases.length) {
+                builder.phase(phases[index], millis);
+            }
+        }
+        builder.elements(readVarLong(input), readVarLong(input), readVarLong(input), readVarLong(input));
+        builder.problems(readVarLong(input));
+        builder.transfer(readVarLong(input), readVarLong(input));
+        return builder.build();
+    }
+
+    private static void writeVarLong(@NotNull final DataOutput output, final long value) throws IOException {
+        long remaining = Math.max(0, value);
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        output.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(@NotNull final DataInput input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte current = input.readByte();
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length number");
+    }
+
+    @Override
+    public String toString() {
+        return "RunRecord{command=" + _command + ", project=" + _project + ", timestamp=" + _timestamp + ", success=" + _success
+                + ", phaseMillis=" + Arrays.toString(_phaseMillis) + ", elements=" + getElements() + ", files=" + _files + ", bytes=" + _bytes + '}';
+    }
+
+    /**
+     * Collects the values of a {@link RunRecord} while the command runs.
+     */
+    public static final class Builder {
+
+        private final String _command;
+        private final long[] _phaseMillis = new long[Phase.values().length];
+        private long _timestamp = System.currentTimeMillis();
+        private String _project = "";
+        private String _serverVersion = "";
+        private boolean _success;
+        private long _createdElements;
+        private long _updatedElements;
+        private long _deletedElements;
+        private long _movedElements;
+        private long _problems;
+        private long _files;
+        private long _bytes;
+
+        private Builder(@NotNull final String command) {
+            _command = command;
+        }
+
+        /**
+         * Sets the start of the run, which is the creation of the builder by default.
+         *
+         * @param timestamp the start in milliseconds since the epoch
+         * @return this builder
+         */
+        @NotNull
+        public Builder timestamp(final long timestamp) {
+            _timestamp = timestamp;
+            return this;
+        }
+
+        @NotNull
+        public Builder project(final String project) {
+            _project = project == null ? "" : project;
+            return this;
+        }
+
+        @NotNull
+        public Builder serverVersion(final String serverVersion) {
+            _serverVersion = serverVersion == null ? "" : serverVersion;
+            return this;
+        }
+
+        @NotNull
+        public Builder success(final boolean success) {
+            _success = success;
+            return this;
+        }
+
+        @NotNull
+        public Builder phase(@NotNull final Phase phase, final long millis) {
+            _phaseMillis[phase.ordinal()] = millis;
+            return this;
+        }
+
+        @NotNull
+        public Builder elements(final long created, final long updated, final long deleted, final long moved) {
+            _createdElements = created;
+            _updatedElements = updated;
+            _deletedElements = deleted;
+            _movedElements = moved;
+            return this;
+        }
+
+        @NotNull
+        public Builder problems(final long problems) {
+            _problems = problems;
+            return this;
+        }
+
+        @NotNull
+        public Builder transfer(final long files, final long bytes) {
+            _files = files;
+            _bytes = bytes;
+            return this;
+        }
+
+        @NotNull
+        public RunRecord build() {
+            return new RunRecord(this);
+        }
+    }
+}
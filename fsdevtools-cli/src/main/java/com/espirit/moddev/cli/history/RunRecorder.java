@@ -0,0 +1,153 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.history;
+
+import com.espirit.moddev.cli.api.CliContext;
+import com.espirit.moddev.cli.api.command.Command;
+import com.espirit.moddev.cli.api.configuration.Config;
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.reflection.CommandUtils;
+import com.espirit.moddev.cli.results.ExportResult;
+import com.espirit.moddev.cli.results.ImportResult;
+import de.espirit.firstspirit.agency.ServerInformationAgent;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Records the run of a command in the {@link RunHistory}: the cli reports the end of every {@link RunRecord.Phase
+ * phase} and the result, the recorder measures the phases and appends the run. Failures to record are logged only,
+ * because the history must never fail a command.
+ * <p>
+ * The history is enabled by default and disabled by setting the system property or environment variable
+ * {@value #ENABLED_PROPERTY} to {@code false}. The commands of the help and of the history itself are not recorded.
+ *
+ * @author e-Spirit AG
+ */
+public final class RunRecorder {
+
+    /**
+     * Name of the system property or environment variable that enables the history.
+     */
+    public static final String ENABLED_PROPERTY = "FS_CLI_HISTORY";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunRecorder.class);
+    private static final String HISTORY_GROUP = "history";
+    private static final String HELP_COMMAND = "help";
+
+    private final RunHistory _history;
+    private final RunRecord.Builder _builder;
+    private long _phaseStart;
+
+    RunRecorder(@NotNull final RunHistory history, @NotNull final String command) {
+        _history = history;
+        _builder = RunRecord.builder(command);
+        _phaseStart = System.nanoTime();
+        Transfers.reset();
+    }
+
+    /**
+     * Starts to record the run of the given command.
+     *
+     * @param command the command to run
+     * @return the recorder or {@code null}, if the history is disabled or the command is not recorded
+     */
+    @Nullable
+    public static RunRecorder start(@NotNull final Command<?> command) {
+        final String value = System.getProperty(ENABLED_PROPERTY, System.getenv(ENABLED_PROPERTY));
+        if (value != null && !Boolean.parseBoolean(value.trim())) {
+            return null;
+        }
+        final String name = CommandUtils.getCommandName(command.getClass());
+        if (name == null || name.equals(HELP_COMMAND) || name.startsWith(HISTORY_GROUP + ' ')) {
+            return null;
+        }
+        return new RunRecorder(RunHistory.forCurrentUser(), name);
+    }
+
+    /**
+     * Ends the given phase, which started at the end of the previous phase.
+     *
+     * @param phase the phase that has been finished
+     */
+    public void finished(@NotNull final RunRecord.Phase phase) {
+        final long now = System.nanoTime();
+        _builder.phase(phase, (now - _phaseStart) / 1_000_000);
+        _phaseStart = now;
+    }
+
+    /**
+     * Records the project of the command and the version of the server its context is connected to.
+     *
+     * @param command the command
+     * @param context the context of the command or {@code null}, if it needs no context
+     */
+    public void connected(@NotNull final Command<?> command, @Nullable final CliContext context) {
+        if (command instanceof Config && context != null) {
+            _builder.project(((Config) command).getProject());
+            try {
+                final ServerInformationAgent serverInformationAgent = context.requestSpecialist(ServerInformationAgent.TYPE);
+                if (serverInformationAgent != null) {
+                    _builder.serverVersion(serverInformationAgent.getServerVersion().getFullVersionString());
+                }
+            } catch (final RuntimeException e) {
+                LOGGER.debug("Failed to request the server version for the run history.", e);
+            }
+        }
+    }
+
+    /**
+     * Records the result of the command and appends the run to the history.
+     *
+     * @param result the result or {@code null}, if the command failed with an exception
+     */
+    public void finish(@Nullable final Result<?> result) {
+        _builder.success(result != null && !result.isError());
+        if (result instanceof ExportResult) {
+            final ExportOperation.Result exportResult = ((ExportResult) result).get();
+            if (exportResult != null) {
+                _builder.elements(exportResult.getCreatedElements().size(), exportResult.getUpdatedElements().size(),
+                        exportResult.getDeletedElements().size(), exportResult.getMovedElements().size());
+            }
+        } else if (result instanceof ImportResult) {
+            final ImportOperation.Result importResult = ((ImportResult) result).get();
+            if (importResult != null) {
+                _builder.elements(importResult.getCreatedElements().size(), importResult.getUpdatedElements().size(),
+                        importResult.getDeletedElements().size(), importResult.getMovedElements().size());
+                _builder.problems(importResult.getProblems().size());
+            }
+        }
+        _builder.transfer(Transfers.getFiles(), Transfers.getBytes());
+        try {
+            _history.append(_builder.build());
+        } catch (final IOException e) {
+            LOGGER.debug("Failed to record the run in the history.", e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.history;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The statistics of the runs of a command for a project: percentiles of the durations and the trend of the median
+ * duration of the latest runs compared to the runs before. Only successful runs are considered for the durations,
+ * because failed runs usually stop early.
+ *
+ * @author e-Spirit AG
+ */
+public final class RunStatistics {
+
+    private final String _command;
+    private final String _project;
+    private final int _runs;
+    private final int _failedRuns;
+    private final long[] _sortedMillis;
+    private final Map<RunRecord.Phase, Long> _medianPhaseMillis = new LinkedHashMap<>();
+    private final long _medianElements;
+    private final long _medianBytes;
+    private final Double _trend;
+    private final String _serverVersion;
+    private final long _lastTimestamp;
+
+    private RunStatistics(@NotNull final String command, @NotNull final String project, @NotNull final List<RunRecord> records, final int window) {
+        _command = command;
+        _project = project;
+        _runs = records.size();
+        final List<RunRecord> successful = new ArrayList<>(records.size());
+        for (final RunRecord record : records) {
+            if (record.isSuccess()) {
+                successful.add(record);
+            }
+        }
+        _failedRuns = _runs - successful.size();
+
+        final long[] millis = new long[successful.size()];
+        final long[] elements = new long[successful.size()];
+        final long[] bytes = new long[successful.size()];
+        for (int index = 0; index < millis.length; index++) {
+            final RunRecord record = successful.get(index);
+            millis[index] = record.getTotalMillis();
+            elements[index] = record.getElements();
+            bytes[index] = record.getBytes();
+        }
+        _trend = computeTrend(millis, window);
+        _sortedMillis = millis.clone();
+        Arrays.sort(_sortedMillis);
+        _medianElements = median(elements);
+        _medianBytes = median(bytes);
+        for (final RunRecord.Phase phase : RunRecord.Phase.values()) {
+            final long[] phaseMillis = new long[successful.size()];
+            for (int index = 0; index < phaseMillis.length; index++) {
+                phaseMillis[index] = successful.get(index).getMillis(phase);
+            }
+            _medianPhaseMillis.put(phase, median(phaseMillis));
+        }
+        final RunRecord last = records.get(records.size() - 1);
+        _serverVersion = last.getServerVersion();
+        _lastTimestamp = last.getTimestamp();
+    }
+
+    /**
+     * Computes the statistics of the given runs per command and project, in the order the commands and projects
+     * have been run first.
+     *
+     * @param records the runs, oldest first
+     * @param window  the number of latest runs whose median is compared to the median of the same number of runs before
+     * @return the statistics
+     * @throws IllegalArgumentException if the window is not positive
+     */
+    @NotNull
+    public static List<RunStatistics> of(@NotNull final Collection<RunRecord> records, final int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("The window must be positive, but is " + window);
+        }
+        final Map<String, List<RunRecord>> recordsByKey = new LinkedHashMap<>();
+        for (final RunRecord record : records) {
+            recordsByKey.computeIfAbsent(RunHistory.getKey(record), key -> new ArrayList<>()).add(record);
+        }
+        final List<RunStatistics> statistics = new ArrayList<>(recordsByKey.size());
+        for (final List<RunRecord> keyRecords : recordsByKey.values()) {
+            final RunRecord first = keyRecords.get(0);
+            statistics.add(new RunStatistics(first.getCommand(), first.getProject(), keyRecords, window));
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the relative change of the median duration of the latest runs compared to the runs before. With less
+     * than two windows of runs, the runs are split in halves.
+     */
+    @Nullable
+    private static Double computeTrend(@NotNull final long[] millis, final int window) {
+        final int size = Math.min(window, millis.length / 2);
+        if (size == 0) {
+            return null;
+        }
+        final long previous = median(Arrays.copyOfRange(millis, millis.length - 2 * size, millis.length - size));
+        final long latest = median(Arrays.copyOfRange(millis, millis.length - size, millis.length));
+        if (previous == 0) {
+            return null;
+        }
+        return (double) (latest - previous) / previous;
+    }
+
+    private static long median(@NotNull final long[] values) {
+        final long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return percentileOfSorted(sorted, 50);
+    }
+
+    /**
+     * Returns the given percentile by the nearest-rank method.
+     */
+    private static long percentileOfSorted(@NotNull final long[] sorted, final int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    @NotNull
+    public String getCommand() {
+        return _command;
+    }
+
+    @NotNull
+    public String getProject() {
+        return _project;
+    }
+
+    public int getRuns() {
+        return _runs;
+    }
+
+    public int getFailedRuns() {
+        return _failedRuns;
+    }
+
+    /**
+     * Returns the given percentile of the durations of the successful runs.
+     *
+     * @param percentile the percentile, between 1 and 100
+     * @return the duration in milliseconds or 0, if no run has been successful
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long getPercentileMillis(final int percentile) {
+        if (percentile < 1 || percentile > 100) {
+            throw new IllegalArgumentException("The percentile must be between 1 and 100, but is " + percentile);
+        }
+        return percentileOfSorted(_sortedMillis, percentile);
+    }
+
+    public long getMedianMillis(@NotNull final RunRecord.Phase phase) {
+        return _medianPhaseMillis.get(phase);
+    }
+
+    public long getMedianElements() {
+        return _medianElements;
+    }
+
+    public long getMedianBytes() {
+        return _medianBytes;
+    }
+
+    /**
+     * Returns the relative change of the median duration of the latest runs compared to the runs before, e.g.
+     * {@code 0.25} if the latest runs took 25% longer.
+     *
+     * @return the trend or {@code null}, if there are too few successful runs
+     */
+    @Nullable
+    public Double getTrend() {
+        return _trend;
+    }
+
+    /**
+     * Returns the server version of the latest run.
+     *
+     * @return the server version or an empty string, if the latest run did not connect to a server
+     */
+    @NotNull
+    public String getServerVersion() {
+        return _serverVersion;
+    }
+
+    public long getLastTimestamp() {
+        return _lastTimestamp;
+    }
+}
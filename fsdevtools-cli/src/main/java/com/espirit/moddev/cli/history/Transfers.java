@@ -0,0 +1,69 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.history;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the files and bytes transferred by the current run for its {@link RunRecord}. Commands add their transfers
+ * wherever they know them, e.g. the import counts the files of the imported directory, and the cli collects them
+ * after the command. The counters may be updated concurrently, e.g. by parallel imports.
+ *
+ * @author e-Spirit AG
+ */
+public final class Transfers {
+
+    private static final LongAdder FILES = new LongAdder();
+    private static final LongAdder BYTES = new LongAdder();
+
+    private Transfers() {
+        // utility class
+    }
+
+    /**
+     * Adds files transferred by the current run.
+     *
+     * @param files the number of files
+     * @param bytes the size of the files in bytes
+     */
+    public static void add(final long files, final long bytes) {
+        FILES.add(files);
+        BYTES.add(bytes);
+    }
+
+    /**
+     * Resets the counters at the start of a run.
+     */
+    public static void reset() {
+        FILES.reset();
+        BYTES.reset();
+    }
+
+    public static long getFiles() {
+        return FILES.sum();
+    }
+
+    public static long getBytes() {
+        return BYTES.sum();
+    }
+}
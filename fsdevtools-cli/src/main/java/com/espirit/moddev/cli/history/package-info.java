@@ -0,0 +1,5 @@
+/**
+ * The local history of the runs of the cli, which is evaluated to spot performance regressions over time.
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.history;
@@ -0,0 +1,476 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.logging;
+
+import org.apache.log4j.Appender;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.helpers.AppenderAttachableImpl;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.AppenderAttachable;
+import org.apache.log4j.spi.LoggingEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decouples the threads that log from the console and the log file: the events are queued in a bounded buffer and
+ * written to the attached appenders by a dedicated writer thread, so a slow console does not block the command.
+ * <p>
+ * What happens if the buffer is full is defined by the {@link Overflow overflow} of the appender. Dropped events are
+ * counted and reported when the appender is {@link #close() closed}, which writes all buffered events first, unless the
+ * writer does not finish within the close timeout.
+ *
+ * @author e-Spirit AG
+ */
+public final class AsyncOutputAppender extends AppenderSkeleton implements AppenderAttachable {
+
+    /**
+     * Name of the system property or environment variable with the size of the buffer, {@code 0} disables the
+     * asynchronous output.
+     */
+    public static final String BUFFER_SIZE_PROPERTY = "FS_CLI_OUTPUT_BUFFER";
+
+    /**
+     * Name of the system property or environment variable with the {@link Overflow overflow} of the buffer.
+     */
+    public static final String OVERFLOW_PROPERTY = "FS_CLI_OUTPUT_OVERFLOW";
+
+    /**
+     * Default number of buffered events.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Maximum time to wait for the buffered events to be written on {@link #close()}.
+     */
+    static final long CLOSE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static volatile AsyncOutputAppender _installed;
+
+    /**
+     * Defines what happens to an event that is logged while the buffer is full.
+     */
+    public enum Overflow {
+        /**
+         * The logging thread waits until the buffer has room, nothing is dropped.
+         */
+        BLOCK,
+        /**
+         * TRACE and DEBUG events are dropped, the logging thread waits for room for all other events.
+         */
+        DROP_DEBUG,
+        /**
+         * Events below WARN are dropped and a line with the number of dropped events is written once the buffer has
+         * room again. The logging thread waits for room for warnings and errors.
+         */
+        SUMMARIZE;
+
+        /**
+         * Parses the given overflow name, e.g. {@code drop-debug}.
+         *
+         * @param name the name of the overflow
+         * @return the overflow
+         * @throws IllegalArgumentException if the name is no overflow
+         */
+        @NotNull
+        public static Overflow parse(@NotNull final String name) {
+            for (final Overflow overflow : values()) {
+                if (overflow.name().equalsIgnoreCase(name.trim().replace('-', '_'))) {
+                    return overflow;
+                }
+            }
+            throw new IllegalArgumentException("Unknown output overflow '" + name + "' - use block, drop-debug or summarize.");
+        }
+    }
+
+    private final AppenderAttachableImpl _appenders = new AppenderAttachableImpl();
+    private final BlockingQueue<LoggingEvent> _buffer;
+    private final int _bufferSize;
+    private final Overflow _overflow;
+    private final long _closeTimeoutMillis;
+    private final AtomicLong _droppedDebug = new AtomicLong();
+    private final AtomicLong _droppedInfo = new AtomicLong();
+    // dropped events that have not been summarized yet, see Overflow#SUMMARIZE
+    private final AtomicLong _unsummarized = new AtomicLong();
+    private Thread _writer;
+    private volatile boolean _stopped;
+
+    /**
+     * Creates a new appender. The writer thread is started by {@link #activateOptions()}.
+     *
+     * @param bufferSize the maximum number of buffered events
+     * @param overflow   what happens if the buffer is full
+     */
+    public AsyncOutputAppender(final int bufferSize, @NotNull final Overflow overflow) {
+        this(bufferSize, overflow, CLOSE_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates a new appender that waits at most the given time for its writer on {@link #close()}.
+     *
+     * @param bufferSize         the maximum number of buffered events
+     * @param overflow           what happens if the buffer is full
+     * @param closeTimeoutMillis the maximum time to wait for the writer to write the buffered events
+     */
+    AsyncOutputAppender(final int bufferSize, @NotNull final Overflow overflow, final long closeTimeoutMillis) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be positive!");
+        }
+        _bufferSize = bufferSize;
+        _buffer = new ArrayBlockingQueue<>(bufferSize);
+        _overflow = overflow;
+        _closeTimeoutMillis = closeTimeoutMillis;
+        setName("async-output");
+    }
+
+    /**
+     * Moves the appenders of the root logger behind a new asynchronous appender, configured by the system properties
+     * or environment variables {@value #BUFFER_SIZE_PROPERTY} and {@value #OVERFLOW_PROPERTY}.
+     *
+     * @return the installed appender or {@code null}, if the asynchronous output is disabled or misconfigured
+     * @see #uninstall()
+     */
+    @Nullable
+    public static synchronized AsyncOutputAppender install() {
+        final int bufferSize;
+        final Overflow overflow;
+        try {
+            final String bufferSizeValue = getSetting(BUFFER_SIZE_PROPERTY);
+            bufferSize = bufferSizeValue == null ? DEFAULT_BUFFER_SIZE : Integer.parseInt(bufferSizeValue.trim());
+            final String overflowValue = getSetting(OVERFLOW_PROPERTY);
+            overflow = overflowValue == null ? Overflow.BLOCK : Overflow.parse(overflowValue);
+        } catch (final IllegalArgumentException e) {
+            LogLog.warn("Invalid output settings, the output is written synchronously: " + e.getMessage());
+            return null;
+        }
+        if (bufferSize <= 0 || _installed != null) {
+            return _installed;
+        }
+        final AsyncOutputAppender appender = new AsyncOutputAppender(bufferSize, overflow);
+        install(Logger.getRootLogger(), appender);
+        _installed = appender;
+        // the buffered events are also written if the application is ended otherwise, e.g. by Ctrl+C
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncOutputAppender::uninstall, "fs-cli-output-shutdown"));
+        return appender;
+    }
+
+    /**
+     * Moves the appenders of the given logger behind the given asynchronous appender and starts its writer.
+     *
+     * @param logger   the logger
+     * @param appender the asynchronous appender
+     */
+    static void install(@NotNull final Logger logger, @NotNull final AsyncOutputAppender appender) {
+        final List<Appender> appenders = new ArrayList<>();
+        final Enumeration<?> enumeration = logger.getAllAppenders();
+        while (enumeration.hasMoreElements()) {
+            appenders.add((Appender) enumeration.nextElement());
+        }
+        for (final Appender attachedAppender : appenders) {
+            // removeAllAppenders() would close the appenders
+            logger.removeAppender(attachedAppender);
+            appender.addAppender(attachedAppender);
+        }
+        appender.activateOptions();
+        logger.addAppender(appender);
+    }
+
+    /**
+     * Writes the buffered events of the {@link #install() installed} appender, reports the dropped events and attaches
+     * the appenders to the root logger again, so later output is written synchronously. Called before the application
+     * exits.
+     */
+    public static synchronized void uninstall() {
+        final AsyncOutputAppender appender = _installed;
+        if (appender != null) {
+            _installed = null;
+            uninstall(Logger.getRootLogger(), appender);
+        }
+    }
+
+    /**
+     * Writes the buffered events of the given appender and moves its appenders back to the given logger.
+     *
+     * @param logger   the logger
+     * @param appender the asynchronous appender
+     */
+    static void uninstall(@NotNull final Logger logger, @NotNull final AsyncOutputAppender appender) {
+        logger.removeAppender(appender);
+        if (!appender.stop()) {
+            // the writer still holds the appenders, so later output is lost instead of waiting for it
+            return;
+        }
+        final List<Appender> appenders = new ArrayList<>();
+        synchronized (appender._appenders) {
+            final Enumeration<?> enumeration = appender._appenders.getAllAppenders();
+            while (enumeration != null && enumeration.hasMoreElements()) {
+                appenders.add((Appender) enumeration.nextElement());
+            }
+            for (final Appender attachedAppender : appenders) {
+                appender._appenders.removeAppender(attachedAppender);
+            }
+        }
+        for (final Appender attachedAppender : appenders) {
+            logger.addAppender(attachedAppender);
+        }
+        appender.close();
+    }
+
+    @Nullable
+    private static String getSetting(@NotNull final String name) {
+        final String value = System.getProperty(name);
+        return value != null ? value : System.getenv(name);
+    }
+
+    @Override
+    public void activateOptions() {
+        if (_writer == null) {
+            _writer = new Thread(this::write, "fs-cli-output");
+            _writer.setDaemon(true);
+            _writer.start();
+        }
+    }
+
+    @Override
+    protected void append(final LoggingEvent event) {
+        if (_writer == null || _stopped) {
+            dispatch(event);
+            return;
+        }
+        // the values of the logging thread have to be taken before the event is handed over
+        event.getNDC();
+        event.getThreadName();
+        event.getMDCCopy();
+        event.getRenderedMessage();
+        event.getThrowableStrRep();
+        if (_buffer.offer(event)) {
+            return;
+        }
+        final Level level = event.getLevel();
+        if ((_overflow == Overflow.DROP_DEBUG && !level.isGreaterOrEqual(Level.INFO))
+                || (_overflow == Overflow.SUMMARIZE && !level.isGreaterOrEqual(Level.WARN))) {
+            drop(event);
+            return;
+        }
+        try {
+            _buffer.put(event);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drop(event);
+        }
+    }
+
+    private void drop(@NotNull final LoggingEvent event) {
+        if (event.getLevel().isGreaterOrEqual(Level.INFO)) {
+            _droppedInfo.incrementAndGet();
+        } else {
+            _droppedDebug.incrementAndGet();
+        }
+        if (_overflow == Overflow.SUMMARIZE) {
+            _unsummarized.incrementAndGet();
+        }
+    }
+
+    /**
+     * The loop of the writer thread, which ends after {@link #close()} once the buffer is empty.
+     */
+    private void write() {
+        while (true) {
+            final LoggingEvent event;
+            try {
+                event = _buffer.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (event != null) {
+                dispatch(event);
+            }
+            if (event == null || _buffer.isEmpty()) {
+                final long unsummarized = _unsummarized.getAndSet(0);
+                if (unsummarized > 0) {
+                    dispatch(createEvent(Level.WARN, unsummarized + " log messages have been dropped, because the output could not keep up."));
+                }
+                if (event == null && _stopped) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(@NotNull final LoggingEvent event) {
+        synchronized (_appenders) {
+            _appenders.appendLoopOnAppenders(event);
+        }
+    }
+
+    @NotNull
+    private LoggingEvent createEvent(@NotNull final Level level, @NotNull final String message) {
+        final Logger logger = Logger.getLogger(AsyncOutputAppender.class);
+        return new LoggingEvent(AsyncOutputAppender.class.getName(), logger, level, message, null);
+    }
+
+    /**
+     * Returns the number of dropped TRACE and DEBUG events.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedDebugCount() {
+        return _droppedDebug.get();
+    }
+
+    /**
+     * Returns the number of dropped INFO events.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedInfoCount() {
+        return _droppedInfo.get();
+    }
+
+    /**
+     * Writes the buffered events, reports the number of dropped events and closes the attached appenders. If the
+     * writer did not finish in time, the attached appenders are left to it.
+     */
+    @Override
+    public void close() {
+        final boolean finished = stop();
+        synchronized (this) {
+            closed = true;
+        }
+        if (finished) {
+            removeAllAppenders();
+        }
+    }
+
+    /**
+     * Stops the writer after it has written the buffered events, but waits at most the close timeout, which is
+     * {@value #CLOSE_TIMEOUT_MILLIS} milliseconds by default. Reports the number of dropped events, later events are
+     * written synchronously.
+     * <p>
+     * A writer that did not finish in time may be blocked in a write to the console, which can not be interrupted and
+     * holds the attached appenders. The remaining events are therefore dropped instead of being written by the calling
+     * thread, which would wait for the writer, and the dropped events are reported by {@link LogLog}.
+     *
+     * @return whether the writer has finished, so the attached appenders can be used by the calling thread
+     */
+    private boolean stop() {
+        synchronized (this) {
+            if (_stopped) {
+                return _writer == null || !_writer.isAlive();
+            }
+            _stopped = true;
+        }
+        if (_writer != null) {
+            try {
+                _writer.join(_closeTimeoutMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (_writer.isAlive()) {
+                _writer.interrupt();
+                final List<LoggingEvent> events = new ArrayList<>();
+                _buffer.drainTo(events);
+                events.forEach(this::drop);
+                LogLog.warn("Not all log messages could be written within " + _closeTimeoutMillis + "ms. " + getDroppedMessage());
+                return false;
+            }
+        }
+        if (_droppedDebug.get() > 0 || _droppedInfo.get() > 0) {
+            dispatch(createEvent(Level.WARN, getDroppedMessage()));
+        }
+        return true;
+    }
+
+    @NotNull
+    private String getDroppedMessage() {
+        return String.format("Dropped %d DEBUG and %d INFO log messages, because the output could not keep up (buffer: %d, overflow: %s).",
+                             _droppedDebug.get(), _droppedInfo.get(), _bufferSize, _overflow.name().toLowerCase(Locale.ENGLISH));
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    @Override
+    public void addAppender(final Appender appender) {
+        synchronized (_appenders) {
+            _appenders.addAppender(appender);
+        }
+    }
+
+    @Override
+    public Enumeration getAllAppenders() {
+        synchronized (_appenders) {
+            return _appenders.getAllAppenders();
+        }
+    }
+
+    @Override
+    public Appender getAppender(final String name) {
+        synchronized (_appenders) {
+            return _appenders.getAppender(name);
+        }
+    }
+
+    @Override
+    public boolean isAttached(final Appender appender) {
+        synchronized (_appenders) {
+            return _appenders.isAttached(appender);
+        }
+    }
+
+    @Override
+    public void removeAllAppenders() {
+        synchronized (_appenders) {
+            _appenders.removeAllAppenders();
+        }
+    }
+
+    @Override
+    public void removeAppender(final Appender appender) {
+        synchronized (_appenders) {
+            _appenders.removeAppender(appender);
+        }
+    }
+
+    @Override
+    public void removeAppender(final String name) {
+        synchronized (_appenders) {
+            _appenders.removeAppender(name);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * This package contains the output stage of the cli logging, which decouples the commands from slow consoles.
+ *
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.logging;
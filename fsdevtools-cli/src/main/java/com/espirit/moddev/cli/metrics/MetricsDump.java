@@ -0,0 +1,92 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.metrics;
+
+import com.espirit.moddev.shared.metrics.MetricsFormat;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes a snapshot of the {@link MetricsRegistry#getDefault() metrics} of the cli to a file before the cli exits. The
+ * dump is configured by environment variables or system properties of the same name:
+ * <ul>
+ * <li>{@value #FILE_PROPERTY}: the file of the snapshot. Nothing is dumped if it is not set.</li>
+ * <li>{@value #FORMAT_PROPERTY}: {@code json} (default) or {@code prometheus}.</li>
+ * </ul>
+ *
+ * @author e-Spirit AG
+ */
+public final class MetricsDump {
+
+    /**
+     * Name of the setting of the file of the snapshot.
+     */
+    public static final String FILE_PROPERTY = "FS_CLI_METRICS_FILE";
+
+    /**
+     * Name of the setting of the {@link MetricsFormat format} of the snapshot.
+     */
+    public static final String FORMAT_PROPERTY = "FS_CLI_METRICS_FORMAT";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsDump.class);
+
+    private MetricsDump() {
+    }
+
+    /**
+     * Writes the snapshot to the configured file. Failures are logged only, so the exit of the cli is not affected.
+     *
+     * @return whether a snapshot has been written
+     */
+    public static boolean dump() {
+        final String file = getSetting(FILE_PROPERTY);
+        if (file == null) {
+            return false;
+        }
+        try {
+            final String format = getSetting(FORMAT_PROPERTY);
+            final Path path = Paths.get(file);
+            MetricsRegistry.getDefault().write(path, format == null ? MetricsFormat.JSON : MetricsFormat.parse(format));
+            LOGGER.debug("Wrote the metrics to '{}'.", path);
+            return true;
+        } catch (final IOException | IllegalArgumentException e) {
+            // also catches the InvalidPathException of malformed paths
+            LOGGER.warn("Failed to write the metrics to '{}': {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    @Nullable
+    private static String getSetting(@NotNull final String name) {
+        final String value = System.getProperty(name, System.getenv(name));
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * The dump of the {@link com.espirit.moddev.shared.metrics.MetricsRegistry metrics} of a run of the cli.
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.metrics;
@@ -27,8 +27,11 @@ import io.github.classgraph.ClassGraph;
 import io.github.classgraph.ClassInfo;
 import io.github.classgraph.ScanResult;
 import org.apache.log4j.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -83,4 +86,21 @@ public final class CommandUtils {
         LOGGER.debug("Found " + matchingClasses.size() + " commands. " + matchingClasses.stream().map(Class::getSimpleName).collect(Collectors.joining(",")));
         return matchingClasses;
     }
+
+    /**
+     * Returns the name of the given command as it is called on the command line, e.g. {@code module install}.
+     *
+     * @param commandClass the class of the command
+     * @return the name or {@code null}, if the class is no airline command
+     */
+    @Nullable
+    public static String getCommandName(@NotNull final Class<?> commandClass) {
+        final com.github.rvesse.airline.annotations.Command annotation = commandClass.getAnnotation(com.github.rvesse.airline.annotations.Command.class);
+        if (annotation == null) {
+            return null;
+        }
+        final String[] groupNames = annotation.groupNames();
+        final String name = annotation.name().toLowerCase(Locale.UK);
+        return groupNames.length == 0 ? name : groupNames[0].toLowerCase(Locale.UK) + ' ' + name;
+    }
 }
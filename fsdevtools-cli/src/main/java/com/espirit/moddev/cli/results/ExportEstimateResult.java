@@ -0,0 +1,115 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results;
+
+import com.espirit.moddev.cli.commands.export.ExportEstimation;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Specialization of {@link ExportResult} that is returned by export commands which only estimate the size and
+ * duration of an export.
+ *
+ * @author e-Spirit AG
+ */
+public class ExportEstimateResult extends ExportResult {
+
+    private static final String[] SIZE_UNITS = {"bytes", "KB", "MB", "GB", "TB"};
+    private static final int SIZE_UNIT_STEP = 1024;
+
+    private final ExportEstimation _estimation;
+
+    /**
+     * Creates a new instance using the given estimation.
+     *
+     * @param estimation the estimation produced by the command
+     */
+    public ExportEstimateResult(final ExportEstimation estimation) {
+        super(null, null);
+        _estimation = estimation;
+    }
+
+    /**
+     * Creates a new error result using the given exception.
+     *
+     * @param exception Exception produced by the command
+     */
+    public ExportEstimateResult(final Exception exception) {
+        super(exception);
+        _estimation = null;
+    }
+
+    /**
+     * Returns the estimation of this result.
+     *
+     * @return the estimation or {@code null}, if the estimation failed
+     */
+    public ExportEstimation getEstimation() {
+        return _estimation;
+    }
+
+    @Override
+    public void log() {
+        if (isError()) {
+            LOGGER.error("Export estimation not successful", exception);
+            return;
+        }
+        LOGGER.info("Export estimation done (nothing has been exported).");
+        LOGGER.info("== ESTIMATION ==");
+        LOGGER.info("Store elements: {}", _estimation.getElementCount());
+        for (final Map.Entry<Store.Type, Long> entry : _estimation.getElementCounts().entrySet()) {
+            if (entry.getValue() > 0) {
+                LOGGER.info(" - {}: {}", entry.getKey(), entry.getValue());
+            }
+        }
+        LOGGER.info("Entities: {}", _estimation.getEntityCount());
+        for (final Map.Entry<String, Integer> entry : _estimation.getEntityCounts().entrySet()) {
+            LOGGER.info(" - {}: {}", entry.getKey(), entry.getValue());
+        }
+        LOGGER.info("Media: {} ({})", _estimation.getMediaCount(), toDisplaySize(_estimation.getMediaBytes()));
+        if (_estimation.containsProjectProperties()) {
+            LOGGER.info("Project properties: yes");
+        }
+        final Duration projectedDuration = _estimation.getProjectedDuration();
+        if (projectedDuration == null) {
+            LOGGER.info("Projected duration: unknown (no previous export recorded on this machine)");
+        } else {
+            LOGGER.info("Projected duration: {}s", projectedDuration.getSeconds());
+        }
+        LOGGER.info("Estimation took {}ms", _estimation.getEstimationDuration().toMillis());
+    }
+
+    static String toDisplaySize(final long bytes) {
+        double size = bytes;
+        int unit = 0;
+        while (size >= SIZE_UNIT_STEP && unit < SIZE_UNITS.length - 1) {
+            size /= SIZE_UNIT_STEP;
+            unit++;
+        }
+        return unit == 0 ? bytes + " " + SIZE_UNITS[0] : String.format(Locale.ROOT, "%.1f %s", size, SIZE_UNITS[unit]);
+    }
+}
@@ -23,9 +23,14 @@
 package com.espirit.moddev.cli.results;
 
 import com.espirit.moddev.cli.results.logging.AdvancedLogger;
+import com.espirit.moddev.cli.results.logging.ResultDetail;
+import com.espirit.moddev.cli.results.logging.SubtreeTimings;
 import de.espirit.firstspirit.agency.StoreAgent;
 import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Specialization of {@link com.espirit.moddev.cli.results.SimpleResult} that can be used in conjunction with export commands.
@@ -35,12 +40,15 @@ import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
 public class ExportResult extends SimpleResult<ExportOperation.Result> {
 
     private final StoreAgent _storeAgent;
+    private boolean _detailsReported;
+    private ResultDetail _resultDetail;
+    private SubtreeTimings _subtreeTimings;
 
     /**
      * Creates a new instance using the given command result.
      *
      * @param storeAgent used to request related FirstSpirit elements
-     * @param result Result produced by the command
+     * @param result Result produced by the command, may be {@code null} if the details have already been logged
      * @see com.espirit.moddev.cli.results.SimpleResult#SimpleResult(Object)
      */
     public ExportResult(final StoreAgent storeAgent, ExportOperation.Result result) {
@@ -59,14 +67,55 @@ public class ExportResult extends SimpleResult<ExportOperation.Result> {
         _storeAgent = null;
     }
 
+    /**
+     * Marks the details of this result as written to a {@link com.espirit.moddev.cli.results.logging.ResultReport report},
+     * so only the summary is logged.
+     *
+     * @param detailsReported whether the details have been reported
+     */
+    public void setDetailsReported(final boolean detailsReported) {
+        _detailsReported = detailsReported;
+    }
+
+    /**
+     * Sets the detail this result is logged with.
+     *
+     * @param resultDetail the detail or {@code null} for the default detail
+     * @see ResultDetail#orDefault(ResultDetail, org.slf4j.Logger)
+     */
+    public void setResultDetail(final ResultDetail resultDetail) {
+        _resultDetail = resultDetail;
+    }
+
+    /**
+     * Sets the time of the export per subtree, which is logged with the summary.
+     *
+     * @param subtreeTimings the timings or {@code null}, if unknown
+     */
+    public void setSubtreeTimings(final SubtreeTimings subtreeTimings) {
+        _subtreeTimings = subtreeTimings;
+    }
+
+    /**
+     * Returns the time of the export per subtree.
+     *
+     * @return the timings or {@code null}, if unknown
+     */
+    public SubtreeTimings getSubtreeTimings() {
+        return _subtreeTimings;
+    }
+
     @Override
     public void log() {
         if (isError()) {
             LOGGER.error("Export operation not successful", exception);
         } else {
             LOGGER.info("Export operation successful");
-            // new logging, based on elements
-            logElementBasedResult(get());
+            // a result without export details has already been logged by its producer (e.g. the export watch mode)
+            if (get() != null) {
+                // new logging, based on elements
+                logElementBasedResult(get());
+            }
         }
     }
 
@@ -76,8 +125,20 @@ public class ExportResult extends SimpleResult<ExportOperation.Result> {
      * @see de.espirit.firstspirit.store.access.nexport.ExportInfo
      */
     private void logElementBasedResult(final ExportOperation.Result exportResult) {
-        AdvancedLogger.logExportResult(LOGGER, _storeAgent, exportResult);
+        AdvancedLogger.logExportResult(LOGGER, _storeAgent, exportResult, _detailsReported ? ResultDetail.SUMMARY : _resultDetail, _subtreeTimings);
     }
 
-
+    @Override
+    public Map<String, Long> getCounts() {
+        if (get() == null) {
+            return Collections.emptyMap();
+        }
+        final ExportOperation.Result exportResult = get();
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("created_elements", (long) exportResult.getCreatedElements().size());
+        counts.put("updated_elements", (long) exportResult.getUpdatedElements().size());
+        counts.put("deleted_elements", (long) exportResult.getDeletedElements().size());
+        counts.put("moved_elements", (long) exportResult.getMovedElements().size());
+        return counts;
+    }
 }
@@ -25,7 +25,15 @@ package com.espirit.moddev.cli.results;
 import de.espirit.firstspirit.agency.StoreAgent;
 import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
 
+import com.espirit.moddev.cli.api.result.ResultCase;
 import com.espirit.moddev.cli.results.logging.AdvancedLogger;
+import com.espirit.moddev.cli.results.logging.ResultDetail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Specialization of {@link com.espirit.moddev.cli.results.SimpleResult} that can be used in conjunction with import commands.
@@ -34,12 +42,14 @@ import com.espirit.moddev.cli.results.logging.AdvancedLogger;
 public class ImportResult extends SimpleResult<ImportOperation.Result> {
 
     private final StoreAgent storeAgent;
+    private boolean detailsReported;
+    private ResultDetail resultDetail;
 
     /**
      * Creates a new instance using the given command result.
      *
      * @param storeAgent a store agent
-     * @param result Result produced by the command
+     * @param result Result produced by the command, may be {@code null} if nothing had to be imported
      */
     public ImportResult(final StoreAgent storeAgent, ImportOperation.Result result) {
         super(result);
@@ -56,13 +66,72 @@ public class ImportResult extends SimpleResult<ImportOperation.Result> {
         storeAgent = null;
     }
 
+    /**
+     * Marks the details of this result as written to a {@link com.espirit.moddev.cli.results.logging.ResultReport report},
+     * so only the summary is logged.
+     *
+     * @param detailsReported whether the details have been reported
+     */
+    public void setDetailsReported(final boolean detailsReported) {
+        this.detailsReported = detailsReported;
+    }
+
+    /**
+     * Sets the detail this result is logged with.
+     *
+     * @param resultDetail the detail or {@code null} for the default detail
+     * @see ResultDetail#orDefault(ResultDetail, org.slf4j.Logger)
+     */
+    public void setResultDetail(final ResultDetail resultDetail) {
+        this.resultDetail = resultDetail;
+    }
+
     @Override
     public void log() {
         if (isError()) {
             LOGGER.error("Import operation not successful", exception);
         } else {
             LOGGER.info("Import operation successful");
-            AdvancedLogger.logImportResult(LOGGER, storeAgent, get());
+            // a result without import details means that nothing had to be imported
+            if (get() != null) {
+                AdvancedLogger.logImportResult(LOGGER, storeAgent, get(), detailsReported ? ResultDetail.SUMMARY : resultDetail);
+            }
+        }
+    }
+
+    /**
+     * Returns a failed case per {@link ImportOperation.Problem problem} of the import, or a single passed case if the
+     * import had no problems.
+     */
+    @Override
+    public List<ResultCase> getCases() {
+        if (isError() || get() == null) {
+            return super.getCases();
+        }
+        final List<ResultCase> cases = new ArrayList<>();
+        for (final ImportOperation.Problem problem : get().getProblems()) {
+            final String name = problem.getStoreType().getName() + ':' + problem.getNodeId();
+            cases.add(ResultCase.failed(name, problem.getMessage(), ImportOperation.Problem.class.getName()));
+        }
+        if (cases.isEmpty()) {
+            cases.add(ResultCase.passed("import"));
+        }
+        return cases;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        if (get() == null) {
+            return Collections.emptyMap();
         }
+        final ImportOperation.Result importResult = get();
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("created_elements", (long) importResult.getCreatedElements().size());
+        counts.put("updated_elements", (long) importResult.getUpdatedElements().size());
+        counts.put("deleted_elements", (long) importResult.getDeletedElements().size());
+        counts.put("moved_elements", (long) importResult.getMovedElements().size());
+        counts.put("lost_and_found_elements", (long) importResult.getLostAndFoundElements().size());
+        counts.put("problems", (long) importResult.getProblems().size());
+        return counts;
     }
 }
@@ -22,9 +22,13 @@
 
 package com.espirit.moddev.cli.results;
 
+import com.espirit.moddev.cli.api.result.ResultCase;
 import com.espirit.moddev.shared.exception.MultiException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -72,4 +76,37 @@ public class InstallModulesResult extends SimpleResult<List<InstallModuleResult>
         return builder.toString();
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns a passed case per installed module and a failed case per cause of the {@link MultiException}. A cause
+     * is named after its module, if it is the error of a module, otherwise by its number.
+     */
+    @Override
+    public List<ResultCase> getCases() {
+        final List<ResultCase> cases = new ArrayList<>();
+        final Map<Exception, String> moduleNames = new LinkedHashMap<>();
+        if (get() != null) {
+            for (final InstallModuleResult moduleResult : get()) {
+                if (moduleResult.isError()) {
+                    moduleNames.put(moduleResult.getError(), moduleResult.getModuleName());
+                } else {
+                    cases.add(ResultCase.passed(moduleResult.getModuleName()));
+                }
+            }
+        }
+        if (exception instanceof MultiException) {
+            final List<Exception> causes = ((MultiException) exception).getExceptions();
+            for (int index = 0; index < causes.size(); index++) {
+                final Exception cause = causes.get(index);
+                final String moduleName = moduleNames.remove(cause);
+                cases.add(ResultCase.failed(moduleName != null ? moduleName : "cause #" + (index + 1), cause));
+            }
+        } else if (exception != null) {
+            cases.add(ResultCase.failed(getClass().getSimpleName(), exception));
+        }
+        // modules whose error is no cause
+        for (final Map.Entry<Exception, String> entry : moduleNames.entrySet()) {
+            cases.add(ResultCase.failed(entry.getValue(), entry.getKey()));
+        }
+        return cases;
+    }
+}
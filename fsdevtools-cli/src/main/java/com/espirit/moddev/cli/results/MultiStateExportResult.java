@@ -0,0 +1,174 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results;
+
+import com.espirit.moddev.cli.commands.export.ExportState;
+
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Specialization of {@link ExportResult} that combines the exports of several states of a project into one sync dir
+ * per state. The details of the single exports have already been logged, so only a summary of all states is logged.
+ *
+ * @author e-Spirit AG
+ */
+public class MultiStateExportResult extends ExportResult {
+
+    private final List<StateResult> _stateResults;
+
+    /**
+     * Creates a new instance using the results of the single states.
+     *
+     * @param stateResults the results of the exported states
+     */
+    public MultiStateExportResult(final List<StateResult> stateResults) {
+        super(null, null);
+        _stateResults = Collections.unmodifiableList(new ArrayList<>(stateResults));
+    }
+
+    /**
+     * Creates a new error result using the given exception.
+     *
+     * @param exception Exception produced by the command
+     */
+    public MultiStateExportResult(final Exception exception) {
+        super(exception);
+        _stateResults = Collections.emptyList();
+    }
+
+    /**
+     * Returns the results of the exported states.
+     *
+     * @return the results of the states
+     */
+    public List<StateResult> getStateResults() {
+        return _stateResults;
+    }
+
+    @Override
+    public boolean isError() {
+        return getError() != null;
+    }
+
+    @Override
+    public Exception getError() {
+        if (exception != null) {
+            return exception;
+        }
+        for (final StateResult stateResult : _stateResults) {
+            if (stateResult.getError() != null) {
+                return stateResult.getError();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void log() {
+        if (exception != null) {
+            LOGGER.error("Export operation not successful", exception);
+            return;
+        }
+        LOGGER.info("Export of {} states finished:", _stateResults.size());
+        for (final StateResult stateResult : _stateResults) {
+            if (stateResult.getError() == null) {
+                LOGGER.info("  {} -> '{}': {} created, {} updated, {} moved, {} deleted in {} ms", stateResult.getState().getName(), stateResult.getSynchronizationDirectory(),
+                            stateResult.getCreated(), stateResult.getUpdated(), stateResult.getMoved(), stateResult.getDeleted(), stateResult.getDurationMillis());
+            } else {
+                LOGGER.error("  {} -> '{}': failed after {} ms: {}", stateResult.getState().getName(), stateResult.getSynchronizationDirectory(),
+                             stateResult.getDurationMillis(), stateResult.getError().getMessage());
+            }
+        }
+    }
+
+    /**
+     * The summary of the export of a single state.
+     */
+    public static final class StateResult {
+
+        private final ExportState _state;
+        private final String _synchronizationDirectory;
+        private final Exception _error;
+        private final long _durationMillis;
+        private final int _created;
+        private final int _updated;
+        private final int _moved;
+        private final int _deleted;
+
+        /**
+         * Creates a new summary of the given export result.
+         *
+         * @param state                    the exported state
+         * @param synchronizationDirectory the sync dir the state was exported into
+         * @param result                   the result of the export
+         * @param durationMillis           the duration of the export in milliseconds
+         */
+        public StateResult(final ExportState state, final String synchronizationDirectory, final ExportResult result, final long durationMillis) {
+            _state = state;
+            _synchronizationDirectory = synchronizationDirectory;
+            _error = result.getError();
+            _durationMillis = durationMillis;
+            final ExportOperation.Result exportResult = result.get();
+            _created = exportResult == null ? 0 : exportResult.getCreatedElements().size();
+            _updated = exportResult == null ? 0 : exportResult.getUpdatedElements().size();
+            _moved = exportResult == null ? 0 : exportResult.getMovedElements().size();
+            _deleted = exportResult == null ? 0 : exportResult.getDeletedElements().size();
+        }
+
+        public ExportState getState() {
+            return _state;
+        }
+
+        public String getSynchronizationDirectory() {
+            return _synchronizationDirectory;
+        }
+
+        public Exception getError() {
+            return _error;
+        }
+
+        public long getDurationMillis() {
+            return _durationMillis;
+        }
+
+        public int getCreated() {
+            return _created;
+        }
+
+        public int getUpdated() {
+            return _updated;
+        }
+
+        public int getMoved() {
+            return _moved;
+        }
+
+        public int getDeleted() {
+            return _deleted;
+        }
+    }
+}
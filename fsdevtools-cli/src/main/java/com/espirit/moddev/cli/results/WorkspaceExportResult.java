@@ -0,0 +1,190 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results;
+
+import com.espirit.moddev.cli.configuration.Workspace;
+
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Specialization of {@link ExportResult} that combines the exports of the projects of a {@link Workspace}. The details
+ * of the single exports have already been logged, so only a summary of all projects is logged. The result is an error
+ * if the export of any project failed in its last attempt.
+ *
+ * @author e-Spirit AG
+ */
+public class WorkspaceExportResult extends ExportResult {
+
+    private final List<ProjectResult> _projectResults;
+
+    /**
+     * Creates a new instance using the results of the single projects.
+     *
+     * @param projectResults the results of the exported projects
+     */
+    public WorkspaceExportResult(final List<ProjectResult> projectResults) {
+        super(null, null);
+        _projectResults = Collections.unmodifiableList(new ArrayList<>(projectResults));
+    }
+
+    /**
+     * Creates a new error result using the given exception.
+     *
+     * @param exception Exception produced by the command
+     */
+    public WorkspaceExportResult(final Exception exception) {
+        super(exception);
+        _projectResults = Collections.emptyList();
+    }
+
+    /**
+     * Returns the results of the exported projects.
+     *
+     * @return the results of the projects
+     */
+    public List<ProjectResult> getProjectResults() {
+        return _projectResults;
+    }
+
+    @Override
+    public boolean isError() {
+        return getError() != null;
+    }
+
+    @Override
+    public Exception getError() {
+        if (exception != null) {
+            return exception;
+        }
+        final List<String> failedProjects = new ArrayList<>();
+        Exception firstError = null;
+        for (final ProjectResult projectResult : _projectResults) {
+            if (projectResult.getError() != null) {
+                failedProjects.add(projectResult.getProject());
+                if (firstError == null) {
+                    firstError = projectResult.getError();
+                }
+            }
+        }
+        if (firstError == null) {
+            return null;
+        }
+        return new IllegalStateException("Export of " + failedProjects.size() + " of " + _projectResults.size() + " projects failed: " + String.join(", ", failedProjects), firstError);
+    }
+
+    @Override
+    public void log() {
+        if (exception != null) {
+            LOGGER.error("Export operation not successful", exception);
+            return;
+        }
+        LOGGER.info("Export of {} projects finished:", _projectResults.size());
+        for (final ProjectResult projectResult : _projectResults) {
+            if (projectResult.getError() == null) {
+                LOGGER.info("  {} -> '{}': {} created, {} updated, {} moved, {} deleted in {} ms ({} attempts)", projectResult.getProject(), projectResult.getSynchronizationDirectory(),
+                            projectResult.getCreated(), projectResult.getUpdated(), projectResult.getMoved(), projectResult.getDeleted(), projectResult.getDurationMillis(),
+                            projectResult.getAttempts());
+            } else {
+                LOGGER.error("  {} -> '{}': failed after {} ms ({} attempts): {}", projectResult.getProject(), projectResult.getSynchronizationDirectory(),
+                             projectResult.getDurationMillis(), projectResult.getAttempts(), projectResult.getError().getMessage());
+            }
+        }
+    }
+
+    /**
+     * The summary of the export of a single project.
+     */
+    public static final class ProjectResult {
+
+        private final String _project;
+        private final String _synchronizationDirectory;
+        private final Exception _error;
+        private final long _durationMillis;
+        private final int _attempts;
+        private final int _created;
+        private final int _updated;
+        private final int _moved;
+        private final int _deleted;
+
+        /**
+         * Creates a new summary of the given export result.
+         *
+         * @param project        the exported project
+         * @param result         the result of the last attempt of the export
+         * @param durationMillis the duration of all attempts of the export in milliseconds
+         * @param attempts       the number of attempts
+         */
+        public ProjectResult(final Workspace.Project project, final ExportResult result, final long durationMillis, final int attempts) {
+            _project = project.getName();
+            _synchronizationDirectory = project.getSynchronizationDirectory().toString();
+            _error = result.getError();
+            _durationMillis = durationMillis;
+            _attempts = attempts;
+            final ExportOperation.Result exportResult = result.get();
+            _created = exportResult == null ? 0 : exportResult.getCreatedElements().size();
+            _updated = exportResult == null ? 0 : exportResult.getUpdatedElements().size();
+            _moved = exportResult == null ? 0 : exportResult.getMovedElements().size();
+            _deleted = exportResult == null ? 0 : exportResult.getDeletedElements().size();
+        }
+
+        public String getProject() {
+            return _project;
+        }
+
+        public String getSynchronizationDirectory() {
+            return _synchronizationDirectory;
+        }
+
+        public Exception getError() {
+            return _error;
+        }
+
+        public long getDurationMillis() {
+            return _durationMillis;
+        }
+
+        public int getAttempts() {
+            return _attempts;
+        }
+
+        public int getCreated() {
+            return _created;
+        }
+
+        public int getUpdated() {
+            return _updated;
+        }
+
+        public int getMoved() {
+            return _moved;
+        }
+
+        public int getDeleted() {
+            return _deleted;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results;
+
+import com.espirit.moddev.cli.configuration.Workspace;
+
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Specialization of {@link ImportResult} that combines the imports of the projects of a {@link Workspace}. The details
+ * of the single imports have already been logged, so only a summary of all projects is logged. The result is an error
+ * if the import of any project failed.
+ *
+ * @author e-Spirit AG
+ */
+public class WorkspaceImportResult extends ImportResult {
+
+    private final List<ProjectResult> _projectResults;
+
+    /**
+     * Creates a new instance using the results of the single projects.
+     *
+     * @param projectResults the results of the imported projects
+     */
+    public WorkspaceImportResult(final List<ProjectResult> projectResults) {
+        super(null, null);
+        _projectResults = Collections.unmodifiableList(new ArrayList<>(projectResults));
+    }
+
+    /**
+     * Creates a new error result using the given exception.
+     *
+     * @param exception Exception produced by the command
+     */
+    public WorkspaceImportResult(final Exception exception) {
+        super(exception);
+        _projectResults = Collections.emptyList();
+    }
+
+    /**
+     * Returns the results of the imported projects.
+     *
+     * @return the results of the projects
+     */
+    public List<ProjectResult> getProjectResults() {
+        return _projectResults;
+    }
+
+    @Override
+    public boolean isError() {
+        return getError() != null;
+    }
+
+    @Override
+    public Exception getError() {
+        if (exception != null) {
+            return exception;
+        }
+        final List<String> failedProjects = new ArrayList<>();
+        Exception firstError = null;
+        for (final ProjectResult projectResult : _projectResults) {
+            if (projectResult.getError() != null) {
+                failedProjects.add(projectResult.getProject());
+                if (firstError == null) {
+                    firstError = projectResult.getError();
+                }
+            }
+        }
+        if (firstError == null) {
+            return null;
+        }
+        return new IllegalStateException("Import of " + failedProjects.size() + " of " + _projectResults.size() + " projects failed: " + String.join(", ", failedProjects), firstError);
+    }
+
+    @Override
+    public void log() {
+        if (exception != null) {
+            LOGGER.error("Import operation not successful", exception);
+            return;
+        }
+        LOGGER.info("Import of {} projects finished:", _projectResults.size());
+        for (final ProjectResult projectResult : _projectResults) {
+            if (projectResult.getError() == null) {
+                LOGGER.info("  {} <- '{}': {} created, {} updated, {} moved, {} deleted, {} problems in {} ms", projectResult.getProject(), projectResult.getSynchronizationDirectory(),
+                            projectResult.getCreated(), projectResult.getUpdated(), projectResult.getMoved(), projectResult.getDeleted(), projectResult.getProblems(), projectResult.getDurationMillis());
+            } else {
+                LOGGER.error("  {} <- '{}': failed after {} ms: {}", projectResult.getProject(), projectResult.getSynchronizationDirectory(),
+                             projectResult.getDurationMillis(), projectResult.getError().getMessage());
+            }
+        }
+    }
+
+    /**
+     * The summary of the import of a single project.
+     */
+    public static final class ProjectResult {
+
+        private final String _project;
+        private final String _synchronizationDirectory;
+        private final Exception _error;
+        private final long _durationMillis;
+        private final int _created;
+        private final int _updated;
+        private final int _moved;
+        private final int _deleted;
+        private final int _problems;
+
+        /**
+         * Creates a new summary of the given import result.
+         *
+         * @param project        the imported project
+         * @param result         the result of the import
+         * @param durationMillis the duration of the import in milliseconds
+         */
+        public ProjectResult(final Workspace.Project project, final ImportResult result, final long durationMillis) {
+            _project = project.getName();
+            _synchronizationDirectory = project.getSynchronizationDirectory().toString();
+            _error = result.getError();
+            _durationMillis = durationMillis;
+            final ImportOperation.Result importResult = result.get();
+            _created = importResult == null ? 0 : importResult.getCreatedElements().size();
+            _updated = importResult == null ? 0 : importResult.getUpdatedElements().size();
+            _moved = importResult == null ? 0 : importResult.getMovedElements().size();
+            _deleted = importResult == null ? 0 : importResult.getDeletedElements().size();
+            _problems = importResult == null ? 0 : importResult.getProblems().size();
+        }
+
+        public String getProject() {
+            return _project;
+        }
+
+        public String getSynchronizationDirectory() {
+            return _synchronizationDirectory;
+        }
+
+        public Exception getError() {
+            return _error;
+        }
+
+        public long getDurationMillis() {
+            return _durationMillis;
+        }
+
+        public int getCreated() {
+            return _created;
+        }
+
+        public int getUpdated() {
+            return _updated;
+        }
+
+        public int getMoved() {
+            return _moved;
+        }
+
+        public int getDeleted() {
+            return _deleted;
+        }
+
+        public int getProblems() {
+            return _problems;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.exporters;
+
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.api.result.ResultCase;
+import com.espirit.moddev.cli.api.result.ResultExporter;
+import com.espirit.moddev.util.FileUtil;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes the {@link Result#getCases() cases} of a result as a JUnit XML test report, which is understood by most CI
+ * servers. Every command is a test suite and every case a test case of it.
+ * <p>
+ * If the target is an existing directory, every command writes its own report {@code TEST-fs-cli-<command>.xml} to it,
+ * so the reports of several commands of a build are kept. Otherwise the target is the report file itself. The report
+ * is written to a temporary file first and moved to the target, so a CI server never reads an incomplete report.
+ *
+ * @author e-Spirit AG
+ */
+public class JUnitXmlResultExporter implements ResultExporter {
+
+    static final String SUITE_PREFIX = "fs-cli";
+
+    private final Path _target;
+
+    /**
+     * Creates a new instance that writes to the given target.
+     *
+     * @param target the report file or a directory for the reports of all commands
+     */
+    public JUnitXmlResultExporter(@NotNull final Path target) {
+        _target = target;
+    }
+
+    @Override
+    public void export(final String command, final Result<?> result, final long durationMillis) throws IOException {
+        final Path reportFile = getReportFile(command);
+        FileUtil.writeBytesAtomically(reportFile, outputStream -> write(outputStream, command, result.getCases(), durationMillis));
+    }
+
+    @NotNull
+    Path getReportFile(@NotNull final String command) {
+        if (Files.isDirectory(_target)) {
+            return _target.resolve("TEST-" + SUITE_PREFIX + '-' + command.replace(' ', '-') + ".xml");
+        }
+        return _target;
+    }
+
+    private static void write(@NotNull final OutputStream outputStream, @NotNull final String command, @NotNull final List<ResultCase> cases,
+                              final long durationMillis) throws IOException {
+        int failures = 0;
+        for (final ResultCase resultCase : cases) {
+            if (resultCase.isFailed()) {
+                failures++;
+            }
+        }
+        final String suiteName = SUITE_PREFIX + '.' + command.replace(' ', '.');
+        try {
+            final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("testsuite");
+            writer.writeAttribute("name", suiteName);
+            writer.writeAttribute("tests", Integer.toString(cases.size()));
+            writer.writeAttribute("failures", Integer.toString(failures));
+            writer.writeAttribute("errors", "0");
+            writer.writeAttribute("skipped", "0");
+            writer.writeAttribute("time", String.format(Locale.UK, "%.3f", durationMillis / 1000.0));
+            writer.writeCharacters("\n");
+            for (final ResultCase resultCase : cases) {
+                writer.writeCharacters("  ");
+                if (resultCase.isFailed()) {
+                    writer.writeStartElement("testcase");
+                    writeCaseAttributes(writer, suiteName, resultCase);
+                    writer.writeStartElement("failure");
+                    if (resultCase.getMessage() != null) {
+                        writer.writeAttribute("message", sanitize(resultCase.getMessage()));
+                    }
+                    if (resultCase.getType() != null) {
+                        writer.writeAttribute("type", sanitize(resultCase.getType()));
+                    }
+                    writer.writeEndElement();
+                    writer.writeEndElement();
+                } else {
+                    writer.writeEmptyElement("testcase");
+                    writeCaseAttributes(writer, suiteName, resultCase);
+                }
+                writer.writeCharacters("\n");
+            }
+            writer.writeEndElement();
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.close();
+        } catch (final XMLStreamException e) {
+            throw new IOException("Failed to write the test report of '" + command + "'", e);
+        }
+    }
+
+    private static void writeCaseAttributes(@NotNull final XMLStreamWriter writer, @NotNull final String suiteName, @NotNull final ResultCase resultCase)
+            throws XMLStreamException {
+        writer.writeAttribute("classname", suiteName);
+        writer.writeAttribute("name", sanitize(resultCase.getName()));
+    }
+
+    /**
+     * Removes the characters that are not allowed in XML 1.0 at all, even escaped, e.g. control characters of messages.
+     */
+    @NotNull
+    static String sanitize(@NotNull final String text) {
+        StringBuilder builder = null;
+        for (int index = 0; index < text.length(); index++) {
+            final char character = text.charAt(index);
+            final boolean allowed = character >= 0x20 || character == '\t' || character == '\n' || character == '\r';
+            if (!allowed && builder == null) {
+                builder = new StringBuilder(text.length()).append(text, 0, index);
+            } else if (allowed && builder != null) {
+                builder.append(character);
+            }
+        }
+        return builder == null ? text : builder.toString();
+    }
+}
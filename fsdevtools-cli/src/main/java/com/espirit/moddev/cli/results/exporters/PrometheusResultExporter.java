@@ -0,0 +1,161 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.exporters;
+
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.api.result.ResultCase;
+import com.espirit.moddev.cli.api.result.ResultExporter;
+import com.espirit.moddev.util.FileUtil;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the result of a command as metrics in the text format of Prometheus, e.g. for the textfile collector of the
+ * node exporter, which reads every {@code *.prom} file of a directory. The metrics of every command are labeled with
+ * {@code command}; the samples of other commands in the file are kept, so a single file holds the latest run of every
+ * command:
+ * <pre>
+ * fs_cli_duration_seconds{command="export"} 12.345
+ * fs_cli_success{command="export"} 1
+ * fs_cli_failed_cases{command="export"} 0
+ * fs_cli_last_run_timestamp_seconds{command="export"} 1760000000
+ * fs_cli_result_count{command="export",name="created_elements"} 42
+ * </pre>
+ * The file is written to a temporary file first and moved to the target, as required by the textfile collector.
+ *
+ * @author e-Spirit AG
+ */
+public class PrometheusResultExporter implements ResultExporter {
+
+    static final String DURATION = "fs_cli_duration_seconds";
+    static final String SUCCESS = "fs_cli_success";
+    static final String FAILED_CASES = "fs_cli_failed_cases";
+    static final String LAST_RUN = "fs_cli_last_run_timestamp_seconds";
+    static final String RESULT_COUNT = "fs_cli_result_count";
+
+    private static final Map<String, String> HELP = new LinkedHashMap<>();
+
+    static {
+        HELP.put(DURATION, "Duration of the latest run of the command.");
+        HELP.put(SUCCESS, "Whether the latest run of the command succeeded.");
+        HELP.put(FAILED_CASES, "Number of failed cases of the latest run of the command, e.g. import problems.");
+        HELP.put(LAST_RUN, "Time of the end of the latest run of the command.");
+        HELP.put(RESULT_COUNT, "Counts of the result of the latest run of the command, e.g. the created elements.");
+    }
+
+    private final Path _file;
+
+    /**
+     * Creates a new instance that writes to the given file.
+     *
+     * @param file the metrics file, which should end with {@code .prom} for the textfile collector
+     */
+    public PrometheusResultExporter(@NotNull final Path file) {
+        _file = file;
+    }
+
+    @Override
+    public void export(final String command, final Result<?> result, final long durationMillis) throws IOException {
+        final String commandLabel = "command=\"" + escape(command) + '"';
+        final Map<String, List<String>> samples = readOtherSamples(commandLabel);
+        int failedCases = 0;
+        for (final ResultCase resultCase : result.getCases()) {
+            if (resultCase.isFailed()) {
+                failedCases++;
+            }
+        }
+        addSample(samples, DURATION, '{' + commandLabel + "} " + durationMillis / 1000.0);
+        addSample(samples, SUCCESS, '{' + commandLabel + "} " + (result.isError() ? 0 : 1));
+        addSample(samples, FAILED_CASES, '{' + commandLabel + "} " + failedCases);
+        addSample(samples, LAST_RUN, '{' + commandLabel + "} " + System.currentTimeMillis() / 1000);
+        for (final Map.Entry<String, Long> count : result.getCounts().entrySet()) {
+            addSample(samples, RESULT_COUNT, '{' + commandLabel + ",name=\"" + escape(count.getKey()) + "\"} " + count.getValue());
+        }
+        write(samples);
+    }
+
+    /**
+     * Reads the samples of the file that do not belong to the given command, grouped by metric.
+     */
+    @NotNull
+    private Map<String, List<String>> readOtherSamples(@NotNull final String commandLabel) throws IOException {
+        final Map<String, List<String>> samples = new LinkedHashMap<>();
+        for (final String metric : HELP.keySet()) {
+            samples.put(metric, new ArrayList<>());
+        }
+        if (!Files.isRegularFile(_file)) {
+            return samples;
+        }
+        for (final String line : Files.readAllLines(_file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            final int labelsStart = line.indexOf('{');
+            if (labelsStart <= 0 || line.contains(commandLabel)) {
+                continue;
+            }
+            final String metric = line.substring(0, labelsStart);
+            addSample(samples, metric, line.substring(labelsStart));
+        }
+        return samples;
+    }
+
+    private static void addSample(@NotNull final Map<String, List<String>> samples, @NotNull final String metric, @NotNull final String labelsAndValue) {
+        samples.computeIfAbsent(metric, key -> new ArrayList<>()).add(labelsAndValue);
+    }
+
+    private void write(@NotNull final Map<String, List<String>> samples) throws IOException {
+        FileUtil.writeAtomically(_file, writer -> {
+            for (final Map.Entry<String, List<String>> metric : samples.entrySet()) {
+                if (metric.getValue().isEmpty()) {
+                    continue;
+                }
+                final String help = HELP.get(metric.getKey());
+                if (help != null) {
+                    writer.write("# HELP " + metric.getKey() + ' ' + help + '\n');
+                }
+                writer.write("# TYPE " + metric.getKey() + " gauge\n");
+                for (final String sample : metric.getValue()) {
+                    writer.write(metric.getKey() + sample + '\n');
+                }
+            }
+        });
+    }
+
+    /**
+     * Escapes a label value as required by the text format.
+     */
+    @NotNull
+    static String escape(@NotNull final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.exporters;
+
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.api.result.ResultExporter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the configured {@link ResultExporter exporters} for the results of the cli. The exporters run on a single
+ * background thread, so slow file systems do not delay the command. Before the cli exits, it {@link #flush() flushes}
+ * the pending exports, but waits at most for the flush timeout: a hanging export must not keep the cli from exiting.
+ * <p>
+ * The exporters are configured by system properties or environment variables:
+ * <ul>
+ * <li>{@value #JUNIT_XML_PROPERTY}: the JUnit XML report file or directory, see {@link JUnitXmlResultExporter}</li>
+ * <li>{@value #PROMETHEUS_TEXTFILE_PROPERTY}: the Prometheus metrics file, see {@link PrometheusResultExporter}</li>
+ * <li>{@value #FLUSH_TIMEOUT_PROPERTY}: the flush timeout in seconds, default is {@value #DEFAULT_FLUSH_TIMEOUT_SECONDS}</li>
+ * </ul>
+ *
+ * @author e-Spirit AG
+ */
+public final class ResultExporters {
+
+    /**
+     * Name of the system property or environment variable with the target of the JUnit XML report.
+     */
+    public static final String JUNIT_XML_PROPERTY = "FS_CLI_JUNIT_XML";
+
+    /**
+     * Name of the system property or environment variable with the file of the Prometheus metrics.
+     */
+    public static final String PROMETHEUS_TEXTFILE_PROPERTY = "FS_CLI_PROMETHEUS_TEXTFILE";
+
+    /**
+     * Name of the system property or environment variable with the flush timeout in seconds.
+     */
+    public static final String FLUSH_TIMEOUT_PROPERTY = "FS_CLI_EXPORT_FLUSH_TIMEOUT";
+
+    /**
+     * Default flush timeout in seconds.
+     */
+    public static final int DEFAULT_FLUSH_TIMEOUT_SECONDS = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultExporters.class);
+
+    private static ResultExporters _instance;
+
+    private final List<ResultExporter> _exporters;
+    private final long _flushTimeoutMillis;
+    private ExecutorService _executor;
+
+    ResultExporters(@NotNull final List<ResultExporter> exporters, final long flushTimeoutMillis) {
+        _exporters = Collections.unmodifiableList(new ArrayList<>(exporters));
+        _flushTimeoutMillis = flushTimeoutMillis;
+    }
+
+    /**
+     * Returns the exporters configured by the system properties and environment variables, created on the first call.
+     *
+     * @return the exporters, possibly without any exporter
+     */
+    @NotNull
+    public static synchronized ResultExporters getInstance() {
+        if (_instance == null) {
+            _instance = fromSettings();
+        }
+        return _instance;
+    }
+
+    @NotNull
+    private static ResultExporters fromSettings() {
+        final List<ResultExporter> exporters = new ArrayList<>();
+        long flushTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_FLUSH_TIMEOUT_SECONDS);
+        try {
+            final String junitXml = getSetting(JUNIT_XML_PROPERTY);
+            if (junitXml != null) {
+                exporters.add(new JUnitXmlResultExporter(Paths.get(junitXml)));
+            }
+            final String prometheusTextfile = getSetting(PROMETHEUS_TEXTFILE_PROPERTY);
+            if (prometheusTextfile != null) {
+                exporters.add(new PrometheusResultExporter(Paths.get(prometheusTextfile)));
+            }
+            final String flushTimeout = getSetting(FLUSH_TIMEOUT_PROPERTY);
+            if (flushTimeout != null) {
+                flushTimeoutMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(flushTimeout));
+            }
+        } catch (final IllegalArgumentException e) {
+            // also catches the InvalidPathException of malformed paths
+            LOGGER.warn("Invalid result export settings, results are not exported: {}", e.getMessage());
+            exporters.clear();
+        }
+        return new ResultExporters(exporters, flushTimeoutMillis);
+    }
+
+    @Nullable
+    private static String getSetting(@NotNull final String name) {
+        final String value = System.getProperty(name, System.getenv(name));
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    /**
+     * Exports the given result in the background. Does nothing, if no exporter is configured.
+     *
+     * @param command        the name of the command, e.g. {@code module install}
+     * @param result         the result of the command
+     * @param durationMillis the duration of the command in milliseconds
+     */
+    public synchronized void submit(@NotNull final String command, @NotNull final Result<?> result, final long durationMillis) {
+        if (_exporters.isEmpty()) {
+            return;
+        }
+        if (_executor == null || _executor.isShutdown()) {
+            _executor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "fs-cli-result-exporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        _executor.execute(() -> {
+            for (final ResultExporter exporter : _exporters) {
+                try {
+                    exporter.export(command, result, durationMillis);
+                } catch (final IOException | RuntimeException e) {
+                    LOGGER.warn("Failed to export the result of '{}' with {}: {}", command, exporter.getClass().getSimpleName(), e.toString());
+                    LOGGER.debug("Failed to export the result.", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits for the pending exports, but at most for the flush timeout. Exports that are still running afterwards are
+     * abandoned.
+     *
+     * @return {@code true} if all exports have been finished
+     */
+    public synchronized boolean flush() {
+        final ExecutorService executor = _executor;
+        if (executor == null) {
+            return true;
+        }
+        _executor = null;
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(_flushTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.warn("The results have not been exported within {} ms, pending exports are abandoned.", _flushTimeoutMillis);
+        executor.shutdownNow();
+        return false;
+    }
+
+    /**
+     * {@link #flush() Flushes} the exporters, if they have been used.
+     */
+    public static void flushInstance() {
+        final ResultExporters instance;
+        synchronized (ResultExporters.class) {
+            instance = _instance;
+        }
+        if (instance != null) {
+            instance.flush();
+        }
+    }
+
+    @NotNull
+    List<ResultExporter> getExporters() {
+        return _exporters;
+    }
+}
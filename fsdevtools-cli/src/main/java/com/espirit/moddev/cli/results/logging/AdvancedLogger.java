@@ -20,7 +20,6 @@ import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
 import de.espirit.firstspirit.transport.PropertiesTransportOptions;
 import org.slf4j.Logger;
 
-import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -43,18 +42,58 @@ public enum AdvancedLogger {
      * @param exportResult the result to be loggged
      */
     public static void logExportResult(final Logger logger, final StoreAgent storeAgent, final ExportOperation.Result exportResult) {
+        logExportResult(logger, storeAgent, exportResult, null);
+    }
+
+    /**
+     * Logs the given {@code exportResult} to the given logger like {@link #logExportResult(Logger, StoreAgent, ExportOperation.Result)},
+     * but only with the given detail, e.g. only the summary if the details have been written to a {@link ResultReport}.
+     * @param logger the logger the export result information will be logged to
+     * @param storeAgent the store agent to use
+     * @param exportResult the result to be loggged
+     * @param resultDetail the detail to log or {@code null} for the {@link ResultDetail#orDefault(ResultDetail, Logger) default}
+     */
+    public static void logExportResult(final Logger logger, final StoreAgent storeAgent, final ExportOperation.Result exportResult, final ResultDetail resultDetail) {
+        logExportResult(logger, storeAgent, exportResult, resultDetail, null);
+    }
+
+    /**
+     * Logs the given {@code exportResult} to the given logger like {@link #logExportResult(Logger, StoreAgent, ExportOperation.Result, ResultDetail)}
+     * and the slowest subtrees of the export as part of the summary.
+     * @param logger the logger the export result information will be logged to
+     * @param storeAgent the store agent to use
+     * @param exportResult the result to be loggged
+     * @param resultDetail the detail to log or {@code null} for the {@link ResultDetail#orDefault(ResultDetail, Logger) default}
+     * @param subtreeTimings the time of the export per subtree or {@code null}, if unknown
+     */
+    public static void logExportResult(final Logger logger, final StoreAgent storeAgent, final ExportOperation.Result exportResult, final ResultDetail resultDetail,
+                                       final SubtreeTimings subtreeTimings) {
         if (! logger.isInfoEnabled()) {
             // nothing to do if loglevel is not at least info
             return;
         }
         logger.info("Export done.");
+        final ResultDetail detail = ResultDetail.orDefault(resultDetail, logger);
+
+        // look up the referenced elements at once before the details are formatted
+        final StoreElementResolver resolver = new StoreElementResolver(storeAgent);
+        if (detail.includes(ResultDetail.ELEMENT)) {
+            final List<StoreElementResolver.ElementKey> keys = new ArrayList<>();
+            addTemplateKeys(keys, exportResult.getCreatedElements());
+            addTemplateKeys(keys, exportResult.getUpdatedElements());
+            addTemplateKeys(keys, exportResult.getDeletedElements());
+            addTemplateKeys(keys, exportResult.getMovedElements());
+            resolver.prefetch(keys);
+        }
+        if (detail != ResultDetail.SUMMARY) {
+            logger.info("== DETAILS ==");
+        }
 
         // log details and fetch summary
-        logger.info("== DETAILS ==");
-        final String created = logElements(logger, storeAgent, exportResult.getCreatedElements(), "Created elements");
-        final String updated = logElements(logger, storeAgent, exportResult.getUpdatedElements(), "Updated elements");
-        final String deleted = logElements(logger, storeAgent, exportResult.getDeletedElements(), "Deleted elements");
-        final String moved = logElements(logger, storeAgent, exportResult.getMovedElements(), "  Moved elements");
+        final String created = logElements(logger, resolver, exportResult.getCreatedElements(), "Created elements", detail);
+        final String updated = logElements(logger, resolver, exportResult.getUpdatedElements(), "Updated elements", detail);
+        final String deleted = logElements(logger, resolver, exportResult.getDeletedElements(), "Deleted elements", detail);
+        final String moved = logElements(logger, resolver, exportResult.getMovedElements(), "  Moved elements", detail);
 
         // log summary
         logger.info("== SUMMARY ==");
@@ -62,6 +101,7 @@ public enum AdvancedLogger {
         logger.info(updated);
         logger.info(deleted);
         logger.info(moved);
+        logSlowestSubtrees(logger, subtreeTimings);
     }
 
     /**
@@ -73,20 +113,64 @@ public enum AdvancedLogger {
      * @param importResult the result to be logged
      */
     public static void logImportResult(final Logger logger, final StoreAgent storeAgent, final ImportOperation.Result importResult) {
+        logImportResult(logger, storeAgent, importResult, null);
+    }
+
+    /**
+     * Logs the given {@code importResult} to the given logger like {@link #logImportResult(Logger, StoreAgent, ImportOperation.Result)},
+     * but only with the given detail, e.g. only the summary if the details have been written to a {@link ResultReport}.
+     * @param logger the logger the import result information will be logged to
+     * @param storeAgent the store agent to use
+     * @param importResult the result to be logged
+     * @param resultDetail the detail to log or {@code null} for the {@link ResultDetail#orDefault(ResultDetail, Logger) default}
+     */
+    public static void logImportResult(final Logger logger, final StoreAgent storeAgent, final ImportOperation.Result importResult, final ResultDetail resultDetail) {
         if (!logger.isInfoEnabled()) {
             // nothing to do if loglevel is not at least info
             return;
         }
         logger.info("Import done.");
+        final ResultDetail detail = ResultDetail.orDefault(resultDetail, logger);
+
+        final Collection<ExportInfo> createdElements = createElementExportInfo(importResult, importResult.getCreatedElements(), ExportStatus.CREATED, null);
+        final Collection<ExportInfo> updatedElements = createElementExportInfo(importResult, importResult.getUpdatedElements(), ExportStatus.UPDATED, importResult.getModifiedProjectProperties());
+        final Collection<ExportInfo> deletedElements = createElementExportInfo(importResult, importResult.getDeletedElements(), ExportStatus.DELETED, null);
+        final Collection<ExportInfo> movedElements = createElementExportInfo(importResult, importResult.getMovedElements(), ExportStatus.MOVED, null);
+        final Collection<ExportInfo> lostAndFoundElements = createElementExportInfo(importResult, importResult.getLostAndFoundElements(), ExportStatus.MOVED, null);
+
+        // look up the referenced elements at once before the details are formatted
+        final StoreElementResolver resolver = new StoreElementResolver(storeAgent);
+        if (detail.includes(ResultDetail.ELEMENT)) {
+            final List<StoreElementResolver.ElementKey> keys = new ArrayList<>();
+            addTemplateKeys(keys, createdElements);
+            addTemplateKeys(keys, updatedElements);
+            addTemplateKeys(keys, deletedElements);
+            addTemplateKeys(keys, movedElements);
+            addTemplateKeys(keys, lostAndFoundElements);
+            for (final ImportOperation.Problem problem : importResult.getProblems()) {
+                keys.add(new StoreElementResolver.ElementKey(problem.getStoreType(), problem.getNodeId()));
+            }
+            resolver.prefetch(keys);
+        }
+        if (detail != ResultDetail.SUMMARY) {
+            logger.info("== DETAILS ==");
+        }
 
         // log details and fetch summary
-        logger.info("== DETAILS ==");
-        final String created = logElements(logger, storeAgent, createElementExportInfo(storeAgent, importResult, importResult.getCreatedElements(), ExportStatus.CREATED, null),                              "Created elements");
-        final String updated = logElements(logger, storeAgent, createElementExportInfo(storeAgent, importResult, importResult.getUpdatedElements(), ExportStatus.UPDATED, importResult.getModifiedProjectProperties()),      "Updated elements");
-        final String deleted = logElements(logger, storeAgent, createElementExportInfo(storeAgent, importResult, importResult.getDeletedElements(), ExportStatus.DELETED, null),                              "Deleted elements");
-        final String moved = logElements(logger, storeAgent, createElementExportInfo(storeAgent, importResult, importResult.getMovedElements(), ExportStatus.MOVED, null),                                    "  Moved elements");
-        final String lostAndFound = logElements(logger, storeAgent, createElementExportInfo(storeAgent, importResult, importResult.getLostAndFoundElements(), ExportStatus.MOVED, null),                      "L&Found elements");
-        final String importProblems = logImportProblems(logger, storeAgent, importResult);
+        final String created = logElements(logger, resolver, createdElements, "Created elements", detail);
+        final String updated = logElements(logger, resolver, updatedElements, "Updated elements", detail);
+        final String deleted = logElements(logger, resolver, deletedElements, "Deleted elements", detail);
+        final String moved = logElements(logger, resolver, movedElements, "  Moved elements", detail);
+        final String lostAndFound = logElements(logger, resolver, lostAndFoundElements, "L&Found elements", detail);
+        final String importProblems;
+        if (detail.includes(ResultDetail.ELEMENT)) {
+            importProblems = logImportProblems(logger, resolver, importResult);
+        } else {
+            if (detail == ResultDetail.STORE) {
+                logger.info("Problems: " + importResult.getProblems().size());
+            }
+            importProblems = getSpacedString(8) + "Problems: " + importResult.getProblems().size();
+        }
 
         // log summary
         logger.info("== SUMMARY ==");
@@ -98,10 +182,36 @@ public enum AdvancedLogger {
         logger.info(importProblems);
     }
 
+    /**
+     * Logs the {@value SubtreeTimings#DEFAULT_LIMIT} subtrees with the most time of an export.
+     */
+    static void logSlowestSubtrees(final Logger logger, final SubtreeTimings subtreeTimings) {
+        if (subtreeTimings == null || subtreeTimings.isEmpty()) {
+            return;
+        }
+        final List<SubtreeTimings.Subtree> subtrees = subtreeTimings.getSlowest(SubtreeTimings.DEFAULT_LIMIT);
+        logger.info("Slowest subtrees: " + subtrees.size());
+        for (final SubtreeTimings.Subtree subtree : subtrees) {
+            logger.info(getSpacedString(2) + "- " + subtree.getMillis() + " ms: " + subtree.getPath() + " (" + subtree.getFiles() + " files)");
+        }
+    }
+
     static String logElements(final Logger logger, final StoreAgent storeAgent, final Collection<ExportInfo> elements, final String description) {
+        return logElements(logger, new StoreElementResolver(storeAgent), elements, description, ResultDetail.orDefault(null, logger));
+    }
+
+    /**
+     * Logs the given elements with the given detail and returns their summary. Below {@link ResultDetail#ELEMENT} the
+     * elements are only counted.
+     */
+    static String logElements(final Logger logger, final StoreElementResolver resolver, final Collection<ExportInfo> elements, final String description, final ResultDetail detail) {
         if (logger.isInfoEnabled()) {
             // re-organize result
-            final ReorganizedResult reorganizedResult = new ReorganizedResult(elements);
+            final boolean logElements = detail.includes(ResultDetail.ELEMENT);
+            final ReorganizedResult reorganizedResult = new ReorganizedResult(elements, logElements);
+            if (detail == ResultDetail.SUMMARY) {
+                return buildSummary(elements, description, reorganizedResult);
+            }
 
             // log short description
             final StringBuilder headline = new StringBuilder(description).append(": ");
@@ -114,16 +224,47 @@ public enum AdvancedLogger {
 
             logger.info(headline.toString().trim());
 
-            // log elements
-            logProjectProperties(logger, reorganizedResult.getProjectProperties());
-            logStoreElements(logger, storeAgent, reorganizedResult.getStoreElements());
-            logEntityTypes(logger, reorganizedResult.getEntityTypes());
+            // log elements or their counts
+            if (logElements) {
+                final boolean logFiles = detail.includes(ResultDetail.FILE);
+                logProjectProperties(logger, reorganizedResult.getProjectProperties(), logFiles);
+                logSortedStoreElements(logger, resolver, reorganizedResult.getSortedStoreElements(), reorganizedResult.getStoreElementCount(), logFiles);
+                logEntityTypes(logger, reorganizedResult, logFiles);
+            } else {
+                logCounts(logger, reorganizedResult);
+            }
             return buildSummary(elements, description, reorganizedResult);
         }
         return "";
     }
 
-    static String logImportProblems(final Logger logger, final StoreAgent storeAgent, final ImportOperation.Result importResult) {
+    /**
+     * Logs the number of project properties, the number of elements per store and the number of entity types and
+     * entities per schema, see {@link ResultDetail#STORE}.
+     */
+    static void logCounts(final Logger logger, final ReorganizedResult reorganizedResult) {
+        final int projectPropertyCount = reorganizedResult.getProjectProperties().size();
+        if (projectPropertyCount > 0) {
+            logger.info("- project properties: " + projectPropertyCount);
+        }
+        if (reorganizedResult.getStoreElementCount() > 0) {
+            logger.info("- store elements: " + reorganizedResult.getStoreElementCount());
+            for (final Store.Type storeType : Store.Type.values()) {
+                final int count = reorganizedResult.getStoreElementCount(storeType);
+                if (count > 0) {
+                    logger.info(" - " + storeType.getName() + ": " + count);
+                }
+            }
+        }
+        if (reorganizedResult.getEntityTypeCount() > 0) {
+            logEntityTypesHeadline(logger, reorganizedResult.getEntityTypeCount(), reorganizedResult.getSchemas().size(), reorganizedResult.getEntityCount());
+            for (final ReorganizedResult.SchemaGroup schema : reorganizedResult.getSchemas()) {
+                logSchema(logger, schema.getUid(), schema.getEntityTypeCount(), schema.getEntityCount());
+            }
+        }
+    }
+
+    static String logImportProblems(final Logger logger, final StoreElementResolver resolver, final ImportOperation.Result importResult) {
         // sort problems and create text
         final List<ImportOperation.Problem> problems = getSortedProblems(importResult);
         final StringBuilder builder = new StringBuilder();
@@ -132,7 +273,7 @@ public enum AdvancedLogger {
         for (final ImportOperation.Problem problem : problems) {
             builder.setLength(0);
             builder.append(" - store: ").append(problem.getStoreType());
-            problemAppendUidOrName(builder, storeAgent, problem);
+            problemAppendUidOrName(builder, resolver, problem);
             builder.append(" | reason: ").append(problem.getMessage());
             final String text = builder.toString();
             logger.info(text);
@@ -140,18 +281,14 @@ public enum AdvancedLogger {
         return getSpacedString(8) + "Problems: " + importResult.getProblems().size();
     }
 
-    private static void problemAppendUidOrName(final StringBuilder builder, final StoreAgent storeAgent, final ImportOperation.Problem problem) {
-        // we need a store agent
-        if (storeAgent != null) {
-            final Store store = storeAgent.getStore(problem.getStoreType());
-            final IDProvider storeElement = store.getStoreElement(problem.getNodeId());
-            // we need a store element
-            if (storeElement != null) {
-                if (storeElement.hasUid()) {
-                    builder.append(" | uid: ").append(storeElement.getUid());
-                } else {
-                    builder.append(" | name: ").append(storeElement.getName());
-                }
+    private static void problemAppendUidOrName(final StringBuilder builder, final StoreElementResolver resolver, final ImportOperation.Problem problem) {
+        final IDProvider storeElement = resolver.getStoreElement(problem.getStoreType(), problem.getNodeId());
+        // we need a store element
+        if (storeElement != null) {
+            if (storeElement.hasUid()) {
+                builder.append(" | uid: ").append(storeElement.getUid());
+            } else {
+                builder.append(" | name: ").append(storeElement.getName());
             }
         }
     }
@@ -168,20 +305,24 @@ public enum AdvancedLogger {
         summaryOutput.append(summaryCount);
 
         // append project properties
-        appendProjectPropertySummary(summaryOutput, reorganizedResult.getProjectProperties());
+        appendProjectPropertySummary(summaryOutput, reorganizedResult.getProjectProperties().size());
         // append store elements
-        appendStoreElementSummary(summaryOutput, reorganizedResult.getStoreElements());
+        appendStoreElementSummary(summaryOutput, reorganizedResult);
         // append entity types
-        appendEntityTypeSummary(summaryOutput, reorganizedResult.getEntityTypes());
+        appendEntityTypeSummary(summaryOutput, reorganizedResult.getEntityTypeCount(), reorganizedResult.getSchemas().size(), reorganizedResult.getEntityCount());
 
         // return result
         return summaryOutput.toString();
     }
 
     static void appendProjectPropertySummary(final StringBuilder stringBuilder, final Collection<PropertyTypeExportInfo> projectProperties) {
-        if (!projectProperties.isEmpty()) {
+        appendProjectPropertySummary(stringBuilder, projectProperties.size());
+    }
+
+    private static void appendProjectPropertySummary(final StringBuilder stringBuilder, final int projectPropertyCount) {
+        if (projectPropertyCount > 0) {
             stringBuilder.append(" | project properties: ");
-            stringBuilder.append(projectProperties.size());
+            stringBuilder.append(projectPropertyCount);
         }
     }
 
@@ -211,28 +352,59 @@ public enum AdvancedLogger {
         }
     }
 
-    static void appendEntityTypeSummary(final StringBuilder stringBuilder, final Collection<EntityTypeExportInfo> entityTypes) {
-        if (!entityTypes.isEmpty()) {
-            // count total entities
-            int totalEntityCount = 0;
-            final Set<String> usedSchemas = new HashSet<>();
-            for (final EntityTypeExportInfo exportInfo : entityTypes) {
-                totalEntityCount += exportInfo.getEntities().size();
-                usedSchemas.add(exportInfo.getSchema().getUid());
+    private static void appendStoreElementSummary(final StringBuilder stringBuilder, final ReorganizedResult reorganizedResult) {
+        if (reorganizedResult.getStoreElementCount() > 0) {
+            stringBuilder.append(" | store elements: ");
+            stringBuilder.append(reorganizedResult.getStoreElementCount());
+            stringBuilder.append(" ( ");
+
+            // append single store types
+            boolean first = true;
+            for (final Store.Type storeType : Store.Type.values()) {
+                final int count = reorganizedResult.getStoreElementCount(storeType);
+                if (count > 0) {
+                    if (!first) {
+                        stringBuilder.append(", ");
+                    }
+                    first = false;
+                    stringBuilder.append(storeType.getName());
+                    stringBuilder.append(": ");
+                    stringBuilder.append(count);
+                }
             }
-            // put all schemas into a set
+            stringBuilder.append(" )");
+        }
+    }
+
+    static void appendEntityTypeSummary(final StringBuilder stringBuilder, final Collection<EntityTypeExportInfo> entityTypes) {
+        // count total entities
+        int totalEntityCount = 0;
+        final Set<String> usedSchemas = new HashSet<>();
+        for (final EntityTypeExportInfo exportInfo : entityTypes) {
+            totalEntityCount += exportInfo.getEntities().size();
+            usedSchemas.add(exportInfo.getSchema().getUid());
+        }
+        appendEntityTypeSummary(stringBuilder, entityTypes.size(), usedSchemas.size(), totalEntityCount);
+    }
+
+    private static void appendEntityTypeSummary(final StringBuilder stringBuilder, final int entityTypeCount, final int schemaCount, final int entityCount) {
+        if (entityTypeCount > 0) {
             stringBuilder.append(" | entity types: ");
-            stringBuilder.append(entityTypes.size());
+            stringBuilder.append(entityTypeCount);
             stringBuilder.append(" ( ");
             stringBuilder.append("schemas: ");
-            stringBuilder.append(usedSchemas.size());
+            stringBuilder.append(schemaCount);
             stringBuilder.append(", entities: ");
-            stringBuilder.append(totalEntityCount);
+            stringBuilder.append(entityCount);
             stringBuilder.append(" )");
         }
     }
 
     static void logProjectProperties(Logger logger, final Collection<PropertyTypeExportInfo> projectProperties) {
+        logProjectProperties(logger, projectProperties, true);
+    }
+
+    static void logProjectProperties(Logger logger, final Collection<PropertyTypeExportInfo> projectProperties, final boolean logFiles) {
         if (logger.isInfoEnabled()) {
             // ignore empty properties
             if (projectProperties.isEmpty()) {
@@ -253,94 +425,113 @@ public enum AdvancedLogger {
                 final String identifier = toCamelCase("_", exportInfo.getName());
                 final String spacedString = getSpacedString(SPACE_INDENT - identifier.length() + 1);
                 logger.info(" - " + identifier + spacedString + getFilesStringForElement(exportInfo));
-                logFileInfos(logger, exportInfo, "");
+                if (logFiles) {
+                    logFileInfos(logger, exportInfo, "");
+                }
             }
         }
     }
 
-    @SuppressWarnings("squid:S2629")
     static void logStoreElements(Logger logger, final StoreAgent storeAgent, final Map<Store.Type, List<ElementExportInfo>> storeElements) {
+        logStoreElements(logger, new StoreElementResolver(storeAgent), storeElements, true);
+    }
+
+    static void logStoreElements(Logger logger, final StoreElementResolver resolver, final Map<Store.Type, List<ElementExportInfo>> storeElements, final boolean logFiles) {
         if (! logger.isInfoEnabled()) {
             // nothing to do if loglevel is not at least info
             return;
         }
+        // sort copies of the given lists
+        final Map<Store.Type, List<ElementExportInfo>> sortedStoreElements = new LinkedHashMap<>();
+        int totalElements = 0;
+        for (final Map.Entry<Store.Type, List<ElementExportInfo>> entry : storeElements.entrySet()) {
+            final List<ElementExportInfo> sortedElements = new ArrayList<>(entry.getValue());
+            ReorganizedResult.sortByPath(sortedElements);
+            sortedStoreElements.put(entry.getKey(), sortedElements);
+            totalElements += sortedElements.size();
+        }
+        logSortedStoreElements(logger, resolver, sortedStoreElements, totalElements, logFiles);
+    }
+
+    /**
+     * Logs the given store elements, which are already sorted, in the order of the given map.
+     */
+    @SuppressWarnings("squid:S2629")
+    private static void logSortedStoreElements(Logger logger, final StoreElementResolver resolver, final Map<Store.Type, List<ElementExportInfo>> storeElements, final int totalElements, final boolean logFiles) {
         // ignore empty store elements
         if (storeElements.isEmpty()) {
             return;
         }
 
-        // count total elements
-        int totalElements = 0;
-        for (final Map.Entry<Store.Type, List<ElementExportInfo>> entry : storeElements.entrySet()) {
-            totalElements += entry.getValue().size();
-        }
-
         // append headline
         logger.info("- store elements: " + totalElements);
 
         // append single elements
-        final List<ElementExportInfo> sortedElements = new ArrayList<>();
         for (final Map.Entry<Store.Type, List<ElementExportInfo>> entry : storeElements.entrySet()) {
-            sortedElements.addAll(entry.getValue());
-            sortedElements.sort(new ExportInfoComparator());
-            logger.info(" - " + entry.getKey().getName() + ": " + sortedElements.size());
-            for (final ElementExportInfo element : sortedElements) {
-                String identifier = getStoreElementIdentifier(storeAgent, element);
+            logger.info(" - " + entry.getKey().getName() + ": " + entry.getValue().size());
+            for (final ElementExportInfo element : entry.getValue()) {
+                String identifier = getStoreElementIdentifier(resolver, element);
                 identifier += ": '" + element.getName() + "'";
                 final String spacedString = getSpacedString(SPACE_INDENT - identifier.length());
                 final String files = getFilesStringForElement(element);
                 logger.info("  - " + identifier + spacedString + files);
-                logFileInfos(logger, element, " ");
+                if (logFiles) {
+                    logFileInfos(logger, element, " ");
+                }
             }
-            sortedElements.clear();
         }
     }
 
-    @SuppressWarnings("squid:S2629")
     static void logEntityTypes(Logger logger, final Collection<EntityTypeExportInfo> entityTypes) {
+        logEntityTypes(logger, entityTypes, true);
+    }
+
+    static void logEntityTypes(Logger logger, final Collection<EntityTypeExportInfo> entityTypes, final boolean logFiles) {
+        logEntityTypes(logger, new ReorganizedResult(entityTypes), logFiles);
+    }
+
+    /**
+     * Logs the entity types of the given result grouped by schema.
+     */
+    @SuppressWarnings("squid:S2629")
+    private static void logEntityTypes(Logger logger, final ReorganizedResult reorganizedResult, final boolean logFiles) {
         if (! logger.isInfoEnabled()) {
             return;
         }
         // ignore empty entity types
-        if (entityTypes.isEmpty()) {
+        if (reorganizedResult.getEntityTypeCount() == 0) {
             return;
         }
 
-        // sort entity types by schema
-        final Map<String, List<EntityTypeExportInfo>> schemaMap = new TreeMap<>();
-        int totalEntityCount = 0;
-        for (final EntityTypeExportInfo exportInfo : entityTypes) {
-            List<EntityTypeExportInfo> list = schemaMap.computeIfAbsent(exportInfo.getSchema().getUid(), k -> new ArrayList<>());
-            list.add(exportInfo);
-            totalEntityCount += exportInfo.getEntities().size();
-        }
-
         // append headline
-        final String entityTypesIdentifier = "entity types: " + entityTypes.size();
-        final String spacedStringEntityTypes = getSpacedString(SPACE_INDENT - entityTypesIdentifier.length() + 2);
-        final String headline = "- " + entityTypesIdentifier + spacedStringEntityTypes + " ( schemas: " + schemaMap.size() + ", entities: " + totalEntityCount + " )";
-        logger.info(headline);
+        logEntityTypesHeadline(logger, reorganizedResult.getEntityTypeCount(), reorganizedResult.getSchemas().size(), reorganizedResult.getEntityCount());
 
         // log schemas & entity types
-        for (final Map.Entry<String, List<EntityTypeExportInfo>> entry : schemaMap.entrySet()) {
-            // count entities of schema
-            int entityCount = 0;
-            for (final EntityTypeExportInfo entityType : entry.getValue()) {
-                entityCount += entityType.getEntities().size();
-            }
-
-            final String schemaIdentifier = "Schema: '" + entry.getKey() + '\'';
-            final String spacedStringSchema = getSpacedString(SPACE_INDENT - schemaIdentifier.length() + 1);
-            logger.info(" - " + schemaIdentifier + spacedStringSchema + " ( entity types: " + entry.getValue().size() + ", entities: " + entityCount + " )");
-            for (final EntityTypeExportInfo entityType : entry.getValue()) {
+        for (final ReorganizedResult.SchemaGroup schema : reorganizedResult.getSchemas()) {
+            logSchema(logger, schema.getUid(), schema.getEntityTypeCount(), schema.getEntityCount());
+            for (final EntityTypeExportInfo entityType : schema.getEntityTypes()) {
                 final String identifier = "EntityType: '" + entityType.getEntityType() + "'";
                 final String spacedString = getSpacedString(SPACE_INDENT - identifier.length());
                 logger.info("  - " + identifier + spacedString + " ( entities: " + entityType.getEntities().size() + " )");
-                logFileInfos(logger, entityType, "  ");
+                if (logFiles) {
+                    logFileInfos(logger, entityType, "  ");
+                }
             }
         }
     }
 
+    private static void logEntityTypesHeadline(final Logger logger, final int entityTypeCount, final int schemaCount, final int entityCount) {
+        final String entityTypesIdentifier = "entity types: " + entityTypeCount;
+        final String spacedStringEntityTypes = getSpacedString(SPACE_INDENT - entityTypesIdentifier.length() + 2);
+        logger.info("- " + entityTypesIdentifier + spacedStringEntityTypes + " ( schemas: " + schemaCount + ", entities: " + entityCount + " )");
+    }
+
+    private static void logSchema(final Logger logger, final String schemaUid, final int entityTypeCount, final int entityCount) {
+        final String schemaIdentifier = "Schema: '" + schemaUid + '\'';
+        final String spacedStringSchema = getSpacedString(SPACE_INDENT - schemaIdentifier.length() + 1);
+        logger.info(" - " + schemaIdentifier + spacedStringSchema + " ( entity types: " + entityTypeCount + ", entities: " + entityCount + " )");
+    }
+
     static void logFileInfos(Logger logger, final ExportInfo exportInfo, final String extraIndent) {
         if (!logger.isDebugEnabled()) {
             return;
@@ -407,13 +598,16 @@ public enum AdvancedLogger {
     }
 
     static String getStoreElementIdentifier(final StoreAgent storeAgent, final ElementExportInfo element) {
+        return getStoreElementIdentifier(new StoreElementResolver(storeAgent), element);
+    }
+
+    static String getStoreElementIdentifier(final StoreElementResolver resolver, final ElementExportInfo element) {
         String identifier = "";
         final BasicElementInfo elementInfo = element.getElementInfo();
 
         // workaround for duplicate TagNames
-        if (TagNames.TEMPLATE.getName().equals(elementInfo.getNodeTag()) && storeAgent != null) {
-            final Store store = storeAgent.getStore(elementInfo.getStoreType());
-            final IDProvider storeElement = store.getStoreElement(elementInfo.getNodeId());
+        if (isTemplate(elementInfo) && resolver.canLookUp()) {
+            final IDProvider storeElement = resolver.getStoreElement(elementInfo.getStoreType(), elementInfo.getNodeId());
             if (storeElement != null) {
                 // equal tag for PageTemplate & SectionTemplate
                 final Class<? extends IDProvider> clazz = storeElement.getClass();
@@ -497,7 +691,7 @@ public enum AdvancedLogger {
         return stringBuilder.toString();
     }
 
-    private static Collection<ExportInfo> createElementExportInfo(final StoreAgent storeAgent, final ImportOperation.Result importResult, final Collection<BasicElementInfo> elements, final ExportStatus status, final EnumSet<PropertiesTransportOptions.ProjectPropertyType> projectProperties) {
+    private static Collection<ExportInfo> createElementExportInfo(final ImportOperation.Result importResult, final Collection<BasicElementInfo> elements, final ExportStatus status, final EnumSet<PropertiesTransportOptions.ProjectPropertyType> projectProperties) {
         final Collection<ExportInfo> result = new ArrayList<>();
         // add store elements to result
         for (final BasicElementInfo element : elements) {
@@ -511,10 +705,10 @@ public enum AdvancedLogger {
         }
         // add entities to result
         if (status == ExportStatus.CREATED) {
-            addEntitiesToResult(storeAgent, ExportStatus.CREATED, result, importResult.getCreatedEntities());
+            addEntitiesToResult(ExportStatus.CREATED, result, importResult.getCreatedEntities());
         } else if (status == ExportStatus.UPDATED) {
             try {
-                addEntitiesToResult(storeAgent, ExportStatus.UPDATED, result, importResult.getUpdatedEntities());
+                addEntitiesToResult(ExportStatus.UPDATED, result, importResult.getUpdatedEntities());
             } catch (@SuppressWarnings("squid:S1166") final Exception ignore) {
                 // ignore
                 // -> we need to catch this because of 5.2.R8
@@ -524,7 +718,7 @@ public enum AdvancedLogger {
         return result;
     }
 
-    private static void addEntitiesToResult(final StoreAgent storeAgent, final ExportStatus status, final Collection<ExportInfo> result, final Set<BasicEntityInfo> entities) {
+    private static void addEntitiesToResult(final ExportStatus status, final Collection<ExportInfo> result, final Set<BasicEntityInfo> entities) {
         final Map<String, Collection<BasicEntityInfo>> schema2EntityMap = new HashMap<>();
         // add all entities to a map with key: SchemaUid#EntityType
         for (final BasicEntityInfo entity : entities) {
@@ -540,32 +734,31 @@ public enum AdvancedLogger {
             }
             // get the first entity
             final BasicEntityInfo firstEntity = collection.iterator().next();
+            // only the uid of the schema is logged, which the entities carry already --> the schema is not looked up
+            final BasicElementInfoImpl schemaInfo = new BasicElementInfoImpl(Store.Type.TEMPLATESTORE, TagNames.SCHEMA.getName(), -1, firstEntity.getSchemaUid(), -1);
+            result.add(new EntityTypeImportInfoImpl(status, schemaInfo, firstEntity.getEntityType(), collection));
+        }
+    }
 
-            final String schemaNodeTag = TagNames.SCHEMA.getName();
-            if (storeAgent != null) {
-                // get the schema ... (if the store is a templateStore --> may not be the case in tests)
-                final Store store = storeAgent.getStore(Store.Type.TEMPLATESTORE);
-                Schema schema = null;
-                if (store instanceof TemplateStoreRoot) {
-                    final TemplateStoreRoot templateStore = (TemplateStoreRoot) store;
-                    schema = templateStore.getSchemes().getSchemaByName(firstEntity.getSchemaUid());
-                }
-                final EntityTypeImportInfoImpl entityTypeImportInfo;
-                // ... and create a new EntityTypeImportInfo
-                if (schema != null) {
-                    entityTypeImportInfo = new EntityTypeImportInfoImpl(status, new BasicElementInfoImpl(Store.Type.TEMPLATESTORE, schemaNodeTag, schema.getId(), schema.getUid(), schema.getRevision().getId()), firstEntity.getEntityType(), collection);
-                } else {
-                    entityTypeImportInfo = new EntityTypeImportInfoImpl(status, new BasicElementInfoImpl(Store.Type.TEMPLATESTORE, schemaNodeTag, -1, firstEntity.getSchemaUid(), -1), firstEntity.getEntityType(), collection);
+    /**
+     * Adds the keys of the templates of the given infos to the given keys. Page and section templates share the
+     * {@link TagNames#TEMPLATE tag}, so only these have to be looked up to be identified.
+     */
+    private static void addTemplateKeys(final Collection<StoreElementResolver.ElementKey> keys, final Collection<ExportInfo> exportInfos) {
+        for (final ExportInfo exportInfo : exportInfos) {
+            if (exportInfo.getType() == ExportInfo.Type.ELEMENT) {
+                final BasicElementInfo elementInfo = ((ElementExportInfo) exportInfo).getElementInfo();
+                if (isTemplate(elementInfo)) {
+                    keys.add(new StoreElementResolver.ElementKey(elementInfo.getStoreType(), elementInfo.getNodeId()));
                 }
-                result.add(entityTypeImportInfo);
-            } else {
-                // fallback --> used for tests only
-                final EntityTypeImportInfoImpl entityTypeImportInfo = new EntityTypeImportInfoImpl(status, new BasicElementInfoImpl(Store.Type.TEMPLATESTORE, schemaNodeTag, -1, firstEntity.getSchemaUid(), -1), firstEntity.getEntityType(), collection);
-                result.add(entityTypeImportInfo);
             }
         }
     }
 
+    private static boolean isTemplate(final BasicElementInfo elementInfo) {
+        return TagNames.TEMPLATE.getName().equals(elementInfo.getNodeTag());
+    }
+
     private static List<ImportOperation.Problem> getSortedProblems(final ImportOperation.Result importResult) {
         final List<ImportOperation.Problem> problems = new ArrayList<>(importResult.getProblems());
         problems.sort((problem1, problem2) -> {
@@ -577,29 +770,4 @@ public enum AdvancedLogger {
         });
         return problems;
     }
-
-    private static class ExportInfoComparator implements Comparator<ElementExportInfo>, Serializable {
-
-        private static final long serialVersionUID = -2121789213L;
-
-        @Override
-        public int compare(final ElementExportInfo first, final ElementExportInfo second) {
-            return getPath(first).compareTo(getPath(second));
-        }
-
-        private static String getPath(final ElementExportInfo exportInfo) {
-            String path = null;
-            if (!exportInfo.getCreatedFileHandles().isEmpty()) {
-                path = exportInfo.getCreatedFileHandles().iterator().next().getPath();
-            } else if (!exportInfo.getUpdatedFileHandles().isEmpty()) {
-                path = exportInfo.getUpdatedFileHandles().iterator().next().getPath();
-            } else if (!exportInfo.getDeletedFileHandles().isEmpty()) {
-                path = exportInfo.getDeletedFileHandles().iterator().next().getPath();
-            } else if (!exportInfo.getMovedFileHandles().isEmpty()) {
-                path = exportInfo.getMovedFileHandles().iterator().next().getValue().getPath();
-            }
-            return path != null ? path : exportInfo.getName();
-        }
-
-    }
 }
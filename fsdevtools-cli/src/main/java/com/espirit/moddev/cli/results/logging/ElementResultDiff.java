@@ -0,0 +1,181 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.store.access.nexport.ExportStatus;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Compares two {@link ElementResultFile element results}. A result only contains the elements its export has written,
+ * so the comparison is one of change sets: elements that are only part of the newer result have only been written by
+ * the newer export, elements that are only part of the older result have only been written by the older export - they
+ * have not necessarily been removed from the project - and elements of both results whose files, paths or deletion
+ * differ have been written differently by both exports.
+ * <p>
+ * Both files are sorted by store and node id, so they are merge-joined while they are read: the comparison takes time
+ * linear in the size of the results and holds a single entry of each result in memory. The differences are reported
+ * to a {@link Listener} in the order of the stores and node ids.
+ *
+ * @author e-Spirit AG
+ */
+public final class ElementResultDiff {
+
+    /**
+     * Receives the differences of two results.
+     */
+    public interface Listener {
+
+        /**
+         * Called for an element that is only part of the newer result, i.e. only written by the newer export.
+         *
+         * @param newer the element of the newer result
+         */
+        void added(@NotNull ElementResultFile.Entry newer);
+
+        /**
+         * Called for an element that is only part of the older result, i.e. only written by the older export.
+         *
+         * @param older the element of the older result
+         */
+        void removed(@NotNull ElementResultFile.Entry older);
+
+        /**
+         * Called for an element of both results that has been changed.
+         *
+         * @param older the element of the older result
+         * @param newer the element of the newer result
+         */
+        void changed(@NotNull ElementResultFile.Entry older, @NotNull ElementResultFile.Entry newer);
+    }
+
+    private final int[] _added = new int[Store.Type.values().length];
+    private final int[] _removed = new int[Store.Type.values().length];
+    private final int[] _changed = new int[Store.Type.values().length];
+    private int _unchanged;
+
+    private ElementResultDiff() {
+    }
+
+    /**
+     * Compares the given result files.
+     *
+     * @param olderFile the file of the older result
+     * @param newerFile the file of the newer result
+     * @param listener  the listener for the differences
+     * @return the counts of the differences
+     * @throws IOException if a file can not be read or is corrupt
+     */
+    @NotNull
+    public static ElementResultDiff compare(@NotNull final Path olderFile, @NotNull final Path newerFile, @NotNull final Listener listener) throws IOException {
+        try (ElementResultFile.Reader older = ElementResultFile.open(olderFile);
+             ElementResultFile.Reader newer = ElementResultFile.open(newerFile)) {
+            return compare(older, newer, listener);
+        }
+    }
+
+    @NotNull
+    static ElementResultDiff compare(@NotNull final ElementResultFile.Reader older, @NotNull final ElementResultFile.Reader newer, @NotNull final Listener listener)
+            throws IOException {
+        final ElementResultDiff diff = new ElementResultDiff();
+        ElementResultFile.Entry olderEntry = older.next();
+        ElementResultFile.Entry newerEntry = newer.next();
+        while (olderEntry != null || newerEntry != null) {
+            final int comparison = olderEntry == null ? 1 : newerEntry == null ? -1 : olderEntry.compareTo(newerEntry);
+            if (comparison < 0) {
+                diff._removed[olderEntry.getStoreType().ordinal()]++;
+                listener.removed(olderEntry);
+                olderEntry = older.next();
+            } else if (comparison > 0) {
+                diff._added[newerEntry.getStoreType().ordinal()]++;
+                listener.added(newerEntry);
+                newerEntry = newer.next();
+            } else {
+                if (isChanged(olderEntry, newerEntry)) {
+                    diff._changed[newerEntry.getStoreType().ordinal()]++;
+                    listener.changed(olderEntry, newerEntry);
+                } else {
+                    diff._unchanged++;
+                }
+                olderEntry = older.next();
+                newerEntry = newer.next();
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Returns whether the element has been changed between the results. Fingerprints are only compared if both are
+     * known, e.g. an element of a result written by an older version of the cli is only compared by its path and
+     * deletion.
+     */
+    static boolean isChanged(@NotNull final ElementResultFile.Entry older, @NotNull final ElementResultFile.Entry newer) {
+        if ((older.getStatus() == ExportStatus.DELETED) != (newer.getStatus() == ExportStatus.DELETED)) {
+            return true;
+        }
+        if (!older.getPath().equals(newer.getPath())) {
+            return true;
+        }
+        return older.getFingerprint() != ElementResultFile.UNKNOWN_FINGERPRINT && newer.getFingerprint() != ElementResultFile.UNKNOWN_FINGERPRINT
+                && older.getFingerprint() != newer.getFingerprint();
+    }
+
+    public int getAdded(@NotNull final Store.Type storeType) {
+        return _added[storeType.ordinal()];
+    }
+
+    public int getRemoved(@NotNull final Store.Type storeType) {
+        return _removed[storeType.ordinal()];
+    }
+
+    public int getChanged(@NotNull final Store.Type storeType) {
+        return _changed[storeType.ordinal()];
+    }
+
+    /**
+     * Returns the number of elements of both results that have not been changed.
+     *
+     * @return the number of unchanged elements
+     */
+    public int getUnchanged() {
+        return _unchanged;
+    }
+
+    /**
+     * Returns whether the results differ.
+     *
+     * @return {@code true} if any element has been added, removed or changed
+     */
+    public boolean hasDifferences() {
+        for (final Store.Type storeType : Store.Type.values()) {
+            if (getAdded(storeType) + getRemoved(storeType) + getChanged(storeType) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,556 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import com.espirit.moddev.cli.syncdir.SyncDirectoryLayout;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryManifest;
+import com.espirit.moddev.util.FileUtil;
+
+import de.espirit.common.util.Pair;
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.store.access.nexport.ElementExportInfo;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.ExportStatus;
+import de.espirit.firstspirit.store.access.nexport.io.ExportInfoFileHandle;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The element-level result of an export, persisted in the sync dir, so two exports can be compared later without
+ * comparing their files (see {@link ElementResultDiff}). Every export writes a new file to the
+ * {@link #getResultDirectory(Path) result directory} of its sync dir; the latest {@link #MAX_FILES} files are kept.
+ * <p>
+ * Every store element of the result is an {@link Entry} with its store, node id, export status, path and a fingerprint
+ * of the content of its files. Only the elements written by the export are part of its result: the elements it has
+ * created, updated, deleted or moved, not the elements that were already up to date. The entries are sorted by store and node id, so two files can be merge-joined while
+ * they are streamed.
+ * <p>
+ * File format (big endian): {@code magic, version, timestamp, entryCount}, followed by the entries. Every entry
+ * consists of the store type ordinal, the node id as variable-length delta to the previous node id of the same store,
+ * the status, the fingerprint and the uid and path as modified UTF-8.
+ *
+ * @author e-Spirit AG
+ */
+public final class ElementResultFile {
+
+    /**
+     * Number of result files that are kept per sync dir.
+     */
+    public static final int MAX_FILES = 10;
+
+    /**
+     * Suffix of the result files.
+     */
+    public static final String FILE_SUFFIX = ".fsr";
+
+    /**
+     * Fingerprint of entries whose content is unknown, e.g. deleted elements.
+     */
+    public static final long UNKNOWN_FINGERPRINT = 0;
+
+    private static final int MAGIC = 0x46534552; // "FSER"
+    private static final int VERSION = 1;
+    private static final String RESULT_DIRECTORY = "results";
+    private static final String FILE_PREFIX = "export-";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // the statuses in the order of their codes in the file
+    private static final ExportStatus[] STATUSES = {ExportStatus.CREATED, ExportStatus.UPDATED, ExportStatus.DELETED, ExportStatus.MOVED};
+    private static final Store.Type[] STORE_TYPES = Store.Type.values();
+
+    private ElementResultFile() {
+        // utility class
+    }
+
+    /**
+     * Returns the directory of the result files of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the result directory
+     */
+    @NotNull
+    public static Path getResultDirectory(@NotNull final Path syncDirectory) {
+        return syncDirectory.resolve(SyncDirectoryLayout.CLI_DIRECTORY).resolve(RESULT_DIRECTORY);
+    }
+
+    /**
+     * Writes the store elements of the given export result to a new result file in the given sync dir and deletes
+     * the oldest result files beyond {@link #MAX_FILES}.
+     *
+     * @param syncDirectory the sync dir the export was performed into
+     * @param exportResult  the result of the export
+     * @param manifest      the manifest of the sync dir after the export, which provides the hashes of the files, or
+     *                      {@code null} if the sync dir has no manifest - the written files are hashed then
+     * @return the written file
+     * @throws IOException if the file can not be written
+     */
+    @NotNull
+    public static Path write(@NotNull final Path syncDirectory, @NotNull final ExportOperation.Result exportResult, @Nullable final SyncDirectoryManifest manifest)
+            throws IOException {
+        final Path directory = getResultDirectory(syncDirectory);
+        Files.createDirectories(directory);
+        final long timestamp = System.currentTimeMillis();
+        final Path file = directory.resolve(FILE_PREFIX + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS", Locale.UK).format(new Date(timestamp)) + FILE_SUFFIX);
+        write(file, collect(exportResult, syncDirectory, manifest), timestamp);
+        deleteOldFiles(directory, MAX_FILES);
+        return file;
+    }
+
+    /**
+     * Collects the store elements of the given export result, sorted by store and node id. An element that is part
+     * of several lists of the result (e.g. moved and updated) is collected once with the status of the first list in
+     * the order created, updated, deleted and moved.
+     */
+    @NotNull
+    static List<Entry> collect(@NotNull final ExportOperation.Result exportResult, @NotNull final Path syncDirectory, @Nullable final SyncDirectoryManifest manifest) {
+        final List<Entry> entries = new ArrayList<>();
+        final List<Collection<ExportInfo>> lists = new ArrayList<>();
+        lists.add(exportResult.getCreatedElements());
+        lists.add(exportResult.getUpdatedElements());
+        lists.add(exportResult.getDeletedElements());
+        lists.add(exportResult.getMovedElements());
+        final MessageDigest digest = createDigest();
+        for (int statusCode = 0; statusCode < STATUSES.length; statusCode++) {
+            final ExportStatus status = STATUSES[statusCode];
+            final ReorganizedResult reorganizedResult = new ReorganizedResult(lists.get(statusCode));
+            for (final Map.Entry<Store.Type, List<ElementExportInfo>> store : reorganizedResult.getStoreElements().entrySet()) {
+                for (final ElementExportInfo exportInfo : store.getValue()) {
+                    entries.add(toEntry(exportInfo, status, syncDirectory, manifest, digest));
+                }
+            }
+        }
+        // stable, so the first status of an element is kept by the removal of the duplicates
+        Collections.sort(entries);
+        final List<Entry> distinctEntries = new ArrayList<>(entries.size());
+        for (final Entry entry : entries) {
+            if (distinctEntries.isEmpty() || distinctEntries.get(distinctEntries.size() - 1).compareTo(entry) != 0) {
+                distinctEntries.add(entry);
+            }
+        }
+        return distinctEntries;
+    }
+
+    @NotNull
+    private static Entry toEntry(@NotNull final ElementExportInfo exportInfo, @NotNull final ExportStatus status, @NotNull final Path syncDirectory,
+                                 @Nullable final SyncDirectoryManifest manifest, @NotNull final MessageDigest digest) {
+        final BasicElementInfo elementInfo = exportInfo.getElementInfo();
+        // the current files of the element, sorted
+        final TreeSet<String> paths = new TreeSet<>();
+        for (final ExportInfoFileHandle fileHandle : exportInfo.getCreatedFileHandles()) {
+            paths.add(SyncDirectoryLayout.normalizePath(fileHandle.getPath()));
+        }
+        for (final ExportInfoFileHandle fileHandle : exportInfo.getUpdatedFileHandles()) {
+            paths.add(SyncDirectoryLayout.normalizePath(fileHandle.getPath()));
+        }
+        for (final Pair<ExportInfoFileHandle, ExportInfoFileHandle> movedFileHandles : exportInfo.getMovedFileHandles()) {
+            paths.add(SyncDirectoryLayout.normalizePath(movedFileHandles.getValue().getPath()));
+        }
+        long fingerprint = UNKNOWN_FINGERPRINT;
+        if (status != ExportStatus.DELETED && !paths.isEmpty()) {
+            fingerprint = fingerprint(paths, syncDirectory, manifest, digest);
+        }
+        if (paths.isEmpty()) {
+            for (final ExportInfoFileHandle fileHandle : exportInfo.getDeletedFileHandles()) {
+                paths.add(SyncDirectoryLayout.normalizePath(fileHandle.getPath()));
+            }
+        }
+        final String path = paths.isEmpty() ? "" : paths.first();
+        final String uid = elementInfo.getUid();
+        return new Entry(elementInfo.getStoreType(), elementInfo.getNodeId(), status, fingerprint, uid == null ? exportInfo.getName() : uid, path);
+    }
+
+    /**
+     * Returns the first 8 bytes of a hash of the paths and hashes of the given files. The hashes are taken from the
+     * manifest, if the sync dir has one, otherwise the files are read, which are only the files written by the export.
+     */
+    private static long fingerprint(@NotNull final Collection<String> paths, @NotNull final Path syncDirectory, @Nullable final SyncDirectoryManifest manifest,
+                                    @NotNull final MessageDigest digest) {
+        digest.reset();
+        for (final String path : paths) {
+            final String hash = manifest != null ? manifest.getHash(path) : hash(syncDirectory.resolve(path));
+            digest.update((path + '\t' + (hash == null ? "" : hash) + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        final byte[] bytes = digest.digest();
+        long fingerprint = 0;
+        for (int index = 0; index < Long.BYTES; index++) {
+            fingerprint = (fingerprint << Byte.SIZE) | (bytes[index] & 0xFF);
+        }
+        // the unknown fingerprint is reserved
+        return fingerprint == UNKNOWN_FINGERPRINT ? 1 : fingerprint;
+    }
+
+    @Nullable
+    private static String hash(@NotNull final Path file) {
+        try {
+            return SyncDirectoryManifest.hash(file);
+        } catch (final IOException e) {
+            // e.g. deleted by a later export, the fingerprint covers the path only then
+            return null;
+        }
+    }
+
+    @NotNull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            // every java platform supports SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the given entries to the given file. The file is replaced atomically.
+     *
+     * @param file      the result file
+     * @param entries   the entries, sorted by store and node id without duplicates
+     * @param timestamp the time of the export
+     * @throws IOException              if the file can not be written
+     * @throws IllegalArgumentException if the entries are not sorted
+     */
+    static void write(@NotNull final Path file, @NotNull final List<Entry> entries, final long timestamp) throws IOException {
+        FileUtil.writeBytesAtomically(file, outputStream -> {
+            final DataOutputStream output = new DataOutputStream(outputStream);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(timestamp);
+            output.writeInt(entries.size());
+            Entry previous = null;
+            for (final Entry entry : entries) {
+                if (previous != null && previous.compareTo(entry) >= 0) {
+                    throw new IllegalArgumentException("The entries are not sorted: " + previous + " before " + entry);
+                }
+                output.writeByte(entry._storeType.ordinal());
+                writeVarLong(output, previous != null && previous._storeType == entry._storeType ? entry._nodeId - previous._nodeId : entry._nodeId);
+                output.writeByte(getStatusCode(entry._status));
+                output.writeLong(entry._fingerprint);
+                output.writeUTF(entry._uid);
+                output.writeUTF(entry._path);
+                previous = entry;
+            }
+            output.flush();
+        });
+    }
+
+    private static int getStatusCode(@NotNull final ExportStatus status) {
+        for (int code = 0; code < STATUSES.length; code++) {
+            if (STATUSES[code] == status) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported status " + status);
+    }
+
+    /**
+     * Deletes the oldest result files of the given directory, so at most the given number of files is kept.
+     */
+    static void deleteOldFiles(@NotNull final Path directory, final int maxFiles) throws IOException {
+        final List<Path> files = listFiles(directory);
+        for (int index = 0; index < files.size() - maxFiles; index++) {
+            Files.deleteIfExists(files.get(index));
+        }
+    }
+
+    /**
+     * Returns the result files of the given directory, oldest first.
+     */
+    @NotNull
+    private static List<Path> listFiles(@NotNull final Path directory) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + '*' + FILE_SUFFIX)) {
+            for (final Path file : stream) {
+                files.add(file);
+            }
+        }
+        // the names start with the time of the export
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Resolves a result file given on the command line: either the file itself or a sync dir, which stands for its
+     * latest result file.
+     *
+     * @param fileOrSyncDirectory a result file or a sync dir
+     * @return the result file
+     * @throws IOException if the sync dir has no result files
+     */
+    @NotNull
+    public static Path resolve(@NotNull final Path fileOrSyncDirectory) throws IOException {
+        if (!Files.isDirectory(fileOrSyncDirectory)) {
+            return fileOrSyncDirectory;
+        }
+        final List<Path> files = listFiles(getResultDirectory(fileOrSyncDirectory));
+        if (files.isEmpty()) {
+            throw new IOException("The sync dir '" + fileOrSyncDirectory + "' has no export results.");
+        }
+        return files.get(files.size() - 1);
+    }
+
+    /**
+     * Opens the given result file for reading its entries one by one.
+     *
+     * @param file the result file
+     * @return the reader, which must be closed
+     * @throws IOException if the file can not be read or is no result file
+     */
+    @NotNull
+    public static Reader open(@NotNull final Path file) throws IOException {
+        return new Reader(file);
+    }
+
+    private static void writeVarLong(@NotNull final DataOutputStream output, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            output.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        output.writeByte((int) remaining);
+    }
+
+    private static long readVarLong(@NotNull final DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            final int read = input.readUnsignedByte();
+            value |= (long) (read & 0x7F) << shift;
+            if ((read & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt export result: invalid node id.");
+    }
+
+    /**
+     * A store element of an export result.
+     */
+    public static final class Entry implements Comparable<Entry> {
+
+        private final Store.Type _storeType;
+        private final long _nodeId;
+        private final ExportStatus _status;
+        private final long _fingerprint;
+        private final String _uid;
+        private final String _path;
+
+        Entry(@NotNull final Store.Type storeType, final long nodeId, @NotNull final ExportStatus status, final long fingerprint, @NotNull final String uid,
+              @NotNull final String path) {
+            _storeType = storeType;
+            _nodeId = nodeId;
+            _status = status;
+            _fingerprint = fingerprint;
+            _uid = uid;
+            _path = path;
+        }
+
+        @NotNull
+        public Store.Type getStoreType() {
+            return _storeType;
+        }
+
+        public long getNodeId() {
+            return _nodeId;
+        }
+
+        @NotNull
+        public ExportStatus getStatus() {
+            return _status;
+        }
+
+        /**
+         * Returns a fingerprint of the paths and contents of the files of the element.
+         *
+         * @return the fingerprint or {@link #UNKNOWN_FINGERPRINT}, e.g. if the element has been deleted
+         */
+        public long getFingerprint() {
+            return _fingerprint;
+        }
+
+        /**
+         * Returns the uid of the element or its name, if it has no uid.
+         *
+         * @return the uid or name
+         */
+        @NotNull
+        public String getUid() {
+            return _uid;
+        }
+
+        /**
+         * Returns the sync dir relative path of the first file of the element.
+         *
+         * @return the path or an empty string, if the element has no files
+         */
+        @NotNull
+        public String getPath() {
+            return _path;
+        }
+
+        /**
+         * Compares the store and node id of the entries.
+         */
+        @Override
+        public int compareTo(@NotNull final Entry other) {
+            final int storeComparison = Integer.compare(_storeType.ordinal(), other._storeType.ordinal());
+            return storeComparison != 0 ? storeComparison : Long.compare(_nodeId, other._nodeId);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Entry entry = (Entry) o;
+            return _storeType == entry._storeType && _nodeId == entry._nodeId && _status == entry._status && _fingerprint == entry._fingerprint
+                    && _uid.equals(entry._uid) && _path.equals(entry._path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * _storeType.hashCode() + Long.hashCode(_nodeId);
+        }
+
+        @Override
+        public String toString() {
+            return _storeType.getName() + ':' + _nodeId + " '" + _uid + "' (" + _status.name().toLowerCase(Locale.UK) + ", " + _path + ')';
+        }
+    }
+
+    /**
+     * Reads the entries of a result file one by one, so only the current entry is held in memory.
+     */
+    public static final class Reader implements Closeable {
+
+        private final Path _file;
+        private final DataInputStream _input;
+        private final long _timestamp;
+        private final int _size;
+        private int _read;
+        private Entry _previous;
+
+        private Reader(@NotNull final Path file) throws IOException {
+            _file = file;
+            _input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+            try {
+                if (_input.readInt() != MAGIC) {
+                    throw new IOException("'" + file + "' is no export result.");
+                }
+                final int version = _input.readInt();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported export result version " + version + " of '" + file + "'.");
+                }
+                _timestamp = _input.readLong();
+                _size = _input.readInt();
+            } catch (final IOException e) {
+                _input.close();
+                throw e instanceof EOFException ? new IOException("'" + file + "' is no export result.", e) : e;
+            }
+        }
+
+        /**
+         * Returns the time of the export.
+         *
+         * @return the time in milliseconds since the epoch
+         */
+        public long getTimestamp() {
+            return _timestamp;
+        }
+
+        /**
+         * Returns the number of entries of the file.
+         *
+         * @return the number of entries
+         */
+        public int size() {
+            return _size;
+        }
+
+        /**
+         * Reads the next entry.
+         *
+         * @return the entry or {@code null}, if all entries have been read
+         * @throws IOException if the file can not be read or is corrupt
+         */
+        @Nullable
+        public Entry next() throws IOException {
+            if (_read == _size) {
+                return null;
+            }
+            try {
+                final int storeTypeOrdinal = _input.readUnsignedByte();
+                if (storeTypeOrdinal >= STORE_TYPES.length) {
+                    throw new IOException("Corrupt export result '" + _file + "': invalid store " + storeTypeOrdinal + '.');
+                }
+                final Store.Type storeType = STORE_TYPES[storeTypeOrdinal];
+                final long nodeId = readVarLong(_input) + (_previous != null && _previous._storeType == storeType ? _previous._nodeId : 0);
+                final int statusCode = _input.readUnsignedByte();
+                if (statusCode >= STATUSES.length) {
+                    throw new IOException("Corrupt export result '" + _file + "': invalid status " + statusCode + '.');
+                }
+                final Entry entry = new Entry(storeType, nodeId, STATUSES[statusCode], _input.readLong(), _input.readUTF(), _input.readUTF());
+                if (_previous != null && _previous.compareTo(entry) >= 0) {
+                    throw new IOException("Corrupt export result '" + _file + "': the entries are not sorted.");
+                }
+                _previous = entry;
+                _read++;
+                return entry;
+            } catch (final EOFException e) {
+                throw new IOException("Corrupt export result '" + _file + "': " + (_size - _read) + " entries are missing.", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            _input.close();
+        }
+    }
+}
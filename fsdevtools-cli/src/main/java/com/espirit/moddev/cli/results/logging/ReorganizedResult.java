@@ -9,28 +9,48 @@ import de.espirit.firstspirit.transport.PropertiesTransportOptions;
 
 import java.util.*;
 
-// [review] javadoc (sorting, ...)
+/**
+ * The elements of a result grouped by their type, aggregated in a single pass. The store elements are counted per
+ * store and the entity types per schema; the elements themselves are only collected if they are logged one by one,
+ * see {@link ResultDetail#ELEMENT}. Each store is sorted at most once, when its elements are requested.
+ */
 class ReorganizedResult {
 
-    private final Map<PropertiesTransportOptions.ProjectPropertyType, PropertyTypeExportInfo> _projectProperties;
-    private final Map<Store.Type, List<ElementExportInfo>> _storeElements;
-    private final Collection<EntityTypeExportInfo> _entityTypes;
+    private final boolean _collectElements;
+    // the property type of an info may be null, so this is no EnumMap
+    private final Map<PropertiesTransportOptions.ProjectPropertyType, PropertyTypeExportInfo> _projectProperties = new HashMap<>();
+    private final Map<Store.Type, List<ElementExportInfo>> _storeElements = new EnumMap<>(Store.Type.class);
+    private final int[] _storeElementCounts = new int[Store.Type.values().length];
+    private final Map<String, SchemaGroup> _schemas = new TreeMap<>();
+    private int _storeElementCount;
+    private int _entityTypeCount;
+    private int _entityCount;
+    private boolean _sorted;
     /**
      * Indicates whether an FS_META file is contained in this result set
      */
     private boolean _containsFsMeta;
 
-    ReorganizedResult(final Collection<ExportInfo> elements) {
-        _projectProperties = new HashMap<>();
-        _storeElements = new TreeMap<>();
-        _entityTypes = new ArrayList<>();
+    ReorganizedResult(final Collection<? extends ExportInfo> elements) {
+        this(elements, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param elements        the elements of the result
+     * @param collectElements whether the store elements and entity types are collected or only counted
+     */
+    ReorganizedResult(final Collection<? extends ExportInfo> elements, final boolean collectElements) {
+        _collectElements = collectElements;
         reorganize(elements);
     }
 
-    private void reorganize(final Collection<ExportInfo> elements) {
+    private void reorganize(final Collection<? extends ExportInfo> elements) {
         for (final ExportInfo element : elements) {
             switch (element.getType()) {
                 case PROJECT_PROPERTY: {
+                    // at most one per property type, so they are always collected
                     final PropertyTypeExportInfo exportInfo = (PropertyTypeExportInfo) element;
                     _projectProperties.put(exportInfo.getPropertyType(), exportInfo);
                     break;
@@ -38,17 +58,25 @@ class ReorganizedResult {
                 case ELEMENT: {
                     final ElementExportInfo exportInfo = (ElementExportInfo) element;
                     final Store.Type storeType = exportInfo.getElementInfo().getStoreType();
-                    List<ElementExportInfo> exportInfoList = _storeElements.get(storeType);
-                    if (exportInfoList == null) {
-                        exportInfoList = new ArrayList<>();
-                        _storeElements.put(storeType, exportInfoList);
+                    _storeElementCounts[storeType.ordinal()]++;
+                    _storeElementCount++;
+                    if (_collectElements) {
+                        _storeElements.computeIfAbsent(storeType, type -> new ArrayList<>()).add(exportInfo);
                     }
-                    exportInfoList.add(exportInfo);
                     break;
                 }
                 case ENTITY_TYPE: {
                     final EntityTypeExportInfo exportInfo = (EntityTypeExportInfo) element;
-                    _entityTypes.add(exportInfo);
+                    final String schemaUid = exportInfo.getSchema().getUid();
+                    SchemaGroup schema = _schemas.get(schemaUid);
+                    if (schema == null) {
+                        schema = new SchemaGroup(schemaUid, _collectElements);
+                        _schemas.put(schemaUid, schema);
+                    }
+                    final int entityCount = exportInfo.getEntities().size();
+                    schema.add(exportInfo, entityCount);
+                    _entityTypeCount++;
+                    _entityCount += entityCount;
                     break;
                 }
                 case FS_META:
@@ -66,12 +94,65 @@ class ReorganizedResult {
         return _projectProperties.values();
     }
 
+    /**
+     * Returns the store elements grouped by their store, ordered like {@link Store.Type}.
+     *
+     * @return the store elements or an empty map, if the elements have only been counted
+     */
     Map<Store.Type, List<ElementExportInfo>> getStoreElements() {
-        return _storeElements;
+        return Collections.unmodifiableMap(_storeElements);
     }
 
+    /**
+     * Returns the store elements like {@link #getStoreElements()}, each store sorted by the path of the first file of
+     * its elements. The stores are sorted on the first call only.
+     *
+     * @return the sorted store elements or an empty map, if the elements have only been counted
+     */
+    Map<Store.Type, List<ElementExportInfo>> getSortedStoreElements() {
+        if (!_sorted) {
+            for (final List<ElementExportInfo> elements : _storeElements.values()) {
+                sortByPath(elements);
+            }
+            _sorted = true;
+        }
+        return getStoreElements();
+    }
+
+    /**
+     * Returns the entity types, grouped by schema.
+     *
+     * @return the entity types or an empty collection, if the entity types have only been counted
+     */
     Collection<EntityTypeExportInfo> getEntityTypes() {
-        return Collections.unmodifiableCollection(_entityTypes);
+        final List<EntityTypeExportInfo> entityTypes = new ArrayList<>();
+        for (final SchemaGroup schema : _schemas.values()) {
+            entityTypes.addAll(schema.getEntityTypes());
+        }
+        return Collections.unmodifiableCollection(entityTypes);
+    }
+
+    /**
+     * Returns the entity types grouped by schema, ordered by the schema uid.
+     */
+    Collection<SchemaGroup> getSchemas() {
+        return Collections.unmodifiableCollection(_schemas.values());
+    }
+
+    int getStoreElementCount(final Store.Type storeType) {
+        return _storeElementCounts[storeType.ordinal()];
+    }
+
+    int getStoreElementCount() {
+        return _storeElementCount;
+    }
+
+    int getEntityTypeCount() {
+        return _entityTypeCount;
+    }
+
+    int getEntityCount() {
+        return _entityCount;
     }
 
     /**
@@ -80,4 +161,112 @@ class ReorganizedResult {
     public boolean containsFsMeta() {
         return _containsFsMeta;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sorts the given elements by the path of their first file, or by their name if they have no files. The path of
+     * every element is determined once, not on every comparison.
+     *
+     * @param elements the elements to sort
+     */
+    static void sortByPath(final List<ElementExportInfo> elements) {
+        if (elements.size() < 2) {
+            return;
+        }
+        final PathEntry[] entries = new PathEntry[elements.size()];
+        for (int index = 0; index < entries.length; index++) {
+            final ElementExportInfo element = elements.get(index);
+            entries[index] = new PathEntry(getPath(element), element);
+        }
+        // stable like List#sort, so elements with equal paths keep their order
+        Arrays.sort(entries);
+        for (int index = 0; index < entries.length; index++) {
+            elements.set(index, entries[index]._element);
+        }
+    }
+
+    private static String getPath(final ElementExportInfo exportInfo) {
+        String path = null;
+        if (!exportInfo.getCreatedFileHandles().isEmpty()) {
+            path = exportInfo.getCreatedFileHandles().iterator().next().getPath();
+        } else if (!exportInfo.getUpdatedFileHandles().isEmpty()) {
+            path = exportInfo.getUpdatedFileHandles().iterator().next().getPath();
+        } else if (!exportInfo.getDeletedFileHandles().isEmpty()) {
+            path = exportInfo.getDeletedFileHandles().iterator().next().getPath();
+        } else if (!exportInfo.getMovedFileHandles().isEmpty()) {
+            path = exportInfo.getMovedFileHandles().iterator().next().getValue().getPath();
+        }
+        return path != null ? path : exportInfo.getName();
+    }
+
+    private static final class PathEntry implements Comparable<PathEntry> {
+
+        private final String _path;
+        private final ElementExportInfo _element;
+
+        private PathEntry(final String path, final ElementExportInfo element) {
+            _path = path;
+            _element = element;
+        }
+
+        @Override
+        public int compareTo(final PathEntry other) {
+            return _path.compareTo(other._path);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof PathEntry && _path.equals(((PathEntry) o)._path);
+        }
+
+        @Override
+        public int hashCode() {
+            return _path.hashCode();
+        }
+    }
+
+    /**
+     * The entity types of a schema and their counts.
+     */
+    static final class SchemaGroup {
+
+        private final String _uid;
+        private final boolean _collectEntityTypes;
+        private final List<EntityTypeExportInfo> _entityTypes = new ArrayList<>();
+        private int _entityTypeCount;
+        private int _entityCount;
+
+        private SchemaGroup(final String uid, final boolean collectEntityTypes) {
+            _uid = uid;
+            _collectEntityTypes = collectEntityTypes;
+        }
+
+        private void add(final EntityTypeExportInfo entityType, final int entityCount) {
+            _entityTypeCount++;
+            _entityCount += entityCount;
+            if (_collectEntityTypes) {
+                _entityTypes.add(entityType);
+            }
+        }
+
+        String getUid() {
+            return _uid;
+        }
+
+        /**
+         * Returns the entity types of this schema in the order of the result.
+         *
+         * @return the entity types or an empty list, if they have only been counted
+         */
+        List<EntityTypeExportInfo> getEntityTypes() {
+            return Collections.unmodifiableList(_entityTypes);
+        }
+
+        int getEntityTypeCount() {
+            return _entityTypeCount;
+        }
+
+        int getEntityCount() {
+            return _entityCount;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+/**
+ * The amount of detail the {@link AdvancedLogger} logs of a result. Every level includes the output of the levels
+ * before it and only does the work its output needs, e.g. the elements are neither sorted nor formatted below
+ * {@link #ELEMENT}.
+ *
+ * @author e-Spirit AG
+ */
+public enum ResultDetail {
+
+    /**
+     * Only the summary: the number of elements per store, counted in a single pass.
+     */
+    SUMMARY,
+    /**
+     * The summary and the number of elements per store, schema and project property.
+     */
+    STORE,
+    /**
+     * A line per element, project property and entity type and a line per import problem.
+     */
+    ELEMENT,
+    /**
+     * The elements with their file handles, which are only logged if DEBUG is enabled.
+     */
+    FILE;
+
+    /**
+     * Parses the given level name, e.g. {@code store}.
+     *
+     * @param name the name of the level
+     * @return the level
+     * @throws IllegalArgumentException if the name is no level
+     */
+    @NotNull
+    public static ResultDetail parse(@NotNull final String name) {
+        for (final ResultDetail detail : values()) {
+            if (detail.name().equalsIgnoreCase(name.trim())) {
+                return detail;
+            }
+        }
+        throw new IllegalArgumentException("Unknown result detail '" + name + "' - use summary, store, element or file.");
+    }
+
+    /**
+     * Returns the given level or the default level, if none is given: the file handles are logged if DEBUG is enabled
+     * for the given logger.
+     *
+     * @param detail the requested level or {@code null}
+     * @param logger the logger of the result
+     * @return the level to log the result with
+     */
+    @NotNull
+    public static ResultDetail orDefault(@Nullable final ResultDetail detail, @NotNull final Logger logger) {
+        if (detail != null) {
+            return detail;
+        }
+        return logger.isDebugEnabled() ? FILE : ELEMENT;
+    }
+
+    /**
+     * Returns whether this level includes the output of the given level.
+     *
+     * @param detail the level to check
+     * @return {@code true} if this level is at least as detailed as the given one
+     */
+    public boolean includes(@NotNull final ResultDetail detail) {
+        return compareTo(detail) >= 0;
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import de.espirit.common.util.Pair;
+import de.espirit.firstspirit.access.database.BasicEntityInfo;
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.store.access.nexport.ElementExportInfo;
+import de.espirit.firstspirit.store.access.nexport.EntityTypeExportInfo;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.ExportStatus;
+import de.espirit.firstspirit.store.access.nexport.io.ExportInfoFileHandle;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
+import de.espirit.firstspirit.transport.PropertiesTransportOptions;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Machine-readable report of export and import results for CI tooling. The report has one record per created, updated,
+ * deleted, moved or lost and found element with its file handles, one record per import problem and a summary record
+ * per result. The slowest subtrees of a result are reported with a record per subtree.
+ * <p>
+ * The records are streamed to the report while the result is traversed, so the memory of the report does not grow with
+ * the size of the result. Unlike {@link AdvancedLogger}, the elements are neither sorted nor looked up in the project.
+ *
+ * @author e-Spirit AG
+ */
+public final class ResultReport implements Closeable {
+
+    /**
+     * Format of a {@link ResultReport}.
+     */
+    public enum Format {
+        /**
+         * One json object per line.
+         */
+        JSONL,
+        /**
+         * A json array of all records.
+         */
+        JSON,
+        /**
+         * One line of text per record.
+         */
+        TEXT;
+
+        /**
+         * Parses the given format name, e.g. {@code jsonl}.
+         *
+         * @param name the name of the format
+         * @return the format
+         * @throws IllegalArgumentException if the name is no format
+         */
+        @NotNull
+        public static Format parse(@NotNull final String name) {
+            for (final Format format : values()) {
+                if (format.name().equalsIgnoreCase(name.trim())) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown report format '" + name + "' - use jsonl, json or text.");
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String LINE_SEPARATOR = "\n";
+
+    private final Format _format;
+    private final Writer _writer;
+    private final JsonGenerator _generator;
+    // the buffer of the text records, reused for every record
+    private final StringBuilder _line = new StringBuilder();
+
+    private ResultReport(@NotNull final Format format, @NotNull final Writer writer) throws IOException {
+        _format = format;
+        _writer = writer;
+        if (format == Format.TEXT) {
+            _generator = null;
+        } else {
+            _generator = JSON_FACTORY.createGenerator(writer);
+            _generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (format == Format.JSON) {
+                _generator.writeStartArray();
+            } else {
+                _generator.setRootValueSeparator(new SerializedString(LINE_SEPARATOR));
+            }
+        }
+    }
+
+    /**
+     * Opens a report with the given options of a command. No report is written without a file: the text report would
+     * repeat the logged result, and json records on the console would be interleaved with the log lines.
+     *
+     * @param format the name of the {@link Format format} or {@code null}, which is {@link Format#JSONL jsonl}
+     * @param file   the report file or {@code null}
+     * @return the report or {@code null}, if no report has been requested
+     * @throws IOException              if the report file can not be created
+     * @throws IllegalArgumentException if the format is unknown or a json format is given without a file
+     */
+    @Nullable
+    public static ResultReport open(@Nullable final String format, @Nullable final Path file) throws IOException {
+        if (!isRequested(format, file)) {
+            return null;
+        }
+        final Format reportFormat = format == null ? Format.JSONL : Format.parse(format);
+        final Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        return new ResultReport(reportFormat, Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns whether a report has been requested with the given options of a command.
+     *
+     * @param format the name of the format or {@code null}
+     * @param file   the report file or {@code null}
+     * @return whether a report is written
+     * @throws IllegalArgumentException if the format is unknown or a json format is given without a file
+     * @see #open(String, Path)
+     */
+    public static boolean isRequested(@Nullable final String format, @Nullable final Path file) {
+        if (format != null && Format.parse(format) != Format.TEXT && file == null) {
+            throw new IllegalArgumentException("--report-format " + format.trim() + " requires --report-file, because the log is written to the console.");
+        }
+        return file != null;
+    }
+
+    /**
+     * Writes the records of the given export result.
+     *
+     * @param result the export result
+     * @throws IOException if the report can not be written
+     */
+    public synchronized void writeExportResult(@NotNull final ExportOperation.Result result) throws IOException {
+        final long created = writeExportInfos(result.getCreatedElements());
+        final long updated = writeExportInfos(result.getUpdatedElements());
+        final long deleted = writeExportInfos(result.getDeletedElements());
+        final long moved = writeExportInfos(result.getMovedElements());
+        startRecord("summary");
+        field("operation", "export");
+        field("created", created);
+        field("updated", updated);
+        field("deleted", deleted);
+        field("moved", moved);
+        endRecord();
+    }
+
+    /**
+     * Writes the records of the given import result.
+     *
+     * @param result the import result
+     * @throws IOException if the report can not be written
+     */
+    public synchronized void writeImportResult(@NotNull final ImportOperation.Result result) throws IOException {
+        final long created = writeElementInfos(result.getCreatedElements(), ExportStatus.CREATED, null) + writeEntities(result.getCreatedEntities(), ExportStatus.CREATED);
+        long updated = writeElementInfos(result.getUpdatedElements(), ExportStatus.UPDATED, result.getModifiedProjectProperties());
+        try {
+            updated += writeEntities(result.getUpdatedEntities(), ExportStatus.UPDATED);
+        } catch (@SuppressWarnings("squid:S1166") final NoSuchMethodError ignore) {
+            // ImportOperation.Result#getUpdatedEntities() does not exist in versions < 5.2.800
+        }
+        final long deleted = writeElementInfos(result.getDeletedElements(), ExportStatus.DELETED, null);
+        final long moved = writeElementInfos(result.getMovedElements(), ExportStatus.MOVED, null);
+        final long lostAndFound = writeElementInfos(result.getLostAndFoundElements(), null, null);
+        for (final ImportOperation.Problem problem : result.getProblems()) {
+            startRecord("problem");
+            field("store", problem.getStoreType().name());
+            field("id", problem.getNodeId());
+            field("message", problem.getMessage());
+            endRecord();
+        }
+        startRecord("summary");
+        field("operation", "import");
+        field("created", created);
+        field("updated", updated);
+        field("deleted", deleted);
+        field("moved", moved);
+        field("lostAndFound", lostAndFound);
+        field("problems", result.getProblems().size());
+        endRecord();
+    }
+
+    /**
+     * Writes a record per subtree of the {@value SubtreeTimings#DEFAULT_LIMIT} slowest subtrees of an export.
+     *
+     * @param subtreeTimings the time of the export per subtree
+     * @throws IOException if the report can not be written
+     */
+    public synchronized void writeSubtreeTimings(@NotNull final SubtreeTimings subtreeTimings) throws IOException {
+        for (final SubtreeTimings.Subtree subtree : subtreeTimings.getSlowest(SubtreeTimings.DEFAULT_LIMIT)) {
+            startRecord("subtree");
+            field("path", subtree.getPath());
+            field("millis", subtree.getMillis());
+            field("files", subtree.getFiles());
+            endRecord();
+        }
+    }
+
+    /**
+     * Finishes and closes the report. The console is flushed, but not closed.
+     *
+     * @throws IOException if the report can not be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (_generator != null) {
+                if (_format == Format.JSON) {
+                    _generator.writeEndArray();
+                }
+                _generator.writeRaw(LINE_SEPARATOR);
+                _generator.close();
+            }
+        } finally {
+            _writer.close();
+        }
+    }
+
+    private long writeExportInfos(@NotNull final Collection<ExportInfo> exportInfos) throws IOException {
+        long count = 0;
+        for (final ExportInfo exportInfo : exportInfos) {
+            switch (exportInfo.getType()) {
+                case ELEMENT: {
+                    final BasicElementInfo elementInfo = ((ElementExportInfo) exportInfo).getElementInfo();
+                    startRecord("element");
+                    field("status", toName(exportInfo.getStatus()));
+                    elementFields(elementInfo);
+                    field("name", exportInfo.getName());
+                    break;
+                }
+                case PROJECT_PROPERTY: {
+                    startRecord("projectProperty");
+                    field("status", toName(exportInfo.getStatus()));
+                    field("name", exportInfo.getName());
+                    break;
+                }
+                case ENTITY_TYPE: {
+                    final EntityTypeExportInfo entityType = (EntityTypeExportInfo) exportInfo;
+                    startRecord("entityType");
+                    field("status", toName(exportInfo.getStatus()));
+                    field("schema", entityType.getSchema().getUid());
+                    field("entityType", entityType.getEntityType());
+                    field("entities", entityType.getEntities().size());
+                    break;
+                }
+                default:
+                    // FS_META (.FirstSpirit/Import*.txt) is updated by every export
+                    continue;
+            }
+            fileField("createdFiles", exportInfo.getCreatedFileHandles());
+            fileField("updatedFiles", exportInfo.getUpdatedFileHandles());
+            fileField("deletedFiles", exportInfo.getDeletedFileHandles());
+            movedFileField(exportInfo.getMovedFileHandles());
+            endRecord();
+            count++;
+        }
+        return count;
+    }
+
+    private long writeElementInfos(@NotNull final Collection<BasicElementInfo> elementInfos, @Nullable final ExportStatus status,
+                                   @Nullable final Collection<PropertiesTransportOptions.ProjectPropertyType> projectProperties) throws IOException {
+        // lost and found elements have no export status
+        final String statusName = status == null ? "lostAndFound" : toName(status);
+        for (final BasicElementInfo elementInfo : elementInfos) {
+            startRecord("element");
+            field("status", statusName);
+            elementFields(elementInfo);
+            endRecord();
+        }
+        if (projectProperties == null) {
+            return elementInfos.size();
+        }
+        for (final PropertiesTransportOptions.ProjectPropertyType projectProperty : projectProperties) {
+            startRecord("projectProperty");
+            field("status", statusName);
+            field("name", projectProperty.name());
+            endRecord();
+        }
+        return (long) elementInfos.size() + projectProperties.size();
+    }
+
+    private long writeEntities(@NotNull final Collection<BasicEntityInfo> entities, @NotNull final ExportStatus status) throws IOException {
+        // only the number of entities per entity type is reported, like the entity types of an export
+        final Map<String, Integer> entityCounts = new TreeMap<>();
+        for (final BasicEntityInfo entity : entities) {
+            entityCounts.merge(entity.getSchemaUid() + '#' + entity.getEntityType(), 1, Integer::sum);
+        }
+        for (final Map.Entry<String, Integer> entry : entityCounts.entrySet()) {
+            final int separator = entry.getKey().indexOf('#');
+            startRecord("entityType");
+            field("status", toName(status));
+            field("schema", entry.getKey().substring(0, separator));
+            field("entityType", entry.getKey().substring(separator + 1));
+            field("entities", entry.getValue());
+            endRecord();
+        }
+        return entityCounts.size();
+    }
+
+    private void elementFields(@NotNull final BasicElementInfo elementInfo) throws IOException {
+        field("store", elementInfo.getStoreType().name());
+        field("tag", elementInfo.getNodeTag());
+        field("id", elementInfo.getNodeId());
+        field("uid", elementInfo.getUid());
+    }
+
+    @NotNull
+    private static String toName(@NotNull final ExportStatus status) {
+        return status.name().toLowerCase(Locale.UK);
+    }
+
+    //////////////////////////////////////////////////////////
+    //
+    // RECORD FORMATS
+    //
+    //////////////////////////////////////////////////////////
+
+    private void startRecord(@NotNull final String type) throws IOException {
+        if (_generator == null) {
+            _line.setLength(0);
+            _line.append(type);
+        } else {
+            _generator.writeStartObject();
+            _generator.writeStringField("type", type);
+        }
+    }
+
+    private void field(@NotNull final String name, @Nullable final String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (_generator == null) {
+            _line.append(' ').append(name).append("='").append(value).append('\'');
+        } else {
+            _generator.writeStringField(name, value);
+        }
+    }
+
+    private void field(@NotNull final String name, final long value) throws IOException {
+        if (_generator == null) {
+            _line.append(' ').append(name).append('=').append(value);
+        } else {
+            _generator.writeNumberField(name, value);
+        }
+    }
+
+    private void field(@NotNull final String name, final boolean value) throws IOException {
+        if (_generator == null) {
+            _line.append(' ').append(name).append('=').append(value);
+        } else {
+            _generator.writeBooleanField(name, value);
+        }
+    }
+
+    private void fileField(@NotNull final String name, @NotNull final Collection<ExportInfoFileHandle> fileHandles) throws IOException {
+        if (fileHandles.isEmpty()) {
+            return;
+        }
+        if (_generator == null) {
+            _line.append(' ').append(name).append("=[");
+            boolean first = true;
+            for (final ExportInfoFileHandle fileHandle : fileHandles) {
+                _line.append(first ? "" : ", ").append(fileHandle.getPath());
+                first = false;
+            }
+            _line.append(']');
+        } else {
+            _generator.writeArrayFieldStart(name);
+            for (final ExportInfoFileHandle fileHandle : fileHandles) {
+                _generator.writeString(fileHandle.getPath());
+            }
+            _generator.writeEndArray();
+        }
+    }
+
+    private void movedFileField(@NotNull final Collection<Pair<ExportInfoFileHandle, ExportInfoFileHandle>> fileHandles) throws IOException {
+        if (fileHandles.isEmpty()) {
+            return;
+        }
+        if (_generator == null) {
+            _line.append(" movedFiles=[");
+            boolean first = true;
+            for (final Pair<ExportInfoFileHandle, ExportInfoFileHandle> pair : fileHandles) {
+                _line.append(first ? "" : ", ").append(pair.getKey().getPath()).append(" -> ").append(pair.getValue().getPath());
+                first = false;
+            }
+            _line.append(']');
+        } else {
+            _generator.writeArrayFieldStart("movedFiles");
+            for (final Pair<ExportInfoFileHandle, ExportInfoFileHandle> pair : fileHandles) {
+                _generator.writeStartObject();
+                _generator.writeStringField("from", pair.getKey().getPath());
+                _generator.writeStringField("to", pair.getValue().getPath());
+                _generator.writeEndObject();
+            }
+            _generator.writeEndArray();
+        }
+    }
+
+    private void endRecord() throws IOException {
+        if (_generator == null) {
+            _line.append(LINE_SEPARATOR);
+            _writer.append(_line);
+        } else {
+            _generator.writeEndObject();
+        }
+    }
+}
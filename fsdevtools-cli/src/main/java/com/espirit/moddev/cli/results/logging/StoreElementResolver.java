@@ -0,0 +1,257 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Looks up the store elements referenced by a result, e.g. the elements of import problems, each one only once.
+ * Every lookup is a remote call, so all elements of a result are {@link #prefetch(Collection) fetched} in batches
+ * before the result is formatted, and later lookups are answered from the cache of this resolver.
+ *
+ * @author e-Spirit AG
+ */
+final class StoreElementResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoreElementResolver.class);
+
+    /**
+     * Default number of concurrent lookups.
+     */
+    static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * Maximum number of elements requested at once.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private final StoreAgent _storeAgent;
+    private final int _parallelism;
+    private final Map<Store.Type, Store> _stores = new ConcurrentHashMap<>();
+    private final Map<ElementKey, Optional<IDProvider>> _elements = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param storeAgent  the store agent to look up the elements with or {@code null}, if nothing can be looked up
+     * @param parallelism the maximum number of concurrent lookups
+     */
+    StoreElementResolver(@Nullable final StoreAgent storeAgent, final int parallelism) {
+        _storeAgent = storeAgent;
+        _parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Creates a new resolver with the {@link #DEFAULT_PARALLELISM default parallelism}.
+     *
+     * @param storeAgent the store agent to look up the elements with or {@code null}, if nothing can be looked up
+     */
+    StoreElementResolver(@Nullable final StoreAgent storeAgent) {
+        this(storeAgent, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Returns whether this resolver can look up elements at all.
+     *
+     * @return {@code false}, if this resolver has no store agent
+     */
+    boolean canLookUp() {
+        return _storeAgent != null;
+    }
+
+    /**
+     * Looks up the given elements. Duplicates and elements that have been looked up before are skipped. The elements
+     * of a store are requested in batches of {@link #BATCH_SIZE} ids, several batches in parallel.
+     *
+     * @param keys the keys of the elements
+     */
+    void prefetch(@NotNull final Collection<ElementKey> keys) {
+        if (_storeAgent == null) {
+            return;
+        }
+        final Map<Store.Type, Set<Long>> idsByStore = new EnumMap<>(Store.Type.class);
+        for (final ElementKey key : keys) {
+            if (!_elements.containsKey(key)) {
+                idsByStore.computeIfAbsent(key._storeType, storeType -> new LinkedHashSet<>()).add(key._nodeId);
+            }
+        }
+        final List<Callable<Void>> batches = new ArrayList<>();
+        for (final Map.Entry<Store.Type, Set<Long>> entry : idsByStore.entrySet()) {
+            final List<Long> ids = new ArrayList<>(entry.getValue());
+            for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+                final List<Long> batch = ids.subList(start, Math.min(ids.size(), start + BATCH_SIZE));
+                batches.add(() -> {
+                    fetch(entry.getKey(), batch);
+                    return null;
+                });
+            }
+        }
+        if (batches.isEmpty()) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        if (batches.size() == 1 || _parallelism == 1) {
+            for (final Callable<Void> batch : batches) {
+                call(batch);
+            }
+        } else {
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.min(_parallelism, batches.size()));
+            try {
+                // failed lookups are repeated on demand
+                executor.invokeAll(batches);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        LOGGER.debug("Looked up {} store elements in {} batches in {} ms.", keys.size(), batches.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Fetches the given elements of a store with one request and caches them. Ids without element are cached as
+     * missing.
+     */
+    private void fetch(@NotNull final Store.Type storeType, @NotNull final List<Long> ids) {
+        final List<? extends IDProvider> storeElements = getStore(storeType).getElements(ids);
+        if (storeElements == null) {
+            // the store does not support batches
+            for (final Long id : ids) {
+                getStoreElement(storeType, id);
+            }
+            return;
+        }
+        for (final IDProvider storeElement : storeElements) {
+            if (storeElement != null) {
+                _elements.put(new ElementKey(storeType, storeElement.getId()), Optional.of(storeElement));
+            }
+        }
+        for (final Long id : ids) {
+            _elements.putIfAbsent(new ElementKey(storeType, id), Optional.empty());
+        }
+    }
+
+    @SuppressWarnings("squid:S2221")
+    private static void call(@NotNull final Callable<Void> batch) {
+        try {
+            batch.call();
+        } catch (final Exception e) {
+            // failed lookups are repeated on demand
+            LOGGER.debug("Failed to look up store elements.", e);
+        }
+    }
+
+    @NotNull
+    private Store getStore(@NotNull final Store.Type storeType) {
+        return _stores.computeIfAbsent(storeType, _storeAgent::getStore);
+    }
+
+    /**
+     * Returns the store element with the given key.
+     *
+     * @param key the key of the element
+     * @return the element or {@code null}, if it does not exist or nothing can be looked up
+     */
+    @Nullable
+    IDProvider getStoreElement(@NotNull final ElementKey key) {
+        if (_storeAgent == null) {
+            return null;
+        }
+        final Optional<IDProvider> cachedElement = _elements.get(key);
+        if (cachedElement != null) {
+            return cachedElement.orElse(null);
+        }
+        final IDProvider storeElement = getStore(key._storeType).getStoreElement(key._nodeId);
+        _elements.put(key, Optional.ofNullable(storeElement));
+        return storeElement;
+    }
+
+    /**
+     * Returns the store element with the given id.
+     *
+     * @param storeType the store of the element
+     * @param nodeId    the id of the element
+     * @return the element or {@code null}, if it does not exist or nothing can be looked up
+     */
+    @Nullable
+    IDProvider getStoreElement(@NotNull final Store.Type storeType, final long nodeId) {
+        return getStoreElement(new ElementKey(storeType, nodeId));
+    }
+
+    /**
+     * The key of a store element: its store and node id.
+     */
+    static final class ElementKey {
+
+        private final Store.Type _storeType;
+        private final long _nodeId;
+
+        ElementKey(@NotNull final Store.Type storeType, final long nodeId) {
+            _storeType = storeType;
+            _nodeId = nodeId;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ElementKey that = (ElementKey) o;
+            return _nodeId == that._nodeId && _storeType == that._storeType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_storeType, _nodeId);
+        }
+
+        @Override
+        public String toString() {
+            return _storeType + ":" + _nodeId;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import de.espirit.common.util.Pair;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.io.ExportInfoFileHandle;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The wall time of an export attributed to the subtrees of the sync dir, e.g. to a template or a media folder, so
+ * the slowest parts of large exports can be found. A subtree is the directory of a file, cut to its first
+ * {@value #SUBTREE_DEPTH} levels, e.g. {@code TemplateStore/PageTemplates/news} or {@code MediaStore/images/teaser}.
+ * <p>
+ * The export operation of FirstSpirit reports no progress, so the time is not measured per element, but
+ * {@link #measureExport(Path, ExportOperation.Result, long, long) by the modification times} of the written files. The
+ * time between two files is attributed to the subtree of the later file, so the attribution is only as fine as the
+ * timestamps of the file system. Imports leave no such traces, so there are no timings of imports.
+ *
+ * @author e-Spirit AG
+ */
+public final class SubtreeTimings {
+
+    /**
+     * Number of the slowest subtrees that are logged and reported.
+     */
+    public static final int DEFAULT_LIMIT = 20;
+
+    /**
+     * Number of directory levels of a subtree.
+     */
+    public static final int SUBTREE_DEPTH = 3;
+
+    private static final String ROOT = ".";
+
+    private final Map<String, Subtree> _subtrees = new HashMap<>();
+
+    /**
+     * Measures the time of an export by the modification times of the files written by the export. Deleted files and
+     * files that no longer exist are ignored.
+     *
+     * @param syncDirectory the sync dir of the export
+     * @param result        the result of the export
+     * @param startMillis   the start of the export
+     * @param endMillis     the end of the export
+     * @return the measured timings
+     */
+    @NotNull
+    public static SubtreeTimings measureExport(@NotNull final Path syncDirectory, @NotNull final ExportOperation.Result result, final long startMillis, final long endMillis) {
+        final List<FileSample> samples = new ArrayList<>();
+        addSamples(samples, syncDirectory, result.getCreatedElements());
+        addSamples(samples, syncDirectory, result.getUpdatedElements());
+        addSamples(samples, syncDirectory, result.getMovedElements());
+        return measure(samples, startMillis, endMillis);
+    }
+
+    /**
+     * Attributes the time between the given start and each file to the subtree of the file. The time after the last
+     * file is not attributed.
+     */
+    @NotNull
+    static SubtreeTimings measure(@NotNull final List<FileSample> samples, final long startMillis, final long endMillis) {
+        samples.sort(Comparator.comparingLong(sample -> sample._modifiedMillis));
+        final SubtreeTimings timings = new SubtreeTimings();
+        long previousMillis = startMillis;
+        for (final FileSample sample : samples) {
+            // files modified outside of the export, e.g. by a clock skew, are attributed no time
+            final long modifiedMillis = Math.max(previousMillis, Math.min(sample._modifiedMillis, endMillis));
+            timings.add(sample._path, modifiedMillis - previousMillis, 1);
+            previousMillis = modifiedMillis;
+        }
+        return timings;
+    }
+
+    /**
+     * Returns the subtree of the given sync dir relative file path.
+     *
+     * @param path the path of a file, with slashes or backslashes as separators
+     * @return the first {@value #SUBTREE_DEPTH} levels of the directory of the file or {@code "."} for a file of the
+     * sync dir itself
+     */
+    @NotNull
+    public static String getSubtree(@NotNull final String path) {
+        int end = -1;
+        int levels = 0;
+        for (int index = 0; index < path.length() && levels < SUBTREE_DEPTH; index++) {
+            final char character = path.charAt(index);
+            if ((character == '/' || character == '\\') && index > end + 1) {
+                end = index;
+                levels++;
+            }
+        }
+        return end < 0 ? ROOT : path.substring(0, end).replace('\\', '/');
+    }
+
+    /**
+     * Attributes the given time and files to the subtree of the given file.
+     *
+     * @param path   the sync dir relative path of the file
+     * @param millis the time to attribute
+     * @param files  the number of files to attribute
+     */
+    public void add(@NotNull final String path, final long millis, final long files) {
+        final String subtree = getSubtree(path);
+        final Subtree current = _subtrees.get(subtree);
+        _subtrees.put(subtree, current == null ? new Subtree(subtree, millis, files) : new Subtree(subtree, current._millis + millis, current._files + files));
+    }
+
+    /**
+     * Returns the subtrees with the most time, the slowest first.
+     *
+     * @param limit the maximum number of subtrees
+     * @return the slowest subtrees
+     */
+    @NotNull
+    public List<Subtree> getSlowest(final int limit) {
+        final List<Subtree> subtrees = new ArrayList<>(_subtrees.values());
+        subtrees.sort(Comparator.comparingLong(Subtree::getMillis).reversed().thenComparing(Subtree::getPath));
+        return subtrees.size() > limit ? new ArrayList<>(subtrees.subList(0, limit)) : subtrees;
+    }
+
+    public boolean isEmpty() {
+        return _subtrees.isEmpty();
+    }
+
+    private static void addSamples(@NotNull final List<FileSample> samples, @NotNull final Path syncDirectory, @NotNull final Collection<ExportInfo> exportInfos) {
+        for (final ExportInfo exportInfo : exportInfos) {
+            if (exportInfo.getType() == ExportInfo.Type.FS_META) {
+                // .FirstSpirit/Import*.txt is written by every export
+                continue;
+            }
+            for (final ExportInfoFileHandle fileHandle : exportInfo.getCreatedFileHandles()) {
+                addSample(samples, syncDirectory, fileHandle);
+            }
+            for (final ExportInfoFileHandle fileHandle : exportInfo.getUpdatedFileHandles()) {
+                addSample(samples, syncDirectory, fileHandle);
+            }
+            for (final Pair<ExportInfoFileHandle, ExportInfoFileHandle> fileHandles : exportInfo.getMovedFileHandles()) {
+                addSample(samples, syncDirectory, fileHandles.getValue());
+            }
+        }
+    }
+
+    private static void addSample(@NotNull final List<FileSample> samples, @NotNull final Path syncDirectory, @NotNull final ExportInfoFileHandle fileHandle) {
+        try {
+            samples.add(new FileSample(fileHandle.getPath(), Files.getLastModifiedTime(syncDirectory.resolve(fileHandle.getPath())).toMillis()));
+        } catch (@SuppressWarnings("squid:S1166") final IOException ignore) {
+            // deleted after the export, no time is attributed
+        }
+    }
+
+    /**
+     * A written file of an export.
+     */
+    static final class FileSample {
+
+        private final String _path;
+        private final long _modifiedMillis;
+
+        FileSample(@NotNull final String path, final long modifiedMillis) {
+            _path = path;
+            _modifiedMillis = modifiedMillis;
+        }
+    }
+
+    /**
+     * The time and files attributed to a subtree.
+     */
+    public static final class Subtree {
+
+        private final String _path;
+        private final long _millis;
+        private final long _files;
+
+        Subtree(@NotNull final String path, final long millis, final long files) {
+            _path = path;
+            _millis = millis;
+            _files = files;
+        }
+
+        /**
+         * Returns the sync dir relative path of the subtree.
+         *
+         * @return the path, {@code "."} for the sync dir itself
+         */
+        @NotNull
+        public String getPath() {
+            return _path;
+        }
+
+        public long getMillis() {
+            return _millis;
+        }
+
+        public long getFiles() {
+            return _files;
+        }
+
+        @Override
+        public String toString() {
+            return _path + ": " + _millis + " ms (" + _files + " files)";
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A part of a synchronization directory that is imported on its own by a batched import.
+ * <p>
+ * A batch consists of the {@link SyncDirectoryLayout#STORE_ELEMENT_FILE store element files} of at most a given number
+ * of elements of one store, so it can be imported as a {@link SyncDirectoryView view} of the sync dir. Batches are
+ * {@link #plan(Path, int, SyncDirectoryManifest) planned} in the order of the dependencies between the stores: templates first, because all
+ * other stores use them, and the site store last, because it references pages and media.
+ *
+ * @author e-Spirit AG
+ */
+public final class ImportBatch {
+
+    /**
+     * The order in which the stores are imported.
+     */
+    static final List<Store.Type> STORE_ORDER = Collections.unmodifiableList(Arrays.asList(
+            Store.Type.TEMPLATESTORE, Store.Type.MEDIASTORE, Store.Type.GLOBALSTORE, Store.Type.CONTENTSTORE, Store.Type.PAGESTORE, Store.Type.SITESTORE));
+
+    private final Store.Type _storeType;
+    private final List<String> _files;
+    private final String _key;
+
+    private ImportBatch(@Nullable final Store.Type storeType, @NotNull final List<String> files, @NotNull final String key) {
+        _storeType = storeType;
+        _files = Collections.unmodifiableList(files);
+        _key = key;
+    }
+
+    /**
+     * Partitions the given sync dir into batches. Files outside of element directories and outside of the
+     * {@link SyncDirectoryLayout#FIRSTSPIRIT_DIRECTORY metadata directory} form a batch of their own that is imported
+     * first. Within a store, the elements are sorted by the paths of their directories, so parents are imported before
+     * their children.
+     *
+     * @param syncDirectory the sync dir
+     * @param batchSize     the maximum number of elements of a batch
+     * @param manifest      the current {@link SyncDirectoryManifest#scan(Path, SyncDirectoryManifest) manifest} of the
+     *                      sync dir, which provides the content hashes for the {@link #getKey() keys} of the batches
+     * @return the batches in import order
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    public static List<ImportBatch> plan(@NotNull final Path syncDirectory, final int batchSize, @NotNull final SyncDirectoryManifest manifest) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be greater than 0!");
+        }
+        final Path root = syncDirectory.toAbsolutePath().normalize();
+        final Map<Integer, TreeMap<String, Element>> elementsByOrder = new TreeMap<>();
+        final Map<Path, Element> elementsByDirectory = new HashMap<>();
+        final List<String> looseFiles = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            private final List<Path> _elementDirectories = new ArrayList<>();
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                final Path fileName = dir.getFileName();
+                if (SyncDirectoryLayout.isIgnoredPath(root, dir) || fileName != null && SyncDirectoryLayout.FIRSTSPIRIT_DIRECTORY.equals(fileName.toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                final Path elementFile = dir.resolve(SyncDirectoryLayout.STORE_ELEMENT_FILE);
+                if (Files.isRegularFile(elementFile)) {
+                    _elementDirectories.add(dir);
+                    final Element element = new Element(SyncDirectoryLayout.toRelativePath(root, elementFile));
+                    elementsByDirectory.put(dir, element);
+                    elementsByOrder.computeIfAbsent(getOrder(root, dir), order -> new TreeMap<>()).put(SyncDirectoryLayout.toRelativePath(root, dir), element);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                final String path = SyncDirectoryLayout.toRelativePath(root, file);
+                if (_elementDirectories.isEmpty()) {
+                    looseFiles.add(path);
+                } else {
+                    // the innermost element directory owns the file
+                    elementsByDirectory.get(_elementDirectories.get(_elementDirectories.size() - 1))._contentFiles.add(path);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                _elementDirectories.remove(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        final List<ImportBatch> batches = new ArrayList<>();
+        if (!looseFiles.isEmpty()) {
+            Collections.sort(looseFiles);
+            batches.add(new ImportBatch(null, looseFiles, computeKey(looseFiles, manifest)));
+        }
+        for (final Map.Entry<Integer, TreeMap<String, Element>> entry : elementsByOrder.entrySet()) {
+            final Store.Type storeType = entry.getKey() < STORE_ORDER.size() ? STORE_ORDER.get(entry.getKey()) : null;
+            List<String> files = new ArrayList<>(batchSize);
+            List<String> contentFiles = new ArrayList<>();
+            for (final Element element : entry.getValue().values()) {
+                files.add(element._elementFile);
+                contentFiles.addAll(element._contentFiles);
+                if (files.size() == batchSize) {
+                    batches.add(new ImportBatch(storeType, files, computeKey(contentFiles, manifest)));
+                    files = new ArrayList<>(batchSize);
+                    contentFiles = new ArrayList<>();
+                }
+            }
+            if (!files.isEmpty()) {
+                batches.add(new ImportBatch(storeType, files, computeKey(contentFiles, manifest)));
+            }
+        }
+        return batches;
+    }
+
+    private static int getOrder(@NotNull final Path root, @NotNull final Path directory) {
+        final Path relativePath = root.relativize(directory);
+        final Store.Type storeType = relativePath.getNameCount() == 0 ? null : SyncDirectoryLayout.getStoreType(relativePath.getName(0).toString());
+        final int order = STORE_ORDER.indexOf(storeType);
+        return order < 0 ? STORE_ORDER.size() : order;
+    }
+
+    @NotNull
+    private static String computeKey(@NotNull final List<String> files, @NotNull final SyncDirectoryManifest manifest) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            for (final String file : files) {
+                final String hash = manifest.getHash(file);
+                digest.update(file.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\t');
+                digest.update((hash == null ? "" : hash).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return SyncDirectoryIndexes.toHexString(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            // every java platform supports SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the store of the elements of this batch.
+     *
+     * @return the store type or {@code null}, if the batch contains files outside of the stores
+     */
+    @Nullable
+    public Store.Type getStoreType() {
+        return _storeType;
+    }
+
+    /**
+     * Returns the sync dir relative paths of the files of this batch, which are the store element files of its elements
+     * or the files outside of element directories.
+     *
+     * @return the files
+     */
+    @NotNull
+    public List<String> getFiles() {
+        return _files;
+    }
+
+    /**
+     * Returns a key that identifies this batch by the paths and contents of all files of its elements, so completed
+     * batches can be recognized by later runs as long as none of their files changed.
+     *
+     * @return the key
+     */
+    @NotNull
+    public String getKey() {
+        return _key;
+    }
+
+    @Override
+    public String toString() {
+        return (_storeType == null ? "other" : _storeType.name()) + " (" + _files.size() + " files)";
+    }
+
+    private static final class Element {
+
+        private final String _elementFile;
+        private final List<String> _contentFiles = new ArrayList<>();
+
+        private Element(@NotNull final String elementFile) {
+            _elementFile = elementFile;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records the completed {@link ImportBatch batches} of a batched import, so a failed import can be resumed with the
+ * first batch that has not been completed.
+ * <p>
+ * The checkpoint is a plain text file with the {@link ImportBatch#getKey() key} of one completed batch per line. Every
+ * completed batch is appended and synced to disk immediately. A batch is recognized by its files, so batches whose
+ * elements have been added or removed since the failed import are imported again.
+ *
+ * @author e-Spirit AG
+ * @see SyncDirectoryIndexes#getCheckpointFile(Path)
+ */
+public final class ImportCheckpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImportCheckpoint.class);
+
+    private static final String HEADER = "# fs-cli import checkpoint";
+
+    private final Path _file;
+    private final Set<String> _completedBatches;
+
+    private ImportCheckpoint(@NotNull final Path file, @NotNull final Set<String> completedBatches) {
+        _file = file;
+        _completedBatches = completedBatches;
+    }
+
+    /**
+     * Opens the checkpoint in the given file.
+     *
+     * @param file   the checkpoint file
+     * @param resume {@code true} to keep the batches completed by a previous import, {@code false} to start a new
+     *               checkpoint
+     * @return the checkpoint
+     * @throws IOException if the checkpoint file can not be read or written
+     */
+    @NotNull
+    public static ImportCheckpoint open(@NotNull final Path file, final boolean resume) throws IOException {
+        final Set<String> completedBatches = new HashSet<>();
+        if (resume && Files.isRegularFile(file)) {
+            for (final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                final String key = line.trim();
+                if (!key.isEmpty() && !key.startsWith("#")) {
+                    completedBatches.add(key);
+                }
+            }
+            LOGGER.debug("Read {} completed batches from checkpoint '{}'.", completedBatches.size(), file);
+        } else {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Files.write(file, Collections.singletonList(HEADER), StandardCharsets.UTF_8);
+        }
+        return new ImportCheckpoint(file, completedBatches);
+    }
+
+    /**
+     * Returns whether the given batch has been completed.
+     *
+     * @param batch the batch
+     * @return whether the batch has been completed
+     */
+    public boolean isCompleted(@NotNull final ImportBatch batch) {
+        return _completedBatches.contains(batch.getKey());
+    }
+
+    /**
+     * Records the given batch as completed.
+     *
+     * @param batch the completed batch
+     * @throws IOException if the checkpoint file can not be written
+     */
+    public void markCompleted(@NotNull final ImportBatch batch) throws IOException {
+        if (_completedBatches.add(batch.getKey())) {
+            Files.write(_file, Collections.singletonList(batch.getKey()), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+        }
+    }
+
+    /**
+     * Deletes the checkpoint file after all batches have been imported.
+     *
+     * @throws IOException if the file can not be deleted
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(_file);
+    }
+}
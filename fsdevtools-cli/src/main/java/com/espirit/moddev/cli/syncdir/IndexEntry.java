@@ -0,0 +1,143 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * A store element in the {@link SyncDirectoryIndex}.
+ *
+ * @author e-Spirit AG
+ */
+public final class IndexEntry {
+
+    private final Store.Type _storeType;
+    private final UidMapping _uidMapping;
+    private final String _uid;
+    private final String _path;
+    private final long _id;
+
+    /**
+     * Creates a new entry.
+     *
+     * @param storeType  the store of the element
+     * @param uidMapping the uid mapping of the element or {@code null}, if the element is not addressable by uid
+     * @param uid        the uid of the element or {@code null}, if the element has no uid
+     * @param path       the sync dir relative path of the directory of the element, e.g. {@code PageStore/folder/page}
+     * @param id         the node id of the element or {@code -1}, if unknown
+     */
+    public IndexEntry(@NotNull final Store.Type storeType, @Nullable final UidMapping uidMapping, @Nullable final String uid, @NotNull final String path, final long id) {
+        _storeType = storeType;
+        _uidMapping = uidMapping;
+        _uid = uid;
+        _path = SyncDirectoryLayout.normalizePath(path);
+        _id = id;
+    }
+
+    @NotNull
+    public Store.Type getStoreType() {
+        return _storeType;
+    }
+
+    @Nullable
+    public UidMapping getUidMapping() {
+        return _uidMapping;
+    }
+
+    @Nullable
+    public String getUid() {
+        return _uid;
+    }
+
+    @NotNull
+    public String getPath() {
+        return _path;
+    }
+
+    public long getId() {
+        return _id;
+    }
+
+    /**
+     * Returns the key of the uid of this entry, which is unique in the project.
+     *
+     * @return the uid key or {@code null}, if the entry is not addressable by uid
+     */
+    @Nullable
+    public String getUidKey() {
+        return _uidMapping == null || _uid == null ? null : toUidKey(_uidMapping, _uid);
+    }
+
+    /**
+     * Returns the key of the given uid. Uids are unique per {@link UidMapping#getUidType() uid type}, so mappings that
+     * share the uid type share the key.
+     *
+     * @param uidMapping the uid mapping
+     * @param uid        the uid
+     * @return the uid key
+     */
+    @NotNull
+    public static String toUidKey(@NotNull final UidMapping uidMapping, @NotNull final String uid) {
+        return uidMapping.getUidType().name() + ':' + uid;
+    }
+
+    /**
+     * Creates a copy of this entry with the given node id.
+     *
+     * @param id the new node id
+     * @return the copy
+     */
+    @NotNull
+    public IndexEntry withId(final long id) {
+        return new IndexEntry(_storeType, _uidMapping, _uid, _path, id);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IndexEntry that = (IndexEntry) o;
+        return _id == that._id && _storeType == that._storeType && _uidMapping == that._uidMapping && Objects.equals(_uid, that._uid) && _path.equals(that._path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_storeType, _uidMapping, _uid, _path, _id);
+    }
+
+    @Override
+    public String toString() {
+        return _path + " (" + (_uidMapping == null ? _storeType : _uidMapping.getPrefix() + ':' + _uid) + ", id=" + _id + ')';
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The directory of a schema in a synchronization directory. Besides the files of the schema itself, it contains the
+ * exported entities of the schema, so the number of its files is a measure of the amount of entity data.
+ *
+ * @author e-Spirit AG
+ */
+public final class SchemaDirectory {
+
+    private final String _uid;
+    private final String _path;
+    private final int _fileCount;
+
+    /**
+     * Creates a new schema directory.
+     *
+     * @param uid       the uid of the schema
+     * @param path      the sync dir relative path of the directory, e.g. {@code TemplateStore/Schemas/products}
+     * @param fileCount the number of files of the schema, without the files of its child elements
+     */
+    public SchemaDirectory(@NotNull final String uid, @NotNull final String path, final int fileCount) {
+        _uid = uid;
+        _path = SyncDirectoryLayout.normalizePath(path);
+        _fileCount = fileCount;
+    }
+
+    /**
+     * Finds the schemas of the given sync dir, which are part of its template store.
+     *
+     * @param syncDirectory the sync dir
+     * @return the schemas sorted by path
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    public static List<SchemaDirectory> find(@NotNull final Path syncDirectory) throws IOException {
+        final Path root = syncDirectory.toAbsolutePath().normalize();
+        final List<SchemaDirectory> schemas = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return schemas;
+        }
+        try (DirectoryStream<Path> storeDirectories = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (final Path storeDirectory : storeDirectories) {
+                if (SyncDirectoryLayout.getStoreType(storeDirectory.getFileName().toString()) == Store.Type.TEMPLATESTORE) {
+                    findSchemas(root, storeDirectory, schemas);
+                }
+            }
+        }
+        schemas.sort(Comparator.comparing(SchemaDirectory::getPath));
+        return schemas;
+    }
+
+    private static void findSchemas(@NotNull final Path root, @NotNull final Path storeDirectory, @NotNull final List<SchemaDirectory> schemas) throws IOException {
+        Files.walkFileTree(storeDirectory, new SimpleFileVisitor<Path>() {
+            // the innermost element directory is on top
+            private final Deque<ElementDirectory> _elementDirectories = new ArrayDeque<>();
+
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
+                if (SyncDirectoryLayout.isIgnoredPath(root, dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                final Path elementFile = dir.resolve(SyncDirectoryLayout.STORE_ELEMENT_FILE);
+                if (Files.isRegularFile(elementFile)) {
+                    final StoreElementFile element = StoreElementFile.read(elementFile);
+                    final boolean schema = SyncDirectoryLayout.getUidMapping(element.getTag()) == UidMapping.SCHEMA;
+                    _elementDirectories.push(new ElementDirectory(dir, schema ? element.getUid() : null));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                final ElementDirectory elementDirectory = _elementDirectories.peek();
+                if (elementDirectory != null) {
+                    elementDirectory._fileCount++;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                final ElementDirectory elementDirectory = _elementDirectories.peek();
+                if (elementDirectory != null && elementDirectory._directory.equals(dir)) {
+                    _elementDirectories.pop();
+                    if (elementDirectory._schemaUid != null) {
+                        schemas.add(new SchemaDirectory(elementDirectory._schemaUid, SyncDirectoryLayout.toRelativePath(root, dir), elementDirectory._fileCount));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Returns the uid of the schema.
+     *
+     * @return the uid
+     */
+    @NotNull
+    public String getUid() {
+        return _uid;
+    }
+
+    /**
+     * Returns the sync dir relative path of the directory of the schema.
+     *
+     * @return the path
+     */
+    @NotNull
+    public String getPath() {
+        return _path;
+    }
+
+    /**
+     * Returns the sync dir relative path of the {@link SyncDirectoryLayout#STORE_ELEMENT_FILE store element file} of
+     * the schema, which selects the schema for a {@link SyncDirectoryView view} of the sync dir.
+     *
+     * @return the path of the store element file
+     */
+    @NotNull
+    public String getStoreElementFile() {
+        return _path + SyncDirectoryLayout.SEPARATOR + SyncDirectoryLayout.STORE_ELEMENT_FILE;
+    }
+
+    /**
+     * Returns the number of files of the schema and its entities, without the files of its child elements like queries.
+     *
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return _fileCount;
+    }
+
+    @Override
+    public String toString() {
+        return _uid + " (" + _fileCount + " files)";
+    }
+
+    private static final class ElementDirectory {
+
+        private final Path _directory;
+        private final String _schemaUid;
+        private int _fileCount;
+
+        private ElementDirectory(@NotNull final Path directory, @Nullable final String schemaUid) {
+            _directory = directory;
+            _schemaUid = schemaUid;
+        }
+    }
+}
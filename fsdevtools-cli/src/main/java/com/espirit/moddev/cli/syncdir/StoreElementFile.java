@@ -0,0 +1,160 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The root element of a {@link SyncDirectoryLayout#STORE_ELEMENT_FILE}. Only the root element is read, so the rest of
+ * the (possibly large) file is never parsed.
+ *
+ * @author e-Spirit AG
+ */
+public final class StoreElementFile {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    private final String _tag;
+    private final Map<String, String> _attributes;
+
+    private StoreElementFile(@NotNull final String tag, @NotNull final Map<String, String> attributes) {
+        _tag = tag;
+        _attributes = Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * Reads the root element of the given file.
+     *
+     * @param file the file to read
+     * @return the root element
+     * @throws IOException if the file can not be read or is no well-formed xml up to the root element
+     */
+    @NotNull
+    public static StoreElementFile read(@NotNull final Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        final Map<String, String> attributes = new HashMap<>();
+                        for (int index = 0; index < reader.getAttributeCount(); index++) {
+                            attributes.put(reader.getAttributeLocalName(index), reader.getAttributeValue(index));
+                        }
+                        return new StoreElementFile(reader.getLocalName(), attributes);
+                    }
+                }
+                throw new IOException("No root element found in '" + file + "'.");
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new IOException("Failed to parse '" + file + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a factory for xml readers that neither loads DTDs nor resolves external entities.
+     *
+     * @return the factory
+     */
+    static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    /**
+     * Returns the tag of the root element, e.g. {@code PAGE}.
+     *
+     * @return the tag
+     */
+    @NotNull
+    public String getTag() {
+        return _tag;
+    }
+
+    /**
+     * Returns the value of the given attribute of the root element.
+     *
+     * @param name the name of the attribute
+     * @return the value or {@code null}, if the attribute is missing
+     */
+    @Nullable
+    public String getAttribute(@NotNull final String name) {
+        return _attributes.get(name);
+    }
+
+    /**
+     * Returns the uid of the element.
+     *
+     * @return the uid or {@code null}, if the element has no uid
+     */
+    @Nullable
+    public String getUid() {
+        final String uid = getAttribute("uid");
+        return uid == null || uid.isEmpty() ? null : uid;
+    }
+
+    /**
+     * Returns the node id of the element.
+     *
+     * @return the id or {@code -1}, if the id is missing or no number
+     */
+    public long getId() {
+        return parseLong(getAttribute("id"));
+    }
+
+    /**
+     * Returns the revision of the element at the time of the export.
+     *
+     * @return the revision or {@code -1}, if the revision is missing or no number
+     */
+    public long getRevision() {
+        return parseLong(getAttribute("revision"));
+    }
+
+    private static long parseLong(@Nullable final String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException ignore) {
+            return -1;
+        }
+    }
+}
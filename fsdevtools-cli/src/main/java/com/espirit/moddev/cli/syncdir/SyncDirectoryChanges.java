@@ -0,0 +1,212 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The files of a synchronization directory that have changed since a reference: the manifest of the last import or
+ * export, a manifest file or a git revision.
+ *
+ * @author e-Spirit AG
+ */
+public final class SyncDirectoryChanges {
+
+    /**
+     * Reference of the manifest written by the last import or export of the sync dir.
+     */
+    public static final String LAST_MANIFEST = "manifest";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Set<String> _changedFiles;
+    private final Set<String> _deletedFiles;
+
+    SyncDirectoryChanges(@NotNull final Set<String> changedFiles, @NotNull final Set<String> deletedFiles) {
+        _changedFiles = Collections.unmodifiableSet(new TreeSet<>(changedFiles));
+        _deletedFiles = Collections.unmodifiableSet(new TreeSet<>(deletedFiles));
+    }
+
+    /**
+     * Determines the files of the given sync dir that have changed since the given reference. The reference is either
+     * {@link #LAST_MANIFEST}, the path of a manifest file or a git revision like {@code HEAD~1} or {@code origin/master}.
+     *
+     * @param syncDirectory the sync dir
+     * @param reference     the reference
+     * @return the changes
+     * @throws IOException           if the sync dir or the manifest can not be read, or git fails
+     * @throws IllegalStateException if the last manifest is requested, but the sync dir has none
+     */
+    @NotNull
+    public static SyncDirectoryChanges since(@NotNull final Path syncDirectory, @NotNull final String reference) throws IOException {
+        if (LAST_MANIFEST.equals(reference)) {
+            final SyncDirectoryManifest manifest = SyncDirectoryIndexes.readManifest(syncDirectory);
+            if (manifest == null) {
+                throw new IllegalStateException("The sync dir '" + syncDirectory + "' has no manifest yet - import the sync dir completely with --skip-if-unchanged once to create it.");
+            }
+            return since(syncDirectory, manifest);
+        }
+        final Path manifestFile = Paths.get(reference);
+        if (Files.isRegularFile(manifestFile)) {
+            return since(syncDirectory, SyncDirectoryManifest.read(manifestFile));
+        }
+        return sinceGitRevision(syncDirectory, reference);
+    }
+
+    /**
+     * Determines the files of the given sync dir that have changed since the given manifest.
+     *
+     * @param syncDirectory the sync dir
+     * @param manifest      the manifest
+     * @return the changes
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    public static SyncDirectoryChanges since(@NotNull final Path syncDirectory, @NotNull final SyncDirectoryManifest manifest) throws IOException {
+        final SyncDirectoryManifest current = SyncDirectoryManifest.scan(syncDirectory, manifest);
+        return new SyncDirectoryChanges(manifest.getChangedFiles(current), manifest.getDeletedFiles(current));
+    }
+
+    /**
+     * Determines the files of the given sync dir that differ from the given git revision, including untracked files.
+     *
+     * @param syncDirectory the sync dir, which has to be part of a git working tree
+     * @param revision      the git revision
+     * @return the changes
+     * @throws IOException if git fails
+     */
+    @NotNull
+    public static SyncDirectoryChanges sinceGitRevision(@NotNull final Path syncDirectory, @NotNull final String revision) throws IOException {
+        final Set<String> changedFiles = new TreeSet<>();
+        final Set<String> deletedFiles = new TreeSet<>();
+        // -z: no quoting of paths, fields separated by NUL
+        final List<String> diff = git(syncDirectory, "diff", "--name-status", "--no-renames", "--relative", "-z", revision, "--");
+        for (int index = 0; index + 1 < diff.size(); index += 2) {
+            final String path = SyncDirectoryLayout.normalizePath(diff.get(index + 1));
+            if (SyncDirectoryLayout.isIgnoredPath(path)) {
+                continue;
+            }
+            if (diff.get(index).startsWith("D")) {
+                deletedFiles.add(path);
+            } else {
+                changedFiles.add(path);
+            }
+        }
+        for (final String path : git(syncDirectory, "ls-files", "--others", "--exclude-standard", "-z")) {
+            // e.g. the element results of the exports, which are untracked unless the user ignores them
+            if (!SyncDirectoryLayout.isIgnoredPath(path)) {
+                changedFiles.add(SyncDirectoryLayout.normalizePath(path));
+            }
+        }
+        return new SyncDirectoryChanges(changedFiles, deletedFiles);
+    }
+
+    @NotNull
+    private static List<String> git(@NotNull final Path directory, @NotNull final String... arguments) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        final Path errorFile = Files.createTempFile("fs-cli-git", ".log");
+        try {
+            final Process process = new ProcessBuilder(command)
+                    .directory(directory.toFile())
+                    .redirectError(errorFile.toFile())
+                    .start();
+            final String output;
+            try (InputStream inputStream = process.getInputStream()) {
+                output = readFully(inputStream);
+            }
+            final int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                final String error = new String(Files.readAllBytes(errorFile), StandardCharsets.UTF_8).trim();
+                throw new IOException("'" + String.join(" ", command) + "' failed with exit code " + exitCode + ": " + error);
+            }
+            final List<String> result = new ArrayList<>();
+            for (final String value : output.split("\0")) {
+                if (!value.isEmpty()) {
+                    result.add(value);
+                }
+            }
+            return result;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for git", e);
+        } finally {
+            Files.deleteIfExists(errorFile);
+        }
+    }
+
+    @NotNull
+    private static String readFully(@NotNull final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            outputStream.write(buffer, 0, read);
+        }
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the sync dir relative paths of the added and modified files.
+     *
+     * @return the changed files, sorted
+     */
+    @NotNull
+    public Set<String> getChangedFiles() {
+        return _changedFiles;
+    }
+
+    /**
+     * Returns the sync dir relative paths of the deleted files.
+     *
+     * @return the deleted files, sorted
+     */
+    @NotNull
+    public Set<String> getDeletedFiles() {
+        return _deletedFiles;
+    }
+
+    /**
+     * Returns whether no file has changed.
+     *
+     * @return whether no file has changed
+     */
+    public boolean isEmpty() {
+        return _changedFiles.isEmpty() && _deletedFiles.isEmpty();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.util.FileUtil;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A persistent, memory-mapped index of the store elements of a synchronization directory.
+ * <p>
+ * Elements can be looked up by uid and by path in constant time: the file contains two open addressing hash tables
+ * that point to the entries, so a lookup reads a few bytes of the mapped file and decodes only the matching entry.
+ * Index files are immutable; updates write a new file which replaces the old one.
+ * <p>
+ * File format (big endian): {@code magic, version, entryCount, tableSize}, the uid table and the path table with
+ * {@code tableSize} entry offsets each (0 marks an empty slot), followed by the entries. Every entry consists of the
+ * store type ordinal, the uid mapping ordinal (-1 without uid), the node id, the uid key, the path key and the path;
+ * strings are stored as length-prefixed UTF-8.
+ *
+ * @author e-Spirit AG
+ * @see SyncDirectoryIndexes
+ */
+public final class SyncDirectoryIndex {
+
+    private static final int MAGIC = 0x46534958; // "FSIX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int MIN_TABLE_SIZE = 16;
+
+    private final ByteBuffer _buffer;
+    private final int _entryCount;
+    private final int _tableSize;
+    private final int _uidTableOffset;
+    private final int _pathTableOffset;
+    private final int _entriesOffset;
+
+    private SyncDirectoryIndex(@NotNull final ByteBuffer buffer) throws IOException {
+        _buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("No sync dir index file.");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported sync dir index version " + buffer.getInt(Integer.BYTES) + '.');
+        }
+        _entryCount = buffer.getInt(2 * Integer.BYTES);
+        _tableSize = buffer.getInt(3 * Integer.BYTES);
+        if (Integer.bitCount(_tableSize) != 1) {
+            throw new IOException("Corrupt sync dir index: invalid table size " + _tableSize + '.');
+        }
+        _uidTableOffset = HEADER_SIZE;
+        _pathTableOffset = _uidTableOffset + _tableSize * Integer.BYTES;
+        _entriesOffset = _pathTableOffset + _tableSize * Integer.BYTES;
+        if (_entriesOffset > buffer.capacity()) {
+            throw new IOException("Corrupt sync dir index: file is truncated.");
+        }
+    }
+
+    /**
+     * Maps the given index file into memory.
+     *
+     * @param file the index file
+     * @return the index
+     * @throws IOException if the file can not be read or is no valid index file
+     */
+    @NotNull
+    public static SyncDirectoryIndex open(@NotNull final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SyncDirectoryIndex(buffer);
+        }
+    }
+
+    /**
+     * Reads the given index file completely into the heap, without memory-mapping it. Used for updates, which replace
+     * the file afterwards (some platforms refuse to replace a mapped file).
+     *
+     * @param file the index file
+     * @return the index
+     * @throws IOException if the file can not be read or is no valid index file
+     */
+    @NotNull
+    static SyncDirectoryIndex read(@NotNull final Path file) throws IOException {
+        return new SyncDirectoryIndex(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    /**
+     * Writes a new index file with the given entries. The file is replaced atomically. Of several entries with the
+     * same path only the last one is kept; of several entries with the same uid the first one is found by uid.
+     *
+     * @param file    the index file
+     * @param entries the entries of the index
+     * @throws IOException if the file can not be written
+     */
+    public static void write(@NotNull final Path file, @NotNull final Collection<IndexEntry> entries) throws IOException {
+        final Map<String, IndexEntry> entriesByPath = new LinkedHashMap<>();
+        for (final IndexEntry entry : entries) {
+            entriesByPath.put(SyncDirectoryLayout.toPathKey(entry.getPath()), entry);
+        }
+        final int tableSize = getTableSize(entriesByPath.size());
+        final int[] uidTable = new int[tableSize];
+        final int[] pathTable = new int[tableSize];
+        final Set<String> uidKeys = new HashSet<>();
+        final List<byte[]> encodedEntries = new ArrayList<>(entriesByPath.size());
+        int offset = HEADER_SIZE + 2 * tableSize * Integer.BYTES;
+        for (final Map.Entry<String, IndexEntry> pathEntry : entriesByPath.entrySet()) {
+            final IndexEntry entry = pathEntry.getValue();
+            final byte[] uidKey = encode(entry.getUidKey());
+            final byte[] pathKey = encode(pathEntry.getKey());
+            final byte[] path = encode(entry.getPath());
+            final ByteBuffer encoded = ByteBuffer.allocate(2 + Long.BYTES + 3 * Short.BYTES + uidKey.length + pathKey.length + path.length);
+            encoded.put((byte) entry.getStoreType().ordinal());
+            encoded.put((byte) (entry.getUidMapping() == null ? -1 : entry.getUidMapping().ordinal()));
+            encoded.putLong(entry.getId());
+            putString(encoded, uidKey);
+            putString(encoded, pathKey);
+            putString(encoded, path);
+            encodedEntries.add(encoded.array());
+            if (uidKey.length > 0 && uidKeys.add(entry.getUidKey())) {
+                insert(uidTable, entry.getUidKey(), offset);
+            }
+            insert(pathTable, pathEntry.getKey(), offset);
+            offset += encoded.capacity();
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(offset);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(entriesByPath.size()).putInt(tableSize);
+        for (final int slot : uidTable) {
+            buffer.putInt(slot);
+        }
+        for (final int slot : pathTable) {
+            buffer.putInt(slot);
+        }
+        for (final byte[] encodedEntry : encodedEntries) {
+            buffer.put(encodedEntry);
+        }
+
+        FileUtil.writeBytesAtomically(file, outputStream -> outputStream.write(buffer.array()));
+    }
+
+    /**
+     * Returns the number of entries of this index.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return _entryCount;
+    }
+
+    /**
+     * Looks up the element with the given uid.
+     *
+     * @param uidMapping the uid mapping of the element
+     * @param uid        the uid of the element
+     * @return the entry or {@code null}, if the uid is not contained in the index
+     */
+    @Nullable
+    public IndexEntry getByUid(@NotNull final UidMapping uidMapping, @NotNull final String uid) {
+        return lookup(_uidTableOffset, IndexEntry.toUidKey(uidMapping, uid), 0);
+    }
+
+    /**
+     * Looks up the element with the given path. The path may be sync dir relative (e.g. {@code PageStore/folder/page})
+     * or an element path (e.g. {@code /pagestore/folder/page}); paths are case-insensitive.
+     *
+     * @param path the path of the element
+     * @return the entry or {@code null}, if the path is not contained in the index
+     */
+    @Nullable
+    public IndexEntry getByPath(@NotNull final String path) {
+        return lookup(_pathTableOffset, SyncDirectoryLayout.toPathKey(path), 1);
+    }
+
+    /**
+     * Passes all entries of this index to the given consumer, in the order they were written.
+     *
+     * @param consumer the consumer of the entries
+     */
+    public void forEach(@NotNull final Consumer<IndexEntry> consumer) {
+        int offset = _entriesOffset;
+        for (int index = 0; index < _entryCount; index++) {
+            consumer.accept(decode(offset));
+            offset = skipEntry(offset);
+        }
+    }
+
+    /**
+     * Returns all entries of this index.
+     *
+     * @return the entries
+     */
+    @NotNull
+    public List<IndexEntry> getEntries() {
+        final List<IndexEntry> entries = new ArrayList<>(_entryCount);
+        forEach(entries::add);
+        return entries;
+    }
+
+    @Nullable
+    private IndexEntry lookup(final int tableOffset, @NotNull final String key, final int keyIndex) {
+        final byte[] encodedKey = key.getBytes(StandardCharsets.UTF_8);
+        final int mask = _tableSize - 1;
+        int slot = hash(key) & mask;
+        for (int probe = 0; probe < _tableSize; probe++) {
+            final int entryOffset = _buffer.getInt(tableOffset + slot * Integer.BYTES);
+            if (entryOffset == 0) {
+                return null;
+            }
+            if (keyEquals(getStringOffset(entryOffset, keyIndex), encodedKey)) {
+                return decode(entryOffset);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private boolean keyEquals(final int stringOffset, @NotNull final byte[] key) {
+        final int length = Short.toUnsignedInt(_buffer.getShort(stringOffset));
+        if (length != key.length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (_buffer.get(stringOffset + Short.BYTES + index) != key[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the offset of the string with the given index (0: uid key, 1: path key, 2: path) of an entry.
+     */
+    private int getStringOffset(final int entryOffset, final int stringIndex) {
+        int offset = entryOffset + 2 + Long.BYTES;
+        for (int index = 0; index < stringIndex; index++) {
+            offset += Short.BYTES + Short.toUnsignedInt(_buffer.getShort(offset));
+        }
+        return offset;
+    }
+
+    private int skipEntry(final int entryOffset) {
+        final int pathOffset = getStringOffset(entryOffset, 2);
+        return pathOffset + Short.BYTES + Short.toUnsignedInt(_buffer.getShort(pathOffset));
+    }
+
+    @NotNull
+    private IndexEntry decode(final int entryOffset) {
+        final Store.Type storeType = Store.Type.values()[_buffer.get(entryOffset)];
+        final byte uidMappingOrdinal = _buffer.get(entryOffset + 1);
+        final UidMapping uidMapping = uidMappingOrdinal < 0 ? null : UidMapping.values()[uidMappingOrdinal];
+        final long id = _buffer.getLong(entryOffset + 2);
+        final String uidKey = getString(getStringOffset(entryOffset, 0));
+        final String path = getString(getStringOffset(entryOffset, 2));
+        final String uid = uidKey.isEmpty() ? null : uidKey.substring(uidKey.indexOf(':') + 1);
+        return new IndexEntry(storeType, uidMapping, uid, path, id);
+    }
+
+    @NotNull
+    private String getString(final int offset) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(_buffer.getShort(offset))];
+        final ByteBuffer duplicate = _buffer.duplicate();
+        duplicate.position(offset + Short.BYTES);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int getTableSize(final int entryCount) {
+        // load factor of at most 0.5 keeps the probe sequences short
+        int tableSize = MIN_TABLE_SIZE;
+        while (tableSize < entryCount * 2) {
+            tableSize <<= 1;
+        }
+        return tableSize;
+    }
+
+    private static void insert(@NotNull final int[] table, @NotNull final String key, final int entryOffset) {
+        final int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entryOffset;
+    }
+
+    private static int hash(@NotNull final String key) {
+        final int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    @NotNull
+    private static byte[] encode(@Nullable final String value) {
+        final byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Value too long for the sync dir index: " + value);
+        }
+        return bytes;
+    }
+
+    private static void putString(@NotNull final ByteBuffer buffer, @NotNull final byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+import com.espirit.moddev.util.FileUtil;
+
+import de.espirit.common.util.Pair;
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.store.access.nexport.ElementExportInfo;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import de.espirit.firstspirit.store.access.nexport.io.ExportInfoFileHandle;
+import de.espirit.firstspirit.store.access.nexport.operations.ExportOperation;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates, locates and updates the {@link SyncDirectoryIndex} of synchronization directories.
+ * <p>
+ * The index of a sync dir is machine-local data and is kept in the fs-cli directory of the user, so the sync dir
+ * itself stays untouched. Next to every index a plain text completion file with one identifier per line (e.g.
+ * {@code pagetemplate:default} or {@code path:/PageStore/folder}) is written, which shell completion scripts can read
+ * without starting a jvm. The {@link SyncDirectoryManifest manifest} of the sync dir as of its last import or export
+ * and the {@link ImportCheckpoint checkpoint} of a batched import are kept there as well. The manifest is only
+ * maintained for sync dirs that use it, see {@link #updateManifestIfExists(Path)}.
+ *
+ * @author e-Spirit AG
+ */
+public enum SyncDirectoryIndexes {
+    ;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyncDirectoryIndexes.class);
+
+    /**
+     * Name of the directory with the index files in the fs-cli directory of the user.
+     */
+    public static final String INDEX_DIRECTORY = "index";
+
+    private static final String INDEX_FILE_SUFFIX = ".idx";
+    private static final String COMPLETION_FILE_SUFFIX = ".completion";
+    private static final String MANIFEST_FILE_SUFFIX = ".manifest";
+    private static final String CHECKPOINT_FILE_SUFFIX = ".checkpoint";
+
+    /**
+     * Returns the index file of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the index file, which may not exist
+     */
+    @NotNull
+    public static Path getIndexFile(@NotNull final Path syncDirectory) {
+        return CliConstants.getFsCliHomeDirectory().resolve(INDEX_DIRECTORY).resolve(getIndexName(syncDirectory) + INDEX_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the completion file of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the completion file, which may not exist
+     */
+    @NotNull
+    public static Path getCompletionFile(@NotNull final Path syncDirectory) {
+        return CliConstants.getFsCliHomeDirectory().resolve(INDEX_DIRECTORY).resolve(getIndexName(syncDirectory) + COMPLETION_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the {@link SyncDirectoryManifest manifest} file of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the manifest file, which may not exist
+     */
+    @NotNull
+    public static Path getManifestFile(@NotNull final Path syncDirectory) {
+        return CliConstants.getFsCliHomeDirectory().resolve(INDEX_DIRECTORY).resolve(getIndexName(syncDirectory) + MANIFEST_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the {@link ImportCheckpoint checkpoint} file of a batched import of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the checkpoint file, which may not exist
+     */
+    @NotNull
+    public static Path getCheckpointFile(@NotNull final Path syncDirectory) {
+        return CliConstants.getFsCliHomeDirectory().resolve(INDEX_DIRECTORY).resolve(getIndexName(syncDirectory) + CHECKPOINT_FILE_SUFFIX);
+    }
+
+    /**
+     * Reads the manifest of the given sync dir as of its last import or export.
+     *
+     * @param syncDirectory the sync dir
+     * @return the manifest or {@code null}, if the sync dir has no (valid) manifest
+     */
+    @Nullable
+    public static SyncDirectoryManifest readManifest(@NotNull final Path syncDirectory) {
+        final Path manifestFile = getManifestFile(syncDirectory);
+        if (!Files.isRegularFile(manifestFile)) {
+            return null;
+        }
+        try {
+            return SyncDirectoryManifest.read(manifestFile);
+        } catch (final IOException e) {
+            LOGGER.debug("Ignoring invalid sync dir manifest '" + manifestFile + "'.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the current manifest of the given sync dir. Only files that changed since the previous manifest are
+     * hashed. Failures are logged only, because the manifest is optional.
+     *
+     * @param syncDirectory the sync dir
+     */
+    public static void updateManifest(@NotNull final Path syncDirectory) {
+        try {
+            final long start = System.currentTimeMillis();
+            final SyncDirectoryManifest manifest = SyncDirectoryManifest.scan(syncDirectory, readManifest(syncDirectory));
+            manifest.write(getManifestFile(syncDirectory));
+            LOGGER.debug("Wrote sync dir manifest with {} files in {} ms.", manifest.size(), System.currentTimeMillis() - start);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Failed to update the sync dir manifest of '{}': {}", syncDirectory, e.getMessage());
+            LOGGER.debug("Failed to update the sync dir manifest.", e);
+        }
+    }
+
+    /**
+     * {@link #updateManifest(Path) Updates} the manifest of the given sync dir, if it has one. The manifest is written
+     * by the commands that use it, e.g. by an import with {@code --changed-since}, and is kept up to date by every
+     * import and export afterwards. Other sync dirs are not walked and hashed.
+     *
+     * @param syncDirectory the sync dir
+     */
+    public static void updateManifestIfExists(@NotNull final Path syncDirectory) {
+        if (Files.isRegularFile(getManifestFile(syncDirectory))) {
+            updateManifest(syncDirectory);
+        }
+    }
+
+    /**
+     * Opens the index of the given sync dir, if it has been built before.
+     *
+     * @param syncDirectory the sync dir
+     * @return the index or {@code null}, if the sync dir has no (valid) index
+     */
+    @Nullable
+    public static SyncDirectoryIndex openIfExists(@NotNull final Path syncDirectory) {
+        final Path indexFile = getIndexFile(syncDirectory);
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try {
+            return SyncDirectoryIndex.open(indexFile);
+        } catch (final IOException e) {
+            LOGGER.debug("Ignoring invalid sync dir index '" + indexFile + "'.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Builds the index of the given sync dir from scratch by reading the root element of every
+     * {@link SyncDirectoryLayout#STORE_ELEMENT_FILE} in parallel.
+     *
+     * @param syncDirectory the sync dir
+     * @return the new index
+     * @throws IOException if the sync dir can not be read or the index can not be written
+     */
+    @NotNull
+    public static SyncDirectoryIndex rebuild(@NotNull final Path syncDirectory) throws IOException {
+        final List<IndexEntry> entries = scan(syncDirectory);
+        write(syncDirectory, entries);
+        return SyncDirectoryIndex.open(getIndexFile(syncDirectory));
+    }
+
+    /**
+     * Updates the index of the given sync dir with the elements of an export into that sync dir, if the index has been
+     * built with {@code index build} before. Sync dirs without an index are left alone, so exports leave no index
+     * files behind. Failures are logged only, because the index is optional.
+     *
+     * @param syncDirectory the sync dir the export was performed into
+     * @param exportResult  the result of the export
+     */
+    public static void updateAfterExport(@NotNull final Path syncDirectory, @Nullable final ExportOperation.Result exportResult) {
+        if (exportResult == null) {
+            return;
+        }
+        try {
+            final Path indexFile = getIndexFile(syncDirectory);
+            if (!Files.isRegularFile(indexFile)) {
+                return;
+            }
+            final Map<String, IndexEntry> entries = new LinkedHashMap<>();
+            for (final IndexEntry entry : SyncDirectoryIndex.read(indexFile).getEntries()) {
+                entries.put(SyncDirectoryLayout.toPathKey(entry.getPath()), entry);
+            }
+            for (final ElementExportInfo info : getElements(exportResult.getDeletedElements())) {
+                removeElement(entries, info.getDeletedFileHandles());
+            }
+            for (final ElementExportInfo info : getElements(exportResult.getMovedElements())) {
+                for (final Pair<ExportInfoFileHandle, ExportInfoFileHandle> movedFileHandles : info.getMovedFileHandles()) {
+                    if (isStoreElementFile(movedFileHandles.getKey())) {
+                        entries.remove(SyncDirectoryLayout.toPathKey(getDirectory(movedFileHandles.getKey())));
+                    }
+                }
+                final List<ExportInfoFileHandle> targetFileHandles = new ArrayList<>();
+                for (final Pair<ExportInfoFileHandle, ExportInfoFileHandle> movedFileHandles : info.getMovedFileHandles()) {
+                    targetFileHandles.add(movedFileHandles.getValue());
+                }
+                putElement(entries, info.getElementInfo(), targetFileHandles);
+            }
+            for (final ElementExportInfo info : getElements(exportResult.getCreatedElements())) {
+                putElement(entries, info.getElementInfo(), info.getCreatedFileHandles());
+            }
+            for (final ElementExportInfo info : getElements(exportResult.getUpdatedElements())) {
+                final List<ExportInfoFileHandle> fileHandles = new ArrayList<>(info.getCreatedFileHandles());
+                fileHandles.addAll(info.getUpdatedFileHandles());
+                putElement(entries, info.getElementInfo(), fileHandles);
+            }
+            write(syncDirectory, entries.values());
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Failed to update the sync dir index of '{}': {}", syncDirectory, e.getMessage());
+            LOGGER.debug("Failed to update the sync dir index.", e);
+        }
+    }
+
+    /**
+     * Updates the node ids in the index of the given sync dir after an import of that sync dir, because the import
+     * may create elements with new ids. Created elements that are not indexed yet, e.g. of files added by a git pull,
+     * are added by reading their store element files. Failures are logged only, because the index is optional.
+     *
+     * @param syncDirectory the imported sync dir
+     * @param importResult  the result of the import
+     */
+    public static void updateAfterImport(@NotNull final Path syncDirectory, @Nullable final ImportOperation.Result importResult) {
+        if (importResult == null) {
+            return;
+        }
+        final Path indexFile = getIndexFile(syncDirectory);
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try {
+            final List<IndexEntry> entries = SyncDirectoryIndex.read(indexFile).getEntries();
+            final Map<String, Integer> positionsByUid = new HashMap<>();
+            for (int index = 0; index < entries.size(); index++) {
+                final String uidKey = entries.get(index).getUidKey();
+                if (uidKey != null) {
+                    positionsByUid.putIfAbsent(uidKey, index);
+                }
+            }
+            boolean modified = false;
+            // the ids of created elements that are not indexed by their uid
+            final Map<String, Long> unindexedIds = new HashMap<>();
+            boolean unindexed = false;
+            for (final BasicElementInfo element : importResult.getCreatedElements()) {
+                final String uidKey = getUidKey(element);
+                final Integer position = uidKey == null ? null : positionsByUid.get(uidKey);
+                if (position == null) {
+                    unindexed = true;
+                    if (uidKey != null) {
+                        unindexedIds.put(uidKey, element.getNodeId());
+                    }
+                } else {
+                    modified |= updateId(entries, position, element);
+                }
+            }
+            for (final BasicElementInfo element : importResult.getUpdatedElements()) {
+                final String uidKey = getUidKey(element);
+                final Integer position = uidKey == null ? null : positionsByUid.get(uidKey);
+                if (position != null) {
+                    modified |= updateId(entries, position, element);
+                }
+            }
+            if (unindexed) {
+                modified |= addUnindexedElements(syncDirectory, entries, unindexedIds);
+            }
+            if (modified) {
+                write(syncDirectory, entries);
+            }
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Failed to update the sync dir index of '{}': {}", syncDirectory, e.getMessage());
+            LOGGER.debug("Failed to update the sync dir index.", e);
+        }
+    }
+
+    @Nullable
+    private static String getUidKey(@NotNull final BasicElementInfo element) {
+        final UidMapping uidMapping = SyncDirectoryLayout.getUidMapping(element.getNodeTag());
+        return uidMapping == null || element.getUid() == null ? null : IndexEntry.toUidKey(uidMapping, element.getUid());
+    }
+
+    private static boolean updateId(@NotNull final List<IndexEntry> entries, final int position, @NotNull final BasicElementInfo element) {
+        if (entries.get(position).getId() == element.getNodeId()) {
+            return false;
+        }
+        entries.set(position, entries.get(position).withId(element.getNodeId()));
+        return true;
+    }
+
+    /**
+     * Adds the elements of the sync dir whose directories are not indexed yet. Their ids are taken from the given
+     * created elements, the ids of the store element files are only used for elements without a uid.
+     *
+     * @return whether elements have been added
+     */
+    private static boolean addUnindexedElements(@NotNull final Path syncDirectory, @NotNull final List<IndexEntry> entries, @NotNull final Map<String, Long> createdIds) throws IOException {
+        final Set<String> indexedPaths = new HashSet<>();
+        for (final IndexEntry entry : entries) {
+            indexedPaths.add(SyncDirectoryLayout.toPathKey(entry.getPath()));
+        }
+        final List<IndexEntry> addedEntries = scan(syncDirectory, indexedPaths);
+        for (final IndexEntry entry : addedEntries) {
+            final Long id = entry.getUidKey() == null ? null : createdIds.get(entry.getUidKey());
+            entries.add(id == null ? entry : entry.withId(id));
+        }
+        return !addedEntries.isEmpty();
+    }
+
+    /**
+     * Reads the index entries of all elements of the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the entries
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    static List<IndexEntry> scan(@NotNull final Path syncDirectory) throws IOException {
+        return scan(syncDirectory, Collections.emptySet());
+    }
+
+    /**
+     * Reads the index entries of the elements of the given sync dir, except for the given element directories.
+     *
+     * @param syncDirectory the sync dir
+     * @param skippedPaths  the {@link SyncDirectoryLayout#toPathKey(String) keys} of the element directories to skip
+     * @return the entries
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    static List<IndexEntry> scan(@NotNull final Path syncDirectory, @NotNull final Set<String> skippedPaths) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        Files.walkFileTree(syncDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attributes) {
+                return SyncDirectoryLayout.isIgnoredPath(syncDirectory, dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                if (SyncDirectoryLayout.STORE_ELEMENT_FILE.equals(file.getFileName().toString())
+                        && !skippedPaths.contains(SyncDirectoryLayout.toPathKey(SyncDirectoryLayout.toRelativePath(syncDirectory, file.getParent())))) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files.parallelStream()
+                .map(file -> readEntry(syncDirectory, file))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Nullable
+    private static IndexEntry readEntry(@NotNull final Path syncDirectory, @NotNull final Path file) {
+        final String path = SyncDirectoryLayout.toRelativePath(syncDirectory, file.getParent());
+        final int separatorIndex = path.indexOf(SyncDirectoryLayout.SEPARATOR);
+        final Store.Type storeType = SyncDirectoryLayout.getStoreType(separatorIndex < 0 ? path : path.substring(0, separatorIndex));
+        if (storeType == null) {
+            return null;
+        }
+        try {
+            final StoreElementFile storeElementFile = StoreElementFile.read(file);
+            final String uid = storeElementFile.getUid();
+            final UidMapping uidMapping = uid == null ? null : SyncDirectoryLayout.getUidMapping(storeElementFile.getTag());
+            return new IndexEntry(storeType, uidMapping, uid, path, storeElementFile.getId());
+        } catch (final IOException e) {
+            LOGGER.debug("Skipping unreadable store element file '{}': {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(@NotNull final Path syncDirectory, @NotNull final Collection<IndexEntry> entries) throws IOException {
+        final Path indexFile = getIndexFile(syncDirectory);
+        SyncDirectoryIndex.write(indexFile, entries);
+        writeCompletionFile(getCompletionFile(syncDirectory), entries);
+        LOGGER.debug("Wrote sync dir index '{}' with {} entries.", indexFile, entries.size());
+    }
+
+    private static void writeCompletionFile(@NotNull final Path completionFile, @NotNull final Collection<IndexEntry> entries) throws IOException {
+        FileUtil.writeAtomically(completionFile, writer -> {
+            for (final IndexEntry entry : entries) {
+                if (entry.getUidMapping() != null && entry.getUid() != null) {
+                    writer.write(entry.getUidMapping().getPrefix() + ':' + entry.getUid());
+                    writer.write(System.lineSeparator());
+                }
+                writer.write("path:/" + entry.getPath());
+                writer.write(System.lineSeparator());
+            }
+        });
+    }
+
+    @NotNull
+    private static List<ElementExportInfo> getElements(@Nullable final Collection<? extends ExportInfo> exportInfos) {
+        final List<ElementExportInfo> elements = new ArrayList<>();
+        if (exportInfos != null) {
+            for (final ExportInfo exportInfo : exportInfos) {
+                if (exportInfo instanceof ElementExportInfo) {
+                    elements.add((ElementExportInfo) exportInfo);
+                }
+            }
+        }
+        return elements;
+    }
+
+    private static void putElement(@NotNull final Map<String, IndexEntry> entries, @NotNull final BasicElementInfo elementInfo, @NotNull final Collection<ExportInfoFileHandle> fileHandles) {
+        final String path = getElementDirectory(fileHandles);
+        if (path == null) {
+            return;
+        }
+        final String uid = elementInfo.getUid();
+        final UidMapping uidMapping = uid == null ? null : SyncDirectoryLayout.getUidMapping(elementInfo.getNodeTag());
+        final IndexEntry entry = new IndexEntry(elementInfo.getStoreType(), uidMapping, uid, path, elementInfo.getNodeId());
+        entries.put(SyncDirectoryLayout.toPathKey(entry.getPath()), entry);
+    }
+
+    private static void removeElement(@NotNull final Map<String, IndexEntry> entries, @NotNull final Collection<ExportInfoFileHandle> fileHandles) {
+        final String path = getElementDirectory(fileHandles);
+        if (path != null) {
+            entries.remove(SyncDirectoryLayout.toPathKey(path));
+        }
+    }
+
+    /**
+     * Returns the directory of the store element file of the given file handles of an element.
+     */
+    @Nullable
+    private static String getElementDirectory(@NotNull final Collection<ExportInfoFileHandle> fileHandles) {
+        for (final ExportInfoFileHandle fileHandle : fileHandles) {
+            if (isStoreElementFile(fileHandle)) {
+                return getDirectory(fileHandle);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isStoreElementFile(@NotNull final ExportInfoFileHandle fileHandle) {
+        return SyncDirectoryLayout.STORE_ELEMENT_FILE.equals(fileHandle.getName());
+    }
+
+    @NotNull
+    private static String getDirectory(@NotNull final ExportInfoFileHandle fileHandle) {
+        final String path = SyncDirectoryLayout.normalizePath(fileHandle.getPath());
+        final int separatorIndex = path.lastIndexOf(SyncDirectoryLayout.SEPARATOR);
+        return separatorIndex < 0 ? "" : path.substring(0, separatorIndex);
+    }
+
+    @NotNull
+    private static String getIndexName(@NotNull final Path syncDirectory) {
+        final String normalizedPath = syncDirectory.toAbsolutePath().normalize().toString();
+        try {
+            return toHexString(MessageDigest.getInstance("SHA-1").digest(normalizedPath.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException e) {
+            // every java platform supports SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    static String toHexString(@NotNull final byte[] digest) {
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (final byte value : digest) {
+            hex.append(String.format("%02x", value));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Knowledge about the file layout of a synchronization directory as written by the FirstSpirit export operation.
+ *
+ * @author e-Spirit AG
+ */
+public enum SyncDirectoryLayout {
+    ;
+
+    /**
+     * Name of the file that describes a store element in its directory.
+     */
+    public static final String STORE_ELEMENT_FILE = "StoreElement.xml";
+
+    /**
+     * Name of the directory with the FirstSpirit metadata of the export (e.g. {@code .FirstSpirit/Import*.txt}).
+     */
+    public static final String FIRSTSPIRIT_DIRECTORY = ".FirstSpirit";
+
+    /**
+     * Name of the directory with the data the cli keeps in the sync dir (e.g. the element results of the exports).
+     */
+    public static final String CLI_DIRECTORY = ".fs-cli";
+
+    /**
+     * Separator of the sync dir relative paths used by the cli.
+     */
+    public static final char SEPARATOR = '/';
+
+    private static final Map<String, UidMapping> TAG_MAPPINGS = new HashMap<>();
+
+    static {
+        for (final UidMapping uidMapping : UidMapping.values()) {
+            TAG_MAPPINGS.put(uidMapping.name(), uidMapping);
+        }
+        // tags that differ from the uid mapping names; page and section templates share the same uid namespace
+        TAG_MAPPINGS.put("TEMPLATE", UidMapping.PAGETEMPLATE);
+        TAG_MAPPINGS.put("MEDIUM", UidMapping.MEDIA);
+        TAG_MAPPINGS.put("MEDIANODE", UidMapping.MEDIAFOLDER);
+    }
+
+    /**
+     * Returns the store type of the given store directory name (e.g. {@code PageStore}).
+     *
+     * @param directoryName the name of a top level directory of the sync dir
+     * @return the store type or {@code null}, if the directory is no store directory
+     */
+    @Nullable
+    public static Store.Type getStoreType(@NotNull final String directoryName) {
+        final String upperCaseName = directoryName.toUpperCase(Locale.UK);
+        for (final Store.Type storeType : Store.Type.values()) {
+            if (storeType.name().equals(upperCaseName)) {
+                return storeType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the uid mapping of the given element tag (e.g. {@code PAGEREF} of a {@link #STORE_ELEMENT_FILE}).
+     *
+     * @param tag the tag of the element
+     * @return the uid mapping or {@code null}, if elements with this tag are not addressable by uid
+     */
+    @Nullable
+    public static UidMapping getUidMapping(@Nullable final String tag) {
+        return tag == null ? null : TAG_MAPPINGS.get(tag.toUpperCase(Locale.UK));
+    }
+
+    /**
+     * Returns whether the given file or directory belongs to the metadata of a version control system, like
+     * {@code .git}, that may be part of the sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @param file          a file or directory in the sync dir
+     * @return whether the file belongs to a version control system
+     */
+    public static boolean isVersionControlPath(@NotNull final Path syncDirectory, @NotNull final Path file) {
+        for (final Path segment : syncDirectory.relativize(file)) {
+            final String name = segment.toString();
+            if (".git".equals(name) || ".svn".equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given file or directory belongs to the {@link #CLI_DIRECTORY data of the cli} in the sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @param file          a file or directory in the sync dir
+     * @return whether the file belongs to the data of the cli
+     */
+    public static boolean isCliPath(@NotNull final Path syncDirectory, @NotNull final Path file) {
+        final Path relativePath = syncDirectory.relativize(file);
+        return relativePath.getNameCount() > 0 && CLI_DIRECTORY.equals(relativePath.getName(0).toString());
+    }
+
+    /**
+     * Returns whether the given file or directory is ignored by everything that reads the sync dir, because it belongs
+     * to a {@link #isVersionControlPath(Path, Path) version control system} or to the {@link #isCliPath(Path, Path)
+     * data of the cli}. Walkers of the sync dir skip the whole subtree of an ignored directory.
+     *
+     * @param syncDirectory the sync dir
+     * @param file          a file or directory in the sync dir
+     * @return whether the file is ignored
+     */
+    public static boolean isIgnoredPath(@NotNull final Path syncDirectory, @NotNull final Path file) {
+        return isVersionControlPath(syncDirectory, file) || isCliPath(syncDirectory, file);
+    }
+
+    /**
+     * Returns whether the file or directory of the given sync dir relative path is {@link #isIgnoredPath(Path, Path)
+     * ignored}, e.g. a path reported by git.
+     *
+     * @param path the sync dir relative path, with slashes or backslashes as separators
+     * @return whether the file is ignored
+     */
+    public static boolean isIgnoredPath(@NotNull final String path) {
+        final String[] segments = normalizePath(path).split(String.valueOf(SEPARATOR));
+        if (CLI_DIRECTORY.equals(segments[0])) {
+            return true;
+        }
+        for (final String segment : segments) {
+            if (".git".equals(segment) || ".svn".equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the sync dir relative path of the given file with {@link #SEPARATOR} as separator.
+     *
+     * @param syncDirectory the sync dir
+     * @param file          a file in the sync dir
+     * @return the relative path
+     */
+    @NotNull
+    public static String toRelativePath(@NotNull final Path syncDirectory, @NotNull final Path file) {
+        return normalizePath(syncDirectory.relativize(file).toString());
+    }
+
+    /**
+     * Normalizes a sync dir relative path: the path is separated by {@link #SEPARATOR} and has no leading or trailing separator.
+     *
+     * @param path the path to normalize
+     * @return the normalized path
+     */
+    @NotNull
+    public static String normalizePath(@NotNull final String path) {
+        final String normalized = path.replace('\\', SEPARATOR);
+        int start = 0;
+        int end = normalized.length();
+        while (start < end && normalized.charAt(start) == SEPARATOR) {
+            start++;
+        }
+        while (end > start && normalized.charAt(end - 1) == SEPARATOR) {
+            end--;
+        }
+        return normalized.substring(start, end);
+    }
+
+    /**
+     * Returns the lookup key of a sync dir relative path or an element path like {@code /PageStore/folder/page}.
+     * Paths are compared case-insensitively, because store names differ in case between element paths and the sync
+     * dir (e.g. {@code templatestore} and {@code TemplateStore}).
+     *
+     * @param path the path
+     * @return the path key
+     */
+    @NotNull
+    public static String toPathKey(@NotNull final String path) {
+        return normalizePath(path).toLowerCase(Locale.UK);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.util.FileUtil;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The content hashes of all files of a synchronization directory at a point in time, e.g. after the last import. Two
+ * manifests of the same sync dir tell which files have changed in between.
+ * <p>
+ * The manifest is a text file with one line per file: the SHA-1 hash, the size, the modification time and the sync dir
+ * relative path, separated by tabs.
+ *
+ * @author e-Spirit AG
+ */
+public final class SyncDirectoryManifest {
+
+    private static final String HEADER = "# fs-cli sync dir manifest 1";
+    private static final String SEPARATOR = "\t";
+    private static final int FIELD_COUNT = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, FileState> _files;
+
+    private SyncDirectoryManifest(@NotNull final Map<String, FileState> files) {
+        _files = Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Hashes all files of the given sync dir in parallel. Files whose size and modification time match the given
+     * previous manifest are not read again. {@link SyncDirectoryLayout#isIgnoredPath(Path, Path) Ignored} directories
+     * like {@code .git} are not walked at all.
+     *
+     * @param syncDirectory the sync dir
+     * @param previous      the previous manifest of the sync dir or {@code null}
+     * @return the manifest
+     * @throws IOException if the sync dir can not be read
+     */
+    @NotNull
+    public static SyncDirectoryManifest scan(@NotNull final Path syncDirectory, @Nullable final SyncDirectoryManifest previous) throws IOException {
+        final Map<Path, BasicFileAttributes> files = new HashMap<>();
+        Files.walkFileTree(syncDirectory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attributes) {
+                return SyncDirectoryLayout.isIgnoredPath(syncDirectory, dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    files.put(file, attributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        try {
+            final Map<String, FileState> states = new ConcurrentHashMap<>();
+            files.entrySet().parallelStream().forEach(entry -> {
+                final String path = SyncDirectoryLayout.toRelativePath(syncDirectory, entry.getKey());
+                states.put(path, getState(entry.getKey(), entry.getValue(), previous == null ? null : previous._files.get(path)));
+            });
+            return new SyncDirectoryManifest(new TreeMap<>(states));
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads a manifest file.
+     *
+     * @param file the manifest file
+     * @return the manifest
+     * @throws IOException if the file can not be read or is no manifest
+     */
+    @NotNull
+    public static SyncDirectoryManifest read(@NotNull final Path file) throws IOException {
+        final Map<String, FileState> states = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("'" + file + "' is no sync dir manifest.");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split(SEPARATOR, FIELD_COUNT);
+                if (fields.length != FIELD_COUNT) {
+                    throw new IOException("Invalid line in sync dir manifest '" + file + "': " + line);
+                }
+                try {
+                    states.put(fields[3], new FileState(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Invalid line in sync dir manifest '" + file + "': " + line, e);
+                }
+            }
+        }
+        return new SyncDirectoryManifest(states);
+    }
+
+    /**
+     * Writes this manifest to the given file. The file is replaced atomically.
+     *
+     * @param file the manifest file
+     * @throws IOException if the file can not be written
+     */
+    public void write(@NotNull final Path file) throws IOException {
+        FileUtil.writeAtomically(file, writer -> {
+            writer.write(HEADER);
+            writer.write(System.lineSeparator());
+            for (final Map.Entry<String, FileState> entry : _files.entrySet()) {
+                final FileState state = entry.getValue();
+                writer.write(state._hash + SEPARATOR + state._size + SEPARATOR + state._lastModified + SEPARATOR + entry.getKey());
+                writer.write(System.lineSeparator());
+            }
+        });
+    }
+
+    /**
+     * Returns the number of files of this manifest.
+     *
+     * @return the number of files
+     */
+    public int size() {
+        return _files.size();
+    }
+
+    /**
+     * Returns the sync dir relative paths of all files of this manifest.
+     *
+     * @return the paths, sorted
+     */
+    @NotNull
+    public Set<String> getFiles() {
+        return _files.keySet();
+    }
+
+    /**
+     * Returns the hash of the content of the given file.
+     *
+     * @param path the sync dir relative path of the file
+     * @return the SHA-1 hash or {@code null}, if the file is not part of this manifest
+     */
+    @Nullable
+    public String getHash(@NotNull final String path) {
+        final FileState state = _files.get(path);
+        return state == null ? null : state._hash;
+    }
+
+    /**
+     * Returns a hash of the content of all files of this manifest. The hash only depends on the paths and contents of
+     * the files, not on their modification times, so a fresh checkout of the same commit has the same content hash.
+     *
+     * @return the SHA-1 content hash
+     */
+    @NotNull
+    public String getContentHash() {
+        final MessageDigest digest = createDigest();
+        for (final Map.Entry<String, FileState> entry : _files.entrySet()) {
+            digest.update((entry.getValue()._hash + SEPARATOR + entry.getKey() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return SyncDirectoryIndexes.toHexString(digest.digest());
+    }
+
+    /**
+     * Returns the files that have been added or modified in the given newer manifest.
+     *
+     * @param newer the newer manifest of the same sync dir
+     * @return the sync dir relative paths of the added and modified files, sorted
+     */
+    @NotNull
+    public Set<String> getChangedFiles(@NotNull final SyncDirectoryManifest newer) {
+        final Set<String> changedFiles = new TreeSet<>();
+        for (final Map.Entry<String, FileState> entry : newer._files.entrySet()) {
+            final FileState state = _files.get(entry.getKey());
+            if (state == null || !state._hash.equals(entry.getValue()._hash)) {
+                changedFiles.add(entry.getKey());
+            }
+        }
+        return changedFiles;
+    }
+
+    /**
+     * Returns the files that have been deleted in the given newer manifest.
+     *
+     * @param newer the newer manifest of the same sync dir
+     * @return the sync dir relative paths of the deleted files, sorted
+     */
+    @NotNull
+    public Set<String> getDeletedFiles(@NotNull final SyncDirectoryManifest newer) {
+        final Set<String> deletedFiles = new TreeSet<>(_files.keySet());
+        deletedFiles.removeAll(newer._files.keySet());
+        return deletedFiles;
+    }
+
+    @NotNull
+    private static FileState getState(@NotNull final Path file, @NotNull final BasicFileAttributes attributes, @Nullable final FileState previous) {
+        try {
+            final long size = attributes.size();
+            final long lastModified = attributes.lastModifiedTime().toMillis();
+            if (previous != null && previous._size == size && previous._lastModified == lastModified) {
+                return previous;
+            }
+            return new FileState(hash(file), size, lastModified);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the hash of the content of the given file, as {@link #getHash(String) stored} in manifests.
+     *
+     * @param file the file
+     * @return the SHA-1 hash
+     * @throws IOException if the file can not be read
+     */
+    @NotNull
+    public static String hash(@NotNull final Path file) throws IOException {
+        final MessageDigest digest = createDigest();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return SyncDirectoryIndexes.toHexString(digest.digest());
+    }
+
+    @NotNull
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            // every java platform supports SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return _files.equals(((SyncDirectoryManifest) o)._files);
+    }
+
+    @Override
+    public int hashCode() {
+        return _files.hashCode();
+    }
+
+    /**
+     * The state of a file in the manifest.
+     */
+    private static final class FileState {
+
+        private final String _hash;
+        private final long _size;
+        private final long _lastModified;
+
+        private FileState(@NotNull final String hash, final long size, final long lastModified) {
+            _hash = hash;
+            _size = size;
+            _lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final FileState that = (FileState) o;
+            return _size == that._size && _lastModified == that._lastModified && _hash.equals(that._hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(_hash, _size, _lastModified);
+        }
+    }
+}
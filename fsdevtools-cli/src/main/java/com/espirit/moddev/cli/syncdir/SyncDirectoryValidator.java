@@ -0,0 +1,337 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates a synchronization directory locally before it is imported, so broken files are reported before anything
+ * is sent to the server.
+ * <p>
+ * All xml files are parsed completely. Problems, which fail the import, are:
+ * <ul>
+ * <li>an xml file that is not well-formed,</li>
+ * <li>a uid used by more than one {@link SyncDirectoryLayout#STORE_ELEMENT_FILE store element file} of the same
+ * {@link UidMapping#getUidType() uid type}.</li>
+ * </ul>
+ * The following checks are heuristics, so they only result in warnings:
+ * <ul>
+ * <li>files referenced by {@code file} or {@code filename} attributes exist relative to the referencing file - the
+ * export format does not define which attributes reference files,</li>
+ * <li>the sync dir has a store directory and the {@link SyncDirectoryLayout#FIRSTSPIRIT_DIRECTORY metadata directory}
+ * exists - only its presence is checked, not its content.</li>
+ * </ul>
+ * The directory tree is walked by a {@link ForkJoinPool}, one task per directory and per chunk of files. Incremental
+ * imports {@link #validate(Path, Collection) validate} their changed files only.
+ *
+ * @author e-Spirit AG
+ */
+public class SyncDirectoryValidator {
+
+    /**
+     * Default number of parallel tasks, which is the number of available processors.
+     */
+    public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final String XML_SUFFIX = ".xml";
+    private static final int FILES_PER_TASK = 32;
+    private static final String[] FILE_REFERENCE_ATTRIBUTES = {"file", "filename"};
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = StoreElementFile.createInputFactory();
+
+    private final int _parallelism;
+
+    /**
+     * Creates a new validator.
+     *
+     * @param parallelism the number of parallel tasks
+     */
+    public SyncDirectoryValidator(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism must be greater than 0!");
+        }
+        _parallelism = parallelism;
+    }
+
+    /**
+     * Validates the given sync dir.
+     *
+     * @param syncDirectory the sync dir
+     * @return the report with all problems and warnings found
+     */
+    @NotNull
+    public ValidationReport validate(@NotNull final Path syncDirectory) {
+        final long start = System.currentTimeMillis();
+        final Validation validation = new Validation(syncDirectory.toAbsolutePath().normalize());
+        validation.checkMetadataDirectory();
+        invoke(validation.new DirectoryTask(validation._root));
+        return validation.createReport(start);
+    }
+
+    /**
+     * Validates the given xml files of the sync dir, e.g. the files changed since the last import. Other files are
+     * ignored. Uids are only compared between the given files, the sync dir as a whole is not checked.
+     *
+     * @param syncDirectory the sync dir
+     * @param files         the sync dir relative paths of the files
+     * @return the report with all problems and warnings found
+     */
+    @NotNull
+    public ValidationReport validate(@NotNull final Path syncDirectory, @NotNull final Collection<String> files) {
+        final long start = System.currentTimeMillis();
+        final Validation validation = new Validation(syncDirectory.toAbsolutePath().normalize());
+        final List<Path> xmlFiles = new ArrayList<>();
+        for (final String file : files) {
+            final Path path = validation._root.resolve(file);
+            if (isXmlFile(path) && !SyncDirectoryLayout.isIgnoredPath(validation._root, path) && Files.isRegularFile(path)) {
+                xmlFiles.add(path);
+            }
+        }
+        invoke(validation.new FilesTask(xmlFiles));
+        return validation.createReport(start);
+    }
+
+    private void invoke(@NotNull final RecursiveAction task) {
+        final ForkJoinPool pool = new ForkJoinPool(_parallelism);
+        try {
+            pool.invoke(task);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean isXmlFile(@NotNull final Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.UK).endsWith(XML_SUFFIX);
+    }
+
+    /**
+     * The state of a single validation.
+     */
+    private static final class Validation {
+
+        private final Path _root;
+        private final Queue<ValidationReport.Problem> _problems = new ConcurrentLinkedQueue<>();
+        private final Queue<ValidationReport.Problem> _warnings = new ConcurrentLinkedQueue<>();
+        private final ConcurrentMap<String, String> _pathsByUidKey = new ConcurrentHashMap<>();
+        private final AtomicInteger _fileCount = new AtomicInteger();
+
+        private Validation(@NotNull final Path root) {
+            _root = root;
+        }
+
+        @NotNull
+        private ValidationReport createReport(final long start) {
+            return new ValidationReport(_problems, _warnings, _fileCount.get(), System.currentTimeMillis() - start);
+        }
+
+        private void checkMetadataDirectory() {
+            boolean hasStoreDirectory = false;
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(_root)) {
+                for (final Path child : children) {
+                    if (Files.isDirectory(child) && SyncDirectoryLayout.getStoreType(child.getFileName().toString()) != null) {
+                        hasStoreDirectory = true;
+                    }
+                }
+            } catch (final IOException e) {
+                addProblem(_root, "can not be read: " + e.getMessage());
+                return;
+            }
+            if (!hasStoreDirectory) {
+                addWarning(_root, "contains no store directory");
+            } else if (!Files.isDirectory(_root.resolve(SyncDirectoryLayout.FIRSTSPIRIT_DIRECTORY))) {
+                addWarning(_root, "the metadata directory '" + SyncDirectoryLayout.FIRSTSPIRIT_DIRECTORY + "' is missing");
+            }
+        }
+
+        private void validateFile(@NotNull final Path file) {
+            _fileCount.incrementAndGet();
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+                try {
+                    boolean root = true;
+                    while (reader.hasNext()) {
+                        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                            if (root && SyncDirectoryLayout.STORE_ELEMENT_FILE.equals(file.getFileName().toString())) {
+                                checkUid(file, reader.getLocalName(), reader.getAttributeValue(null, "uid"));
+                            }
+                            root = false;
+                            checkFileReferences(file, reader);
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (final XMLStreamException e) {
+                addProblem(file, "is no well-formed xml: " + e.getMessage());
+            } catch (final IOException e) {
+                addProblem(file, "can not be read: " + e.getMessage());
+            }
+        }
+
+        private void checkUid(@NotNull final Path file, @NotNull final String tag, @Nullable final String uid) {
+            final UidMapping uidMapping = SyncDirectoryLayout.getUidMapping(tag);
+            if (uidMapping == null || uid == null || uid.isEmpty()) {
+                return;
+            }
+            final String path = toRelativePath(file);
+            final String otherPath = _pathsByUidKey.putIfAbsent(IndexEntry.toUidKey(uidMapping, uid), path);
+            if (otherPath != null) {
+                // reported for the greater path, so the report does not depend on the order of the tasks
+                final boolean reportThis = path.compareTo(otherPath) > 0;
+                _problems.add(new ValidationReport.Problem(reportThis ? path : otherPath,
+                        "the uid '" + uid + "' is also used by '" + (reportThis ? otherPath : path) + "'"));
+            }
+        }
+
+        private void checkFileReferences(@NotNull final Path file, @NotNull final XMLStreamReader reader) {
+            for (int index = 0; index < reader.getAttributeCount(); index++) {
+                final String name = reader.getAttributeLocalName(index).toLowerCase(Locale.UK);
+                for (final String referenceAttribute : FILE_REFERENCE_ATTRIBUTES) {
+                    if (referenceAttribute.equals(name)) {
+                        checkFileReference(file, reader.getAttributeValue(index));
+                    }
+                }
+            }
+        }
+
+        private void checkFileReference(@NotNull final Path file, @Nullable final String reference) {
+            if (reference == null || reference.isEmpty() || reference.contains(":")) {
+                // no relative file reference, e.g. an url
+                return;
+            }
+            try {
+                if (!Files.exists(file.getParent().resolve(reference))) {
+                    addWarning(file, "the referenced file '" + reference + "' does not exist");
+                }
+            } catch (final RuntimeException e) {
+                addWarning(file, "the referenced file '" + reference + "' is no valid path");
+            }
+        }
+
+        private void addProblem(@NotNull final Path file, @NotNull final String message) {
+            _problems.add(new ValidationReport.Problem(toRelativePath(file), message));
+        }
+
+        private void addWarning(@NotNull final Path file, @NotNull final String message) {
+            _warnings.add(new ValidationReport.Problem(toRelativePath(file), message));
+        }
+
+        @NotNull
+        private String toRelativePath(@NotNull final Path file) {
+            final String path = SyncDirectoryLayout.toRelativePath(_root, file);
+            return path.isEmpty() ? "." : path;
+        }
+
+        /**
+         * Validates the xml files of a directory and forks a task for each subdirectory.
+         */
+        private final class DirectoryTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final transient Path _directory;
+
+            private DirectoryTask(@NotNull final Path directory) {
+                _directory = directory;
+            }
+
+            @Override
+            protected void compute() {
+                final List<RecursiveAction> tasks = new ArrayList<>();
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(_directory)) {
+                    for (final Path child : children) {
+                        if (SyncDirectoryLayout.isIgnoredPath(_root, child)) {
+                            continue;
+                        }
+                        if (Files.isDirectory(child)) {
+                            tasks.add(new DirectoryTask(child));
+                        } else if (isXmlFile(child)) {
+                            files.add(child);
+                            if (files.size() == FILES_PER_TASK) {
+                                tasks.add(new FilesTask(files));
+                                files = new ArrayList<>();
+                            }
+                        }
+                    }
+                } catch (final IOException e) {
+                    addProblem(_directory, "can not be read: " + e.getMessage());
+                }
+                if (!files.isEmpty()) {
+                    tasks.add(new FilesTask(files));
+                }
+                invokeAll(tasks);
+            }
+        }
+
+        /**
+         * Validates a chunk of xml files, larger lists are split into chunks.
+         */
+        private final class FilesTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final transient List<Path> _files;
+
+            private FilesTask(@NotNull final List<Path> files) {
+                _files = files;
+            }
+
+            @Override
+            protected void compute() {
+                if (_files.size() > FILES_PER_TASK) {
+                    final int middle = _files.size() / 2;
+                    invokeAll(new FilesTask(_files.subList(0, middle)), new FilesTask(_files.subList(middle, _files.size())));
+                    return;
+                }
+                for (final Path file : _files) {
+                    validateFile(file);
+                }
+            }
+        }
+    }
+}
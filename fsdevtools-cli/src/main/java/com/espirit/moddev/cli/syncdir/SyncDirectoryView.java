@@ -0,0 +1,228 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A minimal view of a synchronization directory that contains only some of its store elements, so an import of the
+ * view imports only these elements.
+ * <p>
+ * The view contains the directories of the elements of the given files, the directories of their parent elements and
+ * the {@link SyncDirectoryLayout#FIRSTSPIRIT_DIRECTORY metadata directory} of the sync dir. Of every such element
+ * directory only the files of the element itself are taken, not the directories of its child elements. The files are
+ * hard links to the files of the sync dir where the file system supports it, otherwise copies. The view is a temporary
+ * directory that is deleted by {@link #close()}.
+ *
+ * @author e-Spirit AG
+ */
+public final class SyncDirectoryView implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyncDirectoryView.class);
+
+    private final Path _directory;
+    private final Set<String> _elementDirectories;
+    private int _fileCount;
+
+    private SyncDirectoryView(@NotNull final Path directory, @NotNull final Set<String> elementDirectories) {
+        _directory = directory;
+        _elementDirectories = elementDirectories;
+    }
+
+    /**
+     * Creates a view of the given sync dir with the elements of the given files and their parents.
+     *
+     * @param syncDirectory the sync dir
+     * @param files         the sync dir relative paths of the files whose elements are part of the view; files that
+     *                      do not exist are ignored
+     * @return the view
+     * @throws IOException if the view can not be created
+     */
+    @NotNull
+    public static SyncDirectoryView create(@NotNull final Path syncDirectory, @NotNull final Collection<String> files) throws IOException {
+        final Path root = syncDirectory.toAbsolutePath().normalize();
+        final Map<Path, Boolean> elementDirectoryCache = new HashMap<>();
+        final Set<String> changedElements = new TreeSet<>();
+        final Set<String> requiredDirectories = new TreeSet<>();
+        final Set<String> looseFiles = new TreeSet<>();
+        for (final String file : files) {
+            final Path path = root.resolve(file).normalize();
+            if (!path.startsWith(root) || SyncDirectoryLayout.isIgnoredPath(root, path) || !Files.isRegularFile(path)) {
+                continue;
+            }
+            final Path elementDirectory = getElementDirectory(root, path.getParent(), elementDirectoryCache);
+            if (elementDirectory == null) {
+                // e.g. files of the metadata directory
+                looseFiles.add(SyncDirectoryLayout.toRelativePath(root, path));
+                continue;
+            }
+            if (changedElements.add(SyncDirectoryLayout.toRelativePath(root, elementDirectory))) {
+                for (Path parent = elementDirectory; parent != null && parent.startsWith(root); parent = parent.getParent()) {
+                    if (isElementDirectory(parent, elementDirectoryCache)) {
+                        requiredDirectories.add(SyncDirectoryLayout.toRelativePath(root, parent));
+                    }
+                }
+            }
+        }
+
+        final SyncDirectoryView view = new SyncDirectoryView(Files.createTempDirectory("fs-cli-syncdir-view"), changedElements);
+        try {
+            final Path metadataDirectory = root.resolve(SyncDirectoryLayout.FIRSTSPIRIT_DIRECTORY);
+            if (Files.isDirectory(metadataDirectory)) {
+                view.addTree(root, metadataDirectory);
+            }
+            for (final String directory : requiredDirectories) {
+                view.addElementFiles(root, root.resolve(directory), elementDirectoryCache);
+            }
+            for (final String file : looseFiles) {
+                view.addFile(root, root.resolve(file));
+            }
+        } catch (final IOException | RuntimeException e) {
+            view.close();
+            throw e;
+        }
+        LOGGER.debug("Created sync dir view '{}' with {} changed elements, {} element directories and {} files.", view._directory, changedElements.size(), requiredDirectories.size(), view._fileCount);
+        return view;
+    }
+
+    /**
+     * Returns the directory of the view, which can be used as sync dir.
+     *
+     * @return the directory
+     */
+    @NotNull
+    public Path getDirectory() {
+        return _directory;
+    }
+
+    /**
+     * Returns the sync dir relative paths of the directories of the elements of the given files, without their parents.
+     *
+     * @return the element directories
+     */
+    @NotNull
+    public Set<String> getElementDirectories() {
+        return _elementDirectories;
+    }
+
+    /**
+     * Returns the number of files of the view.
+     *
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return _fileCount;
+    }
+
+    /**
+     * Deletes the directory of the view. The files of the sync dir are not affected.
+     */
+    @Override
+    public void close() {
+        try {
+            Files.walkFileTree(_directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path directory, final IOException exception) throws IOException {
+                    Files.delete(directory);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (final IOException e) {
+            LOGGER.warn("Failed to delete the sync dir view '{}': {}", _directory, e.getMessage());
+        }
+    }
+
+    private static Path getElementDirectory(@NotNull final Path root, final Path directory, @NotNull final Map<Path, Boolean> cache) {
+        for (Path current = directory; current != null && current.startsWith(root); current = current.getParent()) {
+            if (isElementDirectory(current, cache)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isElementDirectory(@NotNull final Path directory, @NotNull final Map<Path, Boolean> cache) {
+        return cache.computeIfAbsent(directory, key -> Files.isRegularFile(key.resolve(SyncDirectoryLayout.STORE_ELEMENT_FILE)));
+    }
+
+    private void addElementFiles(@NotNull final Path root, @NotNull final Path elementDirectory, @NotNull final Map<Path, Boolean> cache) throws IOException {
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(elementDirectory)) {
+            for (final Path child : children) {
+                if (Files.isDirectory(child)) {
+                    // directories without a store element file belong to the element, e.g. the files of a medium
+                    if (!isElementDirectory(child, cache)) {
+                        addElementFiles(root, child, cache);
+                    }
+                } else {
+                    addFile(root, child);
+                }
+            }
+        }
+    }
+
+    private void addTree(@NotNull final Path root, @NotNull final Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) throws IOException {
+                addFile(root, file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void addFile(@NotNull final Path root, @NotNull final Path file) throws IOException {
+        final Path target = _directory.resolve(root.relativize(file).toString());
+        if (Files.exists(target)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, file);
+        } catch (final IOException | UnsupportedOperationException e) {
+            LOGGER.trace("Copying '{}', because it can not be linked: {}", file, e.getMessage());
+            Files.copy(file, target);
+        }
+        _fileCount++;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The problems and warnings found by a {@link SyncDirectoryValidator}. Problems fail the import, warnings are the
+ * results of heuristic checks that may be wrong, so they are only logged.
+ *
+ * @author e-Spirit AG
+ */
+public final class ValidationReport {
+
+    private final List<Problem> _problems;
+    private final List<Problem> _warnings;
+    private final int _fileCount;
+    private final long _durationMillis;
+
+    ValidationReport(@NotNull final Collection<Problem> problems, @NotNull final Collection<Problem> warnings, final int fileCount, final long durationMillis) {
+        _problems = sort(problems);
+        _warnings = sort(warnings);
+        _fileCount = fileCount;
+        _durationMillis = durationMillis;
+    }
+
+    @NotNull
+    private static List<Problem> sort(@NotNull final Collection<Problem> problems) {
+        final List<Problem> sortedProblems = new ArrayList<>(problems);
+        sortedProblems.sort(Comparator.comparing(Problem::getPath).thenComparing(Problem::getMessage));
+        return Collections.unmodifiableList(sortedProblems);
+    }
+
+    /**
+     * Returns whether no problems have been found. Warnings do not count.
+     *
+     * @return whether the sync dir is valid
+     */
+    public boolean isValid() {
+        return _problems.isEmpty();
+    }
+
+    /**
+     * Returns the problems, sorted by path.
+     *
+     * @return the problems
+     */
+    @NotNull
+    public List<Problem> getProblems() {
+        return _problems;
+    }
+
+    /**
+     * Returns the warnings of the heuristic checks, sorted by path.
+     *
+     * @return the warnings
+     */
+    @NotNull
+    public List<Problem> getWarnings() {
+        return _warnings;
+    }
+
+    /**
+     * Returns the number of validated files.
+     *
+     * @return the number of files
+     */
+    public int getFileCount() {
+        return _fileCount;
+    }
+
+    /**
+     * Returns the duration of the validation.
+     *
+     * @return the duration in milliseconds
+     */
+    public long getDurationMillis() {
+        return _durationMillis;
+    }
+
+    /**
+     * A problem or warning of a file of the sync dir.
+     */
+    public static final class Problem {
+
+        private final String _path;
+        private final String _message;
+
+        Problem(@NotNull final String path, @NotNull final String message) {
+            _path = path;
+            _message = message;
+        }
+
+        /**
+         * Returns the sync dir relative path of the file with the problem.
+         *
+         * @return the path
+         */
+        @NotNull
+        public String getPath() {
+            return _path;
+        }
+
+        @NotNull
+        public String getMessage() {
+            return _message;
+        }
+
+        @Override
+        public String toString() {
+            return _path + ": " + _message;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Offline access to the synchronization directory, e.g. an index of the exported elements that can be queried
+ * without a FirstSpirit connection.
+ * @author e-Spirit AG
+ */
+package com.espirit.moddev.cli.syncdir;
@@ -0,0 +1,103 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.api.parsing.identifier;
+
+import com.espirit.moddev.cli.util.IDProviderTestUtil;
+import com.espirit.moddev.cli.util.StoreTestUtil;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.access.store.pagestore.PageFolder;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StoreElementPathResolverTest {
+
+    private Store _pageStore;
+    private PageFolder _folder;
+    private IDProvider _first;
+    private IDProvider _second;
+    private StoreElementPathResolver _testling;
+
+    @Before
+    public void setUp() {
+        _folder = mock(PageFolder.class);
+        when(_folder.getName()).thenReturn("products");
+        when(_folder.getUid()).thenReturn("products_folder");
+        _pageStore = mock(Store.class);
+        when(_pageStore.getChildren(IDProvider.class)).thenReturn(new StoreTestUtil.SimpleListable(Arrays.asList(_folder)));
+        _first = IDProviderTestUtil.getMock("product_1");
+        _second = IDProviderTestUtil.getMock("product_2");
+        when(_folder.getChildren(IDProvider.class)).thenReturn(new StoreTestUtil.SimpleListable(Arrays.asList(_first, _second)));
+
+        final StoreAgent storeAgent = mock(StoreAgent.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(_pageStore);
+        _testling = new StoreElementPathResolver(storeAgent, false, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParallelism() {
+        new StoreElementPathResolver(mock(StoreAgent.class), false, 0);
+    }
+
+    @Test
+    public void resolveByUidAndName() {
+        assertThat(_testling.resolve("/PageStore/products_folder/product_1"), is(sameInstance(_first)));
+        assertThat(_testling.resolve("/pagestore/products/product_2/"), is(sameInstance(_second)));
+        assertThat(_testling.resolve("/PageStore/products"), is(sameInstance((IDProvider) _folder)));
+    }
+
+    @Test
+    public void unresolvablePaths() {
+        assertThat(_testling.resolve("/PageStore"), is(nullValue()));
+        assertThat(_testling.resolve("/NoStore/products"), is(nullValue()));
+        assertThat(_testling.resolve("/PageStore/products/product_3"), is(nullValue()));
+        assertThat(_testling.resolve("/PageStore/unknown/product_1"), is(nullValue()));
+    }
+
+    @Test
+    public void resolveAllListsEachFolderOnce() {
+        final Map<String, IDProvider> elements = _testling.resolveAll(Arrays.asList("/PageStore/products/product_1", "/PageStore/products/product_2", "/PageStore/products/product_3"));
+        assertThat(elements.size(), is(2));
+        assertThat(elements.get("/PageStore/products/product_1"), is(sameInstance(_first)));
+        assertThat(elements.get("/PageStore/products/product_2"), is(sameInstance(_second)));
+
+        _testling.resolve("/PageStore/products/product_1");
+        verify(_pageStore, times(1)).getChildren(IDProvider.class);
+        verify(_folder, times(1)).getChildren(IDProvider.class);
+    }
+}
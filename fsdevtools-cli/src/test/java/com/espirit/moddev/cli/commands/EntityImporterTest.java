@@ -0,0 +1,93 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.espirit.moddev.cli.syncdir.SchemaDirectory;
+import com.espirit.moddev.core.SchemaUidToNameBasedLayerMapper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class EntityImporterTest {
+
+    private static final SchemaDirectory PRODUCTS = new SchemaDirectory("products", "TemplateStore/Schemas/products", 400);
+    private static final SchemaDirectory PRICES = new SchemaDirectory("prices", "TemplateStore/Schemas/prices", 50);
+    private static final SchemaDirectory NEWS = new SchemaDirectory("news", "TemplateStore/Schemas/news", 100);
+    private static final SchemaDirectory EVENTS = new SchemaDirectory("events", "TemplateStore/Schemas/events", 20);
+    private static final SchemaDirectory LEGACY = new SchemaDirectory("legacy", "TemplateStore/Schemas/legacy", 10);
+
+    @Test
+    public void schemasOfTheSameLayerShareALane() {
+        final Map<String, String> layers = new HashMap<>();
+        layers.put("products", "shop_layer");
+        layers.put("prices", "shop_layer");
+        layers.put("news", SchemaUidToNameBasedLayerMapper.CREATE_NEW);
+        layers.put("events", SchemaUidToNameBasedLayerMapper.CREATE_NEW);
+
+        final List<EntityImporter.Lane> lanes = EntityImporter.plan(Arrays.asList(PRODUCTS, PRICES, NEWS, EVENTS, LEGACY), layers::get, 0);
+
+        assertThat(lanes, hasSize(4));
+        assertThat(lanes.get(0).getLayer(), is("shop_layer"));
+        assertThat(lanes.get(0).getSchemas(), contains(PRODUCTS, PRICES));
+        assertThat(lanes.get(0).getBatches(), hasSize(2));
+        assertThat(lanes.get(0).getFileCount(), is(450));
+        assertThat(lanes.get(1).getSchemas(), contains(NEWS));
+        assertThat(lanes.get(2).getSchemas(), contains(EVENTS));
+        assertThat(lanes.get(3).getLayer(), is(nullValue()));
+        assertThat(lanes.get(3).getSchemas(), contains(LEGACY));
+    }
+
+    @Test
+    public void schemasOfUnknownLayersShareALane() {
+        final List<EntityImporter.Lane> lanes = EntityImporter.plan(Arrays.asList(NEWS, EVENTS), uid -> null, 0);
+        assertThat(lanes, hasSize(1));
+        assertThat(lanes.get(0).getBatches(), hasSize(2));
+    }
+
+    @Test
+    public void smallSchemasAreBatched() {
+        final List<EntityImporter.Lane> lanes = EntityImporter.plan(Arrays.asList(PRODUCTS, PRICES, EVENTS, LEGACY, NEWS), uid -> "layer", 100);
+
+        assertThat(lanes, hasSize(1));
+        final List<List<SchemaDirectory>> batches = lanes.get(0).getBatches();
+        assertThat(batches, hasSize(3));
+        assertThat(batches.get(0), contains(PRODUCTS));
+        assertThat(batches.get(1), contains(PRICES, EVENTS, LEGACY));
+        assertThat(batches.get(2), contains(NEWS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBatchSize() {
+        EntityImporter.plan(Arrays.asList(NEWS), uid -> null, -1);
+    }
+}
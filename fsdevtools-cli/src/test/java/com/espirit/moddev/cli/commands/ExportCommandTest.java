@@ -22,6 +22,7 @@
 
 package com.espirit.moddev.cli.commands;
 
+import com.espirit.moddev.cli.Cli;
 import com.espirit.moddev.cli.commands.export.ExportCommand;
 import org.junit.Before;
 import org.junit.Test;
@@ -78,4 +79,40 @@ public class ExportCommandTest {
     }
 
 
+    /**
+     * Tests {@link ExportCommand#isWatch()}
+     */
+    @Test
+    public void testIsWatch() throws Exception {
+        assertThat("by default the export should not watch for changes", testling.isWatch(), is(Boolean.FALSE));
+    }
+
+
+    /**
+     * Tests that the watch options are parsed from the command line
+     */
+    @Test
+    public void testWatchOptionsAreParsed() throws Exception {
+        final ExportCommand command = (ExportCommand) Cli.parseCommandLine(new String[]{"export", "--watch", "--watchInterval", "2", "--watchDebounce", "500", "--", "templatestore"});
+        assertThat("watch option should be set", command.isWatch(), is(Boolean.TRUE));
+    }
+
+    /**
+     * Tests that the states and their sync dirs are parsed from the command line
+     */
+    @Test
+    public void testStatesOptionIsParsed() throws Exception {
+        final ExportCommand command = (ExportCommand) Cli.parseCommandLine(new String[]{"export", "--syncDir", "current=./current,release=./release", "--states", "current,release", "--", "templatestore"});
+        assertThat("states option should be set", command.getStates(), is("current,release"));
+        assertThat("preflight should accept the sync dirs", command.preflight() == null, is(Boolean.TRUE));
+    }
+
+    /**
+     * Tests that the preflight rejects a single sync dir for several states
+     */
+    @Test
+    public void testStatesNeedOwnSyncDirs() throws Exception {
+        final ExportCommand command = (ExportCommand) Cli.parseCommandLine(new String[]{"export", "--syncDir", "./export", "--states", "current,release", "--", "templatestore"});
+        assertThat("preflight should fail", command.preflight().isError(), is(Boolean.TRUE));
+    }
 }
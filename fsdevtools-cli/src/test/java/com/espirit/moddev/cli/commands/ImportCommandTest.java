@@ -22,19 +22,38 @@
 
 package com.espirit.moddev.cli.commands;
 
+import com.espirit.moddev.cli.Cli;
 import com.espirit.moddev.cli.CliConstants;
+import com.espirit.moddev.cli.configuration.Workspace;
+import com.espirit.moddev.cli.results.ImportResult;
+import com.espirit.moddev.cli.syncdir.SyncDirectoryManifest;
+
+import de.espirit.firstspirit.access.store.BasicElementInfo;
+import de.espirit.firstspirit.store.access.nexport.operations.ImportOperation;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 /**
  * The Class ImportCommandTest tests the default settings.
  */
 public class ImportCommandTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ImportCommand testling;
 
     @Before
@@ -61,4 +80,142 @@ public class ImportCommandTest {
     public void testGetImportComment() throws Exception {
         assertThat("Expect null value", testling.getImportComment(), is("Imported by " + CliConstants.FS_CLI));
     }
+
+    /**
+     * Test that the incremental import and watch options are parsed from the command line.
+     */
+    @Test
+    public void testIncrementalOptionsAreParsed() {
+        final ImportCommand command = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--changed-since", "HEAD~1", "--watch", "--watchDebounce", "500"});
+        assertThat("Expect reference", command.getChangedSince(), is("HEAD~1"));
+        assertThat("Expect watch mode", command.isWatch(), is(Boolean.TRUE));
+    }
+
+    /**
+     * Test that the whole sync dir is imported by default.
+     */
+    @Test
+    public void testIsNotIncrementalByDefault() {
+        assertThat("Expect no reference", testling.getChangedSince() == null, is(Boolean.TRUE));
+        assertThat("Expect no watch mode", testling.isWatch(), is(Boolean.FALSE));
+    }
+
+    /**
+     * Test that a broken sync dir fails the preflight, unless the validation is skipped.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testPreflightValidatesSyncDir() throws Exception {
+        final File syncDir = temporaryFolder.newFolder("syncdir");
+        final File storeElement = new File(syncDir, "PageStore/StoreElement.xml");
+        Files.createDirectories(storeElement.getParentFile().toPath());
+        Files.write(storeElement.toPath(), "<PAGESTORE".getBytes(StandardCharsets.UTF_8));
+
+        final ImportCommand command = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "-sd", syncDir.getPath()});
+        assertThat("Expect error", command.preflight().isError(), is(Boolean.TRUE));
+
+        final ImportCommand skippingCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "-sd", syncDir.getPath(), "--skip-validation"});
+        assertThat("Expect no result", skippingCommand.preflight() == null, is(Boolean.TRUE));
+    }
+
+    /**
+     * Test that --resume and incremental imports can not be combined with batches in the preflight.
+     */
+    @Test
+    public void testPreflightChecksBatchOptions() {
+        final ImportCommand resumeCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--resume"});
+        assertThat("Expect error", resumeCommand.preflight().isError(), is(Boolean.TRUE));
+
+        final ImportCommand incrementalCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--batch-size", "100", "--changed-since", "HEAD"});
+        assertThat("Expect error", incrementalCommand.preflight().isError(), is(Boolean.TRUE));
+    }
+
+    /**
+     * Test that the entity options are checked in the preflight.
+     */
+    @Test
+    public void testPreflightChecksEntityOptions() {
+        final ImportCommand batchCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--entity-batch-size", "100"});
+        assertThat("Expect error", batchCommand.preflight().isError(), is(Boolean.TRUE));
+
+        final ImportCommand ignoringCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--entity-parallelism", "4", "--dont-create-entities"});
+        assertThat("Expect error", ignoringCommand.preflight().isError(), is(Boolean.TRUE));
+
+        final ImportCommand incrementalCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--entity-parallelism", "4", "--changed-since", "HEAD"});
+        assertThat("Expect error", incrementalCommand.preflight().isError(), is(Boolean.TRUE));
+    }
+
+    /**
+     * Test that the preflight skips the import of a sync dir that has already been imported with the same layer mapping.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testPreflightSkipsUnchangedSyncDir() throws Exception {
+        final File syncDir = temporaryFolder.newFolder("syncdir");
+        final File storeElement = new File(syncDir, "PageStore/StoreElement.xml");
+        Files.createDirectories(storeElement.getParentFile().toPath());
+        Files.write(storeElement.toPath(), "<PAGESTORE/>".getBytes(StandardCharsets.UTF_8));
+        final ImportReplayCache replayCache = new ImportReplayCache(temporaryFolder.getRoot().toPath().resolve(ImportReplayCache.FILE_NAME));
+        final String contentHash = SyncDirectoryManifest.scan(syncDir.toPath(), null).getContentHash();
+
+        final ImportCommand command = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "-p", "project", "-sd", syncDir.getPath(), "--skip-if-unchanged"});
+        command.setReplayCache(replayCache);
+        assertThat("Expect import", command.preflight() == null, is(Boolean.TRUE));
+
+        replayCache.record(ImportReplayCache.key(command.getHost(), command.getPort(), "project"), ImportReplayCache.fingerprint(contentHash, null, false));
+        final ImportResult result = command.preflight();
+        assertThat("Expect skipped import", result != null && !result.isError() && result.get() == null, is(Boolean.TRUE));
+
+        final ImportCommand mappingCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "-p", "project", "-sd", syncDir.getPath(), "--skip-if-unchanged", "-lm", "*:CREATE_NEW"});
+        mappingCommand.setReplayCache(replayCache);
+        assertThat("Expect import with another layer mapping", mappingCommand.preflight() == null, is(Boolean.TRUE));
+
+        final ImportCommand incrementalCommand = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "--skip-if-unchanged", "--changed-since", "HEAD"});
+        assertThat("Expect error", incrementalCommand.preflight().isError(), is(Boolean.TRUE));
+    }
+
+    /**
+     * Test that only imports without problems and without lost and found elements are complete, so only these record
+     * the fingerprint of the sync dir for {@code --skip-if-unchanged}.
+     */
+    @Test
+    public void testIsComplete() {
+        assertThat("Expect nothing imported to be complete", ImportCommand.isComplete(null), is(Boolean.TRUE));
+        assertThat("Expect complete import", ImportCommand.isComplete(mockResult(0, 0)), is(Boolean.TRUE));
+        assertThat("Expect incomplete import with problems", ImportCommand.isComplete(mockResult(1, 0)), is(Boolean.FALSE));
+        assertThat("Expect incomplete import with lost and found elements", ImportCommand.isComplete(mockResult(0, 1)), is(Boolean.FALSE));
+    }
+
+    private static ImportOperation.Result mockResult(final int problems, final int lostAndFoundElements) {
+        final ImportOperation.Result result = mock(ImportOperation.Result.class);
+        doReturn(problems == 0 ? Collections.emptyList() : Collections.nCopies(problems, mock(ImportOperation.Problem.class))).when(result).getProblems();
+        doReturn(lostAndFoundElements == 0 ? Collections.emptySet() : Collections.singleton(mock(BasicElementInfo.class))).when(result).getLostAndFoundElements();
+        return result;
+    }
+
+    /**
+     * Test that the command of a workspace project combines the options of the command and the project.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testCreateProjectCommand() throws Exception {
+        final File workspaceFile = temporaryFolder.newFile("workspace.json");
+        Files.write(workspaceFile.toPath(), "{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"shop\", \"layerMapping\": \"*:CREATE_NEW\"}]}".getBytes(StandardCharsets.UTF_8));
+        final ImportCommand command = (ImportCommand) Cli.parseCommandLine(new String[]{"import", "-h", "fs.example.com", "--workspace", workspaceFile.getPath(), "--changed-since", "HEAD", "-i", "comment"});
+        assertThat("Expect no context", command.needsContext(), is(Boolean.FALSE));
+        assertThat("Expect valid workspace", command.preflight() == null, is(Boolean.TRUE));
+
+        final ImportCommand projectCommand = command.createProjectCommand(Workspace.read(workspaceFile.toPath()).getProjects().get(0));
+        assertThat("Expect project", projectCommand.getProject(), is("Shop"));
+        assertThat("Expect host", projectCommand.getHost(), is("fs.example.com"));
+        assertThat("Expect sync dir", projectCommand.getSynchronizationDirectoryString(), is(new File(temporaryFolder.getRoot(), "shop").toPath().toAbsolutePath().normalize().toString()));
+        assertThat("Expect reference", projectCommand.getChangedSince(), is("HEAD"));
+        assertThat("Expect comment", projectCommand.getImportComment(), is("comment"));
+        assertThat("Expect context", projectCommand.needsContext(), is(Boolean.TRUE));
+        // the projects are imported concurrently, so they must update the same cache
+        assertThat("Expect shared replay cache", projectCommand.getReplayCache() == command.getReplayCache(), is(Boolean.TRUE));
+    }
 }
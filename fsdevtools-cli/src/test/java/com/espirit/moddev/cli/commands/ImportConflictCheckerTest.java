@@ -0,0 +1,118 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import de.espirit.firstspirit.access.Revision;
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ImportConflictCheckerTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _syncDirectory;
+    private Store _pageStore;
+    private ImportConflictChecker _checker;
+
+    @Before
+    public void setUp() throws Exception {
+        _syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        write(".FirstSpirit/ProjectProperties.xml", "<PROPERTIES/>");
+        write("PageStore/StoreElement.xml", "<PAGESTORE revision=\"10\"/>");
+        write("PageStore/unchanged/StoreElement.xml", "<PAGE uid=\"unchanged\" revision=\"10\"/>");
+        write("PageStore/changed/StoreElement.xml", "<PAGE uid=\"changed\" revision=\"10\"/>");
+        write("PageStore/new/StoreElement.xml", "<PAGE uid=\"new\" revision=\"10\"/>");
+        write("PageStore/norevision/StoreElement.xml", "<PAGE uid=\"norevision\"/>");
+
+        _pageStore = mock(Store.class);
+        mockElement("unchanged", 10);
+        mockElement("changed", 12);
+        final StoreAgent storeAgent = mock(StoreAgent.class);
+        when(storeAgent.getStore(Store.Type.PAGESTORE, false)).thenReturn(_pageStore);
+        _checker = new ImportConflictChecker(storeAgent, 2);
+    }
+
+    @Test
+    public void checkSyncDirectory() throws Exception {
+        final List<ImportConflictChecker.Conflict> conflicts = _checker.check(_syncDirectory);
+        assertThat(conflicts, hasSize(1));
+        assertThat(conflicts.get(0).getPath(), is("PageStore/changed"));
+        assertThat(conflicts.get(0).getUid(), is("changed"));
+        assertThat(conflicts.get(0).getExportedRevision(), is(10L));
+        assertThat(conflicts.get(0).getServerRevision(), is(12L));
+        verify(_pageStore, never()).getStoreElement("norevision", IDProvider.UidType.PAGESTORE);
+    }
+
+    @Test
+    public void checkElementDirectories() throws Exception {
+        assertThat(_checker.check(_syncDirectory, Collections.singletonList("PageStore/unchanged")), is(empty()));
+        assertThat(_checker.check(_syncDirectory, Collections.singletonList("PageStore/changed")), hasSize(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failedResolution() throws Exception {
+        when(_pageStore.getStoreElement("new", IDProvider.UidType.PAGESTORE)).thenThrow(new IllegalStateException("connection lost"));
+        _checker.check(_syncDirectory);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidParallelism() {
+        new ImportConflictChecker(mock(StoreAgent.class), 0);
+    }
+
+    private void mockElement(final String uid, final long revisionId) {
+        final Revision revision = mock(Revision.class);
+        when(revision.getId()).thenReturn(revisionId);
+        final IDProvider element = mock(IDProvider.class);
+        when(element.getRevision()).thenReturn(revision);
+        when(_pageStore.getStoreElement(uid, IDProvider.UidType.PAGESTORE)).thenReturn(element);
+    }
+
+    private void write(final String path, final String content) throws Exception {
+        final Path file = _syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.OptionalDouble;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ImportProgressReporterTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _syncDirectory;
+    private Path _progressFile;
+
+    @Before
+    public void setUp() throws Exception {
+        _syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        _progressFile = _temporaryFolder.getRoot().toPath().resolve("progress").resolve("import.json");
+        write(".FirstSpirit/ProjectProperties.xml", "<PROPERTIES/>");
+        write("PageStore/StoreElement.xml", "<PAGESTORE/>");
+        write("PageStore/page/StoreElement.xml", "<PAGE/>");
+        write("PageStore/page/content.xml", "<CONTENT/>");
+        write("MediaStore/StoreElement.xml", "<MEDIASTORE/>");
+        write(".git/config", "ignored");
+    }
+
+    @Test
+    public void progressFileIsWritten() throws Exception {
+        try (ImportProgressReporter reporter = new ImportProgressReporter(_syncDirectory, OptionalDouble.empty(), 0, _progressFile)) {
+            reporter.start();
+            assertThat(reporter.getElementCount(), is(3L));
+            JsonNode progress = new ObjectMapper().readTree(_progressFile.toFile());
+            assertThat(progress.get("state").asText(), is("running"));
+            assertThat(progress.get("estimated").asBoolean(), is(true));
+            assertThat(progress.get("total").get("totalFiles").asLong(), is(5L));
+            assertThat(progress.get("total").get("processedElements").asLong(), is(0L));
+            assertThat(progress.get("stores").get("PAGESTORE").get("totalElements").asLong(), is(2L));
+            assertThat(progress.get("stores").get("MEDIASTORE").get("totalFiles").asLong(), is(1L));
+
+            reporter.finished();
+            progress = new ObjectMapper().readTree(_progressFile.toFile());
+            assertThat(progress.get("state").asText(), is("finished"));
+            assertThat(progress.get("total").get("processedElements").asLong(), is(3L));
+        }
+    }
+
+    @Test
+    public void unfinishedImportFailed() throws Exception {
+        try (ImportProgressReporter reporter = new ImportProgressReporter(_syncDirectory, OptionalDouble.empty(), 0, _progressFile)) {
+            reporter.start();
+        }
+        assertThat(new ObjectMapper().readTree(_progressFile.toFile()).get("state").asText(), is("failed"));
+    }
+
+    @Test
+    public void progressIsProjectedFromThroughput() throws Exception {
+        try (ImportProgressReporter reporter = new ImportProgressReporter(_syncDirectory, OptionalDouble.of(100), 0, _progressFile)) {
+            reporter.start();
+            // 3 elements with 100 ms each
+            assertThat(reporter.getEstimatedFraction(150), closeTo(0.5, 0.001));
+            assertThat(reporter.getEtaMillis(150), is(150L));
+            assertThat(reporter.getEstimatedFraction(600), closeTo(1, 0.001));
+            assertThat(reporter.getEtaMillis(600), is(-1L));
+        }
+    }
+
+    @Test
+    public void noProjectionWithoutThroughput() throws Exception {
+        try (ImportProgressReporter reporter = new ImportProgressReporter(_syncDirectory, OptionalDouble.empty(), 0, _progressFile)) {
+            reporter.start();
+            assertThat(reporter.getEstimatedFraction(150), closeTo(0, 0.001));
+            assertThat(reporter.getEtaMillis(150), is(-1L));
+        }
+    }
+
+    @Test
+    public void nothingIsCountedWithoutReports() throws Exception {
+        try (ImportProgressReporter reporter = new ImportProgressReporter(_syncDirectory, OptionalDouble.of(100), 0, null)) {
+            reporter.start();
+            assertThat(reporter.isEnabled(), is(false));
+            assertThat(reporter.getElementCount(), is(0L));
+            reporter.finished();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeInterval() {
+        new ImportProgressReporter(_syncDirectory, OptionalDouble.empty(), -1, null);
+    }
+
+    private void write(final String path, final String content) throws Exception {
+        final Path file = _syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
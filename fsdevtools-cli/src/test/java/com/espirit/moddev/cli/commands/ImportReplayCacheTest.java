@@ -0,0 +1,111 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class ImportReplayCacheTest {
+
+    private static final String KEY = ImportReplayCache.key("localhost", 8000, "project");
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _file;
+    private ImportReplayCache _testling;
+
+    @Before
+    public void setUp() throws Exception {
+        _file = _temporaryFolder.getRoot().toPath().resolve("sub").resolve(ImportReplayCache.FILE_NAME);
+        _testling = new ImportReplayCache(_file);
+    }
+
+    @Test
+    public void noRecordedImport() {
+        assertThat(_testling.matches(KEY, "hash"), is(false));
+    }
+
+    @Test
+    public void recordCreatesFile() {
+        _testling.record(KEY, "hash");
+        assertThat(_file.toFile().isFile(), is(true));
+        assertThat(new ImportReplayCache(_file).matches(KEY, "hash"), is(true));
+        assertThat(_testling.matches(KEY, "other"), is(false));
+        assertThat(_testling.matches(ImportReplayCache.key("localhost", 8000, "other"), "hash"), is(false));
+    }
+
+    @Test
+    public void forgetRemovesImport() {
+        _testling.record(KEY, "hash");
+        _testling.forget(KEY);
+        assertThat(_testling.matches(KEY, "hash"), is(false));
+    }
+
+    @Test
+    public void forgetWithoutImportDoesNotWriteTheCache() {
+        _testling.forget(KEY);
+        assertThat(_file.getParent().toFile().exists(), is(false));
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int index = 0; index < 20; index++) {
+                final String key = ImportReplayCache.key("localhost", 8000, "project" + index);
+                // separate instances, like separate cli runs
+                futures.add(executor.submit(() -> new ImportReplayCache(_file).record(key, "hash")));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int index = 0; index < 20; index++) {
+            assertThat(_testling.matches(ImportReplayCache.key("localhost", 8000, "project" + index), "hash"), is(true));
+        }
+    }
+
+    @Test
+    public void fingerprintContainsOptions() {
+        assertThat(ImportReplayCache.fingerprint("hash", null, false), is(ImportReplayCache.fingerprint("hash", " ", false)));
+        assertThat(ImportReplayCache.fingerprint("hash", "*:CREATE_NEW", false), is(not(ImportReplayCache.fingerprint("hash", null, false))));
+        assertThat(ImportReplayCache.fingerprint("hash", null, true), is(not(ImportReplayCache.fingerprint("hash", null, false))));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.OptionalDouble;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ThroughputTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _file;
+    private Throughput _testling;
+
+    @Before
+    public void setUp() throws Exception {
+        _file = _temporaryFolder.getRoot().toPath().resolve("sub").resolve(Throughput.EXPORT_FILE_NAME);
+        _testling = new Throughput(_file);
+    }
+
+    @Test
+    public void noRecordedExport() {
+        assertThat(_testling.getMillisPerElement("project").isPresent(), is(false));
+    }
+
+    @Test
+    public void recordCreatesFile() {
+        _testling.record("project", 100, 1000);
+        assertThat(_file.toFile().isFile(), is(true));
+        assertThat(_testling.getMillisPerElement("project").getAsDouble(), closeTo(10, 0.001));
+    }
+
+    @Test
+    public void recordAveragesExports() {
+        _testling.record("project", 100, 1000);
+        _testling.record("project", 100, 2000);
+        // the latest export is weighted with 0.3
+        assertThat(new Throughput(_file).getMillisPerElement("project").getAsDouble(), closeTo(13, 0.001));
+    }
+
+    @Test
+    public void unknownProjectFallsBackToAllProjects() {
+        _testling.record("project", 10, 50);
+        final OptionalDouble millisPerElement = _testling.getMillisPerElement("otherProject");
+        assertThat(millisPerElement.getAsDouble(), closeTo(5, 0.001));
+    }
+
+    @Test
+    public void emptyExportsAreIgnored() {
+        _testling.record("project", 0, 50);
+        assertThat(_file.toFile().exists(), is(false));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ExportStateTest {
+
+    @Test
+    public void parseStates() {
+        assertThat(ExportState.parseStates("current, RELEASE"), contains(ExportState.CURRENT, ExportState.RELEASE));
+        assertThat(ExportState.parseStates("release"), contains(ExportState.RELEASE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownState() {
+        ExportState.parseStates("current,preview");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseDuplicateState() {
+        ExportState.parseStates("current,current");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseNoStates() {
+        ExportState.parseStates(" , ");
+    }
+
+    @Test
+    public void parseSynchronizationDirectories() {
+        final Map<ExportState, String> directories = ExportState.parseSynchronizationDirectories("release=/tmp/release,current=/tmp/current", Arrays.asList(ExportState.CURRENT, ExportState.RELEASE));
+        assertThat(directories.get(ExportState.CURRENT), is("/tmp/current"));
+        assertThat(directories.get(ExportState.RELEASE), is("/tmp/release"));
+    }
+
+    @Test
+    public void synchronizationDirectoriesAreOrderedByTheStates() {
+        final Map<ExportState, String> directories = ExportState.parseSynchronizationDirectories("current=/tmp/current,release=/tmp/release", Arrays.asList(ExportState.RELEASE, ExportState.CURRENT));
+        assertThat(new ArrayList<>(directories.keySet()), contains(ExportState.RELEASE, ExportState.CURRENT));
+    }
+
+    @Test
+    public void plainSynchronizationDirectoryOfSingleState() {
+        final Map<ExportState, String> directories = ExportState.parseSynchronizationDirectories("/tmp/release", Collections.singletonList(ExportState.RELEASE));
+        assertThat(directories.get(ExportState.RELEASE), is("/tmp/release"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plainSynchronizationDirectoryOfSeveralStates() {
+        ExportState.parseSynchronizationDirectories("/tmp/export", Arrays.asList(ExportState.CURRENT, ExportState.RELEASE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSynchronizationDirectory() {
+        ExportState.parseSynchronizationDirectories("current=/tmp/current", Arrays.asList(ExportState.CURRENT, ExportState.RELEASE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sharedSynchronizationDirectory() {
+        ExportState.parseSynchronizationDirectories("current=/tmp/export,release=/tmp/export", Arrays.asList(ExportState.CURRENT, ExportState.RELEASE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void synchronizationDirectoryOfUnexportedState() {
+        ExportState.parseSynchronizationDirectories("current=/tmp/current,release=/tmp/release", Collections.singletonList(ExportState.CURRENT));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.commands.export;
+
+import com.espirit.moddev.cli.Cli;
+import com.espirit.moddev.cli.api.parsing.exceptions.IDProviderNotFoundException;
+import com.espirit.moddev.cli.api.parsing.identifier.Identifier;
+import com.espirit.moddev.cli.api.parsing.identifier.RootNodeIdentifier;
+import com.espirit.moddev.cli.configuration.Workspace;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WorkspaceExporterTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void projectCommandCombinesCommandAndProject() throws Exception {
+        final File workspaceFile = _temporaryFolder.newFile("workspace.json");
+        Files.write(workspaceFile.toPath(), ("{\"projects\": ["
+                + "{\"project\": \"Shop\", \"syncDir\": \"shop\", \"identifiers\": [\"pagestore\"], \"useReleaseState\": true, \"excludeChildElements\": true},"
+                + "{\"project\": \"Blog\", \"syncDir\": \"blog\"}]}").getBytes(StandardCharsets.UTF_8));
+        final ExportCommand command = (ExportCommand) Cli.parseCommandLine(new String[]{"export", "-h", "fs.example.com", "--workspace", workspaceFile.getPath(), "--keepObsoleteFiles", "--", "templatestore"});
+        assertThat(command.needsContext(), is(false));
+        assertThat(command.preflight() == null, is(true));
+        final List<Workspace.Project> projects = Workspace.read(workspaceFile.toPath()).getProjects();
+
+        final ExportCommand shopCommand = command.createProjectCommand(projects.get(0));
+        assertThat(shopCommand.getProject(), is("Shop"));
+        assertThat(shopCommand.getHost(), is("fs.example.com"));
+        assertThat(shopCommand.getSynchronizationDirectoryString(), is(new File(_temporaryFolder.getRoot(), "shop").toPath().toAbsolutePath().normalize().toString()));
+        assertThat(shopCommand.getIdentifiers(), contains((Identifier) new RootNodeIdentifier(IDProvider.UidType.PAGESTORE)));
+        assertThat(shopCommand.isExportReleaseState(), is(true));
+        assertThat(shopCommand.isExportChildElements(), is(false));
+        assertThat(shopCommand.isDeleteObsoleteFiles(), is(false));
+        assertThat(shopCommand.needsContext(), is(true));
+
+        final ExportCommand blogCommand = command.createProjectCommand(projects.get(1));
+        assertThat(blogCommand.getIdentifiers(), contains((Identifier) new RootNodeIdentifier(IDProvider.UidType.TEMPLATESTORE)));
+        assertThat(blogCommand.isExportReleaseState(), is(false));
+        assertThat(blogCommand.isExportChildElements(), is(true));
+        assertThat(blogCommand.isDeleteObsoleteFiles(), is(false));
+    }
+
+    @Test
+    public void projectsNeedIdentifiers() throws Exception {
+        final File workspaceFile = _temporaryFolder.newFile("workspace.json");
+        Files.write(workspaceFile.toPath(), "{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"shop\"}]}".getBytes(StandardCharsets.UTF_8));
+        final ExportCommand command = (ExportCommand) Cli.parseCommandLine(new String[]{"export", "--workspace", workspaceFile.getPath()});
+        assertThat(command.preflight().isError(), is(true));
+    }
+
+    @Test
+    public void workspaceCanNotBeWatched() throws Exception {
+        final File workspaceFile = _temporaryFolder.newFile("workspace.json");
+        Files.write(workspaceFile.toPath(), "{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"shop\"}]}".getBytes(StandardCharsets.UTF_8));
+        final ExportCommand command = (ExportCommand) Cli.parseCommandLine(new String[]{"export", "--workspace", workspaceFile.getPath(), "--watch", "--", "templatestore"});
+        assertThat(command.preflight().isError(), is(true));
+    }
+
+    @Test
+    public void invalidIdentifiersAreNotRetried() {
+        assertThat(WorkspaceExporter.isRetryable(new IllegalStateException("connection lost")), is(true));
+        assertThat(WorkspaceExporter.isRetryable(new IllegalArgumentException("unknown prefix")), is(false));
+        assertThat(WorkspaceExporter.isRetryable(new IDProviderNotFoundException("page:missing")), is(false));
+    }
+}
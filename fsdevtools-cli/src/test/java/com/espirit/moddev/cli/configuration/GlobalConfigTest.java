@@ -95,4 +95,23 @@ public class GlobalConfigTest {
         assertEquals(customPort, config.getHttpProxyPort());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void connectionSettingsAreCopied() {
+        final GlobalConfig config = new GlobalConfig();
+        config.setHost("fs.example.com");
+        config.setPort(8443);
+        config.setUser("abc");
+        config.setPassword("secret");
+        config.setProject("project");
+        final GlobalConfig target = new GlobalConfig();
+
+        config.copyConnectionSettingsTo(target);
+
+        assertEquals("fs.example.com", target.getHost());
+        assertEquals(Integer.valueOf(8443), target.getPort());
+        assertEquals("abc", target.getUser());
+        assertEquals("secret", target.getPassword());
+        target.getEnvironment().clear();
+        Assert.assertNull(target.getProject());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.configuration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class WorkspaceTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void read() throws Exception {
+        final Path file = write("{\"parallelism\": 2, \"projects\": ["
+                + "{\"project\": \"Shop\", \"syncDir\": \"shop/src\", \"layerMapping\": \"*:CREATE_NEW\", \"importComment\": \"shop\"},"
+                + "{\"project\": \"Blog\", \"syncDir\": \"../blog\"}]}");
+
+        final Workspace workspace = Workspace.read(file);
+
+        assertThat(workspace.getParallelism(), is(2));
+        assertThat(workspace.getProjects(), hasSize(2));
+        final Workspace.Project shop = workspace.getProjects().get(0);
+        assertThat(shop.getName(), is("Shop"));
+        assertThat(shop.getSynchronizationDirectory(), is(file.getParent().resolve("shop/src")));
+        assertThat(shop.getLayerMapping(), is("*:CREATE_NEW"));
+        assertThat(shop.getImportComment(), is("shop"));
+        final Workspace.Project blog = workspace.getProjects().get(1);
+        assertThat(blog.getSynchronizationDirectory(), is(file.getParent().getParent().resolve("blog")));
+        assertThat(blog.getLayerMapping(), is(nullValue()));
+    }
+
+    @Test
+    public void defaultParallelism() throws Exception {
+        final Workspace workspace = Workspace.read(write("{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"shop\"}]}"));
+        assertThat(workspace.getParallelism(), is(Workspace.DEFAULT_PARALLELISM));
+    }
+
+    @Test
+    public void readExportSettings() throws Exception {
+        final Workspace workspace = Workspace.read(write("{\"retries\": 3, \"projects\": ["
+                + "{\"project\": \"Shop\", \"syncDir\": \"shop\", \"identifiers\": [\"templatestore\", \"page:home\"], \"useReleaseState\": true, \"keepObsoleteFiles\": false},"
+                + "{\"project\": \"Blog\", \"syncDir\": \"blog\"}]}"));
+
+        assertThat(workspace.getRetries(), is(3));
+        final Workspace.Project shop = workspace.getProjects().get(0);
+        assertThat(shop.getIdentifiers(), contains("templatestore", "page:home"));
+        assertThat(shop.getUseReleaseState(), is(true));
+        assertThat(shop.getKeepObsoleteFiles(), is(false));
+        assertThat(shop.getExcludeChildElements(), is(nullValue()));
+        final Workspace.Project blog = workspace.getProjects().get(1);
+        assertThat(blog.getIdentifiers(), is(empty()));
+        assertThat(blog.getUseReleaseState(), is(nullValue()));
+    }
+
+    @Test
+    public void defaultRetries() throws Exception {
+        final Workspace workspace = Workspace.read(write("{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"shop\"}]}"));
+        assertThat(workspace.getRetries(), is(Workspace.DEFAULT_RETRIES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFlag() throws Exception {
+        Workspace.read(write("{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"shop\", \"useReleaseState\": \"yes\"}]}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noProjects() throws Exception {
+        Workspace.read(write("{\"projects\": []}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSyncDir() throws Exception {
+        Workspace.read(write("{\"projects\": [{\"project\": \"Shop\"}]}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateProject() throws Exception {
+        Workspace.read(write("{\"projects\": [{\"project\": \"Shop\", \"syncDir\": \"a\"}, {\"project\": \"Shop\", \"syncDir\": \"b\"}]}"));
+    }
+
+    private Path write(final String json) throws Exception {
+        final Path file = _temporaryFolder.newFolder("workspace").toPath().resolve("workspace.json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
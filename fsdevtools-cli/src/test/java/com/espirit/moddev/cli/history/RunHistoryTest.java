@@ -0,0 +1,175 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.history;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class RunHistoryTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _directory;
+
+    @Before
+    public void setUp() {
+        _directory = _temporaryFolder.getRoot().toPath().resolve("history");
+    }
+
+    @Test
+    public void emptyHistory() throws Exception {
+        assertThat(new RunHistory(_directory).read().size(), is(0));
+    }
+
+    @Test
+    public void appendAndRead() throws Exception {
+        final RunHistory history = new RunHistory(_directory);
+        history.append(RunRecord.builder("export").timestamp(1000L).project("myProject").serverVersion("5.2.2001")
+                .success(true).phase(RunRecord.Phase.CONNECT, 300).phase(RunRecord.Phase.EXECUTE, 123456)
+                .elements(1, 2, 3, 4).problems(5).transfer(20, 1L << 40).build());
+        history.append(RunRecord.builder("module install").build());
+
+        final List<RunRecord> records = history.read();
+        assertThat(records.size(), is(2));
+        final RunRecord record = records.get(0);
+        assertThat(record.getCommand(), is("export"));
+        assertThat(record.getTimestamp(), is(1000L));
+        assertThat(record.getProject(), is("myProject"));
+        assertThat(record.getServerVersion(), is("5.2.2001"));
+        assertThat(record.isSuccess(), is(true));
+        assertThat(record.getMillis(RunRecord.Phase.EXECUTE), is(123456L));
+        assertThat(record.getTotalMillis(), is(123756L));
+        assertThat(record.getElements(), is(10L));
+        assertThat(record.getProblems(), is(5L));
+        assertThat(record.getFiles(), is(20L));
+        assertThat(record.getBytes(), is(1L << 40));
+        assertThat(records.get(1).getCommand(), is("module install"));
+        assertThat(records.get(1).getProject(), is(""));
+    }
+
+    @Test
+    public void incompleteRecordIsIgnored() throws Exception {
+        final RunHistory history = new RunHistory(_directory);
+        history.append(RunRecord.builder("export").build());
+        // the start of a record, e.g. of a killed cli
+        Files.write(history.getLogFile(), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        assertThat(history.read().size(), is(1));
+    }
+
+    @Test
+    public void appendCutsOffIncompleteRecord() throws Exception {
+        final RunHistory history = new RunHistory(_directory);
+        history.append(RunRecord.builder("export").timestamp(1L).build());
+        final long size = Files.size(history.getLogFile());
+        // the start of a record of a killed cli, which would hide all later runs
+        Files.write(history.getLogFile(), new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        history.append(RunRecord.builder("export").timestamp(2L).build());
+        history.append(RunRecord.builder("export").timestamp(3L).build());
+
+        final List<RunRecord> records = history.read();
+        assertThat(records.size(), is(3));
+        assertThat(records.get(1).getTimestamp(), is(2L));
+        assertThat(records.get(2).getTimestamp(), is(3L));
+        assertThat(Files.size(history.getLogFile()), is(3 * size));
+    }
+
+    @Test
+    public void corruptRecordIsSkipped() throws Exception {
+        final RunHistory history = new RunHistory(_directory);
+        history.append(RunRecord.builder("export").timestamp(1L).build());
+        history.append(RunRecord.builder("export").timestamp(2L).build());
+        // flip a byte of the payload of the first record
+        final byte[] bytes = Files.readAllBytes(history.getLogFile());
+        bytes[Integer.BYTES] ^= 0xFF;
+        Files.write(history.getLogFile(), bytes);
+
+        final List<RunRecord> records = history.read();
+        assertThat(records.size(), is(1));
+        assertThat(records.get(0).getTimestamp(), is(2L));
+    }
+
+    @Test
+    public void compactionKeepsTheLatestRunsPerCommand() throws Exception {
+        final RunHistory history = new RunHistory(_directory, 1024, 3, 100);
+        for (int index = 0; index < 50; index++) {
+            history.append(RunRecord.builder(index % 2 == 0 ? "export" : "import").timestamp(index).build());
+        }
+        assertThat(Files.size(history.getLogFile()), lessThan(1024L));
+
+        final List<RunRecord> records = history.read();
+        assertThat(records.size(), lessThan(50));
+        assertThat(records.get(records.size() - 1).getTimestamp(), is(49L));
+    }
+
+    @Test
+    public void selectLatest() {
+        final List<RunRecord> records = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            records.add(RunRecord.builder(index < 8 ? "export" : "import").timestamp(index).build());
+        }
+        final List<RunRecord> latest = RunHistory.selectLatest(records, 3, 4);
+        assertThat(latest.size(), is(4));
+        assertThat(latest.get(0).getTimestamp(), is(6L));
+        assertThat(latest.get(1).getTimestamp(), is(7L));
+        assertThat(latest.get(2).getTimestamp(), is(8L));
+        assertThat(latest.get(3).getTimestamp(), is(9L));
+    }
+
+    @Test
+    public void statistics() {
+        final List<RunRecord> records = new ArrayList<>();
+        for (int index = 1; index <= 20; index++) {
+            // the latest 10 runs take twice as long
+            final long millis = index <= 10 ? 100 : 200;
+            records.add(RunRecord.builder("export").project("myProject").success(true).phase(RunRecord.Phase.EXECUTE, millis).build());
+        }
+        records.add(RunRecord.builder("export").project("otherProject").success(false).build());
+
+        final List<RunStatistics> statistics = RunStatistics.of(records, 10);
+        assertThat(statistics.size(), is(2));
+        final RunStatistics myProject = statistics.get(0);
+        assertThat(myProject.getRuns(), is(20));
+        assertThat(myProject.getPercentileMillis(50), is(100L));
+        assertThat(myProject.getPercentileMillis(90), is(200L));
+        assertThat(myProject.getMedianMillis(RunRecord.Phase.EXECUTE), is(100L));
+        assertThat(myProject.getTrend(), is(1.0));
+        final RunStatistics otherProject = statistics.get(1);
+        assertThat(otherProject.getFailedRuns(), is(1));
+        assertThat(otherProject.getTrend(), is(nullValue()));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.logging;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class AsyncOutputAppenderTest {
+
+    private Logger _logger;
+    private RecordingAppender _recorder;
+
+    @Before
+    public void setUp() {
+        _logger = Logger.getLogger(AsyncOutputAppenderTest.class.getName() + System.nanoTime());
+        _logger.setAdditivity(false);
+        _logger.setLevel(Level.DEBUG);
+        _recorder = new RecordingAppender();
+        _logger.addAppender(_recorder);
+    }
+
+    @After
+    public void tearDown() {
+        _recorder.release();
+        _logger.removeAllAppenders();
+    }
+
+    @Test
+    public void writesAllEventsInOrderBeforeUninstall() {
+        final AsyncOutputAppender appender = new AsyncOutputAppender(4, AsyncOutputAppender.Overflow.BLOCK);
+        AsyncOutputAppender.install(_logger, appender);
+        _recorder.release();
+        for (int index = 0; index < 100; index++) {
+            _logger.info("line " + index);
+        }
+        AsyncOutputAppender.uninstall(_logger, appender);
+
+        final List<String> expected = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            expected.add("line " + index);
+        }
+        assertThat(_recorder.getMessages(), is(expected));
+        assertThat("the recorder is attached again", _logger.isAttached(_recorder), is(true));
+        assertThat("the recorder is not closed", _recorder.isClosed(), is(false));
+    }
+
+    @Test
+    public void dropDebugKeepsInfoAndReportsTheDroppedEvents() throws Exception {
+        final AsyncOutputAppender appender = new AsyncOutputAppender(1, AsyncOutputAppender.Overflow.DROP_DEBUG);
+        AsyncOutputAppender.install(_logger, appender);
+        // the writer blocks on the first event, the second one fills the buffer
+        _logger.info("first");
+        _recorder.awaitFirstEvent();
+        _logger.info("second");
+        _logger.debug("dropped 1");
+        _logger.debug("dropped 2");
+        assertThat(appender.getDroppedDebugCount(), is(2L));
+
+        _recorder.release();
+        AsyncOutputAppender.uninstall(_logger, appender);
+
+        final List<String> messages = _recorder.getMessages();
+        assertThat(messages.subList(0, 2), contains("first", "second"));
+        assertThat(messages, not(hasItem("dropped 1")));
+        assertThat(messages.get(messages.size() - 1), containsString("Dropped 2 DEBUG and 0 INFO log messages"));
+    }
+
+    @Test
+    public void summarizeDropsInfoAndWritesASummaryLine() throws Exception {
+        final AsyncOutputAppender appender = new AsyncOutputAppender(1, AsyncOutputAppender.Overflow.SUMMARIZE);
+        AsyncOutputAppender.install(_logger, appender);
+        _logger.info("first");
+        _recorder.awaitFirstEvent();
+        _logger.info("second");
+        _logger.info("dropped 1");
+        _logger.debug("dropped 2");
+        assertThat(appender.getDroppedInfoCount(), is(1L));
+        assertThat(appender.getDroppedDebugCount(), is(1L));
+
+        _recorder.release();
+        AsyncOutputAppender.uninstall(_logger, appender);
+
+        final List<String> messages = _recorder.getMessages();
+        assertThat(messages.subList(0, 3), contains("first", "second", "2 log messages have been dropped, because the output could not keep up."));
+        assertThat(messages.get(messages.size() - 1), containsString("Dropped 1 DEBUG and 1 INFO log messages"));
+    }
+
+    @Test
+    public void dropsRemainingEventsIfTheWriterIsStuck() throws Exception {
+        final AsyncOutputAppender appender = new AsyncOutputAppender(4, AsyncOutputAppender.Overflow.BLOCK, 100);
+        AsyncOutputAppender.install(_logger, appender);
+        _logger.info("first");
+        _recorder.awaitFirstEvent();
+        _logger.info("second");
+        _logger.info("third");
+
+        // the recorder is not released and ignores interrupts, so the writer does not finish within the close timeout
+        final long start = System.currentTimeMillis();
+        AsyncOutputAppender.uninstall(_logger, appender);
+        assertThat("uninstall does not wait for the writer", System.currentTimeMillis() - start < TimeUnit.SECONDS.toMillis(5), is(true));
+        _recorder.release();
+
+        assertThat(_recorder.getMessages(), contains("first"));
+        assertThat(appender.getDroppedInfoCount(), is(2L));
+        assertThat("the recorder is left to the writer", _logger.isAttached(_recorder), is(false));
+    }
+
+    @Test
+    public void parseOverflow() {
+        assertThat(AsyncOutputAppender.Overflow.parse("drop-debug"), is(AsyncOutputAppender.Overflow.DROP_DEBUG));
+        assertThat(AsyncOutputAppender.Overflow.parse(" Summarize "), is(AsyncOutputAppender.Overflow.SUMMARIZE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownOverflow() {
+        AsyncOutputAppender.Overflow.parse("drop-all");
+    }
+
+    /**
+     * Records the messages of the events, but blocks the writer on the first event until it is released.
+     */
+    private static final class RecordingAppender extends AppenderSkeleton {
+
+        private final List<String> _messages = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch _firstEvent = new CountDownLatch(1);
+        private final CountDownLatch _released = new CountDownLatch(1);
+
+        @Override
+        protected void append(final LoggingEvent event) {
+            _messages.add(event.getRenderedMessage());
+            if (_firstEvent.getCount() == 0) {
+                return;
+            }
+            _firstEvent.countDown();
+            // like a blocked console write, which can not be interrupted
+            boolean interrupted = false;
+            final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (_released.getCount() > 0 && System.currentTimeMillis() < end) {
+                try {
+                    _released.await(end - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void awaitFirstEvent() throws InterruptedException {
+            assertThat("the writer did not receive the first event", _firstEvent.await(10, TimeUnit.SECONDS), is(true));
+        }
+
+        void release() {
+            _released.countDown();
+        }
+
+        List<String> getMessages() {
+            synchronized (_messages) {
+                return new ArrayList<>(_messages);
+            }
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
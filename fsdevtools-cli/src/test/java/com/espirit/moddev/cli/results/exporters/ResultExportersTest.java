@@ -0,0 +1,160 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.exporters;
+
+import com.espirit.moddev.cli.api.result.Result;
+import com.espirit.moddev.cli.api.result.ResultCase;
+import com.espirit.moddev.cli.api.result.ResultExporter;
+import com.espirit.moddev.cli.results.SimpleResult;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class ResultExportersTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void junitXmlReport() throws Exception {
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("report.xml");
+        final Result<?> result = new CaseResult(Arrays.asList(ResultCase.passed("module A"),
+                ResultCase.failed("module <B>", "\"broken\"\u0001 & gone", IllegalStateException.class.getName())), Collections.emptyMap());
+
+        new JUnitXmlResultExporter(file).export("module install", result, 1500);
+
+        final String report = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertThat(report, containsString("<testsuite name=\"fs-cli.module.install\" tests=\"2\" failures=\"1\" errors=\"0\" skipped=\"0\" time=\"1.500\">"));
+        assertThat(report, containsString("<testcase classname=\"fs-cli.module.install\" name=\"module A\""));
+        assertThat(report, containsString("name=\"module &lt;B&gt;\"><failure message=\"&quot;broken&quot; &amp; gone\" type=\"java.lang.IllegalStateException\">"));
+    }
+
+    @Test
+    public void junitXmlReportPerCommandInDirectory() throws Exception {
+        final Path directory = _temporaryFolder.newFolder().toPath();
+
+        new JUnitXmlResultExporter(directory).export("module install", new SimpleResult<>("done"), 10);
+        new JUnitXmlResultExporter(directory).export("export", new SimpleResult<>(new IllegalStateException("failed")), 10);
+
+        assertThat(Files.isRegularFile(directory.resolve("TEST-fs-cli-module-install.xml")), is(true));
+        final String report = new String(Files.readAllBytes(directory.resolve("TEST-fs-cli-export.xml")), StandardCharsets.UTF_8);
+        assertThat(report, containsString("tests=\"1\" failures=\"1\""));
+        assertThat(report, containsString("<failure message=\"failed\" type=\"java.lang.IllegalStateException\">"));
+    }
+
+    @Test
+    public void prometheusTextfileKeepsOtherCommands() throws Exception {
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("fs-cli.prom");
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("created_elements", 42L);
+        final PrometheusResultExporter exporter = new PrometheusResultExporter(file);
+
+        exporter.export("export", new CaseResult(Collections.singletonList(ResultCase.passed("export")), counts), 12345);
+        exporter.export("module install", new CaseResult(Collections.singletonList(ResultCase.failed("a", "b", "c")), Collections.emptyMap()), 500);
+        exporter.export("export", new CaseResult(Collections.singletonList(ResultCase.passed("export")), counts), 2000);
+
+        final String metrics = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertThat(metrics, containsString("# TYPE fs_cli_duration_seconds gauge\n"));
+        assertThat(metrics, containsString("fs_cli_duration_seconds{command=\"module install\"} 0.5\n"));
+        assertThat(metrics, containsString("fs_cli_duration_seconds{command=\"export\"} 2.0\n"));
+        assertThat(metrics, not(containsString("12.345")));
+        assertThat(metrics, containsString("fs_cli_failed_cases{command=\"module install\"} 1\n"));
+        assertThat(metrics, containsString("fs_cli_result_count{command=\"export\",name=\"created_elements\"} 42\n"));
+        assertThat(metrics.indexOf("# HELP fs_cli_duration_seconds"), is(metrics.lastIndexOf("# HELP fs_cli_duration_seconds")));
+    }
+
+    @Test
+    public void prometheusEscapesLabelValues() {
+        assertThat(PrometheusResultExporter.escape("a\"b\\c\nd"), is("a\\\"b\\\\c\\nd"));
+    }
+
+    @Test
+    public void flushRunsPendingExports() {
+        final List<String> exported = Collections.synchronizedList(new ArrayList<>());
+        final ResultExporter exporter = (command, result, durationMillis) -> exported.add(command);
+        final ResultExporters exporters = new ResultExporters(Collections.singletonList(exporter), 10000);
+
+        exporters.submit("export", new SimpleResult<>(), 1);
+        exporters.submit("import", new SimpleResult<>(), 1);
+
+        assertThat(exporters.flush(), is(true));
+        assertThat(exported, is(Arrays.asList("export", "import")));
+    }
+
+    @Test
+    public void flushDoesNotWaitLongerThanTheTimeout() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ResultExporter exporter = (command, result, durationMillis) -> {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        final ResultExporters exporters = new ResultExporters(Collections.singletonList(exporter), 100);
+        exporters.submit("export", new SimpleResult<>(), 1);
+
+        final long start = System.nanoTime();
+        assertThat(exporters.flush(), is(false));
+        assertThat(System.nanoTime() - start < 5_000_000_000L, is(true));
+        release.countDown();
+    }
+
+    private static class CaseResult extends SimpleResult<Object> {
+
+        private final List<ResultCase> _cases;
+        private final Map<String, Long> _counts;
+
+        CaseResult(final List<ResultCase> cases, final Map<String, Long> counts) {
+            _cases = cases;
+            _counts = counts;
+        }
+
+        @Override
+        public List<ResultCase> getCases() {
+            return _cases;
+        }
+
+        @Override
+        public Map<String, Long> getCounts() {
+            return _counts;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import java.util.*;
 
 import static com.espirit.moddev.cli.results.logging.MockLogger.NEW_LINE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class AdvancedLoggerTest {
 
@@ -786,6 +787,97 @@ public class AdvancedLoggerTest {
         }
     }
 
+    @Test
+    public void testLogExportResultWithSummaryDetail() throws Exception {
+        // debug enabled, but neither details nor files are logged
+        final MockLogger logger = new MockLogger(true);
+        AdvancedLogger.logExportResult(logger, null, new MockedExportResult(), ResultDetail.SUMMARY);
+        //@formatter:off
+        final String expected = "[INFO] Export done."               + NEW_LINE +
+                                "[INFO] == SUMMARY =="              + NEW_LINE +
+                                "[INFO] Created elements: 7 | project properties: 1 | store elements: 5 ( pagestore: 1, templatestore: 4 ) | entity types: 1 ( schemas: 1, entities: 1 )"   + NEW_LINE +
+                                "[INFO] Updated elements: 10 | project properties: 1 | store elements: 6 ( mediastore: 3, sitestore: 3 ) | entity types: 3 ( schemas: 2, entities: 6 )"      + NEW_LINE +
+                                "[INFO] Deleted elements: 7 | project properties: 1 | store elements: 4 ( pagestore: 1, sitestore: 3 ) | entity types: 2 ( schemas: 1, entities: 7 )"       + NEW_LINE +
+                                "[INFO]   Moved elements: 10 | project properties: 1 | store elements: 7 ( mediastore: 3, templatestore: 4 ) | entity types: 2 ( schemas: 2, entities: 3 )"  + NEW_LINE;
+        // @formatter:on
+        assertEquals("Result does not match.", expected, logger.toString());
+    }
+
+    @Test
+    public void testLogExportResultWithStoreDetail() throws Exception {
+        final MockLogger logger = new MockLogger(true);
+        AdvancedLogger.logExportResult(logger, null, new MockedExportResult(), ResultDetail.STORE);
+        //@formatter:off
+        final String expected = "[INFO] Export done."               + NEW_LINE +
+                                "[INFO] == DETAILS =="              + NEW_LINE +
+                                "[INFO] Created elements: 7"        + NEW_LINE +
+                                "[INFO] - project properties: 1"    + NEW_LINE +
+                                "[INFO] - store elements: 5"        + NEW_LINE +
+                                "[INFO]  - pagestore: 1"            + NEW_LINE +
+                                "[INFO]  - templatestore: 4"        + NEW_LINE +
+                                "[INFO] - entity types: 1                       ( schemas: 1, entities: 1 )"        + NEW_LINE +
+                                "[INFO]  - Schema: 'createdSchema'              ( entity types: 1, entities: 1 )"   + NEW_LINE +
+                                "[INFO] Updated elements: 10"       + NEW_LINE +
+                                "[INFO] - project properties: 1"    + NEW_LINE +
+                                "[INFO] - store elements: 6"        + NEW_LINE +
+                                "[INFO]  - mediastore: 3"           + NEW_LINE +
+                                "[INFO]  - sitestore: 3"            + NEW_LINE +
+                                "[INFO] - entity types: 3                       ( schemas: 2, entities: 6 )"        + NEW_LINE +
+                                "[INFO]  - Schema: 'updatedSchema1'             ( entity types: 2, entities: 5 )"   + NEW_LINE +
+                                "[INFO]  - Schema: 'updatedSchema2'             ( entity types: 1, entities: 1 )"   + NEW_LINE +
+                                "[INFO] Deleted elements: 7"        + NEW_LINE +
+                                "[INFO] - project properties: 1"    + NEW_LINE +
+                                "[INFO] - store elements: 4"        + NEW_LINE +
+                                "[INFO]  - pagestore: 1"            + NEW_LINE +
+                                "[INFO]  - sitestore: 3"            + NEW_LINE +
+                                "[INFO] - entity types: 2                       ( schemas: 1, entities: 7 )"        + NEW_LINE +
+                                "[INFO]  - Schema: 'deletedSchema'              ( entity types: 2, entities: 7 )"   + NEW_LINE +
+                                "[INFO] Moved elements: 10"         + NEW_LINE +
+                                "[INFO] - project properties: 1"    + NEW_LINE +
+                                "[INFO] - store elements: 7"        + NEW_LINE +
+                                "[INFO]  - mediastore: 3"           + NEW_LINE +
+                                "[INFO]  - templatestore: 4"        + NEW_LINE +
+                                "[INFO] - entity types: 2                       ( schemas: 2, entities: 3 )"        + NEW_LINE +
+                                "[INFO]  - Schema: 'movedSchema1'               ( entity types: 1, entities: 1 )"   + NEW_LINE +
+                                "[INFO]  - Schema: 'movedSchema2'               ( entity types: 1, entities: 2 )"   + NEW_LINE +
+                                "[INFO] == SUMMARY =="              + NEW_LINE +
+                                "[INFO] Created elements: 7 | project properties: 1 | store elements: 5 ( pagestore: 1, templatestore: 4 ) | entity types: 1 ( schemas: 1, entities: 1 )"   + NEW_LINE +
+                                "[INFO] Updated elements: 10 | project properties: 1 | store elements: 6 ( mediastore: 3, sitestore: 3 ) | entity types: 3 ( schemas: 2, entities: 6 )"      + NEW_LINE +
+                                "[INFO] Deleted elements: 7 | project properties: 1 | store elements: 4 ( pagestore: 1, sitestore: 3 ) | entity types: 2 ( schemas: 1, entities: 7 )"       + NEW_LINE +
+                                "[INFO]   Moved elements: 10 | project properties: 1 | store elements: 7 ( mediastore: 3, templatestore: 4 ) | entity types: 2 ( schemas: 2, entities: 3 )"  + NEW_LINE;
+        // @formatter:on
+        assertEquals("Result does not match.", expected, logger.toString());
+    }
+
+    @Test
+    public void testReorganizedResultOnlyCountsBelowElementDetail() throws Exception {
+        final List<ExportInfo> elements = new ArrayList<>(new MockedExportResult().getCreatedElements());
+        final ReorganizedResult reorganizedResult = new ReorganizedResult(elements, false);
+        assertEquals("Elements must not be collected.", 0, reorganizedResult.getStoreElements().size());
+        assertEquals("Entity types must not be collected.", 0, reorganizedResult.getEntityTypes().size());
+        assertEquals("Wrong store count.", 1, reorganizedResult.getStoreElementCount(Store.Type.PAGESTORE));
+        assertEquals("Wrong store count.", 4, reorganizedResult.getStoreElementCount(Store.Type.TEMPLATESTORE));
+        assertEquals("Wrong entity count.", 1, reorganizedResult.getEntityCount());
+        assertEquals("Summaries must match.", AdvancedLogger.buildSummary(elements, "x", new ReorganizedResult(elements)), AdvancedLogger.buildSummary(elements, "x", reorganizedResult));
+    }
+
+    @Test
+    public void testReorganizedResultSortsStoresOnce() {
+        final List<ExportInfo> elements = new ArrayList<>();
+        elements.add(new MockedElementExportInfo(Store.Type.PAGESTORE, "c"));
+        elements.add(new MockedElementExportInfo(Store.Type.PAGESTORE, "a"));
+        elements.add(new MockedElementExportInfo(Store.Type.PAGESTORE, "b"));
+        elements.add(new MockedEntityTypeExportInfo("entityType", "schema", 2));
+        final ReorganizedResult reorganizedResult = new ReorganizedResult(elements);
+        final List<ElementExportInfo> sorted = reorganizedResult.getSortedStoreElements().get(Store.Type.PAGESTORE);
+        assertEquals("Wrong order.", "a", sorted.get(0).getName());
+        assertEquals("Wrong order.", "b", sorted.get(1).getName());
+        assertEquals("Wrong order.", "c", sorted.get(2).getName());
+        assertSame("Stores must only be sorted once.", sorted, reorganizedResult.getSortedStoreElements().get(Store.Type.PAGESTORE));
+        assertEquals("Wrong schema count.", 1, reorganizedResult.getSchemas().size());
+        assertEquals("Wrong entity count.", 2, reorganizedResult.getSchemas().iterator().next().getEntityCount());
+    }
+
     @Test
     public void testLogImportResult() throws Exception {
         {
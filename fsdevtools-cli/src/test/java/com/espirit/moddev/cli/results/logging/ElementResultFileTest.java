@@ -0,0 +1,174 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.store.access.nexport.ExportStatus;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ElementResultFileTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void writeAndRead() throws Exception {
+        final List<ElementResultFile.Entry> entries = Arrays.asList(
+                new ElementResultFile.Entry(Store.Type.PAGESTORE, 7, ExportStatus.CREATED, 42, "home", "PageStore/home/StoreElement.xml"),
+                new ElementResultFile.Entry(Store.Type.PAGESTORE, Long.MAX_VALUE, ExportStatus.UPDATED, -1, "news", "PageStore/news/StoreElement.xml"),
+                new ElementResultFile.Entry(Store.Type.MEDIASTORE, 3, ExportStatus.DELETED, ElementResultFile.UNKNOWN_FINGERPRINT, "logo", ""));
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("result.fsr");
+        ElementResultFile.write(file, sortedCopy(entries), 1234L);
+
+        try (ElementResultFile.Reader reader = ElementResultFile.open(file)) {
+            assertThat(reader.getTimestamp(), is(1234L));
+            assertThat(reader.size(), is(3));
+            final List<ElementResultFile.Entry> read = new ArrayList<>();
+            ElementResultFile.Entry entry;
+            while ((entry = reader.next()) != null) {
+                read.add(entry);
+            }
+            assertThat(read, is(sortedCopy(entries)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsortedEntriesAreRejected() throws Exception {
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("result.fsr");
+        ElementResultFile.write(file, Arrays.asList(entry(Store.Type.PAGESTORE, 2, 0), entry(Store.Type.PAGESTORE, 1, 0)), 0);
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws Exception {
+        final Path file = _temporaryFolder.newFile("other.fsr").toPath();
+        Files.write(file, new byte[]{1, 2, 3});
+        try {
+            ElementResultFile.open(file).close();
+            fail("An IOException is expected.");
+        } catch (final IOException e) {
+            assertThat(e.getMessage().contains("is no export result"), is(true));
+        }
+    }
+
+    @Test
+    public void diff() throws Exception {
+        final Path olderFile = _temporaryFolder.getRoot().toPath().resolve("older.fsr");
+        final Path newerFile = _temporaryFolder.getRoot().toPath().resolve("newer.fsr");
+        ElementResultFile.write(olderFile, sortedCopy(Arrays.asList(
+                entry(Store.Type.PAGESTORE, 1, 10),
+                entry(Store.Type.PAGESTORE, 2, 20),
+                entry(Store.Type.PAGESTORE, 3, 30),
+                entry(Store.Type.MEDIASTORE, 1, 10))), 0);
+        ElementResultFile.write(newerFile, sortedCopy(Arrays.asList(
+                entry(Store.Type.PAGESTORE, 2, 20),
+                entry(Store.Type.PAGESTORE, 3, 31),
+                entry(Store.Type.PAGESTORE, 4, 40),
+                entry(Store.Type.MEDIASTORE, 1, ElementResultFile.UNKNOWN_FINGERPRINT),
+                entry(Store.Type.TEMPLATESTORE, 5, 50))), 0);
+
+        final List<String> differences = new ArrayList<>();
+        final ElementResultDiff diff = ElementResultDiff.compare(olderFile, newerFile, new ElementResultDiff.Listener() {
+            @Override
+            public void added(final ElementResultFile.Entry newer) {
+                differences.add("+" + newer.getStoreType().getName() + newer.getNodeId());
+            }
+
+            @Override
+            public void removed(final ElementResultFile.Entry older) {
+                differences.add("-" + older.getStoreType().getName() + older.getNodeId());
+            }
+
+            @Override
+            public void changed(final ElementResultFile.Entry older, final ElementResultFile.Entry newer) {
+                differences.add("~" + newer.getStoreType().getName() + newer.getNodeId());
+            }
+        });
+
+        // the differences of a store are reported in the order of the node ids
+        assertThat(differences.indexOf("-" + Store.Type.PAGESTORE.getName() + 1) < differences.indexOf("~" + Store.Type.PAGESTORE.getName() + 3), is(true));
+        assertThat(differences.indexOf("~" + Store.Type.PAGESTORE.getName() + 3) < differences.indexOf("+" + Store.Type.PAGESTORE.getName() + 4), is(true));
+        assertThat(differences.size(), is(4));
+        assertThat(differences.contains("+" + Store.Type.TEMPLATESTORE.getName() + 5), is(true));
+        assertThat(diff.getRemoved(Store.Type.PAGESTORE), is(1));
+        assertThat(diff.getChanged(Store.Type.PAGESTORE), is(1));
+        assertThat(diff.getAdded(Store.Type.PAGESTORE), is(1));
+        assertThat(diff.getAdded(Store.Type.TEMPLATESTORE), is(1));
+        // an unknown fingerprint is no change
+        assertThat(diff.getChanged(Store.Type.MEDIASTORE), is(0));
+        assertThat(diff.getUnchanged(), is(2));
+        assertThat(diff.hasDifferences(), is(true));
+    }
+
+    @Test
+    public void deletionAndMoveAreChanges() {
+        final ElementResultFile.Entry entry = entry(Store.Type.PAGESTORE, 1, 10);
+        assertThat(ElementResultDiff.isChanged(entry, entry), is(false));
+        assertThat(ElementResultDiff.isChanged(entry, new ElementResultFile.Entry(Store.Type.PAGESTORE, 1, ExportStatus.DELETED, 0, "uid1", "PageStore/uid1")), is(true));
+        assertThat(ElementResultDiff.isChanged(entry, new ElementResultFile.Entry(Store.Type.PAGESTORE, 1, ExportStatus.MOVED, 10, "uid1", "PageStore/moved/uid1")), is(true));
+    }
+
+    @Test
+    public void oldFilesAreDeletedAndTheLatestIsResolved() throws Exception {
+        final Path syncDirectory = _temporaryFolder.newFolder("sync").toPath();
+        final Path directory = ElementResultFile.getResultDirectory(syncDirectory);
+        Files.createDirectories(directory);
+        for (int index = 0; index < 5; index++) {
+            ElementResultFile.write(directory.resolve("export-2024010" + index + "-120000-000" + ElementResultFile.FILE_SUFFIX), Collections.emptyList(), index);
+        }
+
+        ElementResultFile.deleteOldFiles(directory, 3);
+
+        assertThat(Files.exists(directory.resolve("export-20240101-120000-000.fsr")), is(false));
+        assertThat(Files.exists(directory.resolve("export-20240102-120000-000.fsr")), is(true));
+        assertThat(ElementResultFile.resolve(syncDirectory), is(directory.resolve("export-20240104-120000-000.fsr")));
+        try (ElementResultFile.Reader reader = ElementResultFile.open(ElementResultFile.resolve(syncDirectory))) {
+            assertThat(reader.next(), is(nullValue()));
+        }
+    }
+
+    private static ElementResultFile.Entry entry(final Store.Type storeType, final long nodeId, final long fingerprint) {
+        return new ElementResultFile.Entry(storeType, nodeId, ExportStatus.UPDATED, fingerprint, "uid" + nodeId, storeType.getName() + "/uid" + nodeId);
+    }
+
+    private static List<ElementResultFile.Entry> sortedCopy(final List<ElementResultFile.Entry> entries) {
+        final List<ElementResultFile.Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
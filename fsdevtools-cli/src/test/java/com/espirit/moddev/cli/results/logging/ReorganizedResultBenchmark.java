@@ -0,0 +1,97 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the aggregation of large results by {@link ReorganizedResult} for every {@link ResultDetail}. This is no
+ * unit test, start it with its main method, e.g. from the IDE, optionally with the number of elements as argument.
+ */
+public final class ReorganizedResultBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReorganizedResultBenchmark.class);
+    private static final int DEFAULT_ELEMENT_COUNT = 1_000_000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private ReorganizedResultBenchmark() {
+        // main class
+    }
+
+    public static void main(final String[] args) {
+        final int elementCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ELEMENT_COUNT;
+        final List<ExportInfo> elements = createElements(elementCount);
+        LOGGER.info("Created {} synthetic elements.", elements.size());
+        // consumes the results, so the aggregation cannot be optimized away
+        long checksum = 0;
+        for (final ResultDetail detail : ResultDetail.values()) {
+            final boolean collectElements = detail.includes(ResultDetail.ELEMENT);
+            for (int iteration = 0; iteration < WARMUP_ITERATIONS; iteration++) {
+                checksum += run(elements, collectElements);
+            }
+            long totalNanos = 0;
+            long minNanos = Long.MAX_VALUE;
+            for (int iteration = 0; iteration < MEASURED_ITERATIONS; iteration++) {
+                final long start = System.nanoTime();
+                checksum += run(elements, collectElements);
+                final long nanos = System.nanoTime() - start;
+                totalNanos += nanos;
+                minNanos = Math.min(minNanos, nanos);
+            }
+            LOGGER.info("{}: avg {} ms, min {} ms, {} ns per element", detail, totalNanos / MEASURED_ITERATIONS / 1_000_000,
+                    minNanos / 1_000_000, totalNanos / MEASURED_ITERATIONS / elements.size());
+        }
+        LOGGER.debug("Checksum: {}", checksum);
+    }
+
+    private static int run(final List<ExportInfo> elements, final boolean collectElements) {
+        final ReorganizedResult reorganizedResult = new ReorganizedResult(elements, collectElements);
+        // sorting is part of the work of the detailed levels
+        final int sortedStores = reorganizedResult.getSortedStoreElements().size();
+        return reorganizedResult.getStoreElementCount() + reorganizedResult.getEntityCount() + sortedStores;
+    }
+
+    private static List<ExportInfo> createElements(final int elementCount) {
+        // fixed seed, so all runs measure the same input
+        final Random random = new Random(42);
+        final Store.Type[] storeTypes = Store.Type.values();
+        final List<ExportInfo> elements = new ArrayList<>(elementCount);
+        for (int index = 0; index < elementCount; index++) {
+            if (index % 100 == 0) {
+                elements.add(new MockedEntityTypeExportInfo("entityType" + index, "schema" + random.nextInt(20), random.nextInt(10)));
+            } else {
+                final Store.Type storeType = storeTypes[random.nextInt(storeTypes.length)];
+                elements.add(new MockedElementExportInfo(storeType, "element" + random.nextInt(elementCount), TagNames.PAGE));
+            }
+        }
+        return elements;
+    }
+}
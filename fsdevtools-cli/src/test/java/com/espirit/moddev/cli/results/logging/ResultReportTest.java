@@ -0,0 +1,142 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.espirit.firstspirit.store.access.nexport.ExportInfo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class ResultReportTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void isRequested() throws Exception {
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("report.jsonl");
+        assertThat(ResultReport.isRequested(null, null), is(false));
+        assertThat(ResultReport.isRequested("text", null), is(false));
+        assertThat(ResultReport.isRequested("TEXT", file), is(true));
+        assertThat(ResultReport.isRequested(null, file), is(true));
+        assertThat(ResultReport.open(null, null), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jsonRequiresFile() {
+        // json records on the console would be interleaved with the log lines
+        ResultReport.isRequested("jsonl", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFormat() {
+        ResultReport.isRequested("xml", null);
+    }
+
+    @Test
+    public void exportResultAsJsonLines() throws Exception {
+        final MockedExportResult result = new MockedExportResult(true);
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("reports").resolve("export.jsonl");
+        try (ResultReport report = ResultReport.open(null, file)) {
+            report.writeExportResult(result);
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        final long created = countRecords(result.getCreatedElements());
+        final long updated = countRecords(result.getUpdatedElements());
+        final long deleted = countRecords(result.getDeletedElements());
+        final long moved = countRecords(result.getMovedElements());
+        assertThat((long) lines.size(), is(created + updated + deleted + moved + 1));
+
+        final JsonNode element = OBJECT_MAPPER.readTree(lines.get(0));
+        assertThat(element.get("type").asText(), is("element"));
+        assertThat(element.get("status").asText(), is("created"));
+        assertThat(element.get("createdFiles").size(), is(1));
+        assertThat(element.get("movedFiles").get(0).has("from"), is(true));
+
+        final JsonNode summary = OBJECT_MAPPER.readTree(lines.get(lines.size() - 1));
+        assertThat(summary.get("type").asText(), is("summary"));
+        assertThat(summary.get("created").asLong(), is(created));
+        assertThat(summary.get("updated").asLong(), is(updated));
+        assertThat(summary.get("deleted").asLong(), is(deleted));
+        assertThat(summary.get("moved").asLong(), is(moved));
+    }
+
+    @Test
+    public void importResultAsJson() throws Exception {
+        final MockedImportResult result = new MockedImportResult(true);
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("import.json");
+        try (ResultReport report = ResultReport.open("json", file)) {
+            report.writeImportResult(result);
+        }
+
+        final JsonNode records = OBJECT_MAPPER.readTree(file.toFile());
+        assertThat(records.isArray(), is(true));
+        int problems = 0;
+        for (final JsonNode record : records) {
+            if ("problem".equals(record.get("type").asText())) {
+                problems++;
+            }
+        }
+        assertThat(problems, is(result.getProblems().size()));
+        final JsonNode summary = records.get(records.size() - 1);
+        assertThat(summary.get("operation").asText(), is("import"));
+        assertThat(summary.get("lostAndFound").asInt(), is(result.getLostAndFoundElements().size()));
+        assertThat(summary.get("deleted").asInt(), is(result.getDeletedElements().size()));
+        assertThat(summary.get("problems").asInt(), is(result.getProblems().size()));
+    }
+
+    @Test
+    public void importResultAsText() throws Exception {
+        final MockedImportResult result = new MockedImportResult(true);
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("import.txt");
+        try (ResultReport report = ResultReport.open("text", file)) {
+            report.writeImportResult(result);
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertThat(lines.get(0), startsWith("element status='created' store="));
+        assertThat(lines.get(lines.size() - 1), startsWith("summary operation='import'"));
+    }
+
+    private static long countRecords(final Collection<ExportInfo> exportInfos) {
+        return exportInfos.stream().filter(exportInfo -> exportInfo.getType() != ExportInfo.Type.FS_META).count();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import de.espirit.firstspirit.access.store.IDProvider;
+import de.espirit.firstspirit.access.store.Store;
+import de.espirit.firstspirit.agency.StoreAgent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StoreElementResolverTest {
+
+    private StoreAgent _storeAgent;
+    private Store _pageStore;
+    private IDProvider _page;
+
+    @Before
+    public void setUp() {
+        _storeAgent = mock(StoreAgent.class);
+        _pageStore = mock(Store.class);
+        _page = mock(IDProvider.class);
+        when(_page.getId()).thenReturn(1L);
+        when(_storeAgent.getStore(Store.Type.PAGESTORE)).thenReturn(_pageStore);
+        doReturn(Collections.singletonList(_page)).when(_pageStore).getElements(anyCollection());
+    }
+
+    @Test
+    public void prefetchRequestsDistinctElementsOnce() {
+        final StoreElementResolver testling = new StoreElementResolver(_storeAgent);
+        testling.prefetch(Arrays.asList(key(1), key(2), key(1)));
+        testling.prefetch(Arrays.asList(key(1), key(2)));
+
+        assertThat(testling.getStoreElement(Store.Type.PAGESTORE, 1), is(sameInstance(_page)));
+        assertThat(testling.getStoreElement(Store.Type.PAGESTORE, 2), is(nullValue()));
+        verify(_storeAgent, times(1)).getStore(Store.Type.PAGESTORE);
+        verify(_pageStore, times(1)).getElements(anyCollection());
+        verify(_pageStore, never()).getStoreElement(anyLong());
+    }
+
+    @Test
+    public void prefetchSplitsLargeRequests() {
+        final StoreElementResolver testling = new StoreElementResolver(_storeAgent);
+        final List<StoreElementResolver.ElementKey> keys = new ArrayList<>();
+        for (int id = 1; id <= StoreElementResolver.BATCH_SIZE + 1; id++) {
+            keys.add(key(id));
+        }
+        testling.prefetch(keys);
+
+        verify(_pageStore, times(2)).getElements(anyCollection());
+        assertThat(testling.getStoreElement(Store.Type.PAGESTORE, StoreElementResolver.BATCH_SIZE + 1), is(nullValue()));
+        verify(_pageStore, never()).getStoreElement(anyLong());
+    }
+
+    @Test
+    public void lookupWithoutBatchSupport() {
+        final Store mediaStore = mock(Store.class);
+        final IDProvider medium = mock(IDProvider.class);
+        when(_storeAgent.getStore(Store.Type.MEDIASTORE)).thenReturn(mediaStore);
+        when(mediaStore.getElements(anyCollection())).thenReturn(null);
+        when(mediaStore.getStoreElement(3L)).thenReturn(medium);
+
+        final StoreElementResolver testling = new StoreElementResolver(_storeAgent);
+        final Collection<StoreElementResolver.ElementKey> keys = Collections.singletonList(new StoreElementResolver.ElementKey(Store.Type.MEDIASTORE, 3));
+        testling.prefetch(keys);
+
+        assertThat(testling.getStoreElement(Store.Type.MEDIASTORE, 3), is(sameInstance(medium)));
+        verify(mediaStore, times(1)).getStoreElement(3L);
+    }
+
+    @Test
+    public void noStoreAgent() {
+        final StoreElementResolver testling = new StoreElementResolver(null);
+        testling.prefetch(Collections.singletonList(key(1)));
+        assertThat(testling.canLookUp(), is(false));
+        assertThat(testling.getStoreElement(Store.Type.PAGESTORE, 1), is(nullValue()));
+    }
+
+    private static StoreElementResolver.ElementKey key(final long id) {
+        return new StoreElementResolver.ElementKey(Store.Type.PAGESTORE, id);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.results.logging;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SubtreeTimingsTest {
+
+    @Test
+    public void subtree() {
+        assertThat(SubtreeTimings.getSubtree("TemplateStore/PageTemplates/news/StoreElement.xml"), is("TemplateStore/PageTemplates/news"));
+        assertThat(SubtreeTimings.getSubtree("MediaStore/images/teaser/logo/StoreElement.xml"), is("MediaStore/images/teaser"));
+        assertThat(SubtreeTimings.getSubtree("PageStore\\home\\StoreElement.xml"), is("PageStore/home"));
+        assertThat(SubtreeTimings.getSubtree("PageStore/StoreElement.xml"), is("PageStore"));
+        assertThat(SubtreeTimings.getSubtree("README.md"), is("."));
+    }
+
+    @Test
+    public void timeBetweenFilesIsAttributedToTheLaterFile() {
+        final List<SubtreeTimings.FileSample> samples = new ArrayList<>(Arrays.asList(
+                new SubtreeTimings.FileSample("PageStore/news/archive/a/StoreElement.xml", 1300),
+                new SubtreeTimings.FileSample("PageStore/home/StoreElement.xml", 1100),
+                new SubtreeTimings.FileSample("PageStore/news/archive/b/StoreElement.xml", 1350),
+                // modified after the export, e.g. by a clock skew
+                new SubtreeTimings.FileSample("MediaStore/images/StoreElement.xml", 5000)));
+
+        final SubtreeTimings timings = SubtreeTimings.measure(samples, 1000, 1400);
+
+        final List<SubtreeTimings.Subtree> slowest = timings.getSlowest(SubtreeTimings.DEFAULT_LIMIT);
+        assertThat(slowest.size(), is(3));
+        assertThat(slowest.get(0).toString(), is("PageStore/news/archive: 250 ms (2 files)"));
+        assertThat(slowest.get(1).toString(), is("PageStore/home: 100 ms (1 files)"));
+        assertThat(slowest.get(2).toString(), is("MediaStore/images: 50 ms (1 files)"));
+        assertThat(timings.getSlowest(1).size(), is(1));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ImportBatchTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _syncDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        _syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        write(".FirstSpirit/ProjectProperties.xml");
+        write(".git/config");
+        write(".fs-cli/results/export-20240101-120000-000.fsr");
+        write("SiteStore/StoreElement.xml");
+        write("PageStore/StoreElement.xml");
+        write("PageStore/Folder/StoreElement.xml");
+        write("PageStore/Folder/Page/StoreElement.xml");
+        write("PageStore/Folder/Page/content/data.xml");
+        write("TemplateStore/StoreElement.xml");
+        write("loose.txt");
+    }
+
+    @Test
+    public void batchesAreOrderedByStoreDependencies() throws Exception {
+        final List<ImportBatch> batches = plan(2);
+        assertThat(batches, hasSize(5));
+        assertThat(batches.get(0).getStoreType(), is(nullValue()));
+        assertThat(batches.get(0).getFiles(), contains("loose.txt"));
+        assertThat(batches.get(1).getStoreType(), is(Store.Type.TEMPLATESTORE));
+        assertThat(batches.get(2).getFiles(), contains("PageStore/StoreElement.xml", "PageStore/Folder/StoreElement.xml"));
+        assertThat(batches.get(3).getFiles(), contains("PageStore/Folder/Page/StoreElement.xml"));
+        assertThat(batches.get(4).getStoreType(), is(Store.Type.SITESTORE));
+    }
+
+    @Test
+    public void keysIdentifyBatchesByFiles() throws Exception {
+        final List<ImportBatch> batches = plan(2);
+        final List<ImportBatch> samePlan = plan(2);
+        assertThat(batches.get(2).getKey(), is(samePlan.get(2).getKey()));
+        assertThat(batches.get(2).getKey(), is(not(batches.get(3).getKey())));
+
+        write("PageStore/Folder/Other/StoreElement.xml");
+        assertThat(plan(2).get(3).getKey(), is(not(batches.get(3).getKey())));
+    }
+
+    @Test
+    public void keysChangeWithContentOfElementFiles() throws Exception {
+        final List<ImportBatch> batches = plan(2);
+        Files.write(_syncDirectory.resolve("PageStore/Folder/Page/content/data.xml"), "changed".getBytes(StandardCharsets.UTF_8));
+
+        final List<ImportBatch> changedPlan = plan(2);
+        assertThat(changedPlan.get(2).getKey(), is(batches.get(2).getKey()));
+        assertThat(changedPlan.get(3).getKey(), is(not(batches.get(3).getKey())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBatchSize() throws Exception {
+        plan(0);
+    }
+
+    private List<ImportBatch> plan(final int batchSize) throws Exception {
+        return ImportBatch.plan(_syncDirectory, batchSize, SyncDirectoryManifest.scan(_syncDirectory, null));
+    }
+
+    private void write(final String path) throws Exception {
+        final Path file = _syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, path.getBytes(StandardCharsets.UTF_8));
+    }
+}
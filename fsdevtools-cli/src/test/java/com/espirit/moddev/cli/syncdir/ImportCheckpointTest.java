@@ -0,0 +1,87 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ImportCheckpointTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _file;
+    private List<ImportBatch> _batches;
+
+    @Before
+    public void setUp() throws Exception {
+        final Path syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        for (final String path : new String[]{"PageStore/StoreElement.xml", "PageStore/page/StoreElement.xml"}) {
+            final Path file = syncDirectory.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, path.getBytes(StandardCharsets.UTF_8));
+        }
+        _batches = ImportBatch.plan(syncDirectory, 1, SyncDirectoryManifest.scan(syncDirectory, null));
+        _file = _temporaryFolder.getRoot().toPath().resolve("index").resolve("syncdir.checkpoint");
+    }
+
+    @Test
+    public void resumeKeepsCompletedBatches() throws Exception {
+        ImportCheckpoint.open(_file, false).markCompleted(_batches.get(0));
+
+        final ImportCheckpoint checkpoint = ImportCheckpoint.open(_file, true);
+        assertThat(checkpoint.isCompleted(_batches.get(0)), is(true));
+        assertThat(checkpoint.isCompleted(_batches.get(1)), is(false));
+    }
+
+    @Test
+    public void newImportStartsNewCheckpoint() throws Exception {
+        ImportCheckpoint.open(_file, false).markCompleted(_batches.get(0));
+
+        assertThat(ImportCheckpoint.open(_file, false).isCompleted(_batches.get(0)), is(false));
+        assertThat(ImportCheckpoint.open(_file, true).isCompleted(_batches.get(0)), is(false));
+    }
+
+    @Test
+    public void resumeWithoutCheckpoint() throws Exception {
+        assertThat(ImportCheckpoint.open(_file, true).isCompleted(_batches.get(0)), is(false));
+    }
+
+    @Test
+    public void deleteRemovesFile() throws Exception {
+        final ImportCheckpoint checkpoint = ImportCheckpoint.open(_file, false);
+        checkpoint.markCompleted(_batches.get(1));
+        checkpoint.delete();
+        assertThat(Files.exists(_file), is(false));
+    }
+}
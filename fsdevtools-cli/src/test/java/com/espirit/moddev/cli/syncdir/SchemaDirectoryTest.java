@@ -0,0 +1,76 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SchemaDirectoryTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void schemasAreFoundInTheTemplateStore() throws Exception {
+        final Path syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        write(syncDirectory, "TemplateStore/StoreElement.xml", "<TEMPLATESTORE/>");
+        write(syncDirectory, "TemplateStore/Schemas/products/StoreElement.xml", "<SCHEMA uid=\"products\"/>");
+        write(syncDirectory, "TemplateStore/Schemas/products/entities/product/1.xml", "<ENTITY/>");
+        write(syncDirectory, "TemplateStore/Schemas/products/entities/product/2.xml", "<ENTITY/>");
+        write(syncDirectory, "TemplateStore/Schemas/products/all/StoreElement.xml", "<QUERY uid=\"products.all\"/>");
+        write(syncDirectory, "TemplateStore/Schemas/news/StoreElement.xml", "<SCHEMA uid=\"news\"/>");
+        write(syncDirectory, "PageStore/StoreElement.xml", "<SCHEMA uid=\"misplaced\"/>");
+
+        final List<SchemaDirectory> schemas = SchemaDirectory.find(syncDirectory);
+
+        assertThat(schemas, hasSize(2));
+        assertThat(schemas.get(0).getUid(), is("news"));
+        assertThat(schemas.get(0).getFileCount(), is(1));
+        assertThat(schemas.get(1).getUid(), is("products"));
+        assertThat(schemas.get(1).getPath(), is("TemplateStore/Schemas/products"));
+        assertThat(schemas.get(1).getStoreElementFile(), is("TemplateStore/Schemas/products/StoreElement.xml"));
+        assertThat(schemas.get(1).getFileCount(), is(3));
+    }
+
+    @Test
+    public void missingSyncDirHasNoSchemas() throws Exception {
+        assertThat(SchemaDirectory.find(_temporaryFolder.getRoot().toPath().resolve("missing")), is(empty()));
+    }
+
+    private static void write(final Path syncDirectory, final String path, final String content) throws Exception {
+        final Path file = syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
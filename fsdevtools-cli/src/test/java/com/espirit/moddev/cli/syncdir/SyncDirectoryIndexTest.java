@@ -0,0 +1,104 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import com.espirit.moddev.cli.api.parsing.identifier.UidMapping;
+
+import de.espirit.firstspirit.access.store.Store;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class SyncDirectoryIndexTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _file;
+
+    @Before
+    public void setUp() {
+        _file = _temporaryFolder.getRoot().toPath().resolve("index").resolve("test.idx");
+    }
+
+    @Test
+    public void emptyIndex() throws Exception {
+        SyncDirectoryIndex.write(_file, new ArrayList<>());
+        final SyncDirectoryIndex index = SyncDirectoryIndex.open(_file);
+        assertThat(index.size(), is(0));
+        assertThat(index.getByPath("PageStore"), is(nullValue()));
+    }
+
+    @Test
+    public void lookupByUidAndPath() throws Exception {
+        final IndexEntry page = new IndexEntry(Store.Type.PAGESTORE, UidMapping.PAGE, "home", "PageStore/folder/home", 42);
+        final IndexEntry folder = new IndexEntry(Store.Type.PAGESTORE, UidMapping.PAGEFOLDER, "folder", "PageStore/folder", 41);
+        final IndexEntry store = new IndexEntry(Store.Type.PAGESTORE, null, null, "PageStore", 1);
+        SyncDirectoryIndex.write(_file, Arrays.asList(page, folder, store));
+
+        final SyncDirectoryIndex index = SyncDirectoryIndex.open(_file);
+        assertThat(index.size(), is(3));
+        assertThat(index.getByUid(UidMapping.PAGE, "home"), is(page));
+        assertThat(index.getByUid(UidMapping.PAGEFOLDER, "folder"), is(folder));
+        assertThat(index.getByUid(UidMapping.PAGE, "unknown"), is(nullValue()));
+        assertThat(index.getByPath("PageStore/folder/home"), is(page));
+        assertThat(index.getByPath("/pagestore/FOLDER/home/"), is(page));
+        assertThat(index.getByPath("PageStore"), is(store));
+    }
+
+    @Test
+    public void lastEntryOfPathWins() throws Exception {
+        final IndexEntry first = new IndexEntry(Store.Type.PAGESTORE, UidMapping.PAGE, "home", "PageStore/home", 1);
+        final IndexEntry second = first.withId(2);
+        SyncDirectoryIndex.write(_file, Arrays.asList(first, second));
+
+        final SyncDirectoryIndex index = SyncDirectoryIndex.open(_file);
+        assertThat(index.size(), is(1));
+        assertThat(index.getByPath("PageStore/home").getId(), is(2L));
+    }
+
+    @Test
+    public void forEachVisitsAllEntries() throws Exception {
+        final List<IndexEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entries.add(new IndexEntry(Store.Type.MEDIASTORE, UidMapping.MEDIA, "medium_" + i, "MediaStore/medium_" + i, i));
+        }
+        SyncDirectoryIndex.write(_file, entries);
+
+        final List<IndexEntry> visited = new ArrayList<>();
+        SyncDirectoryIndex.open(_file).forEach(visited::add);
+        assertThat(visited.size(), is(100));
+        assertThat(visited.containsAll(entries), is(true));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class SyncDirectoryManifestTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _syncDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        _syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        write("PageStore/page/StoreElement.xml", "<PAGE uid=\"page\"/>");
+        write("TemplateStore/template/StoreElement.xml", "<TEMPLATE uid=\"template\"/>");
+        write(".git/HEAD", "ref: refs/heads/master");
+    }
+
+    @Test
+    public void scanSkipsVersionControlFiles() throws Exception {
+        final SyncDirectoryManifest manifest = SyncDirectoryManifest.scan(_syncDirectory, null);
+        assertThat(manifest.getFiles(), contains("PageStore/page/StoreElement.xml", "TemplateStore/template/StoreElement.xml"));
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        final SyncDirectoryManifest manifest = SyncDirectoryManifest.scan(_syncDirectory, null);
+        final Path file = _temporaryFolder.getRoot().toPath().resolve("manifests").resolve("test.manifest");
+        manifest.write(file);
+        assertThat(SyncDirectoryManifest.read(file), is(manifest));
+    }
+
+    @Test
+    public void changedAndDeletedFiles() throws Exception {
+        final SyncDirectoryManifest previous = SyncDirectoryManifest.scan(_syncDirectory, null);
+        write("PageStore/page/StoreElement.xml", "<PAGE uid=\"page\" changed=\"true\"/>");
+        write("PageStore/new/StoreElement.xml", "<PAGE uid=\"new\"/>");
+        Files.delete(_syncDirectory.resolve("TemplateStore/template/StoreElement.xml"));
+
+        final SyncDirectoryManifest current = SyncDirectoryManifest.scan(_syncDirectory, previous);
+        assertThat(previous.getChangedFiles(current), contains("PageStore/new/StoreElement.xml", "PageStore/page/StoreElement.xml"));
+        assertThat(previous.getDeletedFiles(current), contains("TemplateStore/template/StoreElement.xml"));
+    }
+
+    @Test
+    public void unchangedFiles() throws Exception {
+        final SyncDirectoryManifest previous = SyncDirectoryManifest.scan(_syncDirectory, null);
+        final SyncDirectoryManifest current = SyncDirectoryManifest.scan(_syncDirectory, previous);
+        assertThat(previous.getChangedFiles(current), is(empty()));
+        assertThat(previous.getDeletedFiles(current), is(empty()));
+    }
+
+    @Test
+    public void contentHashIgnoresModificationTimes() throws Exception {
+        final SyncDirectoryManifest previous = SyncDirectoryManifest.scan(_syncDirectory, null);
+        final Path file = _syncDirectory.resolve("PageStore/page/StoreElement.xml");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 60000));
+        final SyncDirectoryManifest touched = SyncDirectoryManifest.scan(_syncDirectory, previous);
+        assertThat(touched.getContentHash(), is(previous.getContentHash()));
+
+        write("PageStore/page/StoreElement.xml", "<PAGE uid=\"page\" changed=\"true\"/>");
+        final SyncDirectoryManifest changed = SyncDirectoryManifest.scan(_syncDirectory, touched);
+        assertThat(changed.getContentHash(), is(not(previous.getContentHash())));
+    }
+
+    private void write(final String path, final String content) throws Exception {
+        final Path file = _syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
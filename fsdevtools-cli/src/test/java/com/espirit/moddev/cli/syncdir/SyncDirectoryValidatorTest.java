@@ -0,0 +1,144 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SyncDirectoryValidatorTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _syncDirectory;
+    private SyncDirectoryValidator _validator;
+
+    @Before
+    public void setUp() throws Exception {
+        _syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        _validator = new SyncDirectoryValidator(2);
+        write(".FirstSpirit/ProjectProperties.xml", "<PROPERTIES/>");
+        write("PageStore/StoreElement.xml", "<PAGESTORE/>");
+        write("PageStore/folder/StoreElement.xml", "<PAGEFOLDER uid=\"folder\"/>");
+        write("PageStore/folder/page/StoreElement.xml", "<PAGE uid=\"page\"><CONTENT file=\"content.xml\"/></PAGE>");
+        write("PageStore/folder/page/content.xml", "<CONTENT/>");
+        write("TemplateStore/StoreElement.xml", "<TEMPLATESTORE/>");
+    }
+
+    @Test
+    public void validSyncDirectory() throws Exception {
+        final ValidationReport report = _validator.validate(_syncDirectory);
+        assertThat(report.getProblems().toString(), report.isValid(), is(true));
+        assertThat(report.getWarnings(), hasSize(0));
+        assertThat(report.getFileCount(), is(6));
+    }
+
+    @Test
+    public void malformedXml() throws Exception {
+        write("PageStore/folder/page/content.xml", "<CONTENT>");
+        final ValidationReport report = _validator.validate(_syncDirectory);
+        assertThat(report.getProblems(), hasSize(1));
+        assertThat(report.getProblems().get(0).getPath(), is("PageStore/folder/page/content.xml"));
+        assertThat(report.getProblems().get(0).getMessage(), containsString("well-formed"));
+    }
+
+    @Test
+    public void duplicateUidInSameNamespace() throws Exception {
+        write("PageStore/folder/copy/StoreElement.xml", "<PAGE uid=\"page\"/>");
+        // same uid, but different uid type
+        write("SiteStore/StoreElement.xml", "<SITESTORE/>");
+        write("SiteStore/page/StoreElement.xml", "<PAGEREF uid=\"page\"/>");
+        final ValidationReport report = _validator.validate(_syncDirectory);
+        assertThat(report.getProblems(), hasSize(1));
+        assertThat(report.getProblems().get(0).getMessage(), containsString("'page'"));
+    }
+
+    @Test
+    public void missingReferencedFileIsAWarning() throws Exception {
+        Files.delete(_syncDirectory.resolve("PageStore/folder/page/content.xml"));
+        final ValidationReport report = _validator.validate(_syncDirectory);
+        assertThat(report.isValid(), is(true));
+        assertThat(report.getWarnings(), hasSize(1));
+        assertThat(report.getWarnings().get(0).toString(), is("PageStore/folder/page/StoreElement.xml: the referenced file 'content.xml' does not exist"));
+    }
+
+    @Test
+    public void missingMetadataDirectoryIsAWarning() throws Exception {
+        Files.delete(_syncDirectory.resolve(".FirstSpirit/ProjectProperties.xml"));
+        Files.delete(_syncDirectory.resolve(".FirstSpirit"));
+        final ValidationReport report = _validator.validate(_syncDirectory);
+        assertThat(report.isValid(), is(true));
+        assertThat(report.getWarnings(), hasSize(1));
+        assertThat(report.getWarnings().get(0).getMessage(), containsString(".FirstSpirit"));
+    }
+
+    @Test
+    public void allProblemsAreReported() throws Exception {
+        write("PageStore/folder/broken/StoreElement.xml", "<PAGE");
+        write("PageStore/other/StoreElement.xml", "<PAGEFOLDER uid=\"folder\"/>");
+        write(".git/config.xml", "<broken");
+        final ValidationReport report = _validator.validate(_syncDirectory);
+        assertThat(report.getProblems(), hasSize(2));
+        assertThat(report.getProblems().get(0).getPath(), is("PageStore/folder/broken/StoreElement.xml"));
+    }
+
+    @Test
+    public void emptySyncDirectory() throws Exception {
+        final ValidationReport report = _validator.validate(_temporaryFolder.newFolder("empty").toPath());
+        assertThat(report.isValid(), is(true));
+        assertThat(report.getWarnings(), hasSize(1));
+        assertThat(report.getWarnings().get(0).getPath(), is("."));
+    }
+
+    @Test
+    public void changedFilesOnly() throws Exception {
+        write("PageStore/folder/broken/StoreElement.xml", "<PAGE");
+        write("PageStore/folder/other/StoreElement.xml", "<PAGE uid=\"other\"/>");
+        final ValidationReport report = _validator.validate(_syncDirectory, Arrays.asList("PageStore/folder/other/StoreElement.xml", "PageStore/folder/page/content.xml", "PageStore/deleted/StoreElement.xml", "media.png"));
+        assertThat(report.getProblems().toString(), report.isValid(), is(true));
+        assertThat(report.getFileCount(), is(2));
+
+        final ValidationReport brokenReport = _validator.validate(_syncDirectory, Collections.singletonList("PageStore/folder/broken/StoreElement.xml"));
+        assertThat(brokenReport.getProblems(), hasSize(1));
+    }
+
+    private void write(final String path, final String content) throws Exception {
+        final Path file = _syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * *********************************************************************
+ * fsdevtools
+ * %%
+ * Copyright (C) 2016 e-Spirit AG
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * *********************************************************************
+ *
+ */
+
+package com.espirit.moddev.cli.syncdir;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SyncDirectoryViewTest {
+
+    @Rule
+    public TemporaryFolder _temporaryFolder = new TemporaryFolder();
+
+    private Path _syncDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        _syncDirectory = _temporaryFolder.newFolder("syncdir").toPath();
+        write(".FirstSpirit/ProjectProperties.xml");
+        write("PageStore/StoreElement.xml");
+        write("PageStore/folder/StoreElement.xml");
+        write("PageStore/folder/changed/StoreElement.xml");
+        write("PageStore/folder/changed/content/data.xml");
+        write("PageStore/folder/unchanged/StoreElement.xml");
+        write("PageStore/other/StoreElement.xml");
+        write("TemplateStore/StoreElement.xml");
+        write(".fs-cli/results/export-20240101-120000-000.fsr");
+    }
+
+    @Test
+    public void viewContainsChangedElementsAndParents() throws Exception {
+        try (SyncDirectoryView view = SyncDirectoryView.create(_syncDirectory, Arrays.asList("PageStore/folder/changed/content/data.xml", ".fs-cli/results/export-20240101-120000-000.fsr"))) {
+            final Path directory = view.getDirectory();
+            assertThat(view.getElementDirectories(), contains("PageStore/folder/changed"));
+            assertThat(Files.isRegularFile(directory.resolve(".FirstSpirit/ProjectProperties.xml")), is(true));
+            assertThat(Files.isRegularFile(directory.resolve("PageStore/StoreElement.xml")), is(true));
+            assertThat(Files.isRegularFile(directory.resolve("PageStore/folder/StoreElement.xml")), is(true));
+            assertThat(Files.isRegularFile(directory.resolve("PageStore/folder/changed/StoreElement.xml")), is(true));
+            assertThat(Files.isRegularFile(directory.resolve("PageStore/folder/changed/content/data.xml")), is(true));
+            assertThat(Files.exists(directory.resolve("PageStore/folder/unchanged")), is(false));
+            assertThat(Files.exists(directory.resolve("PageStore/other")), is(false));
+            assertThat(Files.exists(directory.resolve("TemplateStore")), is(false));
+            assertThat(Files.exists(directory.resolve(".fs-cli")), is(false));
+            assertThat(view.getFileCount(), is(5));
+        }
+    }
+
+    @Test
+    public void closeDeletesView() throws Exception {
+        final SyncDirectoryView view = SyncDirectoryView.create(_syncDirectory, Arrays.asList("PageStore/other/StoreElement.xml", "PageStore/missing/StoreElement.xml"));
+        assertThat(view.getElementDirectories(), contains("PageStore/other"));
+        view.close();
+        assertThat(Files.exists(view.getDirectory()), is(false));
+        assertThat(Files.isRegularFile(_syncDirectory.resolve("PageStore/other/StoreElement.xml")), is(true));
+    }
+
+    private void write(final String path) throws Exception {
+        final Path file = _syncDirectory.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, path.getBytes(StandardCharsets.UTF_8));
+    }
+}
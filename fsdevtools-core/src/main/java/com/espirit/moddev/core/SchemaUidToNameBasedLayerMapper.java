@@ -88,6 +88,21 @@ public final class SchemaUidToNameBasedLayerMapper implements LayerMapper {
         return layer;
     }
 
+    /**
+     * Returns the target layer this mapping assigns to a schema with an unknown source layer. Unlike
+     * {@link #getLayer(MappingContext)} this needs no FirstSpirit context, so the mapping can be inspected before an
+     * import, e.g. to find schemas that are imported into the same layer.
+     *
+     * @param schemaUid the uid of the schema
+     * @return the name of the target layer, {@link #CREATE_NEW} or {@code null}, if the mapping has no entry for the schema
+     */
+    public String getTargetLayer(final String schemaUid) {
+        if (map.containsKey(schemaUid)) {
+            return map.get(schemaUid);
+        }
+        return map.get(WILD_CARD);
+    }
+
     private String figureOutTargetLayer(final MappingContext context) {
         final String schemaUid = context.getSchema().getUid();
         if (map.containsKey(schemaUid)) {
@@ -43,6 +43,7 @@ import java.util.Map;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
 
@@ -110,4 +111,15 @@ public class SchemaUidToNameBasedLayerMapperTest {
         testling.getLayer(context);
     }
 
+    @Test
+    public void testGetTargetLayer() throws Exception {
+        map.put("products", "products_layer");
+        map.put("*", SchemaUidToNameBasedLayerMapper.CREATE_NEW);
+
+        final SchemaUidToNameBasedLayerMapper testling = (SchemaUidToNameBasedLayerMapper) SchemaUidToNameBasedLayerMapper.from(map);
+
+        assertThat(testling.getTargetLayer("products"), is("products_layer"));
+        assertThat(testling.getTargetLayer("news"), is(SchemaUidToNameBasedLayerMapper.CREATE_NEW));
+        assertThat(((SchemaUidToNameBasedLayerMapper) SchemaUidToNameBasedLayerMapper.empty()).getTargetLayer("news"), is(nullValue()));
+    }
 }
@@ -1,6 +1,8 @@
 package com.espirit.moddev.moduleinstaller;
 
 import com.espirit.moddev.shared.StringUtils;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import com.espirit.moddev.shared.webapp.WebAppIdentifier;
 import de.espirit.common.tools.Strings;
 import de.espirit.firstspirit.access.Connection;
@@ -42,6 +44,11 @@ import static java.util.stream.Collectors.toList;
 public class ModuleInstaller {
 
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(ModuleInstaller.class);
+    private static final Timer INSTALL_TIMER = MetricsRegistry.getDefault().timer("module_install");
+    private static final Timer INSTALL_FSM_TIMER = MetricsRegistry.getDefault().timer("module_install_fsm");
+    private static final Timer ACTIVATE_SERVICES_TIMER = MetricsRegistry.getDefault().timer("module_activate_services");
+    private static final Timer INSTALL_PROJECT_APPS_TIMER = MetricsRegistry.getDefault().timer("module_install_project_apps");
+    private static final Timer INSTALL_WEB_APPS_TIMER = MetricsRegistry.getDefault().timer("module_install_web_apps");
 
     private static boolean setActiveWebServer(final ServerConfiguration serverConfiguration, final WebAppIdentifier webScope, final Project project) {
         if (webScope.isGlobal()) {
@@ -412,10 +419,20 @@ public class ModuleInstaller {
         if (_connection == null || !_connection.isConnected()) {
             throw new IllegalStateException("Connection is null or not connected!");
         }
+        try (Timer.Context ignored = INSTALL_TIMER.time()) {
+            return installModule(parameters, deploy);
+        }
+    }
 
-        final Optional<ModuleResult> moduleResultOption = installFsm(parameters.getFsm(), parameters.getDeploy());
+    private Optional<ModuleResult> installModule(final ModuleInstallationParameters parameters, final boolean deploy) {
+        final Optional<ModuleResult> moduleResultOption;
+        try (Timer.Context ignored = INSTALL_FSM_TIMER.time()) {
+            moduleResultOption = installFsm(parameters.getFsm(), parameters.getDeploy());
+        }
         if (moduleResultOption.isPresent()) {
-            activateServices(moduleResultOption.get().getDescriptor(), parameters);
+            try (Timer.Context ignored = ACTIVATE_SERVICES_TIMER.time()) {
+                activateServices(moduleResultOption.get().getDescriptor(), parameters);
+            }
 
             String moduleName = moduleResultOption.get().getDescriptor().getName();
             LOGGER.info("Finished module installation for {}", moduleName);
@@ -428,19 +445,23 @@ public class ModuleInstaller {
             }
 
             // install project apps
-            installProjectApps(moduleDescriptor.get(), parameters);
+            try (Timer.Context ignored = INSTALL_PROJECT_APPS_TIMER.time()) {
+                installProjectApps(moduleDescriptor.get(), parameters);
+            }
 
-            if (deploy) {
-                // install and deploy project web apps
-                final boolean webAppsSuccessfullyInstalledAndDeployed = installProjectWebAppsAndDeploy(moduleDescriptor.get(), parameters);
-                if (!webAppsSuccessfullyInstalledAndDeployed) {
-                    LOGGER.error("WebApp installation and activation not successful for module {}", moduleName);
-                }
-            } else {
-                // only create configurations
-                final boolean webAppsConfigured = installProjectWebAppsAndCreateConfig(moduleDescriptor.get(), parameters);
-                if (!webAppsConfigured) {
-                    LOGGER.error("WebApp configuration not successful for module {}", moduleName);
+            try (Timer.Context ignored = INSTALL_WEB_APPS_TIMER.time()) {
+                if (deploy) {
+                    // install and deploy project web apps
+                    final boolean webAppsSuccessfullyInstalledAndDeployed = installProjectWebAppsAndDeploy(moduleDescriptor.get(), parameters);
+                    if (!webAppsSuccessfullyInstalledAndDeployed) {
+                        LOGGER.error("WebApp installation and activation not successful for module {}", moduleName);
+                    }
+                } else {
+                    // only create configurations
+                    final boolean webAppsConfigured = installProjectWebAppsAndCreateConfig(moduleDescriptor.get(), parameters);
+                    if (!webAppsConfigured) {
+                        LOGGER.error("WebApp configuration not successful for module {}", moduleName);
+                    }
                 }
             }
         }
@@ -3,6 +3,9 @@ package com.espirit.moddev.server;
 import com.espirit.moddev.connection.FsConnection;
 import com.espirit.moddev.connection.FsConnectionConfig;
 import com.espirit.moddev.connection.FsConnectionType;
+import com.espirit.moddev.shared.metrics.Gauge;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import com.espirit.moddev.util.FsUtil;
 import com.espirit.moddev.util.OsUtil;
 import de.espirit.firstspirit.access.AdminService;
@@ -38,6 +41,9 @@ public class ServerRunner {
 
 	private static final String PROCESS_PROBLEM = "Problem gathering data from FirstSpirit server process!";
 	private static final Duration LOG_LOOKUP_RETRY_WAIT = Duration.ofSeconds(1);
+	private static final Timer START_TIMER = MetricsRegistry.getDefault().timer("server_start");
+	private static final Timer STOP_TIMER = MetricsRegistry.getDefault().timer("server_stop");
+	private static final Gauge RUNNING = MetricsRegistry.getDefault().gauge("server_running");
 
 	@Nullable
 	private final Path _serverDir;
@@ -108,6 +114,13 @@ public class ServerRunner {
 	}
 
 	public void start() throws IOException {
+		try (Timer.Context ignored = START_TIMER.time()) {
+			startAndWaitForStartup();
+		}
+		RUNNING.set(1);
+	}
+
+	private void startAndWaitForStartup() throws IOException {
 		// start FirstSpirit server ...
 		startFirstSpiritServer();
 
@@ -153,6 +166,13 @@ public class ServerRunner {
 	}
 
 	public void stop(@NotNull final FsConnectionConfig config) throws IOException {
+		try (Timer.Context ignored = STOP_TIMER.time()) {
+			stopAndWaitForShutdown(config);
+		}
+		RUNNING.set(0);
+	}
+
+	private void stopAndWaitForShutdown(@NotNull final FsConnectionConfig config) throws IOException {
 		final FsConnection connection = new FsConnection(config, true);
 		connection.connect();
 		if (connection.isConnected()) {
@@ -0,0 +1,38 @@
+package com.espirit.moddev.shared.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, e.g. of exported elements. Increments are lock-free and do not contend between
+ * threads.
+ *
+ * @see MetricsRegistry#counter(String)
+ */
+public final class Counter {
+
+	private final LongAdder _count = new LongAdder();
+
+	Counter() {
+	}
+
+	public void increment() {
+		_count.increment();
+	}
+
+	/**
+	 * Adds the given amount to this counter.
+	 *
+	 * @param amount the amount to add, must not be negative
+	 * @throws IllegalArgumentException if the amount is negative
+	 */
+	public void add(final long amount) {
+		if (amount < 0) {
+			throw new IllegalArgumentException("A counter can not be decreased!");
+		}
+		_count.add(amount);
+	}
+
+	public long get() {
+		return _count.sum();
+	}
+}
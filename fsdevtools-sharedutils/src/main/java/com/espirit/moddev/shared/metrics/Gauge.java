@@ -0,0 +1,28 @@
+package com.espirit.moddev.shared.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value that can go up and down, e.g. whether a server is running. Updates are lock-free.
+ *
+ * @see MetricsRegistry#gauge(String)
+ */
+public final class Gauge {
+
+	private final AtomicLong _value = new AtomicLong();
+
+	Gauge() {
+	}
+
+	public void set(final long value) {
+		_value.set(value);
+	}
+
+	public void add(final long delta) {
+		_value.addAndGet(delta);
+	}
+
+	public long get() {
+		return _value.get();
+	}
+}
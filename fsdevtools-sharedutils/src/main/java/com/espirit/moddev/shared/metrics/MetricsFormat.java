@@ -0,0 +1,36 @@
+package com.espirit.moddev.shared.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Format of a snapshot of a {@link MetricsRegistry}.
+ */
+public enum MetricsFormat {
+
+	/**
+	 * A json object with the counters, gauges and timers by name.
+	 */
+	JSON,
+
+	/**
+	 * The text exposition format of Prometheus, e.g. for the textfile collector of the node exporter.
+	 */
+	PROMETHEUS;
+
+	/**
+	 * Parses the given format name, e.g. {@code json}.
+	 *
+	 * @param name the name of the format
+	 * @return the format
+	 * @throws IllegalArgumentException if the name is no format
+	 */
+	@NotNull
+	public static MetricsFormat parse(@NotNull final String name) {
+		for (final MetricsFormat format : values()) {
+			if (format.name().equalsIgnoreCase(name.trim())) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unknown metrics format '" + name + "' - use json or prometheus.");
+	}
+}
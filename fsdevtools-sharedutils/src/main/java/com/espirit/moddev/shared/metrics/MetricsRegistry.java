@@ -0,0 +1,211 @@
+package com.espirit.moddev.shared.metrics;
+
+import com.espirit.moddev.util.FileUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the {@link Counter counters}, {@link Gauge gauges} and {@link Timer timers} of a process. A snapshot of
+ * all metrics can be {@link #write(Writer, MetricsFormat) written} as json or in the text format of Prometheus.
+ * <p>
+ * Recording a metric is lock-free, so the metrics can stay enabled in production. Only the lookup of a metric by its
+ * name goes through a concurrent map, so frequently recorded metrics should be looked up once and kept in a constant:
+ * <pre>{@code
+ * private static final Timer EXPORT_TIMER = MetricsRegistry.getDefault().timer("export_operation");
+ * }</pre>
+ */
+public final class MetricsRegistry {
+
+	/**
+	 * Prefix of the metric names in the {@link MetricsFormat#PROMETHEUS Prometheus format}.
+	 */
+	public static final String PROMETHEUS_NAMESPACE = "fsdevtools_";
+
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+	private static final Pattern NAME_PATTERN = Pattern.compile("[a-z][a-z0-9_]*");
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+	private final ConcurrentMap<String, Object> _metrics = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates an empty registry, e.g. for tests. The metrics of the process are recorded in the
+	 * {@link #getDefault() default registry}.
+	 */
+	public MetricsRegistry() {
+	}
+
+	/**
+	 * Returns the registry of this process.
+	 *
+	 * @return the default registry
+	 */
+	@NotNull
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the counter of the given name, which is created on the first call.
+	 *
+	 * @param name the name of the counter, lower case letters, digits and underscores
+	 * @return the counter
+	 * @throws IllegalArgumentException if the name is invalid or belongs to another type of metric
+	 */
+	@NotNull
+	public Counter counter(@NotNull final String name) {
+		return get(name, Counter.class);
+	}
+
+	/**
+	 * Returns the gauge of the given name, which is created on the first call.
+	 *
+	 * @param name the name of the gauge, lower case letters, digits and underscores
+	 * @return the gauge
+	 * @throws IllegalArgumentException if the name is invalid or belongs to another type of metric
+	 */
+	@NotNull
+	public Gauge gauge(@NotNull final String name) {
+		return get(name, Gauge.class);
+	}
+
+	/**
+	 * Returns the timer of the given name, which is created on the first call.
+	 *
+	 * @param name the name of the timer, lower case letters, digits and underscores
+	 * @return the timer
+	 * @throws IllegalArgumentException if the name is invalid or belongs to another type of metric
+	 */
+	@NotNull
+	public Timer timer(@NotNull final String name) {
+		return get(name, Timer.class);
+	}
+
+	@NotNull
+	private <T> T get(@NotNull final String name, @NotNull final Class<T> type) {
+		Object metric = _metrics.get(name);
+		if (metric == null) {
+			if (!NAME_PATTERN.matcher(name).matches()) {
+				throw new IllegalArgumentException("Invalid metric name '" + name + "' - use lower case letters, digits and underscores.");
+			}
+			metric = _metrics.computeIfAbsent(name, key -> create(type));
+		}
+		if (!type.isInstance(metric)) {
+			throw new IllegalArgumentException("The metric '" + name + "' is a " + metric.getClass().getSimpleName().toLowerCase(Locale.UK)
+					+ ", not a " + type.getSimpleName().toLowerCase(Locale.UK) + '.');
+		}
+		return type.cast(metric);
+	}
+
+	@NotNull
+	private static Object create(@NotNull final Class<?> type) {
+		if (type == Counter.class) {
+			return new Counter();
+		}
+		if (type == Gauge.class) {
+			return new Gauge();
+		}
+		return new Timer();
+	}
+
+	/**
+	 * Writes a snapshot of all metrics, sorted by name, to the given writer.
+	 *
+	 * @param writer the writer, which is neither flushed nor closed
+	 * @param format the format of the snapshot
+	 * @throws IOException if the snapshot can not be written
+	 */
+	public void write(@NotNull final Writer writer, @NotNull final MetricsFormat format) throws IOException {
+		final Map<String, Object> metrics = new TreeMap<>(_metrics);
+		if (format == MetricsFormat.JSON) {
+			writeJson(writer, metrics);
+		} else {
+			writePrometheus(writer, metrics);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of all metrics to the given file. The file is replaced atomically, so readers never see a
+	 * partially written snapshot.
+	 *
+	 * @param file   the file
+	 * @param format the format of the snapshot
+	 * @throws IOException if the file can not be written
+	 */
+	public void write(@NotNull final Path file, @NotNull final MetricsFormat format) throws IOException {
+		FileUtil.writeAtomically(file, writer -> write(writer, format));
+	}
+
+	private static void writeJson(@NotNull final Writer writer, @NotNull final Map<String, Object> metrics) throws IOException {
+		// the names need no escaping, see NAME_PATTERN
+		writer.write("{\n  \"counters\": {");
+		String separator = "\n";
+		for (final Map.Entry<String, Object> entry : metrics.entrySet()) {
+			if (entry.getValue() instanceof Counter) {
+				writer.write(separator + "    \"" + entry.getKey() + "\": " + ((Counter) entry.getValue()).get());
+				separator = ",\n";
+			}
+		}
+		writer.write("\n  },\n  \"gauges\": {");
+		separator = "\n";
+		for (final Map.Entry<String, Object> entry : metrics.entrySet()) {
+			if (entry.getValue() instanceof Gauge) {
+				writer.write(separator + "    \"" + entry.getKey() + "\": " + ((Gauge) entry.getValue()).get());
+				separator = ",\n";
+			}
+		}
+		writer.write("\n  },\n  \"timers\": {");
+		separator = "\n";
+		for (final Map.Entry<String, Object> entry : metrics.entrySet()) {
+			if (entry.getValue() instanceof Timer) {
+				final Timer.Snapshot snapshot = ((Timer) entry.getValue()).snapshot();
+				writer.write(separator + "    \"" + entry.getKey() + "\": {\"count\": " + snapshot.getCount()
+						+ ", \"sumSeconds\": " + toSeconds(snapshot.getSumNanos())
+						+ ", \"maxSeconds\": " + toSeconds(snapshot.getMaxNanos()));
+				for (final double quantile : QUANTILES) {
+					writer.write(", \"p" + Math.round(quantile * 100) + "Seconds\": " + toSeconds(snapshot.getPercentileNanos(quantile)));
+				}
+				writer.write("}");
+				separator = ",\n";
+			}
+		}
+		writer.write("\n  }\n}\n");
+	}
+
+	private static void writePrometheus(@NotNull final Writer writer, @NotNull final Map<String, Object> metrics) throws IOException {
+		for (final Map.Entry<String, Object> entry : metrics.entrySet()) {
+			final String name = PROMETHEUS_NAMESPACE + entry.getKey();
+			final Object metric = entry.getValue();
+			if (metric instanceof Counter) {
+				writer.write("# TYPE " + name + "_total counter\n");
+				writer.write(name + "_total " + ((Counter) metric).get() + '\n');
+			} else if (metric instanceof Gauge) {
+				writer.write("# TYPE " + name + " gauge\n");
+				writer.write(name + ' ' + ((Gauge) metric).get() + '\n');
+			} else {
+				final Timer.Snapshot snapshot = ((Timer) metric).snapshot();
+				writer.write("# TYPE " + name + "_seconds summary\n");
+				for (final double quantile : QUANTILES) {
+					writer.write(name + "_seconds{quantile=\"" + quantile + "\"} " + toSeconds(snapshot.getPercentileNanos(quantile)) + '\n');
+				}
+				writer.write(name + "_seconds_sum " + toSeconds(snapshot.getSumNanos()) + '\n');
+				writer.write(name + "_seconds_count " + snapshot.getCount() + '\n');
+				writer.write("# TYPE " + name + "_seconds_max gauge\n");
+				writer.write(name + "_seconds_max " + toSeconds(snapshot.getMaxNanos()) + '\n');
+			}
+		}
+	}
+
+	private static double toSeconds(final long nanos) {
+		return (double) nanos / TimeUnit.SECONDS.toNanos(1);
+	}
+}
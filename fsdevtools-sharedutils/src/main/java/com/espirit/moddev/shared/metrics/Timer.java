@@ -0,0 +1,174 @@
+package com.espirit.moddev.shared.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations in a histogram with logarithmic buckets, like an HdrHistogram: every power of two is divided into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so the percentiles are precise to about 6% over the whole range of
+ * {@code long} nanoseconds, with a fixed memory of a few kilobytes per timer.
+ * <p>
+ * Recording is lock-free: it increments a bucket and adds to the sum without blocking other threads. A
+ * {@link #snapshot() snapshot} reads the buckets one by one, so a snapshot taken while durations are recorded may
+ * count a concurrent duration in its bucket but not yet in its sum.
+ *
+ * @see MetricsRegistry#timer(String)
+ */
+public final class Timer {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// the buckets of the largest duration of Long.MAX_VALUE nanoseconds
+	static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder _sumNanos = new LongAdder();
+	private final AtomicLong _maxNanos = new AtomicLong();
+
+	Timer() {
+	}
+
+	/**
+	 * Records the given duration. Negative durations, e.g. of a clock that has been set back, are recorded as zero.
+	 *
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(final long nanos) {
+		final long duration = Math.max(0, nanos);
+		_buckets.incrementAndGet(getBucket(duration));
+		_sumNanos.add(duration);
+		long max = _maxNanos.get();
+		while (duration > max && !_maxNanos.compareAndSet(max, duration)) {
+			max = _maxNanos.get();
+		}
+	}
+
+	/**
+	 * Starts to time a section, which is recorded when the returned context is closed:
+	 * <pre>{@code
+	 * try (Timer.Context ignored = TIMER.time()) {
+	 *     ...
+	 * }
+	 * }</pre>
+	 *
+	 * @return the context of the timed section
+	 */
+	@NotNull
+	public Context time() {
+		return new Context(this, System.nanoTime());
+	}
+
+	/**
+	 * Returns the current counts, sum, maximum and percentiles of this timer.
+	 *
+	 * @return the snapshot
+	 */
+	@NotNull
+	public Snapshot snapshot() {
+		final long[] buckets = new long[BUCKETS];
+		long count = 0;
+		for (int index = 0; index < BUCKETS; index++) {
+			buckets[index] = _buckets.get(index);
+			count += buckets[index];
+		}
+		return new Snapshot(buckets, count, _sumNanos.sum(), _maxNanos.get());
+	}
+
+	static int getBucket(final long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Returns the largest duration of the given bucket.
+	 */
+	static long getUpperBound(final int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		final int shift = bucket / SUB_BUCKETS - 1;
+		final long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+
+	/**
+	 * A timed section, see {@link #time()}.
+	 */
+	public static final class Context implements AutoCloseable {
+
+		private final Timer _timer;
+		private final long _startNanos;
+
+		private Context(@NotNull final Timer timer, final long startNanos) {
+			_timer = timer;
+			_startNanos = startNanos;
+		}
+
+		/**
+		 * Records the time since the start of this section.
+		 */
+		@Override
+		public void close() {
+			_timer.record(System.nanoTime() - _startNanos);
+		}
+	}
+
+	/**
+	 * The state of a timer at a point in time.
+	 */
+	public static final class Snapshot {
+
+		private final long[] _buckets;
+		private final long _count;
+		private final long _sumNanos;
+		private final long _maxNanos;
+
+		private Snapshot(@NotNull final long[] buckets, final long count, final long sumNanos, final long maxNanos) {
+			_buckets = buckets;
+			_count = count;
+			_sumNanos = sumNanos;
+			_maxNanos = maxNanos;
+		}
+
+		public long getCount() {
+			return _count;
+		}
+
+		public long getSumNanos() {
+			return _sumNanos;
+		}
+
+		public long getMaxNanos() {
+			return _maxNanos;
+		}
+
+		/**
+		 * Returns the given percentile of the recorded durations, e.g. the median for {@code 0.5}. The percentile is
+		 * the upper bound of its bucket, but never more than the maximum.
+		 *
+		 * @param quantile the quantile between 0 and 1
+		 * @return the percentile in nanoseconds or {@code 0}, if no duration has been recorded
+		 * @throws IllegalArgumentException if the quantile is not between 0 and 1
+		 */
+		public long getPercentileNanos(final double quantile) {
+			if (quantile < 0 || quantile > 1) {
+				throw new IllegalArgumentException("The quantile must be between 0 and 1!");
+			}
+			final long rank = Math.max(1, (long) Math.ceil(quantile * _count));
+			long count = 0;
+			for (int index = 0; index < _buckets.length; index++) {
+				count += _buckets[index];
+				if (count >= rank) {
+					return Math.min(getUpperBound(index), _maxNanos);
+				}
+			}
+			return 0;
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package com.espirit.moddev.util;
 
+import com.espirit.moddev.shared.metrics.Counter;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
@@ -27,6 +30,9 @@ public enum ArchiveUtil {
 	;
 
 	private static final int BUFFER_SIZE = 4096;
+	private static final Timer DECOMPRESS_JAR_ENTRY_TIMER = MetricsRegistry.getDefault().timer("archive_decompress_jar_entry");
+	private static final Timer DECOMPRESS_TAR_GZ_TIMER = MetricsRegistry.getDefault().timer("archive_decompress_tar_gz");
+	private static final Counter DECOMPRESSED_BYTES = MetricsRegistry.getDefault().counter("archive_decompressed_bytes");
 
 	@NotNull
 	private static BufferedInputStream createBufferedInputStream(@NotNull final Path path) throws FileNotFoundException {
@@ -74,12 +80,15 @@ public enum ArchiveUtil {
 			FileUtil.mkDirs(target.getParent());
 			// extract the file, if we have a file
 			int count;
+			long bytes = 0;
 			final byte[] data = new byte[BUFFER_SIZE];
 			try (final OutputStream dest = createBufferedOutputStream(BUFFER_SIZE, target)) {
 				while ((count = inputStream.read(data, 0, BUFFER_SIZE)) != -1) {
 					dest.write(data, 0, count);
+					bytes += count;
 				}
 			}
+			DECOMPRESSED_BYTES.add(bytes);
 		}
 	}
 
@@ -92,6 +101,12 @@ public enum ArchiveUtil {
 	 * @throws IOException if an I/O error occurs
 	 */
 	public static void decompressJarEntry(@NotNull final Path jarFile, @NotNull final String entryPath, @NotNull final Path targetFile) throws IOException {
+		try (Timer.Context ignored = DECOMPRESS_JAR_ENTRY_TIMER.time()) {
+			decompressJarEntryUntimed(jarFile, entryPath, targetFile);
+		}
+	}
+
+	private static void decompressJarEntryUntimed(@NotNull final Path jarFile, @NotNull final String entryPath, @NotNull final Path targetFile) throws IOException {
 		final URL url = new URL("jar:file:" + jarFile.toAbsolutePath() + "!/" + entryPath);
 		final JarURLConnection connection = (JarURLConnection) url.openConnection();
 		// turn off caching, this will result in closing the jar file after decompression
@@ -106,10 +121,13 @@ public enum ArchiveUtil {
 		try (final BufferedInputStream inputStream = new BufferedInputStream(openedJarFile.getInputStream(jarEntry), BUFFER_SIZE)) {
 			try (final BufferedOutputStream outputStream = createBufferedOutputStream(BUFFER_SIZE, targetFile)) {
 				int count;
+				long bytes = 0;
 				final byte[] data = new byte[BUFFER_SIZE];
 				while ((count = inputStream.read(data, 0, BUFFER_SIZE)) != -1) {
 					outputStream.write(data, 0, count);
+					bytes += count;
 				}
+				DECOMPRESSED_BYTES.add(bytes);
 			}
 		}
 		openedJarFile.close();
@@ -126,7 +144,8 @@ public enum ArchiveUtil {
 	 */
 	public static void decompressTarGz(@NotNull final Path sourceFile, @NotNull final Path targetDir) throws IOException {
 		FileUtil.mkDirs(targetDir);
-		try (final ArchiveInputStream inputStream = new TarArchiveInputStream(new GzipCompressorInputStream(createBufferedInputStream(sourceFile)))) {
+		try (Timer.Context ignored = DECOMPRESS_TAR_GZ_TIMER.time();
+				final ArchiveInputStream inputStream = new TarArchiveInputStream(new GzipCompressorInputStream(createBufferedInputStream(sourceFile)))) {
 			decompressArchiveEntries(targetDir, inputStream);
 		}
 	}
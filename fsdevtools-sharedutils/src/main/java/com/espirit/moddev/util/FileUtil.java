@@ -1,14 +1,24 @@
 package com.espirit.moddev.util;
 
+import com.espirit.moddev.shared.metrics.Counter;
+import com.espirit.moddev.shared.metrics.MetricsRegistry;
+import com.espirit.moddev.shared.metrics.Timer;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 
@@ -18,6 +28,10 @@ import java.util.Collection;
 public enum FileUtil {
 	;
 
+	private static final Timer MOVE_TIMER = MetricsRegistry.getDefault().timer("file_move_contents_up");
+	private static final Timer DELETE_TIMER = MetricsRegistry.getDefault().timer("file_delete_directory");
+	private static final Counter DELETED_FILES = MetricsRegistry.getDefault().counter("file_deleted_files");
+
 	/**
 	 * Moves the content of the given {@link Path path} on directory up.
 	 * If the given path is a directory, all contents of the directory will be moved - but the given directory will stay at its current location.
@@ -26,25 +40,27 @@ public enum FileUtil {
 	 * @throws IOException If move operation could not be performed
 	 */
 	public static void moveContentsUp(@NotNull final Path path) throws IOException {
-		final File file = path.toFile();
-		final Path newParent = path.toAbsolutePath().getParent();
-		if (newParent == null) {
-			throw new IllegalStateException("Parent of '" + path.toAbsolutePath() + "' is null!");
-		}
-		if (file.isDirectory()) {
-			// move all contents of the directory
-			final File[] children = file.listFiles();
-			if (children != null) {
-				for (final File child : children) {
-					final Path newPath = newParent.resolve(child.getName());
-					if (!child.renameTo(newPath.toFile())) {
-						throw new IOException("Renaming file '" + child.getAbsolutePath() + "' to '" + newPath.toAbsolutePath() + "' failed!");
+		try (Timer.Context ignored = MOVE_TIMER.time()) {
+			final File file = path.toFile();
+			final Path newParent = path.toAbsolutePath().getParent();
+			if (newParent == null) {
+				throw new IllegalStateException("Parent of '" + path.toAbsolutePath() + "' is null!");
+			}
+			if (file.isDirectory()) {
+				// move all contents of the directory
+				final File[] children = file.listFiles();
+				if (children != null) {
+					for (final File child : children) {
+						final Path newPath = newParent.resolve(child.getName());
+						if (!child.renameTo(newPath.toFile())) {
+							throw new IOException("Renaming file '" + child.getAbsolutePath() + "' to '" + newPath.toAbsolutePath() + "' failed!");
+						}
 					}
 				}
+			} else {
+				// directly move the file
+				Files.move(path, newParent.resolve(path.getFileName()));
 			}
-		} else {
-			// directly move the file
-			Files.move(path, newParent.resolve(path.getFileName()));
 		}
 	}
 
@@ -59,20 +75,23 @@ public enum FileUtil {
 		if (!path.toFile().exists()) {
 			return;
 		}
-		Files.walkFileTree(path,
-				new SimpleFileVisitor<Path>() {
-					@Override
-					public FileVisitResult postVisitDirectory(@NotNull final Path dir, @NotNull final IOException exc) throws IOException {
-						Files.delete(dir);
-						return FileVisitResult.CONTINUE;
-					}
+		try (Timer.Context ignored = DELETE_TIMER.time()) {
+			Files.walkFileTree(path,
+					new SimpleFileVisitor<Path>() {
+						@Override
+						public FileVisitResult postVisitDirectory(@NotNull final Path dir, @NotNull final IOException exc) throws IOException {
+							Files.delete(dir);
+							return FileVisitResult.CONTINUE;
+						}
 
-					@Override
-					public FileVisitResult visitFile(@NotNull final Path file, @NotNull final BasicFileAttributes attrs) throws IOException {
-						Files.delete(file);
-						return FileVisitResult.CONTINUE;
-					}
-				});
+						@Override
+						public FileVisitResult visitFile(@NotNull final Path file, @NotNull final BasicFileAttributes attrs) throws IOException {
+							Files.delete(file);
+							DELETED_FILES.increment();
+							return FileVisitResult.CONTINUE;
+						}
+					});
+		}
 	}
 
 	/**
@@ -127,4 +146,45 @@ public enum FileUtil {
 		}
 	}
 
+	/**
+	 * Writes a text file in UTF-8, which is replaced atomically: the content is written to a temporary file in the same
+	 * directory first, so readers, e.g. concurrent cli runs, never see a partially written file. Missing parent
+	 * directories are created.
+	 *
+	 * @param file    the file to write
+	 * @param content writes the content, the writer is closed afterwards and may also be closed by the content
+	 * @throws IOException if the file could not be written, the file is unchanged then
+	 */
+	public static void writeAtomically(@NotNull final Path file, @NotNull final IOConsumer<Writer> content) throws IOException {
+		writeBytesAtomically(file, outputStream -> {
+			try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+				content.accept(writer);
+			}
+		});
+	}
+
+	/**
+	 * Writes a binary file, which is replaced atomically like by {@link #writeAtomically(Path, IOConsumer)}.
+	 *
+	 * @param file    the file to write
+	 * @param content writes the content, the buffered stream is closed afterwards and may also be closed by the content
+	 * @throws IOException if the file could not be written, the file is unchanged then
+	 */
+	public static void writeBytesAtomically(@NotNull final Path file, @NotNull final IOConsumer<OutputStream> content) throws IOException {
+		final Path directory = file.toAbsolutePath().getParent();
+		if (directory == null) {
+			throw new IllegalArgumentException("Parent of '" + file.toAbsolutePath() + "' is null!");
+		}
+		Files.createDirectories(directory);
+		final Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryFile))) {
+				content.accept(outputStream);
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
 }
\ No newline at end of file
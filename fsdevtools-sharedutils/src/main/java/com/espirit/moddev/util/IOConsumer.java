@@ -0,0 +1,20 @@
+package com.espirit.moddev.util;
+
+import java.io.IOException;
+
+/**
+ * A {@link java.util.function.Consumer consumer} that may throw an {@link IOException}.
+ *
+ * @param <T> the type of the input
+ */
+@FunctionalInterface
+public interface IOConsumer<T> {
+
+	/**
+	 * Performs this operation on the given argument.
+	 *
+	 * @param t the input argument
+	 * @throws IOException if an I/O error occurs
+	 */
+	void accept(T t) throws IOException;
+}
@@ -0,0 +1,139 @@
+package com.espirit.moddev.shared.metrics;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+	@Rule
+	public TemporaryFolder _temp = new TemporaryFolder();
+
+	@Test
+	public void bucketsCoverTheirValues() {
+		final long[] values = {0, 1, 15, 16, 17, 31, 32, 1000, TimeUnit.SECONDS.toNanos(1), Long.MAX_VALUE / 3, Long.MAX_VALUE};
+		for (final long value : values) {
+			final int bucket = Timer.getBucket(value);
+			assertTrue("bucket of " + value, bucket >= 0 && bucket < Timer.BUCKETS);
+			assertTrue("upper bound of " + value, Timer.getUpperBound(bucket) >= value);
+			assertTrue("lower bound of " + value, bucket == 0 || Timer.getUpperBound(bucket - 1) < value);
+			// the relative error of a bucket is at most 1 / SUB_BUCKETS
+			assertTrue("precision of " + value, Timer.getUpperBound(bucket) - value <= value / Timer.SUB_BUCKETS);
+		}
+		assertEquals(Timer.BUCKETS - 1, Timer.getBucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void percentiles() {
+		final Timer timer = new MetricsRegistry().timer("test");
+		for (long millis = 1; millis <= 100; millis++) {
+			timer.record(TimeUnit.MILLISECONDS.toNanos(millis));
+		}
+		final Timer.Snapshot snapshot = timer.snapshot();
+		assertEquals(100, snapshot.getCount());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), snapshot.getSumNanos());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), snapshot.getMaxNanos());
+		assertWithinPercent(TimeUnit.MILLISECONDS.toNanos(50), snapshot.getPercentileNanos(0.5));
+		assertWithinPercent(TimeUnit.MILLISECONDS.toNanos(99), snapshot.getPercentileNanos(0.99));
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(100), snapshot.getPercentileNanos(1));
+		assertEquals(0, new MetricsRegistry().timer("empty").snapshot().getPercentileNanos(0.5));
+	}
+
+	@Test
+	public void concurrentRecording() throws Exception {
+		final MetricsRegistry registry = new MetricsRegistry();
+		final List<Thread> threads = new ArrayList<>();
+		for (int thread = 0; thread < 4; thread++) {
+			threads.add(new Thread(() -> {
+				for (int index = 0; index < 10000; index++) {
+					registry.counter("events").increment();
+					registry.timer("durations").record(index);
+				}
+			}));
+		}
+		for (final Thread thread : threads) {
+			thread.start();
+		}
+		for (final Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(40000, registry.counter("events").get());
+		assertEquals(40000, registry.timer("durations").snapshot().getCount());
+		assertEquals(9999, registry.timer("durations").snapshot().getMaxNanos());
+	}
+
+	@Test
+	public void metricsAreRegisteredOnce() {
+		final MetricsRegistry registry = new MetricsRegistry();
+		assertSame(registry.counter("a"), registry.counter("a"));
+		assertSame(registry.gauge("b"), registry.gauge("b"));
+		assertSame(registry.timer("c"), registry.timer("c"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void nameOfAnotherTypeIsRejected() {
+		final MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("a");
+		registry.timer("a");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidNameIsRejected() {
+		new MetricsRegistry().counter("export.elements");
+	}
+
+	@Test
+	public void json() throws Exception {
+		final MetricsRegistry registry = createRegistry();
+		final StringWriter writer = new StringWriter();
+		registry.write(writer, MetricsFormat.JSON);
+		assertEquals("{\n"
+				+ "  \"counters\": {\n"
+				+ "    \"export_elements\": 3\n"
+				+ "  },\n"
+				+ "  \"gauges\": {\n"
+				+ "    \"server_running\": 1\n"
+				+ "  },\n"
+				+ "  \"timers\": {\n"
+				+ "    \"export_operation\": {\"count\": 1, \"sumSeconds\": 2.0, \"maxSeconds\": 2.0, \"p50Seconds\": 2.0, \"p90Seconds\": 2.0, \"p99Seconds\": 2.0}\n"
+				+ "  }\n"
+				+ "}\n", writer.toString());
+	}
+
+	@Test
+	public void prometheus() throws Exception {
+		final MetricsRegistry registry = createRegistry();
+		final Path file = _temp.getRoot().toPath().resolve("metrics/fs-cli.prom");
+		registry.write(file, MetricsFormat.PROMETHEUS);
+		final String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		assertTrue(text, text.contains("# TYPE fsdevtools_export_elements_total counter\nfsdevtools_export_elements_total 3\n"));
+		assertTrue(text, text.contains("# TYPE fsdevtools_server_running gauge\nfsdevtools_server_running 1\n"));
+		assertTrue(text, text.contains("fsdevtools_export_operation_seconds{quantile=\"0.99\"} 2.0\n"));
+		assertTrue(text, text.contains("fsdevtools_export_operation_seconds_count 1\n"));
+		assertTrue(text, text.contains("fsdevtools_export_operation_seconds_max 2.0\n"));
+	}
+
+	private static MetricsRegistry createRegistry() {
+		final MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("export_elements").add(3);
+		registry.gauge("server_running").set(1);
+		registry.timer("export_operation").record(TimeUnit.SECONDS.toNanos(2));
+		return registry;
+	}
+
+	private static void assertWithinPercent(final long expected, final long actual) {
+		assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / Timer.SUB_BUCKETS);
+	}
+}
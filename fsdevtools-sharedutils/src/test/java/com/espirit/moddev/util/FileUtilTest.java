@@ -7,10 +7,18 @@ import org.junit.rules.TemporaryFolder;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FileUtilTest {
 
@@ -68,4 +76,30 @@ public class FileUtilTest {
 		assertTrue("file should have been created", pathToCreate.toFile().exists());
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void writeAtomically() throws IOException {
+		final Path file = _temp.getRoot().toPath().resolve("sub").resolve("file.txt");
+		FileUtil.writeAtomically(file, writer -> writer.write("first"));
+		FileUtil.writeAtomically(file, writer -> writer.write("second \u00e4"));
+		assertEquals("second \u00e4", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		// a failed write keeps the previous content and leaves no temporary file
+		try {
+			FileUtil.writeBytesAtomically(file, outputStream -> {
+				outputStream.write(1);
+				throw new IOException("failed");
+			});
+			fail("An IOException is expected.");
+		} catch (final IOException e) {
+			assertEquals("failed", e.getMessage());
+		}
+		assertEquals("second \u00e4", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		assertEquals(Collections.singletonList(file), listFiles(file.getParent()));
+	}
+
+	private static List<Path> listFiles(final Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.collect(Collectors.toList());
+		}
+	}
+
+}